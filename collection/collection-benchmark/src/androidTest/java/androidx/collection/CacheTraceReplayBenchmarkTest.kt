@@ -0,0 +1,130 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection
+
+import android.util.Log
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import org.junit.runners.Parameterized.Parameters
+import kotlin.math.pow
+import kotlin.random.Random
+
+/**
+ * Replays synthetic access traces against [LruCache] with and without the frequency-aware
+ * admission policy, measuring both replay time and hit ratio.
+ */
+@RunWith(Parameterized::class)
+class CacheTraceReplayBenchmarkTest(
+    private val trace: String,
+    private val frequencyAware: Boolean
+) {
+    private val keys: IntArray = when (trace) {
+        "zipf" -> zipfTrace(TRACE_LENGTH)
+        "zipfWithScans" -> zipfWithScansTrace(TRACE_LENGTH)
+        "loop" -> IntArray(TRACE_LENGTH) { it % (CACHE_SIZE * 3 / 2) }
+        else -> throw IllegalArgumentException(trace)
+    }
+
+    @get:Rule
+    val benchmark = BenchmarkRule()
+
+    @Test fun replay() {
+        benchmark.measureRepeated {
+            val cache = runWithTimingDisabled { LruCache<Int, Int>(CACHE_SIZE, frequencyAware) }
+            replay(cache)
+        }
+    }
+
+    @Test fun hitRatio() {
+        val hitRatio = hitRatio(frequencyAware)
+        Log.i(TAG, "trace=$trace frequencyAware=$frequencyAware hitRatio=$hitRatio")
+        if (frequencyAware && trace != "zipf") {
+            // Scans and loops larger than the cache are where plain LRU degrades.
+            assertTrue(hitRatio >= hitRatio(false))
+        }
+    }
+
+    private fun hitRatio(frequencyAware: Boolean): Double {
+        val cache = LruCache<Int, Int>(CACHE_SIZE, frequencyAware)
+        replay(cache)
+        return cache.hitCount().toDouble() / (cache.hitCount() + cache.missCount())
+    }
+
+    private fun replay(cache: LruCache<Int, Int>) {
+        for (key in keys) {
+            if (cache.get(key) == null) {
+                cache.put(key, key)
+            }
+        }
+    }
+
+    companion object {
+        private const val TAG = "CacheTraceReplay"
+        private const val CACHE_SIZE = 500
+        private const val TRACE_LENGTH = 100_000
+        private const val KEY_SPACE = 10_000
+
+        @JvmStatic
+        @Parameters(name = "trace={0},frequencyAware={1}")
+        fun parameters() = buildParameters(
+            listOf("zipf", "zipfWithScans", "loop"),
+            listOf(false, true)
+        )
+
+        /** Keys drawn from a Zipf(1) distribution, like thumbnails on a typical feed. */
+        private fun zipfTrace(length: Int): IntArray {
+            // Despite the fixed seed, the algorithm which produces random values may vary across
+            // OS versions. Since we're not doing cross-device comparison this is acceptable.
+            val random = Random(0)
+            val cumulative = DoubleArray(KEY_SPACE)
+            var sum = 0.0
+            for (i in 0 until KEY_SPACE) {
+                sum += 1.0 / (i + 1).toDouble().pow(1.0)
+                cumulative[i] = sum
+            }
+            return IntArray(length) {
+                val target = random.nextDouble() * sum
+                val index = cumulative.binarySearch(target)
+                if (index >= 0) index else -index - 1
+            }
+        }
+
+        /** A Zipf trace interrupted by one-off scans, like a fast fling through a long list. */
+        private fun zipfWithScansTrace(length: Int): IntArray {
+            val keys = zipfTrace(length)
+            var scanKey = KEY_SPACE
+            var i = 0
+            while (i < length) {
+                // Every 10k accesses, replace the next 2k with never-repeated keys.
+                if (i % 10_000 == 5_000) {
+                    val end = minOf(length, i + 2_000)
+                    while (i < end) {
+                        keys[i++] = scanKey++
+                    }
+                } else {
+                    i++
+                }
+            }
+            return keys
+        }
+    }
+}
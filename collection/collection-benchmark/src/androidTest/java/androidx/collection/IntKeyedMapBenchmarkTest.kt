@@ -0,0 +1,135 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import org.junit.runners.Parameterized.Parameters
+import kotlin.random.Random
+
+/**
+ * Compares the hash-based [IntObjectMap] and [IntIntMap] against the binary-search based
+ * [SparseArrayCompat] and a boxed [HashMap] for the same random set of keys.
+ */
+@RunWith(Parameterized::class)
+class IntKeyedMapBenchmarkTest(size: Int, private val container: String) {
+    // Despite the fixed seed, the algorithm which produces random values may vary across
+    // OS versions. Since we're not doing cross-device comparison this is acceptable.
+    private val keys = IntArray(size).apply {
+        val random = Random(0)
+        for (i in indices) {
+            this[i] = random.nextInt()
+        }
+    }
+
+    @get:Rule
+    val benchmark = BenchmarkRule()
+
+    @Test fun fill() {
+        when (container) {
+            "IntObjectMap" -> benchmark.measureRepeated {
+                val map = IntObjectMap<String>()
+                for (key in keys) map.put(key, VALUE)
+            }
+            "IntIntMap" -> benchmark.measureRepeated {
+                val map = IntIntMap()
+                for (key in keys) map.put(key, key)
+            }
+            "SparseArrayCompat" -> benchmark.measureRepeated {
+                val map = SparseArrayCompat<String>()
+                for (key in keys) map.put(key, VALUE)
+            }
+            "HashMap" -> benchmark.measureRepeated {
+                val map = HashMap<Int, String>()
+                for (key in keys) map[key] = VALUE
+            }
+        }
+    }
+
+    @Test fun get() {
+        val lastKey = keys.last()
+        when (container) {
+            "IntObjectMap" -> {
+                val map = IntObjectMap<String>().apply { for (key in keys) put(key, VALUE) }
+                benchmark.measureRepeated { map.get(lastKey) }
+            }
+            "IntIntMap" -> {
+                val map = IntIntMap().apply { for (key in keys) put(key, key) }
+                benchmark.measureRepeated { map.get(lastKey) }
+            }
+            "SparseArrayCompat" -> {
+                val map = SparseArrayCompat<String>().apply { for (key in keys) put(key, VALUE) }
+                benchmark.measureRepeated { map.get(lastKey) }
+            }
+            "HashMap" -> {
+                val map = HashMap<Int, String>().apply { for (key in keys) put(key, VALUE) }
+                benchmark.measureRepeated { map[lastKey] }
+            }
+        }
+    }
+
+    @Test fun removeAndPut() {
+        val target = keys[keys.size / 2]
+        when (container) {
+            "IntObjectMap" -> {
+                val map = IntObjectMap<String>().apply { for (key in keys) put(key, VALUE) }
+                benchmark.measureRepeated {
+                    map.remove(target)
+                    map.put(target, VALUE)
+                }
+            }
+            "IntIntMap" -> {
+                val map = IntIntMap().apply { for (key in keys) put(key, key) }
+                benchmark.measureRepeated {
+                    map.remove(target)
+                    map.put(target, target)
+                }
+            }
+            "SparseArrayCompat" -> {
+                val map = SparseArrayCompat<String>().apply { for (key in keys) put(key, VALUE) }
+                benchmark.measureRepeated {
+                    map.remove(target)
+                    // Force the deleted slot to be compacted so that the put pays for shifting.
+                    map.size()
+                    map.put(target, VALUE)
+                }
+            }
+            "HashMap" -> {
+                val map = HashMap<Int, String>().apply { for (key in keys) put(key, VALUE) }
+                benchmark.measureRepeated {
+                    map.remove(target)
+                    map[target] = VALUE
+                }
+            }
+        }
+    }
+
+    companion object {
+        private const val VALUE = "value"
+
+        @JvmStatic
+        @Parameters(name = "size={0},container={1}")
+        fun parameters() = buildParameters(
+            listOf(10, 100, 1_000, 10_000, 100_000),
+            listOf("IntObjectMap", "IntIntMap", "SparseArrayCompat", "HashMap")
+        )
+    }
+}
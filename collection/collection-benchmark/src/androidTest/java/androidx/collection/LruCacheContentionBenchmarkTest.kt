@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import org.junit.runners.Parameterized.Parameters
+import kotlin.concurrent.thread
+import kotlin.random.Random
+
+/**
+ * Measures the latency of cache operations on the benchmark thread while [contenders]
+ * background threads continuously read from and write to the same cache.
+ */
+@RunWith(Parameterized::class)
+class LruCacheContentionBenchmarkTest(
+    private val cacheType: String,
+    private val contenders: Int
+) {
+    private val get: (Int) -> String?
+    private val put: (Int, String) -> Unit
+
+    init {
+        when (cacheType) {
+            "LruCache" -> {
+                val cache = LruCache<Int, String>(CACHE_SIZE)
+                get = { cache.get(it) }
+                put = { key, value -> cache.put(key, value) }
+            }
+            "ConcurrentLruCache" -> {
+                val cache = ConcurrentLruCache<Int, String>(CACHE_SIZE)
+                get = { cache.get(it) }
+                put = { key, value -> cache.put(key, value) }
+            }
+            else -> throw IllegalArgumentException(cacheType)
+        }
+        for (key in 0 until CACHE_SIZE) {
+            put(key, "value$key")
+        }
+    }
+
+    @Volatile
+    private var running = true
+    private val threads = mutableListOf<Thread>()
+
+    @get:Rule
+    val benchmark = BenchmarkRule()
+
+    @Before
+    fun startContenders() {
+        repeat(contenders) { index ->
+            threads += thread(name = "contender$index") {
+                // Despite the fixed seed, the algorithm which produces random values may vary
+                // across OS versions. Since we're not doing cross-device comparison this is
+                // acceptable.
+                val random = Random(index)
+                while (running) {
+                    val key = random.nextInt(KEY_RANGE)
+                    // Roughly 1 write for every 16 reads, like a warm decode pool.
+                    if (random.nextInt(16) == 0) {
+                        put(key, "value$key")
+                    } else {
+                        get(key)
+                    }
+                }
+            }
+        }
+    }
+
+    @After
+    fun stopContenders() {
+        running = false
+        threads.forEach { it.join() }
+    }
+
+    @Test fun getHit() {
+        val key = CACHE_SIZE / 2
+        benchmark.measureRepeated {
+            get(key)
+        }
+    }
+
+    @Test fun putReplace() {
+        val key = CACHE_SIZE / 2
+        val value = "value$key"
+        benchmark.measureRepeated {
+            put(key, value)
+        }
+    }
+
+    companion object {
+        private const val CACHE_SIZE = 1_000
+        private const val KEY_RANGE = CACHE_SIZE * 2
+
+        @JvmStatic
+        @Parameters(name = "cache={0},contenders={1}")
+        fun parameters() = buildParameters(
+            listOf("LruCache", "ConcurrentLruCache"),
+            listOf(0, 1, 3, 7)
+        )
+    }
+}
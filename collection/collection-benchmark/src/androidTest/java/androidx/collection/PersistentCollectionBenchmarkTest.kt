@@ -0,0 +1,145 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import org.junit.runners.Parameterized.Parameters
+import kotlin.random.Random
+
+/**
+ * Measures publishing a new immutable snapshot after a single change, comparing the structurally
+ * shared [PersistentHashMap] and [PersistentVector] against copy-on-write [ArrayMap] and
+ * [ArrayList], which copy every entry per snapshot.
+ */
+@RunWith(Parameterized::class)
+class PersistentCollectionBenchmarkTest(size: Int, private val container: String) {
+    // Despite the fixed seed, the algorithm which produces random values may vary across
+    // OS versions. Since we're not doing cross-device comparison this is acceptable.
+    private val keys = IntArray(size).apply {
+        val random = Random(0)
+        for (i in indices) {
+            this[i] = random.nextInt()
+        }
+    }
+
+    @get:Rule
+    val benchmark = BenchmarkRule()
+
+    @Test fun mapUpdateSnapshot() {
+        val target = keys[keys.size / 2]
+        when (container) {
+            "Persistent" -> {
+                var map = PersistentHashMap.empty<Int, String>().builder()
+                    .apply { for (key in keys) put(key, VALUE) }
+                    .build()
+                var flip = false
+                benchmark.measureRepeated {
+                    flip = !flip
+                    map = map.put(target, if (flip) OTHER_VALUE else VALUE)
+                }
+            }
+            "CopyOnWrite" -> {
+                var map = ArrayMap<Int, String>().apply { for (key in keys) put(key, VALUE) }
+                var flip = false
+                benchmark.measureRepeated {
+                    flip = !flip
+                    map = ArrayMap(map).apply { put(target, if (flip) OTHER_VALUE else VALUE) }
+                }
+            }
+        }
+    }
+
+    @Test fun mapGet() {
+        val target = keys.last()
+        when (container) {
+            "Persistent" -> {
+                val map = PersistentHashMap.empty<Int, String>().builder()
+                    .apply { for (key in keys) put(key, VALUE) }
+                    .build()
+                benchmark.measureRepeated { map.get(target) }
+            }
+            "CopyOnWrite" -> {
+                val map = ArrayMap<Int, String>().apply { for (key in keys) put(key, VALUE) }
+                benchmark.measureRepeated { map[target] }
+            }
+        }
+    }
+
+    @Test fun listAppendSnapshot() {
+        when (container) {
+            "Persistent" -> {
+                val list = PersistentVector.empty<Int>().builder()
+                    .apply { for (key in keys) add(key) }
+                    .build()
+                benchmark.measureRepeated { list.add(0) }
+            }
+            "CopyOnWrite" -> {
+                val list = ArrayList<Int>().apply { for (key in keys) add(key) }
+                benchmark.measureRepeated { ArrayList(list).add(0) }
+            }
+        }
+    }
+
+    @Test fun listSetSnapshot() {
+        val index = keys.size / 2
+        when (container) {
+            "Persistent" -> {
+                val list = PersistentVector.empty<Int>().builder()
+                    .apply { for (key in keys) add(key) }
+                    .build()
+                benchmark.measureRepeated { list.set(index, 0) }
+            }
+            "CopyOnWrite" -> {
+                val list = ArrayList<Int>().apply { for (key in keys) add(key) }
+                benchmark.measureRepeated { ArrayList(list)[index] = 0 }
+            }
+        }
+    }
+
+    @Test fun listGet() {
+        val index = keys.size / 2
+        when (container) {
+            "Persistent" -> {
+                val list = PersistentVector.empty<Int>().builder()
+                    .apply { for (key in keys) add(key) }
+                    .build()
+                benchmark.measureRepeated { list.get(index) }
+            }
+            "CopyOnWrite" -> {
+                val list = ArrayList<Int>().apply { for (key in keys) add(key) }
+                benchmark.measureRepeated { list[index] }
+            }
+        }
+    }
+
+    companion object {
+        private const val VALUE = "value"
+        private const val OTHER_VALUE = "other"
+
+        @JvmStatic
+        @Parameters(name = "size={0},container={1}")
+        fun parameters() = buildParameters(
+            listOf(10, 100, 1_000, 10_000, 100_000),
+            listOf("Persistent", "CopyOnWrite")
+        )
+    }
+}
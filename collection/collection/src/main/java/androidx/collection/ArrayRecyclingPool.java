@@ -0,0 +1,212 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Recycles the backing arrays of {@link SimpleArrayMap}, {@link ArrayMap} and {@link ArraySet}
+ * so that containers which are created and cleared frequently do not spam garbage.
+ *
+ * <p>Free arrays are kept in per-thread lists, one per power-of-two size class from 4 up to
+ * {@link #getMaxPooledCapacity()}, so that allocating or releasing a container never contends
+ * with other threads.  Containers round capacities within that range up to the next power of
+ * two so that their arrays can be reused.  An array freed on one thread can only be reused on
+ * that same thread.</p>
+ */
+public final class ArrayRecyclingPool {
+    /** Pool for the arrays of {@link SimpleArrayMap}, which hold two slots per entry. */
+    static final int MAP = 0;
+    /** Pool for the arrays of {@link ArraySet}, which hold one slot per entry. */
+    static final int SET = 1;
+
+    /** Smallest pooled capacity, matching BASE_SIZE in {@link SimpleArrayMap} and ArraySet. */
+    private static final int MIN_POOLED_CAPACITY = 4;
+    private static final int MAX_POOLED_CAPACITY_LIMIT = 1024;
+    private static final int SIZE_CLASS_COUNT = 9; // 4, 8, ..., 1024
+
+    private static final int COUNTER_STRIPES = 16;
+    /** Keeps each stripe's counter on its own cache line. */
+    private static final int COUNTER_PADDING = 8;
+
+    private static volatile int sMaxPooledCapacity = 64;
+    private static volatile int sMaxArraysPerSizeClass = 10;
+
+    private static final AtomicLongArray sHitCounts =
+            new AtomicLongArray(COUNTER_STRIPES * COUNTER_PADDING);
+    private static final AtomicLongArray sMissCounts =
+            new AtomicLongArray(COUNTER_STRIPES * COUNTER_PADDING);
+
+    private static final ThreadLocal<FreeLists[]> sFreeLists = new ThreadLocal<FreeLists[]>() {
+        @Override
+        protected FreeLists[] initialValue() {
+            return new FreeLists[] { new FreeLists(), new FreeLists() };
+        }
+    };
+
+    private ArrayRecyclingPool() {
+    }
+
+    /**
+     * Sets the largest container capacity whose arrays are recycled.
+     *
+     * @param capacity a power of two between 4 and 1024 inclusive. Defaults to 64.
+     */
+    public static void setMaxPooledCapacity(int capacity) {
+        if (capacity < MIN_POOLED_CAPACITY || capacity > MAX_POOLED_CAPACITY_LIMIT
+                || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException(
+                    "capacity must be a power of two between 4 and 1024: " + capacity);
+        }
+        sMaxPooledCapacity = capacity;
+    }
+
+    /**
+     * Returns the largest container capacity whose arrays are recycled.
+     */
+    public static int getMaxPooledCapacity() {
+        return sMaxPooledCapacity;
+    }
+
+    /**
+     * Sets the maximum number of free arrays each thread keeps per size class.  Lowering it does
+     * not release arrays that are already pooled; lists shrink as they are drained.
+     *
+     * @param count the maximum number of arrays, or 0 to disable recycling. Defaults to 10.
+     */
+    public static void setMaxArraysPerSizeClass(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count < 0");
+        }
+        sMaxArraysPerSizeClass = count;
+    }
+
+    /**
+     * Returns the maximum number of free arrays each thread keeps per size class.
+     */
+    public static int getMaxArraysPerSizeClass() {
+        return sMaxArraysPerSizeClass;
+    }
+
+    /**
+     * Returns the number of times a container allocation of a pooled capacity was served with
+     * recycled arrays.
+     */
+    public static long hitCount() {
+        return sum(sHitCounts);
+    }
+
+    /**
+     * Returns the number of times a container allocation of a pooled capacity had to allocate
+     * new arrays because none were available on the calling thread.
+     */
+    public static long missCount() {
+        return sum(sMissCounts);
+    }
+
+    /**
+     * Rounds {@code capacity} up to the size class that would be pooled, if any.
+     */
+    static int roundCapacity(int capacity) {
+        if (capacity <= MIN_POOLED_CAPACITY || capacity > sMaxPooledCapacity) {
+            return capacity;
+        }
+        return Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    /**
+     * Removes a free array for a container of {@code capacity} from the calling thread's pool.
+     * Element 1 of the returned array holds the matching {@code int[]} of hashes; the caller
+     * must clear elements 0 and 1 before use.
+     *
+     * @return the recycled array, or null if none is available.
+     */
+    @Nullable
+    static Object[] acquire(int kind, int capacity) {
+        int sizeClass = sizeClassOf(capacity);
+        if (sizeClass < 0) {
+            return null;
+        }
+        FreeLists lists = sFreeLists.get()[kind];
+        Object[] array = lists.mHeads[sizeClass];
+        if (array == null) {
+            increment(sMissCounts);
+            return null;
+        }
+        lists.mHeads[sizeClass] = (Object[]) array[0];
+        lists.mCounts[sizeClass]--;
+        increment(sHitCounts);
+        return array;
+    }
+
+    /**
+     * Returns {@code hashes} and {@code array} to the calling thread's pool if their size class
+     * is pooled and not full.
+     *
+     * @param usedSlots the number of leading elements of {@code array} that may hold references
+     *     and must be cleared.
+     */
+    static void release(int kind, int[] hashes, Object[] array, int usedSlots) {
+        int sizeClass = sizeClassOf(hashes.length);
+        if (sizeClass < 0) {
+            return;
+        }
+        FreeLists lists = sFreeLists.get()[kind];
+        if (lists.mCounts[sizeClass] >= sMaxArraysPerSizeClass) {
+            return;
+        }
+        array[0] = lists.mHeads[sizeClass];
+        array[1] = hashes;
+        for (int i = usedSlots - 1; i >= 2; i--) {
+            array[i] = null;
+        }
+        lists.mHeads[sizeClass] = array;
+        lists.mCounts[sizeClass]++;
+    }
+
+    private static int sizeClassOf(int capacity) {
+        if (capacity < MIN_POOLED_CAPACITY || capacity > sMaxPooledCapacity
+                || Integer.bitCount(capacity) != 1) {
+            return -1;
+        }
+        return Integer.numberOfTrailingZeros(capacity) - 2;
+    }
+
+    private static void increment(AtomicLongArray counts) {
+        int stripe = (int) Thread.currentThread().getId() & (COUNTER_STRIPES - 1);
+        counts.incrementAndGet(stripe * COUNTER_PADDING);
+    }
+
+    private static long sum(AtomicLongArray counts) {
+        long sum = 0;
+        for (int i = 0; i < COUNTER_STRIPES; i++) {
+            sum += counts.get(i * COUNTER_PADDING);
+        }
+        return sum;
+    }
+
+    /**
+     * Free arrays of one container kind for one thread.  Each list is linked through element 0
+     * of its arrays, with element 1 pointing at the matching hashes array.
+     */
+    private static final class FreeLists {
+        final Object[][] mHeads = new Object[SIZE_CLASS_COUNT][];
+        final int[] mCounts = new int[SIZE_CLASS_COUNT];
+    }
+}
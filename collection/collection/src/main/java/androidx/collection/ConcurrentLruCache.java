@@ -0,0 +1,553 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A variant of {@link LruCache} intended for caches shared by many threads.  It has the same
+ * API and callbacks as {@link LruCache}, but lookups never block: values are read from a
+ * {@link ConcurrentHashMap} and the access is recorded into a small per-thread-striped buffer.
+ * Buffered accesses are replayed against the recency ordering in batches, under a lock that
+ * readers only ever try to acquire.  Writes and evictions are serialized by that lock.
+ *
+ * <p>Because access recording is buffered and may drop accesses when a buffer is full, the
+ * eviction order is an approximation of least-recently-used order.  This trades a small amount
+ * of hit ratio for throughput under contention; prefer {@link LruCache} for caches accessed
+ * mostly from a single thread.</p>
+ */
+public class ConcurrentLruCache<K, V> {
+    /** Number of recorded reads buffered per stripe before a drain is attempted. */
+    private static final int READ_BUFFER_SIZE = 16;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+    private static final int MAX_STRIPES = 16;
+
+    private final ConcurrentHashMap<K, Node<K, V>> mMap;
+    private final ReadBuffer<K, V>[] mReadBuffers;
+    private final int mStripeMask;
+    private final ReentrantLock mEvictionLock = new ReentrantLock();
+
+    // Recency list, eldest at the head. Guarded by mEvictionLock.
+    private Node<K, V> mHead;
+    private Node<K, V> mTail;
+
+    /** Size of this cache in units. Not necessarily the number of elements. */
+    private int mSize;
+    private volatile int mMaxSize;
+
+    private int mPutCount;
+    private int mCreateCount;
+    private int mEvictionCount;
+
+    /**
+     * @param maxSize for caches that do not override {@link #sizeOf}, this is
+     *     the maximum number of entries in the cache. For all other caches,
+     *     this is the maximum sum of the sizes of the entries in this cache.
+     */
+    public ConcurrentLruCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        mMaxSize = maxSize;
+        mMap = new ConcurrentHashMap<>();
+
+        int stripes = 1;
+        int processors = Runtime.getRuntime().availableProcessors();
+        while (stripes < processors && stripes < MAX_STRIPES) {
+            stripes <<= 1;
+        }
+        mReadBuffers = newReadBuffers(stripes);
+        for (int i = 0; i < stripes; i++) {
+            mReadBuffers[i] = new ReadBuffer<>();
+        }
+        mStripeMask = stripes - 1;
+    }
+
+    /**
+     * Sets the size of the cache.
+     *
+     * @param maxSize The new maximum size.
+     */
+    public void resize(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        mMaxSize = maxSize;
+        trimToSize(maxSize);
+    }
+
+    /**
+     * Returns the value for {@code key} if it exists in the cache or can be
+     * created by {@code #create}. If a value was returned, it is moved to the
+     * head of the queue. This returns null if a value is not cached and cannot
+     * be created.
+     *
+     * <p>This method does not block on other threads unless a value has to be created.
+     */
+    @Nullable
+    public final V get(@NonNull K key) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+
+        ReadBuffer<K, V> buffer = mReadBuffers[(int) Thread.currentThread().getId() & mStripeMask];
+        Node<K, V> node = mMap.get(key);
+        if (node != null) {
+            buffer.mHitCount.incrementAndGet();
+            recordAccess(buffer, node);
+            return node.mValue;
+        }
+        buffer.mMissCount.incrementAndGet();
+
+        /*
+         * Attempt to create a value. This may take a long time, and the map
+         * may be different when create() returns. If a conflicting value was
+         * added to the map while create() was working, we leave that value in
+         * the map and release the created value.
+         */
+
+        V createdValue = create(key);
+        if (createdValue == null) {
+            return null;
+        }
+
+        Node<K, V> created = new Node<>(key, createdValue, safeSizeOf(key, createdValue));
+        Node<K, V> existing = mMap.putIfAbsent(key, created);
+        if (existing != null) {
+            entryRemoved(false, key, createdValue, existing.mValue);
+            return existing.mValue;
+        }
+
+        mEvictionLock.lock();
+        try {
+            drainReadBuffers();
+            mCreateCount++;
+            linkIfMapped(created);
+        } finally {
+            mEvictionLock.unlock();
+        }
+        trimToSize(mMaxSize);
+        return createdValue;
+    }
+
+    /**
+     * Caches {@code value} for {@code key}. The value is moved to the head of
+     * the queue.
+     *
+     * @return the previous value mapped by {@code key}.
+     */
+    @Nullable
+    public final V put(@NonNull K key, @NonNull V value) {
+        if (key == null || value == null) {
+            throw new NullPointerException("key == null || value == null");
+        }
+
+        Node<K, V> node = new Node<>(key, value, safeSizeOf(key, value));
+        Node<K, V> previous = mMap.put(key, node);
+
+        mEvictionLock.lock();
+        try {
+            drainReadBuffers();
+            mPutCount++;
+            if (previous != null) {
+                unlink(previous);
+            }
+            linkIfMapped(node);
+        } finally {
+            mEvictionLock.unlock();
+        }
+
+        if (previous != null) {
+            entryRemoved(false, key, previous.mValue, value);
+        }
+
+        trimToSize(mMaxSize);
+        return previous != null ? previous.mValue : null;
+    }
+
+    /**
+     * Remove the eldest entries until the total of remaining entries is at or
+     * below the requested size.
+     *
+     * @param maxSize the maximum size of the cache before returning. May be -1
+     *            to evict even 0-sized elements.
+     */
+    public void trimToSize(int maxSize) {
+        while (true) {
+            Node<K, V> toEvict;
+            boolean evicted;
+            mEvictionLock.lock();
+            try {
+                drainReadBuffers();
+                if (mSize < 0 || (mHead == null && mSize != 0)) {
+                    throw new IllegalStateException(getClass().getName()
+                            + ".sizeOf() is reporting inconsistent results!");
+                }
+
+                if (mSize <= maxSize || mHead == null) {
+                    break;
+                }
+
+                toEvict = mHead;
+                unlink(toEvict);
+                // If the map no longer holds this node it has already been replaced or removed,
+                // and whoever did that reports the removal.
+                evicted = mMap.remove(toEvict.mKey, toEvict);
+                if (evicted) {
+                    mEvictionCount++;
+                }
+            } finally {
+                mEvictionLock.unlock();
+            }
+
+            if (evicted) {
+                entryRemoved(true, toEvict.mKey, toEvict.mValue, null);
+            }
+        }
+    }
+
+    /**
+     * Removes the entry for {@code key} if it exists.
+     *
+     * @return the previous value mapped by {@code key}.
+     */
+    @Nullable
+    public final V remove(@NonNull K key) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+
+        Node<K, V> previous = mMap.remove(key);
+        if (previous == null) {
+            return null;
+        }
+
+        mEvictionLock.lock();
+        try {
+            drainReadBuffers();
+            unlink(previous);
+        } finally {
+            mEvictionLock.unlock();
+        }
+
+        entryRemoved(false, key, previous.mValue, null);
+        return previous.mValue;
+    }
+
+    /**
+     * Called for entries that have been evicted or removed. This method is
+     * invoked when a value is evicted to make space, removed by a call to
+     * {@link #remove}, or replaced by a call to {@link #put}. The default
+     * implementation does nothing.
+     *
+     * <p>The method is called without synchronization: other threads may
+     * access the cache while this method is executing.
+     *
+     * @param evicted true if the entry is being removed to make space, false
+     *     if the removal was caused by a {@link #put} or {@link #remove}.
+     * @param newValue the new value for {@code key}, if it exists. If non-null,
+     *     this removal was caused by a {@link #put}. Otherwise it was caused by
+     *     an eviction or a {@link #remove}.
+     */
+    protected void entryRemoved(boolean evicted, @NonNull K key, @NonNull V oldValue,
+            @Nullable V newValue) {
+    }
+
+    /**
+     * Called after a cache miss to compute a value for the corresponding key.
+     * Returns the computed value or null if no value can be computed. The
+     * default implementation returns null.
+     *
+     * <p>The method is called without synchronization: other threads may
+     * access the cache while this method is executing.
+     *
+     * <p>If a value for {@code key} exists in the cache when this method
+     * returns, the created value will be released with {@link #entryRemoved}
+     * and discarded. This can occur when multiple threads request the same key
+     * at the same time (causing multiple values to be created), or when one
+     * thread calls {@link #put} while another is creating a value for the same
+     * key.
+     */
+    @Nullable
+    protected V create(@NonNull K key) {
+        return null;
+    }
+
+    private int safeSizeOf(K key, V value) {
+        int result = sizeOf(key, value);
+        if (result < 0) {
+            throw new IllegalStateException("Negative size: " + key + "=" + value);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the size of the entry for {@code key} and {@code value} in
+     * user-defined units.  The default implementation returns 1 so that size
+     * is the number of entries and max size is the maximum number of entries.
+     *
+     * <p>An entry's size must not change while it is in the cache.
+     */
+    protected int sizeOf(@NonNull K key, @NonNull V value) {
+        return 1;
+    }
+
+    /**
+     * Clear the cache, calling {@link #entryRemoved} on each removed entry.
+     */
+    public final void evictAll() {
+        trimToSize(-1); // -1 will evict 0-sized elements
+    }
+
+    /**
+     * Records a read of {@code node} into {@code buffer}, draining the buffers into the recency
+     * list once it fills up if no other thread is already doing so.
+     */
+    private void recordAccess(ReadBuffer<K, V> buffer, Node<K, V> node) {
+        int index = buffer.mWriteCount.getAndIncrement() & READ_BUFFER_MASK;
+        buffer.mNodes.lazySet(index, node);
+        if (index == READ_BUFFER_MASK && mEvictionLock.tryLock()) {
+            try {
+                drainReadBuffers();
+            } finally {
+                mEvictionLock.unlock();
+            }
+        }
+    }
+
+    /** Replays buffered reads against the recency list. Must hold mEvictionLock. */
+    private void drainReadBuffers() {
+        for (ReadBuffer<K, V> buffer : mReadBuffers) {
+            AtomicReferenceArray<Node<K, V>> nodes = buffer.mNodes;
+            for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+                if (nodes.get(i) == null) {
+                    continue;
+                }
+                Node<K, V> node = nodes.getAndSet(i, null);
+                if (node != null && node.mLinked && node != mTail) {
+                    unlink(node);
+                    link(node);
+                }
+            }
+        }
+    }
+
+    /**
+     * Links {@code node} at the tail of the recency list if it is still the mapping for its key.
+     * A node replaced or removed before this thread acquired the lock is never linked. Must hold
+     * mEvictionLock.
+     */
+    private void linkIfMapped(Node<K, V> node) {
+        if (mMap.get(node.mKey) == node) {
+            link(node);
+        }
+    }
+
+    /** Must hold mEvictionLock. */
+    private void link(Node<K, V> node) {
+        node.mPrev = mTail;
+        node.mNext = null;
+        if (mTail == null) {
+            mHead = node;
+        } else {
+            mTail.mNext = node;
+        }
+        mTail = node;
+        node.mLinked = true;
+        mSize += node.mSize;
+    }
+
+    /** Must hold mEvictionLock. */
+    private void unlink(Node<K, V> node) {
+        if (!node.mLinked) {
+            return;
+        }
+        Node<K, V> prev = node.mPrev;
+        Node<K, V> next = node.mNext;
+        if (prev == null) {
+            mHead = next;
+        } else {
+            prev.mNext = next;
+        }
+        if (next == null) {
+            mTail = prev;
+        } else {
+            next.mPrev = prev;
+        }
+        node.mPrev = null;
+        node.mNext = null;
+        node.mLinked = false;
+        mSize -= node.mSize;
+    }
+
+    /**
+     * For caches that do not override {@link #sizeOf}, this returns the number
+     * of entries in the cache. For all other caches, this returns the sum of
+     * the sizes of the entries in this cache.
+     */
+    public final int size() {
+        mEvictionLock.lock();
+        try {
+            return mSize;
+        } finally {
+            mEvictionLock.unlock();
+        }
+    }
+
+    /**
+     * For caches that do not override {@link #sizeOf}, this returns the maximum
+     * number of entries in the cache. For all other caches, this returns the
+     * maximum sum of the sizes of the entries in this cache.
+     */
+    public final int maxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * Returns the number of times {@link #get} returned a value that was
+     * already present in the cache.
+     */
+    public final int hitCount() {
+        int count = 0;
+        for (ReadBuffer<K, V> buffer : mReadBuffers) {
+            count += buffer.mHitCount.get();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of times {@link #get} returned null or required a new
+     * value to be created.
+     */
+    public final int missCount() {
+        int count = 0;
+        for (ReadBuffer<K, V> buffer : mReadBuffers) {
+            count += buffer.mMissCount.get();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of times {@link #create(Object)} returned a value.
+     */
+    public final int createCount() {
+        mEvictionLock.lock();
+        try {
+            return mCreateCount;
+        } finally {
+            mEvictionLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of times {@link #put} was called.
+     */
+    public final int putCount() {
+        mEvictionLock.lock();
+        try {
+            return mPutCount;
+        } finally {
+            mEvictionLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of values that have been evicted.
+     */
+    public final int evictionCount() {
+        mEvictionLock.lock();
+        try {
+            return mEvictionCount;
+        } finally {
+            mEvictionLock.unlock();
+        }
+    }
+
+    /**
+     * Returns a copy of the current contents of the cache, ordered from least
+     * recently accessed to most recently accessed.
+     */
+    @NonNull
+    public final Map<K, V> snapshot() {
+        mEvictionLock.lock();
+        try {
+            drainReadBuffers();
+            Map<K, V> snapshot = new LinkedHashMap<>();
+            for (Node<K, V> node = mHead; node != null; node = node.mNext) {
+                snapshot.put(node.mKey, node.mValue);
+            }
+            return snapshot;
+        } finally {
+            mEvictionLock.unlock();
+        }
+    }
+
+    @Override
+    public final String toString() {
+        int hitCount = hitCount();
+        int missCount = missCount();
+        int accesses = hitCount + missCount;
+        int hitPercent = accesses != 0 ? (100 * hitCount / accesses) : 0;
+        return String.format(Locale.US,
+                "ConcurrentLruCache[maxSize=%d,hits=%d,misses=%d,hitRate=%d%%]",
+                mMaxSize, hitCount, missCount, hitPercent);
+    }
+
+    private static final class Node<K, V> {
+        final K mKey;
+        final V mValue;
+        final int mSize;
+
+        // Guarded by mEvictionLock.
+        Node<K, V> mPrev;
+        Node<K, V> mNext;
+        boolean mLinked;
+
+        Node(K key, V value, int size) {
+            mKey = key;
+            mValue = value;
+            mSize = size;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> ReadBuffer<K, V>[] newReadBuffers(int count) {
+        // Arrays of a generic type can only be created through a wildcard type and a cast.
+        return (ReadBuffer<K, V>[]) new ReadBuffer<?, ?>[count];
+    }
+
+    /**
+     * A lossy ring of recently read nodes. Writers overwrite unread slots once the ring wraps,
+     * which drops access samples rather than blocking.
+     */
+    private static final class ReadBuffer<K, V> {
+        final AtomicReferenceArray<Node<K, V>> mNodes =
+                new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+        final AtomicInteger mWriteCount = new AtomicInteger();
+        final AtomicInteger mHitCount = new AtomicInteger();
+        final AtomicInteger mMissCount = new AtomicInteger();
+    }
+}
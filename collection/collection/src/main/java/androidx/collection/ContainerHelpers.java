@@ -37,6 +37,34 @@ class ContainerHelpers {
         return need;
     }
 
+    /**
+     * Returns the size of the power-of-two open-addressing table needed to hold {@code capacity}
+     * entries while staying at or below a 3/4 load factor.
+     */
+    static int idealHashTableSize(int capacity) {
+        // Start at 4 so that even the smallest table keeps a free slot to terminate probing.
+        int size = 4;
+        while (size - (size >>> 2) < capacity) {
+            if (size >= (1 << 30)) {
+                throw new IllegalStateException("Max hash table capacity exceeded");
+            }
+            size <<= 1;
+        }
+        return size;
+    }
+
+    // Fibonacci hashing: spreads sequential keys across a power-of-two table so that linear
+    // probing does not degrade into long runs.
+    static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
     public static boolean equal(Object a, Object b) {
         return a == b || (a != null && a.equals(b));
     }
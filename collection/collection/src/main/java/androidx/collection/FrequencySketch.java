@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+/**
+ * A count-min sketch estimating how often keys have been accessed recently, used by
+ * {@link LruCache} to decide whether a new entry is worth admitting over an existing one.
+ *
+ * <p>Each key maps to four 4-bit counters in a table of longs, so an estimate saturates at 15.
+ * Once the number of recorded accesses reaches ten times the table capacity all counters are
+ * halved, which ages out keys that used to be popular.</p>
+ *
+ * <p>This class is not thread-safe.</p>
+ */
+final class FrequencySketch {
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+    private static final int MAX_TABLE_SIZE = 1 << 16;
+
+    private long[] mTable;
+    private int mTableMask;
+    private int mSampleSize;
+    private int mSize;
+
+    FrequencySketch(int maximumSize) {
+        ensureCapacity(maximumSize);
+    }
+
+    /**
+     * Resizes the table so that it can track roughly {@code maximumSize} keys. Existing counts
+     * are discarded if the table grows.
+     */
+    void ensureCapacity(int maximumSize) {
+        int capacity = Math.min(Math.max(maximumSize, 16), MAX_TABLE_SIZE);
+        int tableSize = Integer.highestOneBit(capacity - 1) << 1;
+        if (mTable != null && mTable.length >= tableSize) {
+            return;
+        }
+        mTable = new long[tableSize];
+        mTableMask = tableSize - 1;
+        mSampleSize = 10 * tableSize;
+        mSize = 0;
+    }
+
+    /** Returns the estimated number of recent accesses of {@code key}, between 0 and 15. */
+    int frequency(Object key) {
+        int hash = ContainerHelpers.hash(key.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = 15;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int) ((mTable[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /** Records an access of {@code key}, aging all counters once the sample period elapses. */
+    void increment(Object key) {
+        int hash = ContainerHelpers.hash(key.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++mSize == mSampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        int offset = counter << 2;
+        long mask = 0xfL << offset;
+        if ((mTable[index] & mask) != mask) {
+            mTable[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    /** Halves every counter, accounting for the truncation of odd counts. */
+    private void reset() {
+        int count = 0;
+        for (int i = 0; i < mTable.length; i++) {
+            count += Long.bitCount(mTable[i] & ONE_MASK);
+            mTable[i] = (mTable[i] >>> 1) & RESET_MASK;
+        }
+        mSize = (mSize >>> 1) - (count >>> 2);
+    }
+
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return ((int) h) & mTableMask;
+    }
+}
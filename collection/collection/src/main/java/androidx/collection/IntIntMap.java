@@ -0,0 +1,364 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * IntIntMap maps integers to integers using an open-addressing hash table.  Like
+ * {@link SparseArrayCompat} it avoids auto-boxing and does not allocate an entry object per
+ * mapping, but lookups, insertions and removals run in expected constant time instead of
+ * requiring a binary search and array shifting.  Prefer it over {@link SparseArrayCompat} for
+ * containers that may hold thousands of items or more.
+ *
+ * <p>Mappings are stored densely in insertion order and located through a separate table of
+ * indices probed linearly.  It is possible to iterate over the items in this container using
+ * {@link #keyAt(int)} and {@link #valueAt(int)} with indices in the range
+ * <code>0...size()-1</code>.  Unlike {@link SparseArrayCompat}, keys are not kept in ascending
+ * order, and removing a mapping moves the last mapping into the freed index; iterate from
+ * <code>size()-1</code> down to 0 when removing entries during iteration.</p>
+ *
+ * <p>This structure is <b>NOT</b> thread-safe.</p>
+ */
+public class IntIntMap implements Cloneable {
+    // Open-addressing table of 1-based indices into mKeys/mValues. 0 marks an empty slot.
+    private int[] mSlots;
+    private int[] mKeys;
+    private int[] mValues;
+    private int mSize;
+
+    /**
+     * Creates a new IntIntMap containing no mappings.
+     */
+    public IntIntMap() {
+        this(10);
+    }
+
+    /**
+     * Creates a new IntIntMap containing no mappings that will not
+     * require any additional memory allocation to store the specified
+     * number of mappings.  If you supply an initial capacity of 0, the
+     * map will be initialized with a light-weight representation
+     * not requiring any additional array allocations.
+     */
+    public IntIntMap(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity < 0");
+        }
+        if (initialCapacity == 0) {
+            mSlots = ContainerHelpers.EMPTY_INTS;
+            mKeys = ContainerHelpers.EMPTY_INTS;
+            mValues = ContainerHelpers.EMPTY_INTS;
+        } else {
+            allocArrays(ContainerHelpers.idealIntArraySize(initialCapacity));
+        }
+    }
+
+    @Override
+    @NonNull
+    public IntIntMap clone() {
+        IntIntMap clone;
+        try {
+            clone = (IntIntMap) super.clone();
+            clone.mSlots = mSlots.clone();
+            clone.mKeys = mKeys.clone();
+            clone.mValues = mValues.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e); // Cannot happen as we implement Cloneable.
+        }
+        return clone;
+    }
+
+    private void allocArrays(int capacity) {
+        mSlots = new int[ContainerHelpers.idealHashTableSize(capacity)];
+        mKeys = new int[capacity];
+        mValues = new int[capacity];
+    }
+
+    /**
+     * Returns the slot holding {@code key}, or the bitwise complement of the empty slot where
+     * it should be inserted.
+     */
+    private int findSlot(int key) {
+        final int[] slots = mSlots;
+        if (slots.length == 0) {
+            return ~0;
+        }
+        final int mask = slots.length - 1;
+        int slot = ContainerHelpers.hash(key) & mask;
+        while (true) {
+            int entry = slots[slot];
+            if (entry == 0) {
+                return ~slot;
+            }
+            if (mKeys[entry - 1] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Empties {@code slot}, shifting back any later entries of the probe sequence so that
+     * lookups never need tombstones.
+     */
+    private void deleteSlot(int slot) {
+        final int[] slots = mSlots;
+        final int mask = slots.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (true) {
+            int entry = slots[next];
+            if (entry == 0) {
+                break;
+            }
+            int home = ContainerHelpers.hash(mKeys[entry - 1]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                slots[hole] = entry;
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        slots[hole] = 0;
+    }
+
+    /**
+     * Ensure the map has enough capacity to hold <var>minimumCapacity</var> mappings without
+     * growing its arrays.
+     */
+    public void ensureCapacity(int minimumCapacity) {
+        if (mKeys.length >= minimumCapacity) {
+            return;
+        }
+        final int[] okeys = mKeys;
+        final int[] ovalues = mValues;
+        allocArrays(minimumCapacity);
+        System.arraycopy(okeys, 0, mKeys, 0, mSize);
+        System.arraycopy(ovalues, 0, mValues, 0, mSize);
+
+        final int[] slots = mSlots;
+        final int mask = slots.length - 1;
+        for (int i = 0; i < mSize; i++) {
+            int slot = ContainerHelpers.hash(mKeys[i]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = i + 1;
+        }
+    }
+
+    /**
+     * Gets the int mapped from the specified key, or <code>0</code>
+     * if no such mapping has been made.
+     */
+    public int get(int key) {
+        return get(key, 0);
+    }
+
+    /**
+     * Gets the int mapped from the specified key, or the specified value
+     * if no such mapping has been made.
+     */
+    public int get(int key, int valueIfKeyNotFound) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return valueIfKeyNotFound;
+        }
+        return mValues[mSlots[slot] - 1];
+    }
+
+    /**
+     * Adds a mapping from the specified key to the specified value,
+     * replacing the previous mapping from the specified key if there
+     * was one.
+     */
+    public void put(int key, int value) {
+        int slot = findSlot(key);
+        if (slot >= 0) {
+            mValues[mSlots[slot] - 1] = value;
+            return;
+        }
+
+        if (mSize >= mKeys.length) {
+            ensureCapacity(ContainerHelpers.idealIntArraySize(mSize + 1));
+            slot = findSlot(key);
+        }
+
+        final int index = mSize;
+        mKeys[index] = key;
+        mValues[index] = value;
+        mSlots[~slot] = index + 1;
+        mSize = index + 1;
+    }
+
+    /**
+     * Copies all of the mappings from the {@code other} to this map. The effect of this call is
+     * equivalent to that of calling {@link #put(int, int)} on this map once for each mapping
+     * from key to value in {@code other}.
+     */
+    public void putAll(@NonNull IntIntMap other) {
+        ensureCapacity(mSize + other.mSize);
+        for (int i = 0, size = other.mSize; i < size; i++) {
+            put(other.mKeys[i], other.valueAt(i));
+        }
+    }
+
+    /**
+     * Removes the mapping from the specified key, if there was any.
+     */
+    public void remove(int key) {
+        int index = indexOfKey(key);
+        if (index >= 0) {
+            removeAt(index);
+        }
+    }
+
+    /**
+     * Removes the mapping at the specified index.  The last mapping is moved into
+     * <var>index</var> to keep the storage dense.
+     */
+    public void removeAt(int index) {
+        if (index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        deleteSlot(findSlot(mKeys[index]));
+
+        final int last = mSize - 1;
+        if (index != last) {
+            int lastKey = mKeys[last];
+            mSlots[findSlot(lastKey)] = index + 1;
+            mKeys[index] = lastKey;
+            mValues[index] = mValues[last];
+        }
+        mSize = last;
+    }
+
+    /**
+     * Returns the number of key-value mappings that this IntIntMap
+     * currently stores.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Return true if size() is 0.
+     * @return true if size() is 0.
+     */
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, returns
+     * the key from the <code>index</code>th key-value mapping that this
+     * IntIntMap stores.
+     */
+    public int keyAt(int index) {
+        return mKeys[index];
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, returns
+     * the value from the <code>index</code>th key-value mapping that this
+     * IntIntMap stores.
+     */
+    public int valueAt(int index) {
+        return mValues[index];
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, sets a new
+     * value for the <code>index</code>th key-value mapping that this
+     * IntIntMap stores.
+     */
+    public void setValueAt(int index, int value) {
+        mValues[index] = value;
+    }
+
+    /**
+     * Returns the index for which {@link #keyAt} would return the
+     * specified key, or a negative number if the specified
+     * key is not mapped.
+     */
+    public int indexOfKey(int key) {
+        int slot = findSlot(key);
+        return slot >= 0 ? mSlots[slot] - 1 : -1;
+    }
+
+    /**
+     * Returns an index for which {@link #valueAt} would return the
+     * specified key, or a negative number if no keys map to the
+     * specified value.
+     * <p>Beware that this is a linear search, unlike lookups by key,
+     * and that multiple keys can map to the same value and this will
+     * find only one of them.
+     */
+    public int indexOfValue(int value) {
+        for (int i = 0; i < mSize; i++) {
+            if (mValues[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns true if the specified key is mapped. */
+    public boolean containsKey(int key) {
+        return findSlot(key) >= 0;
+    }
+
+    /** Returns true if the specified value is mapped from any key. */
+    public boolean containsValue(int value) {
+        return indexOfValue(value) >= 0;
+    }
+
+    /**
+     * Removes all key-value mappings from this IntIntMap.
+     */
+    public void clear() {
+        Arrays.fill(mSlots, 0);
+        mSize = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This implementation composes a string by iterating over its mappings.
+     */
+    @Override
+    public String toString() {
+        if (mSize <= 0) {
+            return "{}";
+        }
+
+        StringBuilder buffer = new StringBuilder(mSize * 28);
+        buffer.append('{');
+        for (int i = 0; i < mSize; i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            buffer.append(mKeys[i]);
+            buffer.append('=');
+            buffer.append(mValues[i]);
+        }
+        buffer.append('}');
+        return buffer.toString();
+    }
+}
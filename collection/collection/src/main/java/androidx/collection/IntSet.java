@@ -0,0 +1,330 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * IntSet is a set of integers backed by an open-addressing hash table.  It avoids auto-boxing
+ * and does not allocate an entry object per element; additions, removals and lookups run in
+ * expected constant time.
+ *
+ * <p>Elements are stored densely and can be iterated using {@link #valueAt(int)} with indices
+ * in the range <code>0...size()-1</code>.  Removing an element moves the last element into the
+ * freed index; iterate from <code>size()-1</code> down to 0 when removing elements during
+ * iteration.</p>
+ *
+ * <p>This structure is <b>NOT</b> thread-safe.</p>
+ */
+public final class IntSet implements Cloneable {
+    // Open-addressing table of 1-based indices into mValues. 0 marks an empty slot.
+    private int[] mSlots;
+    private int[] mValues;
+    private int mSize;
+
+    /**
+     * Create a new empty IntSet.  The default capacity of an IntSet is 0, and
+     * will grow once items are added to it.
+     */
+    public IntSet() {
+        this(0);
+    }
+
+    /**
+     * Create a new IntSet with a given initial capacity.
+     */
+    public IntSet(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity < 0");
+        }
+        if (capacity == 0) {
+            mSlots = ContainerHelpers.EMPTY_INTS;
+            mValues = ContainerHelpers.EMPTY_INTS;
+        } else {
+            allocArrays(capacity);
+        }
+    }
+
+    @Override
+    @NonNull
+    public IntSet clone() {
+        IntSet clone;
+        try {
+            clone = (IntSet) super.clone();
+            clone.mSlots = mSlots.clone();
+            clone.mValues = mValues.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e); // Cannot happen as we implement Cloneable.
+        }
+        return clone;
+    }
+
+    private void allocArrays(int capacity) {
+        mSlots = new int[ContainerHelpers.idealHashTableSize(capacity)];
+        mValues = new int[capacity];
+    }
+
+    /**
+     * Returns the slot holding {@code value}, or the bitwise complement of the empty slot where
+     * it should be inserted.
+     */
+    private int findSlot(int value) {
+        final int[] slots = mSlots;
+        if (slots.length == 0) {
+            return ~0;
+        }
+        final int mask = slots.length - 1;
+        int slot = ContainerHelpers.hash(value) & mask;
+        while (true) {
+            int entry = slots[slot];
+            if (entry == 0) {
+                return ~slot;
+            }
+            if (mValues[entry - 1] == value) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Empties {@code slot}, shifting back any later entries of the probe sequence so that
+     * lookups never need tombstones.
+     */
+    private void deleteSlot(int slot) {
+        final int[] slots = mSlots;
+        final int mask = slots.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (true) {
+            int entry = slots[next];
+            if (entry == 0) {
+                break;
+            }
+            int home = ContainerHelpers.hash(mValues[entry - 1]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                slots[hole] = entry;
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        slots[hole] = 0;
+    }
+
+    /**
+     * Ensure the set has enough capacity to hold <var>minimumCapacity</var> elements without
+     * growing its arrays.
+     */
+    public void ensureCapacity(int minimumCapacity) {
+        if (mValues.length >= minimumCapacity) {
+            return;
+        }
+        final int[] ovalues = mValues;
+        allocArrays(minimumCapacity);
+        System.arraycopy(ovalues, 0, mValues, 0, mSize);
+
+        final int[] slots = mSlots;
+        final int mask = slots.length - 1;
+        for (int i = 0; i < mSize; i++) {
+            int slot = ContainerHelpers.hash(mValues[i]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = i + 1;
+        }
+    }
+
+    /**
+     * Adds the specified value to this set. The set is not modified if it
+     * already contains the value.
+     *
+     * @return true if this set was modified.
+     */
+    public boolean add(int value) {
+        int slot = findSlot(value);
+        if (slot >= 0) {
+            return false;
+        }
+
+        if (mSize >= mValues.length) {
+            ensureCapacity(ContainerHelpers.idealIntArraySize(mSize + 1));
+            slot = findSlot(value);
+        }
+
+        final int index = mSize;
+        mValues[index] = value;
+        mSlots[~slot] = index + 1;
+        mSize = index + 1;
+        return true;
+    }
+
+    /**
+     * Perform a {@link #add(int)} of all values in <var>set</var>.
+     *
+     * @return true if this set was modified.
+     */
+    public boolean addAll(@NonNull IntSet set) {
+        ensureCapacity(mSize + set.mSize);
+        boolean added = false;
+        for (int i = 0, size = set.mSize; i < size; i++) {
+            added |= add(set.mValues[i]);
+        }
+        return added;
+    }
+
+    /**
+     * Removes the specified value from this set.
+     *
+     * @return true if this set was modified.
+     */
+    public boolean remove(int value) {
+        int index = indexOf(value);
+        if (index >= 0) {
+            removeAt(index);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Remove the value at the given index.  The last value is moved into <var>index</var> to keep
+     * the storage dense.
+     */
+    public void removeAt(int index) {
+        if (index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        deleteSlot(findSlot(mValues[index]));
+
+        final int last = mSize - 1;
+        if (index != last) {
+            int lastValue = mValues[last];
+            mSlots[findSlot(lastValue)] = index + 1;
+            mValues[index] = lastValue;
+        }
+        mSize = last;
+    }
+
+    /**
+     * Returns true if this set contains the specified value.
+     */
+    public boolean contains(int value) {
+        return findSlot(value) >= 0;
+    }
+
+    /**
+     * Returns the index of a value in the set, or a negative number if it is not contained.
+     */
+    public int indexOf(int value) {
+        int slot = findSlot(value);
+        return slot >= 0 ? mSlots[slot] - 1 : -1;
+    }
+
+    /**
+     * Return the value at the given index.
+     * @param index The desired index, must be between 0 and {@link #size()}-1.
+     */
+    public int valueAt(int index) {
+        return mValues[index];
+    }
+
+    /**
+     * Return the number of items in this set.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Return true if this set contains no items.
+     */
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Make the set empty.
+     */
+    public void clear() {
+        Arrays.fill(mSlots, 0);
+        mSize = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This implementation returns false if the object is not a set, or
+     * if the sets have different sizes. Otherwise, for each value in this
+     * set, it checks to make sure the value also exists in the other set.
+     * If any value doesn't exist, the method returns false; otherwise, it
+     * returns true.
+     */
+    @Override
+    public boolean equals(@Nullable Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof IntSet)) {
+            return false;
+        }
+        IntSet set = (IntSet) object;
+        if (mSize != set.mSize) {
+            return false;
+        }
+        for (int i = 0; i < mSize; i++) {
+            if (!set.contains(mValues[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 0;
+        for (int i = 0; i < mSize; i++) {
+            result += mValues[i];
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This implementation composes a string by iterating over its values.
+     */
+    @Override
+    public String toString() {
+        if (mSize <= 0) {
+            return "{}";
+        }
+
+        StringBuilder buffer = new StringBuilder(mSize * 14);
+        buffer.append('{');
+        for (int i = 0; i < mSize; i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            buffer.append(mValues[i]);
+        }
+        buffer.append('}');
+        return buffer.toString();
+    }
+}
@@ -33,6 +33,17 @@ import java.util.Map;
 public class LruCache<K, V> {
     private final LinkedHashMap<K, V> map;
 
+    /**
+     * Recently added entries that have not yet competed for admission into the rest of the
+     * cache, or null if this cache is not frequency-aware. Entries in the window are also in
+     * {@link #map}.
+     */
+    @Nullable
+    private final LinkedHashMap<K, V> window;
+    @Nullable
+    private final FrequencySketch sketch;
+    private int windowSize;
+
     /** Size of this cache in units. Not necessarily the number of elements. */
     private int size;
     private int maxSize;
@@ -49,11 +60,33 @@ public class LruCache<K, V> {
      *     this is the maximum sum of the sizes of the entries in this cache.
      */
     public LruCache(int maxSize) {
+        this(maxSize, false);
+    }
+
+    /**
+     * @param maxSize for caches that do not override {@link #sizeOf}, this is
+     *     the maximum number of entries in the cache. For all other caches,
+     *     this is the maximum sum of the sizes of the entries in this cache.
+     * @param frequencyAware whether eviction should also consider how often entries are
+     *     accessed. When true, new entries are first held in a small window that takes 1% of
+     *     {@code maxSize}. Entries leaving the window are only admitted into the rest of the cache
+     *     if they have been accessed more often than the least recently used entry they would
+     *     displace, as estimated by a compact frequency sketch (W-TinyLFU). This keeps one-off
+     *     scans from flushing frequently used entries.
+     */
+    public LruCache(int maxSize, boolean frequencyAware) {
         if (maxSize <= 0) {
             throw new IllegalArgumentException("maxSize <= 0");
         }
         this.maxSize = maxSize;
         this.map = new LinkedHashMap<K, V>(0, 0.75f, true);
+        if (frequencyAware) {
+            this.window = new LinkedHashMap<K, V>(0, 0.75f, true);
+            this.sketch = new FrequencySketch(maxSize);
+        } else {
+            this.window = null;
+            this.sketch = null;
+        }
     }
 
     /**
@@ -68,6 +101,9 @@ public class LruCache<K, V> {
 
         synchronized (this) {
             this.maxSize = maxSize;
+            if (sketch != null) {
+                sketch.ensureCapacity(maxSize);
+            }
         }
         trimToSize(maxSize);
     }
@@ -86,8 +122,14 @@ public class LruCache<K, V> {
 
         V mapValue;
         synchronized (this) {
+            if (sketch != null) {
+                sketch.increment(key);
+            }
             mapValue = map.get(key);
             if (mapValue != null) {
+                if (window != null) {
+                    window.get(key); // Refresh the entry's position if it is in the window.
+                }
                 hitCount++;
                 return mapValue;
             }
@@ -114,7 +156,12 @@ public class LruCache<K, V> {
                 // There was a conflict so undo that last put
                 map.put(key, mapValue);
             } else {
-                size += safeSizeOf(key, createdValue);
+                int createdSize = safeSizeOf(key, createdValue);
+                size += createdSize;
+                if (window != null) {
+                    window.put(key, createdValue);
+                    windowSize += createdSize;
+                }
             }
         }
 
@@ -142,10 +189,21 @@ public class LruCache<K, V> {
         V previous;
         synchronized (this) {
             putCount++;
-            size += safeSizeOf(key, value);
+            int valueSize = safeSizeOf(key, value);
+            size += valueSize;
             previous = map.put(key, value);
+            int previousSize = 0;
             if (previous != null) {
-                size -= safeSizeOf(key, previous);
+                previousSize = safeSizeOf(key, previous);
+                size -= previousSize;
+            }
+            if (window != null && sketch != null) {
+                sketch.increment(key);
+                // New entries start in the window; replaced entries stay where they were.
+                if (previous == null || window.containsKey(key)) {
+                    window.put(key, value);
+                    windowSize += valueSize - previousSize;
+                }
             }
         }
 
@@ -178,11 +236,17 @@ public class LruCache<K, V> {
                     break;
                 }
 
-                Map.Entry<K, V> toEvict = map.entrySet().iterator().next();
+                Map.Entry<K, V> toEvict = window != null && sketch != null
+                        ? selectFrequencyAwareVictim(window, sketch)
+                        : map.entrySet().iterator().next();
                 key = toEvict.getKey();
                 value = toEvict.getValue();
                 map.remove(key);
-                size -= safeSizeOf(key, value);
+                int valueSize = safeSizeOf(key, value);
+                size -= valueSize;
+                if (window != null && window.remove(key) != null) {
+                    windowSize -= valueSize;
+                }
                 evictionCount++;
             }
 
@@ -190,6 +254,51 @@ public class LruCache<K, V> {
         }
     }
 
+    /**
+     * Picks the entry to evict next for a frequency-aware cache. Entries that overflow the window
+     * move into the main space while it has room. Once it is full, the eldest window entry
+     * competes with the main space's least recently used entry, and whichever has been accessed
+     * less often is evicted.
+     */
+    private Map.Entry<K, V> selectFrequencyAwareVictim(LinkedHashMap<K, V> window,
+            FrequencySketch sketch) {
+        int windowMaxSize = Math.max(1, maxSize / 100);
+        int mainMaxSize = maxSize - windowMaxSize;
+        while (windowSize > windowMaxSize && !window.isEmpty()) {
+            Map.Entry<K, V> candidate = window.entrySet().iterator().next();
+            int candidateSize = safeSizeOf(candidate.getKey(), candidate.getValue());
+            if (size - windowSize + candidateSize > mainMaxSize) {
+                break;
+            }
+            window.remove(candidate.getKey());
+            windowSize -= candidateSize;
+        }
+
+        Map.Entry<K, V> victim = null;
+        for (Map.Entry<K, V> entry : map.entrySet()) {
+            if (!window.containsKey(entry.getKey())) {
+                victim = entry;
+                break;
+            }
+        }
+        if (victim == null) {
+            return window.entrySet().iterator().next();
+        }
+        if (windowSize <= windowMaxSize || window.isEmpty()) {
+            return victim;
+        }
+
+        Map.Entry<K, V> candidate = window.entrySet().iterator().next();
+        if (sketch.frequency(candidate.getKey()) > sketch.frequency(victim.getKey())) {
+            // The candidate wins admission; it leaves the window and the victim is evicted.
+            K candidateKey = candidate.getKey();
+            windowSize -= safeSizeOf(candidateKey, candidate.getValue());
+            window.remove(candidateKey);
+            return victim;
+        }
+        return candidate;
+    }
+
     /**
      * Removes the entry for {@code key} if it exists.
      *
@@ -205,7 +314,11 @@ public class LruCache<K, V> {
         synchronized (this) {
             previous = map.remove(key);
             if (previous != null) {
-                size -= safeSizeOf(key, previous);
+                int previousSize = safeSizeOf(key, previous);
+                size -= previousSize;
+                if (window != null && window.remove(key) != null) {
+                    windowSize -= previousSize;
+                }
             }
         }
 
@@ -0,0 +1,618 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable map that shares structure between versions.  {@link #put} and {@link #remove}
+ * return a new map and leave the receiver unchanged, copying only the O(log<sub>32</sub> n)
+ * nodes on the path to the changed entry.  This makes it cheap to publish a new snapshot of a
+ * large map on every state change, where copying an {@link ArrayMap} would cost O(n).
+ *
+ * <p>The map is a hash array mapped trie using the compressed (CHAMP) node layout.  Keys and
+ * values may be null.  To apply many changes at once, use a {@link Builder}, which edits nodes it
+ * has already copied in place.</p>
+ *
+ * <p>Instances are immutable and therefore safe to share between threads.  Builders are
+ * <b>NOT</b> thread-safe.</p>
+ */
+public final class PersistentHashMap<K, V> implements Iterable<Map.Entry<K, V>> {
+    private static final PersistentHashMap<Object, Object> EMPTY =
+            new PersistentHashMap<>(Node.EMPTY, 0);
+
+    final Node mRoot;
+    private final int mSize;
+
+    PersistentHashMap(Node root, int size) {
+        mRoot = root;
+        mSize = size;
+    }
+
+    /**
+     * Returns an empty map.
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Returns the value mapped to {@code key}, or null if there is no such mapping.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public V get(@Nullable Object key) {
+        return (V) mRoot.get(key, hash(key), 0, null);
+    }
+
+    /**
+     * Returns the value mapped to {@code key}, or {@code defaultValue} if there is no such
+     * mapping.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(@Nullable Object key, @Nullable V defaultValue) {
+        return (V) mRoot.get(key, hash(key), 0, defaultValue);
+    }
+
+    /**
+     * Returns true if this map contains a mapping for {@code key}.
+     */
+    public boolean containsKey(@Nullable Object key) {
+        return mRoot.get(key, hash(key), 0, Node.NOT_FOUND) != Node.NOT_FOUND;
+    }
+
+    /**
+     * Returns a map with {@code key} mapped to {@code value}.  Returns this map if it already
+     * contains that exact mapping.
+     */
+    @NonNull
+    public PersistentHashMap<K, V> put(@Nullable K key, @Nullable V value) {
+        Change change = new Change();
+        Node root = mRoot.put(null, key, hash(key), value, 0, change);
+        if (root == mRoot) {
+            return this;
+        }
+        return new PersistentHashMap<>(root, change.mAdded ? mSize + 1 : mSize);
+    }
+
+    /**
+     * Returns a map without a mapping for {@code key}.  Returns this map if it does not contain
+     * one.
+     */
+    @NonNull
+    public PersistentHashMap<K, V> remove(@Nullable Object key) {
+        Change change = new Change();
+        Node root = mRoot.remove(null, key, hash(key), 0, change);
+        if (root == mRoot) {
+            return this;
+        }
+        return new PersistentHashMap<>(root, mSize - 1);
+    }
+
+    /**
+     * Returns the number of mappings in this map.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Returns true if this map contains no mappings.
+     */
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Returns a builder initialized with the mappings of this map.  Building it does not modify
+     * this map.
+     */
+    @NonNull
+    public Builder<K, V> builder() {
+        return new Builder<>(this);
+    }
+
+    /**
+     * Returns an iterator over the mappings of this map, in no particular order.
+     */
+    @NonNull
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        return new EntryIterator<>(mRoot);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof PersistentHashMap)) {
+            return false;
+        }
+        PersistentHashMap<?, ?> map = (PersistentHashMap<?, ?>) object;
+        if (mSize != map.mSize) {
+            return false;
+        }
+        for (Map.Entry<K, V> entry : this) {
+            Object other = map.mRoot.get(entry.getKey(), hash(entry.getKey()), 0, Node.NOT_FOUND);
+            if (other == Node.NOT_FOUND || !ContainerHelpers.equal(entry.getValue(), other)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 0;
+        for (Map.Entry<K, V> entry : this) {
+            result += entry.hashCode();
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        if (mSize == 0) {
+            return "{}";
+        }
+        StringBuilder buffer = new StringBuilder(mSize * 28);
+        buffer.append('{');
+        boolean first = true;
+        for (Map.Entry<K, V> entry : this) {
+            if (!first) {
+                buffer.append(", ");
+            }
+            first = false;
+            Object key = entry.getKey();
+            buffer.append(key != this ? key : "(this Map)");
+            buffer.append('=');
+            Object value = entry.getValue();
+            buffer.append(value != this ? value : "(this Map)");
+        }
+        buffer.append('}');
+        return buffer.toString();
+    }
+
+    static int hash(@Nullable Object key) {
+        return key == null ? 0 : ContainerHelpers.hash(key.hashCode());
+    }
+
+    /**
+     * A mutable view used to batch changes into a {@link PersistentHashMap}.  Nodes copied by the
+     * builder are owned by it and edited in place, so a series of changes only copies each node
+     * once.
+     */
+    public static final class Builder<K, V> {
+        private Object mOwner = new Object();
+        private Node mRoot;
+        private int mSize;
+
+        Builder(PersistentHashMap<K, V> map) {
+            mRoot = map.mRoot;
+            mSize = map.mSize;
+        }
+
+        /**
+         * Returns the value mapped to {@code key}, or null if there is no such mapping.
+         */
+        @Nullable
+        @SuppressWarnings("unchecked")
+        public V get(@Nullable Object key) {
+            return (V) mRoot.get(key, hash(key), 0, null);
+        }
+
+        /**
+         * Returns true if this builder contains a mapping for {@code key}.
+         */
+        public boolean containsKey(@Nullable Object key) {
+            return mRoot.get(key, hash(key), 0, Node.NOT_FOUND) != Node.NOT_FOUND;
+        }
+
+        /**
+         * Maps {@code key} to {@code value}.
+         *
+         * @return this builder.
+         */
+        @NonNull
+        public Builder<K, V> put(@Nullable K key, @Nullable V value) {
+            Change change = new Change();
+            mRoot = mRoot.put(mOwner, key, hash(key), value, 0, change);
+            if (change.mAdded) {
+                mSize++;
+            }
+            return this;
+        }
+
+        /**
+         * Removes the mapping for {@code key}, if any.
+         *
+         * @return this builder.
+         */
+        @NonNull
+        public Builder<K, V> remove(@Nullable Object key) {
+            Change change = new Change();
+            mRoot = mRoot.remove(mOwner, key, hash(key), 0, change);
+            if (change.mRemoved) {
+                mSize--;
+            }
+            return this;
+        }
+
+        /**
+         * Returns the number of mappings in this builder.
+         */
+        public int size() {
+            return mSize;
+        }
+
+        /**
+         * Returns a map with the current contents of this builder.  The builder can still be
+         * used afterwards; further changes do not affect the returned map.
+         */
+        @NonNull
+        public PersistentHashMap<K, V> build() {
+            // Give up ownership of the nodes now shared with the returned map.
+            mOwner = new Object();
+            return mSize == 0 ? PersistentHashMap.<K, V>empty()
+                    : new PersistentHashMap<K, V>(mRoot, mSize);
+        }
+    }
+
+    /** Records the effect of a put or remove on the trie. */
+    static final class Change {
+        boolean mAdded;
+        boolean mRemoved;
+    }
+
+    /**
+     * A trie node.  Entries whose hash fragment is unique at this level are stored inline as
+     * key/value pairs at the front of {@link #mBuffer}, ordered by fragment; sub-nodes are stored
+     * at the back in reverse order.  Below {@link #MAX_SHIFT} all hash bits have been consumed
+     * and the node is a collision node holding key/value pairs with equal hashes.
+     */
+    static final class Node {
+        static final int BITS = 5;
+        static final int MASK = (1 << BITS) - 1;
+        static final int MAX_SHIFT = 30;
+        static final Object NOT_FOUND = new Object();
+        static final Node EMPTY = new Node(null, 0, 0, ContainerHelpers.EMPTY_OBJECTS);
+
+        @Nullable
+        final Object mOwner;
+        int mDataMap;
+        int mNodeMap;
+        Object[] mBuffer;
+
+        Node(@Nullable Object owner, int dataMap, int nodeMap, Object[] buffer) {
+            mOwner = owner;
+            mDataMap = dataMap;
+            mNodeMap = nodeMap;
+            mBuffer = buffer;
+        }
+
+        int dataCount() {
+            return Integer.bitCount(mDataMap);
+        }
+
+        int nodeCount() {
+            return Integer.bitCount(mNodeMap);
+        }
+
+        Node nodeAt(int index) {
+            return (Node) mBuffer[mBuffer.length - 1 - index];
+        }
+
+        /** Whether this node holds exactly one entry and could be inlined into its parent. */
+        boolean hasSingleEntry() {
+            return mNodeMap == 0 && mBuffer.length == 2;
+        }
+
+        @Nullable
+        Object get(@Nullable Object key, int hash, int shift, @Nullable Object notFound) {
+            if (shift > MAX_SHIFT) {
+                for (int i = 0; i < mBuffer.length; i += 2) {
+                    if (ContainerHelpers.equal(key, mBuffer[i])) {
+                        return mBuffer[i + 1];
+                    }
+                }
+                return notFound;
+            }
+            Node node = this;
+            while (true) {
+                int bit = 1 << ((hash >>> shift) & MASK);
+                if ((node.mDataMap & bit) != 0) {
+                    int index = Integer.bitCount(node.mDataMap & (bit - 1)) << 1;
+                    return ContainerHelpers.equal(key, node.mBuffer[index])
+                            ? node.mBuffer[index + 1] : notFound;
+                }
+                if ((node.mNodeMap & bit) == 0) {
+                    return notFound;
+                }
+                node = node.nodeAt(Integer.bitCount(node.mNodeMap & (bit - 1)));
+                shift += BITS;
+                if (shift > MAX_SHIFT) {
+                    return node.get(key, hash, shift, notFound);
+                }
+            }
+        }
+
+        Node put(@Nullable Object owner, @Nullable Object key, int hash, @Nullable Object value,
+                int shift, Change change) {
+            if (shift > MAX_SHIFT) {
+                return collisionPut(owner, key, value, change);
+            }
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((mDataMap & bit) != 0) {
+                int index = Integer.bitCount(mDataMap & (bit - 1)) << 1;
+                Object currentKey = mBuffer[index];
+                if (ContainerHelpers.equal(key, currentKey)) {
+                    if (mBuffer[index + 1] == value) {
+                        return this;
+                    }
+                    Node node = editable(owner);
+                    node.mBuffer[index + 1] = value;
+                    return node;
+                }
+                change.mAdded = true;
+                Node child = merge(owner, currentKey, hash(currentKey), mBuffer[index + 1],
+                        key, hash, value, shift + BITS);
+                return migrateInlineToNode(owner, bit, index, child);
+            }
+            if ((mNodeMap & bit) != 0) {
+                int nodeIndex = Integer.bitCount(mNodeMap & (bit - 1));
+                Node child = nodeAt(nodeIndex);
+                Node newChild = child.put(owner, key, hash, value, shift + BITS, change);
+                if (newChild == child) {
+                    return this;
+                }
+                Node node = editable(owner);
+                node.mBuffer[node.mBuffer.length - 1 - nodeIndex] = newChild;
+                return node;
+            }
+            change.mAdded = true;
+            return insertInline(owner, bit, key, value);
+        }
+
+        Node remove(@Nullable Object owner, @Nullable Object key, int hash, int shift,
+                Change change) {
+            if (shift > MAX_SHIFT) {
+                return collisionRemove(owner, key, change);
+            }
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((mDataMap & bit) != 0) {
+                int index = Integer.bitCount(mDataMap & (bit - 1)) << 1;
+                if (!ContainerHelpers.equal(key, mBuffer[index])) {
+                    return this;
+                }
+                change.mRemoved = true;
+                return removeInline(owner, bit, index);
+            }
+            if ((mNodeMap & bit) != 0) {
+                int nodeIndex = Integer.bitCount(mNodeMap & (bit - 1));
+                Node child = nodeAt(nodeIndex);
+                Node newChild = child.remove(owner, key, hash, shift + BITS, change);
+                if (!change.mRemoved) {
+                    return this;
+                }
+                if (newChild.hasSingleEntry()) {
+                    // Keep the trie canonical: a lone entry is always stored in its parent. The
+                    // child may have been edited in place, so this is checked before identity.
+                    return migrateNodeToInline(owner, bit, nodeIndex, newChild);
+                }
+                if (newChild == child) {
+                    return this;
+                }
+                Node node = editable(owner);
+                node.mBuffer[node.mBuffer.length - 1 - nodeIndex] = newChild;
+                return node;
+            }
+            return this;
+        }
+
+        private Node collisionPut(@Nullable Object owner, @Nullable Object key,
+                @Nullable Object value, Change change) {
+            for (int i = 0; i < mBuffer.length; i += 2) {
+                if (ContainerHelpers.equal(key, mBuffer[i])) {
+                    if (mBuffer[i + 1] == value) {
+                        return this;
+                    }
+                    Node node = editable(owner);
+                    node.mBuffer[i + 1] = value;
+                    return node;
+                }
+            }
+            change.mAdded = true;
+            Object[] buffer = new Object[mBuffer.length + 2];
+            System.arraycopy(mBuffer, 0, buffer, 0, mBuffer.length);
+            buffer[mBuffer.length] = key;
+            buffer[mBuffer.length + 1] = value;
+            return update(owner, 0, 0, buffer);
+        }
+
+        private Node collisionRemove(@Nullable Object owner, @Nullable Object key,
+                Change change) {
+            for (int i = 0; i < mBuffer.length; i += 2) {
+                if (ContainerHelpers.equal(key, mBuffer[i])) {
+                    change.mRemoved = true;
+                    Object[] buffer = new Object[mBuffer.length - 2];
+                    System.arraycopy(mBuffer, 0, buffer, 0, i);
+                    System.arraycopy(mBuffer, i + 2, buffer, i, mBuffer.length - i - 2);
+                    return update(owner, 0, 0, buffer);
+                }
+            }
+            return this;
+        }
+
+        /** Returns a node holding two entries that collide at the previous level. */
+        private static Node merge(@Nullable Object owner, @Nullable Object key0, int hash0,
+                @Nullable Object value0, @Nullable Object key1, int hash1,
+                @Nullable Object value1, int shift) {
+            if (shift > MAX_SHIFT) {
+                return new Node(owner, 0, 0, new Object[] { key0, value0, key1, value1 });
+            }
+            int fragment0 = (hash0 >>> shift) & MASK;
+            int fragment1 = (hash1 >>> shift) & MASK;
+            if (fragment0 != fragment1) {
+                int dataMap = (1 << fragment0) | (1 << fragment1);
+                Object[] buffer = fragment0 < fragment1
+                        ? new Object[] { key0, value0, key1, value1 }
+                        : new Object[] { key1, value1, key0, value0 };
+                return new Node(owner, dataMap, 0, buffer);
+            }
+            Node child = merge(owner, key0, hash0, value0, key1, hash1, value1, shift + BITS);
+            return new Node(owner, 0, 1 << fragment0, new Object[] { child });
+        }
+
+        private Node insertInline(@Nullable Object owner, int bit, @Nullable Object key,
+                @Nullable Object value) {
+            int index = Integer.bitCount(mDataMap & (bit - 1)) << 1;
+            Object[] buffer = new Object[mBuffer.length + 2];
+            System.arraycopy(mBuffer, 0, buffer, 0, index);
+            buffer[index] = key;
+            buffer[index + 1] = value;
+            System.arraycopy(mBuffer, index, buffer, index + 2, mBuffer.length - index);
+            return update(owner, mDataMap | bit, mNodeMap, buffer);
+        }
+
+        private Node removeInline(@Nullable Object owner, int bit, int index) {
+            Object[] buffer = new Object[mBuffer.length - 2];
+            System.arraycopy(mBuffer, 0, buffer, 0, index);
+            System.arraycopy(mBuffer, index + 2, buffer, index, mBuffer.length - index - 2);
+            return update(owner, mDataMap ^ bit, mNodeMap, buffer);
+        }
+
+        /** Replaces the inline entry at {@code index} with {@code child}. */
+        private Node migrateInlineToNode(@Nullable Object owner, int bit, int index,
+                Node child) {
+            // Node slots are stored from the back, so the child goes after the remaining data
+            // and any sub-nodes whose fragments are greater than bit.
+            int nodeIndex = Integer.bitCount(mNodeMap & (bit - 1));
+            int oldNodePosition = mBuffer.length - nodeIndex;
+            Object[] buffer = new Object[mBuffer.length - 1];
+            System.arraycopy(mBuffer, 0, buffer, 0, index);
+            System.arraycopy(mBuffer, index + 2, buffer, index, oldNodePosition - index - 2);
+            buffer[oldNodePosition - 2] = child;
+            System.arraycopy(mBuffer, oldNodePosition, buffer, oldNodePosition - 1, nodeIndex);
+            return update(owner, mDataMap ^ bit, mNodeMap | bit, buffer);
+        }
+
+        /** Replaces the sub-node at {@code nodeIndex} with its single entry. */
+        private Node migrateNodeToInline(@Nullable Object owner, int bit, int nodeIndex,
+                Node child) {
+            int index = Integer.bitCount(mDataMap & (bit - 1)) << 1;
+            int oldNodePosition = mBuffer.length - 1 - nodeIndex;
+            Object[] buffer = new Object[mBuffer.length + 1];
+            System.arraycopy(mBuffer, 0, buffer, 0, index);
+            buffer[index] = child.mBuffer[0];
+            buffer[index + 1] = child.mBuffer[1];
+            System.arraycopy(mBuffer, index, buffer, index + 2, oldNodePosition - index);
+            System.arraycopy(mBuffer, oldNodePosition + 1, buffer, oldNodePosition + 2,
+                    nodeIndex);
+            return update(owner, mDataMap | bit, mNodeMap ^ bit, buffer);
+        }
+
+        /** Returns this node if {@code owner} may edit it in place, or a copy owned by it. */
+        private Node editable(@Nullable Object owner) {
+            if (owner != null && owner == mOwner) {
+                return this;
+            }
+            return new Node(owner, mDataMap, mNodeMap, mBuffer.clone());
+        }
+
+        private Node update(@Nullable Object owner, int dataMap, int nodeMap, Object[] buffer) {
+            if (owner != null && owner == mOwner) {
+                mDataMap = dataMap;
+                mNodeMap = nodeMap;
+                mBuffer = buffer;
+                return this;
+            }
+            return new Node(owner, dataMap, nodeMap, buffer);
+        }
+    }
+
+    /** Depth-first iterator over the entries of a trie. */
+    static class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+        // One level per 5 hash bits, plus the collision level.
+        private static final int MAX_DEPTH = 8;
+
+        private final Node[] mNodes = new Node[MAX_DEPTH];
+        private final int[] mDataPositions = new int[MAX_DEPTH];
+        private final int[] mNodePositions = new int[MAX_DEPTH];
+        private int mDepth;
+
+        EntryIterator(Node root) {
+            mNodes[0] = root;
+            advance();
+        }
+
+        /** Moves to the next node with an unread inline entry, if any. */
+        private void advance() {
+            while (mDepth >= 0) {
+                Node node = mNodes[mDepth];
+                int dataLength = node.mBuffer.length - node.nodeCount();
+                if (mDataPositions[mDepth] < dataLength) {
+                    return;
+                }
+                if (mNodePositions[mDepth] < node.nodeCount()) {
+                    Node child = node.nodeAt(mNodePositions[mDepth]++);
+                    mDepth++;
+                    mNodes[mDepth] = child;
+                    mDataPositions[mDepth] = 0;
+                    mNodePositions[mDepth] = 0;
+                } else {
+                    mNodes[mDepth] = null;
+                    mDepth--;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return mDepth >= 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<K, V> next() {
+            if (mDepth < 0) {
+                throw new NoSuchElementException();
+            }
+            Node node = mNodes[mDepth];
+            int position = mDataPositions[mDepth];
+            mDataPositions[mDepth] = position + 2;
+            Map.Entry<K, V> entry = new AbstractMap.SimpleImmutableEntry<>(
+                    (K) node.mBuffer[position], (V) node.mBuffer[position + 1]);
+            advance();
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
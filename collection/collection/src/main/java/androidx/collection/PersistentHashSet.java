@@ -0,0 +1,215 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * An immutable set that shares structure between versions, backed by a
+ * {@link PersistentHashMap}.  {@link #add} and {@link #remove} return a new set and leave the
+ * receiver unchanged.  Elements may be null.
+ *
+ * <p>Instances are immutable and therefore safe to share between threads.  Builders are
+ * <b>NOT</b> thread-safe.</p>
+ */
+public final class PersistentHashSet<E> implements Iterable<E> {
+    private static final PersistentHashSet<Object> EMPTY =
+            new PersistentHashSet<>(PersistentHashMap.<Object, Boolean>empty());
+
+    private final PersistentHashMap<E, Boolean> mMap;
+
+    PersistentHashSet(PersistentHashMap<E, Boolean> map) {
+        mMap = map;
+    }
+
+    /**
+     * Returns an empty set.
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentHashSet<E> empty() {
+        return (PersistentHashSet<E>) EMPTY;
+    }
+
+    /**
+     * Returns true if this set contains {@code element}.
+     */
+    public boolean contains(@Nullable Object element) {
+        return mMap.containsKey(element);
+    }
+
+    /**
+     * Returns a set containing {@code element}.  Returns this set if it already does.
+     */
+    @NonNull
+    public PersistentHashSet<E> add(@Nullable E element) {
+        PersistentHashMap<E, Boolean> map = mMap.put(element, Boolean.TRUE);
+        return map == mMap ? this : new PersistentHashSet<>(map);
+    }
+
+    /**
+     * Returns a set not containing {@code element}.  Returns this set if it already does not.
+     */
+    @NonNull
+    public PersistentHashSet<E> remove(@Nullable Object element) {
+        PersistentHashMap<E, Boolean> map = mMap.remove(element);
+        return map == mMap ? this : new PersistentHashSet<>(map);
+    }
+
+    /**
+     * Returns the number of elements in this set.
+     */
+    public int size() {
+        return mMap.size();
+    }
+
+    /**
+     * Returns true if this set contains no elements.
+     */
+    public boolean isEmpty() {
+        return mMap.isEmpty();
+    }
+
+    /**
+     * Returns a builder initialized with the elements of this set.  Building it does not modify
+     * this set.
+     */
+    @NonNull
+    public Builder<E> builder() {
+        return new Builder<>(mMap.builder());
+    }
+
+    /**
+     * Returns an iterator over the elements of this set, in no particular order.
+     */
+    @NonNull
+    @Override
+    public Iterator<E> iterator() {
+        final Iterator<Map.Entry<E, Boolean>> entries = mMap.iterator();
+        return new Iterator<E>() {
+            @Override
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            @Override
+            public E next() {
+                return entries.next().getKey();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(@Nullable Object object) {
+        return this == object || (object instanceof PersistentHashSet
+                && mMap.equals(((PersistentHashSet<?>) object).mMap));
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 0;
+        for (E element : this) {
+            result += element != null ? element.hashCode() : 0;
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        if (isEmpty()) {
+            return "{}";
+        }
+        StringBuilder buffer = new StringBuilder(size() * 14);
+        buffer.append('{');
+        boolean first = true;
+        for (E element : this) {
+            if (!first) {
+                buffer.append(", ");
+            }
+            first = false;
+            buffer.append(element != this ? element : "(this Set)");
+        }
+        buffer.append('}');
+        return buffer.toString();
+    }
+
+    /**
+     * A mutable view used to batch changes into a {@link PersistentHashSet}.
+     */
+    public static final class Builder<E> {
+        private final PersistentHashMap.Builder<E, Boolean> mMap;
+
+        Builder(PersistentHashMap.Builder<E, Boolean> map) {
+            mMap = map;
+        }
+
+        /**
+         * Returns true if this builder contains {@code element}.
+         */
+        public boolean contains(@Nullable Object element) {
+            return mMap.containsKey(element);
+        }
+
+        /**
+         * Adds {@code element}.
+         *
+         * @return this builder.
+         */
+        @NonNull
+        public Builder<E> add(@Nullable E element) {
+            mMap.put(element, Boolean.TRUE);
+            return this;
+        }
+
+        /**
+         * Removes {@code element}, if present.
+         *
+         * @return this builder.
+         */
+        @NonNull
+        public Builder<E> remove(@Nullable Object element) {
+            mMap.remove(element);
+            return this;
+        }
+
+        /**
+         * Returns the number of elements in this builder.
+         */
+        public int size() {
+            return mMap.size();
+        }
+
+        /**
+         * Returns a set with the current contents of this builder.  The builder can still be
+         * used afterwards; further changes do not affect the returned set.
+         */
+        @NonNull
+        public PersistentHashSet<E> build() {
+            PersistentHashMap<E, Boolean> map = mMap.build();
+            return map.isEmpty() ? PersistentHashSet.<E>empty() : new PersistentHashSet<>(map);
+        }
+    }
+}
@@ -0,0 +1,483 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable list that shares structure between versions.  {@link #add}, {@link #set} and
+ * {@link #removeLast} return a new list and leave the receiver unchanged, copying only the
+ * O(log<sub>32</sub> n) nodes on the path to the changed element.  Appending is amortized O(1)
+ * because the last, partially filled block of up to 32 elements is kept outside of the trie.
+ *
+ * <p>Elements may be null.  To apply many changes at once, use a {@link Builder}, which edits
+ * nodes it has already copied in place.</p>
+ *
+ * <p>Instances are immutable and therefore safe to share between threads.  Builders are
+ * <b>NOT</b> thread-safe.</p>
+ */
+public final class PersistentVector<E> implements Iterable<E> {
+    static final int BITS = 5;
+    static final int WIDTH = 1 << BITS;
+    static final int MASK = WIDTH - 1;
+
+    private static final Node EMPTY_NODE = new Node(null);
+    private static final PersistentVector<Object> EMPTY =
+            new PersistentVector<>(0, BITS, EMPTY_NODE, ContainerHelpers.EMPTY_OBJECTS);
+
+    private final int mSize;
+    private final int mShift;
+    private final Node mRoot;
+    private final Object[] mTail;
+
+    PersistentVector(int size, int shift, Node root, Object[] tail) {
+        mSize = size;
+        mShift = shift;
+        mRoot = root;
+        mTail = tail;
+    }
+
+    /**
+     * Returns an empty list.
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentVector<E> empty() {
+        return (PersistentVector<E>) EMPTY;
+    }
+
+    /**
+     * Returns the element at {@code index}.
+     *
+     * @throws IndexOutOfBoundsException if {@code index} is negative or not less than
+     *     {@link #size()}.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        checkIndex(index, mSize);
+        return (E) arrayFor(index, mSize, mShift, mRoot, mTail)[index & MASK];
+    }
+
+    /**
+     * Returns a list with {@code element} appended.
+     */
+    @NonNull
+    public PersistentVector<E> add(@Nullable E element) {
+        if (mSize - tailOffset(mSize) < WIDTH) {
+            Object[] tail = Arrays.copyOf(mTail, mTail.length + 1);
+            tail[mTail.length] = element;
+            return new PersistentVector<>(mSize + 1, mShift, mRoot, tail);
+        }
+        Node tailNode = new Node(null, mTail);
+        int shift = mShift;
+        Node root;
+        if ((mSize >>> BITS) > (1 << mShift)) {
+            root = new Node(null);
+            root.mArray[0] = mRoot;
+            root.mArray[1] = newPath(null, mShift, tailNode);
+            shift += BITS;
+        } else {
+            root = pushTail(null, mSize, mShift, mRoot, tailNode);
+        }
+        return new PersistentVector<>(mSize + 1, shift, root, new Object[] { element });
+    }
+
+    /**
+     * Returns a list with the element at {@code index} replaced by {@code element}.
+     *
+     * @throws IndexOutOfBoundsException if {@code index} is negative or not less than
+     *     {@link #size()}.
+     */
+    @NonNull
+    public PersistentVector<E> set(int index, @Nullable E element) {
+        checkIndex(index, mSize);
+        if (index >= tailOffset(mSize)) {
+            Object[] tail = mTail.clone();
+            tail[index & MASK] = element;
+            return new PersistentVector<>(mSize, mShift, mRoot, tail);
+        }
+        return new PersistentVector<>(mSize, mShift,
+                assoc(null, mShift, mRoot, index, element), mTail);
+    }
+
+    /**
+     * Returns a list without its last element.
+     *
+     * @throws NoSuchElementException if this list is empty.
+     */
+    @NonNull
+    public PersistentVector<E> removeLast() {
+        if (mSize == 0) {
+            throw new NoSuchElementException();
+        }
+        if (mSize == 1) {
+            return empty();
+        }
+        if (mSize - tailOffset(mSize) > 1) {
+            return new PersistentVector<>(mSize - 1, mShift, mRoot,
+                    Arrays.copyOf(mTail, mTail.length - 1));
+        }
+        // The tail becomes empty: the last leaf of the trie takes its place.
+        Object[] tail = arrayFor(mSize - 2, mSize, mShift, mRoot, mTail);
+        Node root = popTail(mSize, mShift, mRoot);
+        int shift = mShift;
+        if (root == null) {
+            root = EMPTY_NODE;
+        }
+        if (shift > BITS && root.mArray[1] == null) {
+            root = (Node) root.mArray[0];
+            shift -= BITS;
+        }
+        return new PersistentVector<>(mSize - 1, shift, root, tail);
+    }
+
+    /**
+     * Returns the number of elements in this list.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Returns true if this list contains no elements.
+     */
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Returns a builder initialized with the elements of this list.  Building it does not
+     * modify this list.
+     */
+    @NonNull
+    public Builder<E> builder() {
+        return new Builder<>(this);
+    }
+
+    /**
+     * Returns an iterator over the elements of this list, in order.
+     */
+    @NonNull
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int mIndex;
+            @Nullable
+            private Object[] mLeaf;
+
+            @Override
+            public boolean hasNext() {
+                return mIndex < mSize;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (mIndex >= mSize) {
+                    throw new NoSuchElementException();
+                }
+                Object[] leaf = mLeaf;
+                if (leaf == null || (mIndex & MASK) == 0) {
+                    leaf = arrayFor(mIndex, mSize, mShift, mRoot, mTail);
+                    mLeaf = leaf;
+                }
+                return (E) leaf[mIndex++ & MASK];
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(@Nullable Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof PersistentVector)) {
+            return false;
+        }
+        PersistentVector<?> other = (PersistentVector<?>) object;
+        if (mSize != other.mSize) {
+            return false;
+        }
+        Iterator<?> otherIterator = other.iterator();
+        for (E element : this) {
+            if (!ContainerHelpers.equal(element, otherIterator.next())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        for (E element : this) {
+            result = 31 * result + (element != null ? element.hashCode() : 0);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        if (mSize == 0) {
+            return "[]";
+        }
+        StringBuilder buffer = new StringBuilder(mSize * 14);
+        buffer.append('[');
+        boolean first = true;
+        for (E element : this) {
+            if (!first) {
+                buffer.append(", ");
+            }
+            first = false;
+            buffer.append(element != this ? element : "(this List)");
+        }
+        buffer.append(']');
+        return buffer.toString();
+    }
+
+    static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /** Returns the index of the first element stored in the tail. */
+    static int tailOffset(int size) {
+        return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    static Object[] arrayFor(int index, int size, int shift, Node root, Object[] tail) {
+        if (index >= tailOffset(size)) {
+            return tail;
+        }
+        Node node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Node) node.mArray[(index >>> level) & MASK];
+        }
+        return node.mArray;
+    }
+
+    /** Returns a chain of single-child nodes from {@code level} down to {@code node}. */
+    static Node newPath(@Nullable Object owner, int level, Node node) {
+        if (level == 0) {
+            return node;
+        }
+        Node path = new Node(owner);
+        path.mArray[0] = newPath(owner, level - BITS, node);
+        return path;
+    }
+
+    /** Adds the full tail of a list of {@code size} elements as the last leaf of the trie. */
+    static Node pushTail(@Nullable Object owner, int size, int level, Node parent,
+            Node tailNode) {
+        int subIndex = ((size - 1) >>> level) & MASK;
+        Node node = parent.editable(owner);
+        Node child;
+        if (level == BITS) {
+            child = tailNode;
+        } else {
+            Node current = (Node) parent.mArray[subIndex];
+            child = current != null
+                    ? pushTail(owner, size, level - BITS, current, tailNode)
+                    : newPath(owner, level - BITS, tailNode);
+        }
+        node.mArray[subIndex] = child;
+        return node;
+    }
+
+    /** Removes the last leaf of the trie of a list of {@code size} elements. */
+    @Nullable
+    private static Node popTail(int size, int level, Node node) {
+        int subIndex = ((size - 2) >>> level) & MASK;
+        if (level > BITS) {
+            Node child = popTail(size, level - BITS, (Node) node.mArray[subIndex]);
+            if (child == null && subIndex == 0) {
+                return null;
+            }
+            Node copy = node.editable(null);
+            copy.mArray[subIndex] = child;
+            return copy;
+        }
+        if (subIndex == 0) {
+            return null;
+        }
+        Node copy = node.editable(null);
+        copy.mArray[subIndex] = null;
+        return copy;
+    }
+
+    static Node assoc(@Nullable Object owner, int level, Node parent, int index,
+            @Nullable Object element) {
+        Node node = parent.editable(owner);
+        if (level == 0) {
+            node.mArray[index & MASK] = element;
+        } else {
+            int subIndex = (index >>> level) & MASK;
+            node.mArray[subIndex] =
+                    assoc(owner, level - BITS, (Node) parent.mArray[subIndex], index, element);
+        }
+        return node;
+    }
+
+    /**
+     * A mutable view used to batch changes into a {@link PersistentVector}.  Nodes copied by
+     * the builder are owned by it and edited in place, so appending n elements costs O(n).
+     */
+    public static final class Builder<E> {
+        private Object mOwner = new Object();
+        private int mSize;
+        private int mShift;
+        private Node mRoot;
+        private Object[] mTail;
+
+        Builder(PersistentVector<E> vector) {
+            mSize = vector.mSize;
+            mShift = vector.mShift;
+            mRoot = vector.mRoot;
+            mTail = Arrays.copyOf(vector.mTail, WIDTH);
+        }
+
+        /**
+         * Returns the element at {@code index}.
+         *
+         * @throws IndexOutOfBoundsException if {@code index} is negative or not less than
+         *     {@link #size()}.
+         */
+        @Nullable
+        @SuppressWarnings("unchecked")
+        public E get(int index) {
+            checkIndex(index, mSize);
+            return (E) arrayFor(index, mSize, mShift, mRoot, mTail)[index & MASK];
+        }
+
+        /**
+         * Appends {@code element}.
+         *
+         * @return this builder.
+         */
+        @NonNull
+        public Builder<E> add(@Nullable E element) {
+            if (mSize - tailOffset(mSize) < WIDTH) {
+                mTail[mSize & MASK] = element;
+                mSize++;
+                return this;
+            }
+            Node tailNode = new Node(mOwner, mTail);
+            mTail = new Object[WIDTH];
+            mTail[0] = element;
+            if ((mSize >>> BITS) > (1 << mShift)) {
+                Node root = new Node(mOwner);
+                root.mArray[0] = mRoot;
+                root.mArray[1] = newPath(mOwner, mShift, tailNode);
+                mRoot = root;
+                mShift += BITS;
+            } else {
+                mRoot = pushTail(mOwner, mSize, mShift, mRoot, tailNode);
+            }
+            mSize++;
+            return this;
+        }
+
+        /**
+         * Appends all of {@code elements}.
+         *
+         * @return this builder.
+         */
+        @NonNull
+        public Builder<E> addAll(@NonNull Iterable<? extends E> elements) {
+            for (E element : elements) {
+                add(element);
+            }
+            return this;
+        }
+
+        /**
+         * Replaces the element at {@code index}.
+         *
+         * @return this builder.
+         * @throws IndexOutOfBoundsException if {@code index} is negative or not less than
+         *     {@link #size()}.
+         */
+        @NonNull
+        public Builder<E> set(int index, @Nullable E element) {
+            checkIndex(index, mSize);
+            if (index >= tailOffset(mSize)) {
+                mTail[index & MASK] = element;
+            } else {
+                mRoot = assoc(mOwner, mShift, mRoot, index, element);
+            }
+            return this;
+        }
+
+        /**
+         * Returns the number of elements in this builder.
+         */
+        public int size() {
+            return mSize;
+        }
+
+        /**
+         * Returns a list with the current contents of this builder.  The builder can still be
+         * used afterwards; further changes do not affect the returned list.
+         */
+        @NonNull
+        public PersistentVector<E> build() {
+            if (mSize == 0) {
+                return empty();
+            }
+            // Give up ownership of the nodes now shared with the returned list.
+            mOwner = new Object();
+            Object[] tail = Arrays.copyOf(mTail, mSize - tailOffset(mSize));
+            return new PersistentVector<>(mSize, mShift, mRoot, tail);
+        }
+    }
+
+    /** An interior node or leaf of the trie. */
+    static final class Node {
+        @Nullable
+        final Object mOwner;
+        final Object[] mArray;
+
+        Node(@Nullable Object owner) {
+            this(owner, new Object[WIDTH]);
+        }
+
+        Node(@Nullable Object owner, Object[] array) {
+            mOwner = owner;
+            mArray = array;
+        }
+
+        /** Returns this node if {@code owner} may edit it in place, or a copy owned by it. */
+        Node editable(@Nullable Object owner) {
+            if (owner != null && owner == mOwner) {
+                return this;
+            }
+            return new Node(owner, mArray.clone());
+        }
+    }
+}
@@ -52,22 +52,6 @@ public class SimpleArrayMap<K, V> {
      */
     private static final int BASE_SIZE = 4;
 
-    /**
-     * Maximum number of entries to have in array caches.
-     */
-    private static final int CACHE_SIZE = 10;
-
-    /**
-     * Caches of small array objects to avoid spamming garbage.  The cache
-     * Object[] variable is a pointer to a linked list of array objects.
-     * The first entry in the array is a pointer to the next array in the
-     * list; the second entry is a pointer to the int[] hash code array for it.
-     */
-    static @Nullable Object[] mBaseCache;
-    static int mBaseCacheSize;
-    static @Nullable Object[] mTwiceBaseCache;
-    static int mTwiceBaseCacheSize;
-
     int[] mHashes;
     Object[] mArray;
     int mSize;
@@ -161,35 +145,16 @@ public class SimpleArrayMap<K, V> {
     }
 
     @SuppressWarnings("ArrayToString")
-    private void allocArrays(final int size) {
-        if (size == (BASE_SIZE*2)) {
-            synchronized (SimpleArrayMap.class) {
-                if (mTwiceBaseCache != null) {
-                    final Object[] array = mTwiceBaseCache;
-                    mArray = array;
-                    mTwiceBaseCache = (Object[])array[0];
-                    mHashes = (int[])array[1];
-                    array[0] = array[1] = null;
-                    mTwiceBaseCacheSize--;
-                    if (DEBUG) System.out.println(TAG + " Retrieving 2x cache " + mHashes
-                            + " now have " + mTwiceBaseCacheSize + " entries");
-                    return;
-                }
-            }
-        } else if (size == BASE_SIZE) {
-            synchronized (SimpleArrayMap.class) {
-                if (mBaseCache != null) {
-                    final Object[] array = mBaseCache;
-                    mArray = array;
-                    mBaseCache = (Object[])array[0];
-                    mHashes = (int[])array[1];
-                    array[0] = array[1] = null;
-                    mBaseCacheSize--;
-                    if (DEBUG) System.out.println(TAG + " Retrieving 1x cache " + mHashes
-                            + " now have " + mBaseCacheSize + " entries");
-                    return;
-                }
-            }
+    private void allocArrays(final int capacity) {
+        // Round up to a pooled size class so that the arrays can be recycled later.
+        final int size = ArrayRecyclingPool.roundCapacity(capacity);
+        final Object[] array = ArrayRecyclingPool.acquire(ArrayRecyclingPool.MAP, size);
+        if (array != null) {
+            mArray = array;
+            mHashes = (int[]) array[1];
+            array[0] = array[1] = null;
+            if (DEBUG) System.out.println(TAG + " Retrieving " + size + " cache " + mHashes);
+            return;
         }
 
         mHashes = new int[size];
@@ -198,35 +163,8 @@ public class SimpleArrayMap<K, V> {
 
     @SuppressWarnings("ArrayToString")
     private static void freeArrays(final int[] hashes, final Object[] array, final int size) {
-        if (hashes.length == (BASE_SIZE*2)) {
-            synchronized (SimpleArrayMap.class) {
-                if (mTwiceBaseCacheSize < CACHE_SIZE) {
-                    array[0] = mTwiceBaseCache;
-                    array[1] = hashes;
-                    for (int i=(size<<1)-1; i>=2; i--) {
-                        array[i] = null;
-                    }
-                    mTwiceBaseCache = array;
-                    mTwiceBaseCacheSize++;
-                    if (DEBUG) System.out.println(TAG + " Storing 2x cache " + array
-                            + " now have " + mTwiceBaseCacheSize + " entries");
-                }
-            }
-        } else if (hashes.length == BASE_SIZE) {
-            synchronized (SimpleArrayMap.class) {
-                if (mBaseCacheSize < CACHE_SIZE) {
-                    array[0] = mBaseCache;
-                    array[1] = hashes;
-                    for (int i=(size<<1)-1; i>=2; i--) {
-                        array[i] = null;
-                    }
-                    mBaseCache = array;
-                    mBaseCacheSize++;
-                    if (DEBUG) System.out.println(TAG + " Storing 1x cache " + array
-                            + " now have " + mBaseCacheSize + " entries");
-                }
-            }
-        }
+        if (DEBUG) System.out.println(TAG + " Storing " + hashes.length + " cache " + array);
+        ArrayRecyclingPool.release(ArrayRecyclingPool.MAP, hashes, array, size << 1);
     }
 
     /**
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ArrayRecyclingPoolTest {
+    @After
+    public void restoreDefaults() {
+        ArrayRecyclingPool.setMaxPooledCapacity(64);
+        ArrayRecyclingPool.setMaxArraysPerSizeClass(10);
+    }
+
+    @Test
+    public void roundCapacityUsesPowerOfTwoSizeClasses() {
+        assertEquals(1, ArrayRecyclingPool.roundCapacity(1));
+        assertEquals(4, ArrayRecyclingPool.roundCapacity(4));
+        assertEquals(8, ArrayRecyclingPool.roundCapacity(5));
+        assertEquals(16, ArrayRecyclingPool.roundCapacity(12));
+        assertEquals(64, ArrayRecyclingPool.roundCapacity(64));
+        assertEquals(65, ArrayRecyclingPool.roundCapacity(65));
+    }
+
+    @Test
+    public void clearedMapArraysAreReused() {
+        SimpleArrayMap<String, String> map = new SimpleArrayMap<>(32);
+        map.put("a", "A");
+        map.clear();
+
+        long hits = ArrayRecyclingPool.hitCount();
+        SimpleArrayMap<String, String> other = new SimpleArrayMap<>(20);
+        assertEquals(hits + 1, ArrayRecyclingPool.hitCount());
+        assertNull(other.get("a"));
+        other.put("b", "B");
+        assertEquals("B", other.get("b"));
+    }
+
+    @Test
+    public void clearedSetArraysAreReused() {
+        ArraySet<String> set = new ArraySet<>(16);
+        set.add("a");
+        set.clear();
+
+        long hits = ArrayRecyclingPool.hitCount();
+        ArraySet<String> other = new ArraySet<>(16);
+        assertEquals(hits + 1, ArrayRecyclingPool.hitCount());
+        assertTrue(other.isEmpty());
+        assertTrue(other.add("a"));
+    }
+
+    @Test
+    public void disabledPoolAlwaysMisses() {
+        ArrayRecyclingPool.setMaxArraysPerSizeClass(0);
+        // Drain anything pooled earlier on this thread.
+        for (int i = 0; i < 10; i++) {
+            new ArraySet<String>(8);
+        }
+        new ArraySet<String>(8).add("a");
+        long hits = ArrayRecyclingPool.hitCount();
+        long misses = ArrayRecyclingPool.missCount();
+        ArraySet<String> set = new ArraySet<>(8);
+        set.add("a");
+        set.clear();
+        new ArraySet<String>(8);
+        assertEquals(hits, ArrayRecyclingPool.hitCount());
+        assertEquals(misses + 2, ArrayRecyclingPool.missCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maxPooledCapacityMustBePowerOfTwo() {
+        ArrayRecyclingPool.setMaxPooledCapacity(48);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maxArraysPerSizeClassMustNotBeNegative() {
+        ArrayRecyclingPool.setMaxArraysPerSizeClass(-1);
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(JUnit4.class)
+public class ConcurrentLruCacheTest {
+    @Test
+    public void putAndGet() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<>(3);
+        assertNull(cache.put("a", "A"));
+        assertEquals("A", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        assertEquals(1, cache.putCount());
+    }
+
+    @Test
+    public void putReturnsPreviousValue() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<>(3);
+        cache.put("a", "A");
+        assertEquals("A", cache.put("a", "B"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<>(3);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        cache.get("a");
+        cache.put("d", "D");
+        Map<String, String> snapshot = cache.snapshot();
+        assertFalse(snapshot.containsKey("b"));
+        assertEquals("[c, a, d]", snapshot.keySet().toString());
+        assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    public void createIsCalledOnMiss() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(3) {
+            @Override
+            protected String create(@NonNull String key) {
+                return key.toUpperCase();
+            }
+        };
+        assertEquals("A", cache.get("a"));
+        assertEquals("A", cache.get("a"));
+        assertEquals(1, cache.createCount());
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    public void entryRemovedReportsEvictionsAndReplacements() {
+        final List<String> removals = new ArrayList<>();
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(2) {
+            @Override
+            protected void entryRemoved(boolean evicted, @NonNull String key,
+                    @NonNull String oldValue, @Nullable String newValue) {
+                removals.add(evicted + " " + key + "=" + oldValue + ">" + newValue);
+            }
+        };
+        cache.put("a", "A");
+        cache.put("a", "A2");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        cache.remove("b");
+        assertEquals("[false a=A>A2, true a=A2>null, false b=B>null]", removals.toString());
+    }
+
+    @Test
+    public void sizeOfIsUsedForTrimming() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(10) {
+            @Override
+            protected int sizeOf(@NonNull String key, @NonNull String value) {
+                return value.length();
+            }
+        };
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        cache.put("c", "cccc");
+        assertEquals(8, cache.size());
+        assertNull(cache.get("a"));
+        cache.resize(4);
+        assertEquals(4, cache.size());
+        assertEquals("cccc", cache.get("c"));
+    }
+
+    @Test
+    public void evictAllRemovesEverything() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<>(10);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.evictAll();
+        assertEquals(0, cache.size());
+        assertTrue(cache.snapshot().isEmpty());
+    }
+
+    @Test
+    public void concurrentAccessKeepsSizeConsistent() throws InterruptedException {
+        final int threads = 8;
+        final ConcurrentLruCache<Integer, Integer> cache = new ConcurrentLruCache<>(100);
+        final AtomicInteger failures = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final int seed = t;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < 20_000; i++) {
+                            int key = (i * 31 + seed) % 500;
+                            if (i % 3 == 0) {
+                                cache.put(key, key);
+                            } else if (i % 17 == 0) {
+                                cache.remove(key);
+                            } else {
+                                Integer value = cache.get(key);
+                                if (value != null && value != key) {
+                                    failures.incrementAndGet();
+                                }
+                            }
+                        }
+                    } catch (RuntimeException e) {
+                        failures.incrementAndGet();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        done.await();
+        assertEquals(0, failures.get());
+        assertTrue(cache.size() <= 100);
+        assertEquals(cache.size(), cache.snapshot().size());
+    }
+}
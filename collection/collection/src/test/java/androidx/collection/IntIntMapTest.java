@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class IntIntMapTest {
+    @Test
+    public void getReturnsZeroWhenAbsent() {
+        IntIntMap map = new IntIntMap();
+        assertEquals(0, map.get(1));
+        assertEquals(-1, map.get(1, -1));
+    }
+
+    @Test
+    public void putAndRemove() {
+        IntIntMap map = new IntIntMap(0);
+        for (int i = 0; i < 1_000; i++) {
+            map.put(i, i * 2);
+        }
+        for (int i = 0; i < 1_000; i += 2) {
+            map.remove(i);
+        }
+        assertEquals(500, map.size());
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(i % 2 == 0 ? -1 : i * 2, map.get(i, -1));
+        }
+    }
+
+    @Test
+    public void indexOfValue() {
+        IntIntMap map = new IntIntMap();
+        map.put(10, 100);
+        map.put(20, 200);
+        assertEquals(20, map.keyAt(map.indexOfValue(200)));
+        assertTrue(map.containsValue(100));
+        assertFalse(map.containsValue(300));
+    }
+
+    @Test
+    public void putAllCopiesMappings() {
+        IntIntMap source = new IntIntMap();
+        source.put(1, 10);
+        source.put(2, 20);
+        IntIntMap map = new IntIntMap();
+        map.put(2, 0);
+        map.putAll(source);
+        assertEquals(2, map.size());
+        assertEquals(10, map.get(1));
+        assertEquals(20, map.get(2));
+    }
+}
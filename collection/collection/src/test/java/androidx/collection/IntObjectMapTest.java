@@ -0,0 +1,156 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashMap;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class IntObjectMapTest {
+    @Test
+    public void getReturnsStoredValue() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        map.put(1, "1");
+        map.put(-1, "-1");
+        assertEquals("1", map.get(1));
+        assertEquals("-1", map.get(-1));
+        assertNull(map.get(2));
+    }
+
+    @Test
+    public void getOrDefaultUsesDefaultWhenAbsent() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        assertEquals("1", map.get(1, "1"));
+        assertFalse(map.containsKey(1));
+    }
+
+    @Test
+    public void putReplacesExistingMapping() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        map.put(1, "1");
+        map.put(1, "2");
+        assertEquals(1, map.size());
+        assertEquals("2", map.get(1));
+    }
+
+    @Test
+    public void putIfAbsentDoesNotOverwriteStoredValue() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        map.put(1, "1");
+        assertEquals("1", map.putIfAbsent(1, "2"));
+        assertEquals("1", map.get(1));
+    }
+
+    @Test
+    public void zeroCapacityGrowsOnPut() {
+        IntObjectMap<String> map = new IntObjectMap<>(0);
+        for (int i = 0; i < 100; i++) {
+            map.put(i, Integer.toString(i));
+        }
+        assertEquals(100, map.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Integer.toString(i), map.get(i));
+        }
+    }
+
+    @Test
+    public void removeAtMovesLastMappingIntoIndex() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        map.put(1, "1");
+        map.put(2, "2");
+        map.put(3, "3");
+        map.removeAt(0);
+        assertEquals(2, map.size());
+        assertEquals(3, map.keyAt(0));
+        assertEquals("3", map.valueAt(0));
+        assertEquals(0, map.indexOfKey(3));
+        assertFalse(map.containsKey(1));
+    }
+
+    @Test
+    public void indexesAreConsistentWithKeys() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        for (int i = 0; i < 50; i++) {
+            map.put(i * 31, Integer.toString(i));
+        }
+        for (int i = 0; i < map.size(); i++) {
+            assertEquals(i, map.indexOfKey(map.keyAt(i)));
+        }
+    }
+
+    @Test
+    public void matchesHashMapUnderRandomOperations() {
+        Random random = new Random(0);
+        IntObjectMap<Integer> map = new IntObjectMap<>(0);
+        HashMap<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            int key = random.nextInt(512) - 256;
+            if (random.nextBoolean()) {
+                map.put(key, i);
+                expected.put(key, i);
+            } else {
+                map.remove(key);
+                expected.remove(key);
+            }
+            assertEquals(expected.get(key), map.get(key));
+        }
+        assertEquals(expected.size(), map.size());
+        for (int i = 0; i < map.size(); i++) {
+            assertEquals(expected.get(map.keyAt(i)), map.valueAt(i));
+        }
+    }
+
+    @Test
+    public void clearRemovesAllMappings() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        map.put(1, "1");
+        map.put(2, "2");
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+        map.put(2, "3");
+        assertEquals("3", map.get(2));
+    }
+
+    @Test
+    public void cloneIsIndependent() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        map.put(1, "1");
+        IntObjectMap<String> clone = map.clone();
+        clone.put(2, "2");
+        assertEquals(1, map.size());
+        assertEquals(2, clone.size());
+    }
+
+    @Test
+    public void toStringFormatsMappings() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        assertEquals("{}", map.toString());
+        map.put(1, "one");
+        map.put(2, "two");
+        assertEquals("{1=one, 2=two}", map.toString());
+    }
+}
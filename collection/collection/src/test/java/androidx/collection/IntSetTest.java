@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class IntSetTest {
+    @Test
+    public void addReportsModification() {
+        IntSet set = new IntSet();
+        assertTrue(set.add(1));
+        assertFalse(set.add(1));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void removeReportsModification() {
+        IntSet set = new IntSet();
+        set.add(1);
+        assertTrue(set.remove(1));
+        assertFalse(set.remove(1));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void containsAfterGrowth() {
+        IntSet set = new IntSet();
+        for (int i = -500; i < 500; i++) {
+            set.add(i);
+        }
+        for (int i = -500; i < 500; i++) {
+            assertTrue(set.contains(i));
+        }
+        assertFalse(set.contains(500));
+    }
+
+    @Test
+    public void equalsIgnoresOrder() {
+        IntSet a = new IntSet();
+        a.add(1);
+        a.add(2);
+        IntSet b = new IntSet();
+        b.add(2);
+        b.add(1);
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        b.add(3);
+        assertNotEquals(a, b);
+    }
+
+    @Test
+    public void longSetHandlesWideKeys() {
+        LongSet set = new LongSet();
+        set.add(Long.MAX_VALUE);
+        set.add(Long.MIN_VALUE);
+        set.add(0L);
+        assertEquals(3, set.size());
+        assertTrue(set.contains(Long.MAX_VALUE));
+        assertTrue(set.remove(Long.MIN_VALUE));
+        assertFalse(set.contains(Long.MIN_VALUE));
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static androidx.collection.LongObjectMapTest.collidingKeys;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashMap;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class LongLongMapTest {
+    private static final int CAPACITY = 16;
+    private static final int HASH_TABLE_SIZE =
+            ContainerHelpers.idealHashTableSize(ContainerHelpers.idealLongArraySize(CAPACITY));
+
+    @Test
+    public void getReturnsZeroWhenAbsent() {
+        LongLongMap map = new LongLongMap();
+        assertEquals(0L, map.get(1L));
+        assertEquals(-1L, map.get(1L, -1L));
+    }
+
+    @Test
+    public void extremeKeysAndZeroValuesAreOrdinary() {
+        long[] keys = {0L, -1L, Long.MIN_VALUE, Long.MAX_VALUE};
+        LongLongMap map = new LongLongMap();
+        for (long key : keys) {
+            map.put(key, 0L);
+        }
+        assertEquals(keys.length, map.size());
+        for (long key : keys) {
+            assertTrue(map.containsKey(key));
+            assertEquals(0L, map.get(key, -1L));
+        }
+        map.remove(Long.MAX_VALUE);
+        assertFalse(map.containsKey(Long.MAX_VALUE));
+        assertTrue(map.containsKey(Long.MIN_VALUE));
+    }
+
+    @Test
+    public void removeFromMiddleOfProbeSequenceKeepsLaterKeysReachable() {
+        long[] keys = collidingKeys(6, HASH_TABLE_SIZE);
+        LongLongMap map = new LongLongMap(CAPACITY);
+        for (long key : keys) {
+            map.put(key, key + 1);
+        }
+
+        map.remove(keys[1]);
+        map.remove(keys[4]);
+
+        assertEquals(4, map.size());
+        for (int i = 0; i < keys.length; i++) {
+            boolean removed = i == 1 || i == 4;
+            assertEquals(removed ? -1L : keys[i] + 1, map.get(keys[i], -1L));
+        }
+    }
+
+    @Test
+    public void churnDoesNotLeaveTombstones() {
+        LongLongMap map = new LongLongMap(CAPACITY);
+        for (long key = 0; key < 10_000; key++) {
+            map.put(key, key);
+            map.remove(key);
+            assertFalse(map.containsKey(key + 1));
+        }
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void collidingKeysSurviveResize() {
+        long[] keys = collidingKeys(20, HASH_TABLE_SIZE);
+        LongLongMap map = new LongLongMap(CAPACITY);
+        for (long key : keys) {
+            map.put(key, key);
+        }
+        for (long i = 0; i < 200; i++) {
+            map.put(-i - 1, i);
+        }
+        assertEquals(220, map.size());
+        for (long key : keys) {
+            assertEquals(key, map.get(key, -1L));
+        }
+    }
+
+    @Test
+    public void matchesHashMapUnderRandomOperations() {
+        Random random = new Random(0);
+        LongLongMap map = new LongLongMap(0);
+        HashMap<Long, Long> expected = new HashMap<>();
+        for (long i = 0; i < 10_000; i++) {
+            long key = (random.nextInt(512) - 256) * 0x1_0000_0001L;
+            if (random.nextBoolean()) {
+                map.put(key, i);
+                expected.put(key, i);
+            } else {
+                map.remove(key);
+                expected.remove(key);
+            }
+            Long value = expected.get(key);
+            assertEquals(value == null ? -1L : value, map.get(key, -1L));
+        }
+        assertEquals(expected.size(), map.size());
+        for (int i = 0; i < map.size(); i++) {
+            assertEquals(i, map.indexOfKey(map.keyAt(i)));
+            assertEquals((long) expected.get(map.keyAt(i)), map.valueAt(i));
+        }
+    }
+
+    @Test
+    public void putAllCopiesMappings() {
+        LongLongMap source = new LongLongMap();
+        source.put(1L, 10L);
+        source.put(2L, 20L);
+        LongLongMap map = new LongLongMap();
+        map.put(2L, 0L);
+        map.putAll(source);
+        assertEquals(2, map.size());
+        assertEquals(10L, map.get(1L));
+        assertEquals(20L, map.get(2L));
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashMap;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class LongObjectMapTest {
+    private static final int CAPACITY = 16;
+    private static final int HASH_TABLE_SIZE =
+            ContainerHelpers.idealHashTableSize(ContainerHelpers.idealLongArraySize(CAPACITY));
+
+    @Test
+    public void getReturnsStoredValue() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        map.put(1L, "1");
+        map.put(-1L, "-1");
+        assertEquals("1", map.get(1L));
+        assertEquals("-1", map.get(-1L));
+        assertNull(map.get(2L));
+        assertEquals("default", map.get(2L, "default"));
+    }
+
+    @Test
+    public void extremeKeysAreOrdinaryKeys() {
+        // Slots hold indices into the key array, so no key value is reserved as a sentinel.
+        long[] keys = {0L, -1L, Long.MIN_VALUE, Long.MAX_VALUE};
+        LongObjectMap<String> map = new LongObjectMap<>();
+        assertFalse(map.containsKey(0L));
+        for (long key : keys) {
+            map.put(key, Long.toString(key));
+        }
+        assertEquals(keys.length, map.size());
+        for (long key : keys) {
+            assertEquals(Long.toString(key), map.get(key));
+        }
+        map.remove(0L);
+        assertFalse(map.containsKey(0L));
+        assertEquals(Long.toString(Long.MIN_VALUE), map.get(Long.MIN_VALUE));
+    }
+
+    @Test
+    public void nullValueIsStoredAsMapping() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        map.put(1L, null);
+        assertTrue(map.containsKey(1L));
+        assertEquals(1, map.size());
+        assertNull(map.putIfAbsent(1L, "1"));
+        assertEquals("1", map.get(1L));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void collidingKeysAreAllRetrievable() {
+        long[] keys = collidingKeys(6, HASH_TABLE_SIZE);
+        LongObjectMap<String> map = new LongObjectMap<>(CAPACITY);
+        for (long key : keys) {
+            map.put(key, Long.toString(key));
+        }
+        for (long key : keys) {
+            assertEquals(Long.toString(key), map.get(key));
+        }
+        assertFalse(map.containsKey(collidingKeys(7, HASH_TABLE_SIZE)[6]));
+    }
+
+    @Test
+    public void removeFromMiddleOfProbeSequenceKeepsLaterKeysReachable() {
+        long[] keys = collidingKeys(6, HASH_TABLE_SIZE);
+        LongObjectMap<String> map = new LongObjectMap<>(CAPACITY);
+        for (long key : keys) {
+            map.put(key, Long.toString(key));
+        }
+
+        map.remove(keys[0]);
+        map.remove(keys[3]);
+
+        assertEquals(4, map.size());
+        for (int i = 0; i < keys.length; i++) {
+            boolean removed = i == 0 || i == 3;
+            assertEquals(!removed, map.containsKey(keys[i]));
+            assertEquals(removed ? null : Long.toString(keys[i]), map.get(keys[i]));
+        }
+        map.put(keys[3], "again");
+        assertEquals("again", map.get(keys[3]));
+        assertEquals(5, map.size());
+    }
+
+    @Test
+    public void churnDoesNotLeaveTombstones() {
+        // Without backward-shift deletion, removed slots would stay occupied and eventually
+        // leave no empty slot to end a probe for an absent key.
+        LongObjectMap<String> map = new LongObjectMap<>(CAPACITY);
+        for (long key = 0; key < 10_000; key++) {
+            map.put(key, "value");
+            map.remove(key);
+            assertFalse(map.containsKey(key + 1));
+        }
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void growsFromZeroCapacity() {
+        LongObjectMap<String> map = new LongObjectMap<>(0);
+        for (long i = 0; i < 1_000; i++) {
+            map.put(i << 32, Long.toString(i));
+        }
+        assertEquals(1_000, map.size());
+        for (long i = 0; i < 1_000; i++) {
+            assertEquals(Long.toString(i), map.get(i << 32));
+        }
+    }
+
+    @Test
+    public void collidingKeysSurviveResize() {
+        long[] keys = collidingKeys(20, HASH_TABLE_SIZE);
+        LongObjectMap<String> map = new LongObjectMap<>(CAPACITY);
+        for (long key : keys) {
+            map.put(key, Long.toString(key));
+        }
+        for (long i = 0; i < 200; i++) {
+            map.put(-i - 1, "filler");
+        }
+        for (long key : keys) {
+            assertEquals(Long.toString(key), map.get(key));
+        }
+        assertEquals(220, map.size());
+    }
+
+    @Test
+    public void removeAtMovesLastMappingIntoIndex() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        map.put(1L, "1");
+        map.put(2L, "2");
+        map.put(3L, "3");
+        map.removeAt(0);
+        assertEquals(2, map.size());
+        assertEquals(3L, map.keyAt(0));
+        assertEquals("3", map.valueAt(0));
+        assertEquals(0, map.indexOfKey(3L));
+        assertFalse(map.containsKey(1L));
+    }
+
+    @Test
+    public void matchesHashMapUnderRandomOperations() {
+        Random random = new Random(0);
+        LongObjectMap<Integer> map = new LongObjectMap<>(0);
+        HashMap<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            long key = (random.nextInt(512) - 256) * 0x1_0000_0001L;
+            if (random.nextBoolean()) {
+                map.put(key, i);
+                expected.put(key, i);
+            } else {
+                map.remove(key);
+                expected.remove(key);
+            }
+            assertEquals(expected.get(key), map.get(key));
+        }
+        assertEquals(expected.size(), map.size());
+        for (int i = 0; i < map.size(); i++) {
+            assertEquals(i, map.indexOfKey(map.keyAt(i)));
+            assertEquals(expected.get(map.keyAt(i)), map.valueAt(i));
+        }
+    }
+
+    @Test
+    public void clearRemovesAllMappings() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        map.put(1L, "1");
+        map.put(2L, "2");
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1L));
+        map.put(2L, "3");
+        assertEquals("3", map.get(2L));
+    }
+
+    @Test
+    public void cloneIsIndependent() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        map.put(1L, "1");
+        LongObjectMap<String> clone = map.clone();
+        clone.put(2L, "2");
+        clone.remove(1L);
+        assertEquals(1, map.size());
+        assertEquals("1", map.get(1L));
+        assertEquals(1, clone.size());
+    }
+
+    /**
+     * Returns keys which all hash to the first slot of a hash table of {@code hashTableSize}.
+     */
+    static long[] collidingKeys(int count, int hashTableSize) {
+        int mask = hashTableSize - 1;
+        long[] keys = new long[count];
+        int found = 0;
+        for (long key = 0; found < count; key++) {
+            if ((ContainerHelpers.hash(key) & mask) == 0) {
+                keys[found++] = key;
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static androidx.collection.LongObjectMapTest.collidingKeys;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashSet;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class LongSetTest {
+    private static final int CAPACITY = 16;
+    private static final int HASH_TABLE_SIZE = ContainerHelpers.idealHashTableSize(CAPACITY);
+
+    @Test
+    public void extremeValuesAreOrdinary() {
+        long[] values = {0L, -1L, Long.MIN_VALUE, Long.MAX_VALUE};
+        LongSet set = new LongSet();
+        assertFalse(set.contains(0L));
+        for (long value : values) {
+            assertTrue(set.add(value));
+        }
+        assertEquals(values.length, set.size());
+        assertTrue(set.remove(0L));
+        assertFalse(set.contains(0L));
+        assertTrue(set.contains(Long.MIN_VALUE));
+    }
+
+    @Test
+    public void removeFromMiddleOfProbeSequenceKeepsLaterValuesReachable() {
+        long[] values = collidingKeys(6, HASH_TABLE_SIZE);
+        LongSet set = new LongSet(CAPACITY);
+        for (long value : values) {
+            set.add(value);
+        }
+
+        assertTrue(set.remove(values[2]));
+
+        assertEquals(5, set.size());
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(i != 2, set.contains(values[i]));
+        }
+        assertTrue(set.add(values[2]));
+        assertFalse(set.add(values[5]));
+    }
+
+    @Test
+    public void churnDoesNotLeaveTombstones() {
+        LongSet set = new LongSet(CAPACITY);
+        for (long value = 0; value < 10_000; value++) {
+            set.add(value);
+            set.remove(value);
+            assertFalse(set.contains(value + 1));
+        }
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void collidingValuesSurviveResize() {
+        long[] values = collidingKeys(10, HASH_TABLE_SIZE);
+        LongSet set = new LongSet(CAPACITY);
+        for (long value : values) {
+            set.add(value);
+        }
+        for (long i = 0; i < 200; i++) {
+            set.add(-i - 1);
+        }
+        assertEquals(210, set.size());
+        for (long value : values) {
+            assertTrue(set.contains(value));
+        }
+    }
+
+    @Test
+    public void matchesHashSetUnderRandomOperations() {
+        Random random = new Random(0);
+        LongSet set = new LongSet();
+        HashSet<Long> expected = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            long value = (random.nextInt(512) - 256) * 0x1_0000_0001L;
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(value), set.add(value));
+            } else {
+                assertEquals(expected.remove(value), set.remove(value));
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        for (int i = 0; i < set.size(); i++) {
+            assertEquals(i, set.indexOf(set.valueAt(i)));
+            assertTrue(expected.contains(set.valueAt(i)));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class LruCacheTest {
+    @Test
+    public void frequencyAwareCacheKeepsHotEntriesDuringScan() {
+        LruCache<Integer, String> lru = new LruCache<>(100);
+        LruCache<Integer, String> frequencyAware = new LruCache<>(100, true);
+        warmUpThenScan(lru);
+        warmUpThenScan(frequencyAware);
+
+        int lruHot = 0;
+        int frequencyAwareHot = 0;
+        for (int key = 0; key < 50; key++) {
+            if (lru.get(key) != null) lruHot++;
+            if (frequencyAware.get(key) != null) frequencyAwareHot++;
+        }
+        assertEquals(0, lruHot);
+        assertEquals(50, frequencyAwareHot);
+    }
+
+    @Test
+    public void frequencyAwareCacheRespectsMaxSize() {
+        LruCache<Integer, Integer> cache = new LruCache<Integer, Integer>(64, true) {
+            @Override
+            protected int sizeOf(@NonNull Integer key, @NonNull Integer value) {
+                return 1 + key % 3;
+            }
+        };
+        for (int i = 0; i < 10_000; i++) {
+            int key = (i * 7919) % 500;
+            if (cache.get(key) == null) {
+                cache.put(key, key);
+            }
+            assertTrue(cache.size() <= 64);
+        }
+        assertEquals(cache.size(), sizeOf(cache));
+    }
+
+    @Test
+    public void frequencyAwareCacheAdmitsNewEntriesWhileNotFull() {
+        LruCache<String, String> cache = new LruCache<>(10, true);
+        for (int i = 0; i < 10; i++) {
+            cache.put("k" + i, "v" + i);
+        }
+        for (int i = 0; i < 10; i++) {
+            assertNotNull(cache.get("k" + i));
+        }
+        assertEquals(0, cache.evictionCount());
+    }
+
+    @Test
+    public void frequencyAwareRemoveAndEvictAll() {
+        LruCache<String, String> cache = new LruCache<>(10, true);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        assertEquals("A", cache.remove("a"));
+        assertNull(cache.get("a"));
+        cache.evictAll();
+        assertEquals(0, cache.size());
+        assertTrue(cache.snapshot().isEmpty());
+    }
+
+    private static void warmUpThenScan(LruCache<Integer, String> cache) {
+        for (int round = 0; round < 5; round++) {
+            for (int key = 0; key < 50; key++) {
+                if (cache.get(key) == null) {
+                    cache.put(key, "hot");
+                }
+            }
+        }
+        // A one-off scan over more keys than the cache can hold.
+        for (int key = 1000; key < 1200; key++) {
+            if (cache.get(key) == null) {
+                cache.put(key, "scan");
+            }
+        }
+    }
+
+    private static int sizeOf(LruCache<Integer, Integer> cache) {
+        int size = 0;
+        for (Integer key : cache.snapshot().keySet()) {
+            size += 1 + key % 3;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class PersistentHashMapTest {
+    @Test
+    public void putLeavesOriginalUnchanged() {
+        PersistentHashMap<String, Integer> empty = PersistentHashMap.empty();
+        PersistentHashMap<String, Integer> one = empty.put("a", 1);
+        PersistentHashMap<String, Integer> two = one.put("a", 2);
+        assertTrue(empty.isEmpty());
+        assertEquals(Integer.valueOf(1), one.get("a"));
+        assertEquals(Integer.valueOf(2), two.get("a"));
+        assertEquals(1, two.size());
+    }
+
+    @Test
+    public void putSameMappingReturnsSameMap() {
+        Integer value = 1000;
+        PersistentHashMap<String, Integer> map = PersistentHashMap.<String, Integer>empty()
+                .put("a", value);
+        assertSame(map, map.put("a", value));
+    }
+
+    @Test
+    public void removeAbsentKeyReturnsSameMap() {
+        PersistentHashMap<String, Integer> map = PersistentHashMap.<String, Integer>empty()
+                .put("a", 1);
+        assertSame(map, map.remove("b"));
+        assertTrue(map.remove("a").isEmpty());
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void nullKeysAndValues() {
+        PersistentHashMap<String, String> map = PersistentHashMap.<String, String>empty()
+                .put(null, "a")
+                .put("b", null);
+        assertEquals("a", map.get(null));
+        assertTrue(map.containsKey("b"));
+        assertNull(map.get("b"));
+        assertEquals("c", map.getOrDefault("c", "c"));
+        assertFalse(map.remove(null).containsKey(null));
+    }
+
+    @Test
+    public void fullHashCollisions() {
+        PersistentHashMap<Collider, Integer> map = PersistentHashMap.empty();
+        for (int i = 0; i < 10; i++) {
+            map = map.put(new Collider(i), i);
+        }
+        assertEquals(10, map.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(Integer.valueOf(i), map.get(new Collider(i)));
+        }
+        for (int i = 0; i < 10; i++) {
+            map = map.remove(new Collider(i));
+            assertFalse(map.containsKey(new Collider(i)));
+            assertEquals(9 - i, map.size());
+        }
+    }
+
+    @Test
+    public void builderDoesNotAffectBuiltMaps() {
+        PersistentHashMap<Integer, Integer> base = PersistentHashMap.empty();
+        PersistentHashMap.Builder<Integer, Integer> builder = base.builder();
+        for (int i = 0; i < 1000; i++) {
+            builder.put(i, i);
+        }
+        PersistentHashMap<Integer, Integer> first = builder.build();
+        for (int i = 0; i < 1000; i += 2) {
+            builder.remove(i);
+        }
+        builder.put(1, -1);
+        PersistentHashMap<Integer, Integer> second = builder.build();
+
+        assertTrue(base.isEmpty());
+        assertEquals(1000, first.size());
+        assertEquals(Integer.valueOf(0), first.get(0));
+        assertEquals(Integer.valueOf(1), first.get(1));
+        assertEquals(500, second.size());
+        assertFalse(second.containsKey(0));
+        assertEquals(Integer.valueOf(-1), second.get(1));
+    }
+
+    @Test
+    public void randomOperationsMatchHashMap() {
+        // Despite the fixed seed, the operations cover every node transition.
+        Random random = new Random(0);
+        Map<Collider, Integer> expected = new HashMap<>();
+        PersistentHashMap<Collider, Integer> map = PersistentHashMap.empty();
+        PersistentHashMap.Builder<Collider, Integer> builder = map.builder();
+        for (int i = 0; i < 20000; i++) {
+            // Few distinct hashes, so that keys share deep prefixes and collide.
+            Collider key = new Collider(random.nextInt(2000), random.nextInt(300) * 0x01010101);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+                builder.remove(key);
+            } else {
+                expected.put(key, i);
+                map = map.put(key, i);
+                builder.put(key, i);
+            }
+            assertEquals(expected.size(), map.size());
+            assertEquals(expected.size(), builder.size());
+        }
+        assertMapEquals(expected, map);
+        assertMapEquals(expected, builder.build());
+        assertEquals(map, builder.build());
+        assertEquals(map.hashCode(), builder.build().hashCode());
+        assertEquals(expected.hashCode(), map.hashCode());
+    }
+
+    @Test
+    public void removeKeepsTrieCanonical() {
+        PersistentHashMap<Integer, Integer> map = PersistentHashMap.empty();
+        for (int i = 0; i < 5000; i++) {
+            map = map.put(i, i);
+        }
+        PersistentHashMap.Builder<Integer, Integer> builder = map.builder();
+        for (int i = 0; i < 4999; i++) {
+            map = map.remove(i);
+            builder.remove(i);
+        }
+        // The last entry is pulled up into the root.
+        assertEquals(2, map.mRoot.mBuffer.length);
+        assertEquals(2, builder.build().mRoot.mBuffer.length);
+    }
+
+    @Test
+    public void toStringFormat() {
+        assertEquals("{}", PersistentHashMap.empty().toString());
+        assertEquals("{a=1}", PersistentHashMap.<String, Integer>empty().put("a", 1).toString());
+    }
+
+    private static void assertMapEquals(Map<Collider, Integer> expected,
+            PersistentHashMap<Collider, Integer> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (Map.Entry<Collider, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), actual.get(entry.getKey()));
+        }
+        int count = 0;
+        for (Map.Entry<Collider, Integer> entry : actual) {
+            assertEquals(expected.get(entry.getKey()), entry.getValue());
+            count++;
+        }
+        assertEquals(expected.size(), count);
+    }
+
+    /** A key with a caller-chosen hash code. */
+    private static final class Collider {
+        final int mId;
+        final int mHash;
+
+        Collider(int id) {
+            this(id, 42);
+        }
+
+        Collider(int id, int hash) {
+            mId = id;
+            mHash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Collider && ((Collider) o).mId == mId
+                    && ((Collider) o).mHash == mHash;
+        }
+
+        @Override
+        public int hashCode() {
+            return mHash;
+        }
+
+        @Override
+        public String toString() {
+            return "Collider(" + mId + ")";
+        }
+    }
+}
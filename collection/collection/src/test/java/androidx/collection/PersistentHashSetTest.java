@@ -0,0 +1,65 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashSet;
+import java.util.Set;
+
+@RunWith(JUnit4.class)
+public class PersistentHashSetTest {
+    @Test
+    public void addLeavesOriginalUnchanged() {
+        PersistentHashSet<String> empty = PersistentHashSet.empty();
+        PersistentHashSet<String> one = empty.add("a");
+        assertTrue(empty.isEmpty());
+        assertTrue(one.contains("a"));
+        assertSame(one, one.add("a"));
+        assertSame(one, one.remove("b"));
+        assertFalse(one.remove("a").contains("a"));
+    }
+
+    @Test
+    public void builderMatchesHashSet() {
+        Set<Integer> expected = new HashSet<>();
+        PersistentHashSet.Builder<Integer> builder = PersistentHashSet.<Integer>empty().builder();
+        for (int i = 0; i < 3000; i++) {
+            expected.add(i * 7);
+            builder.add(i * 7);
+        }
+        for (int i = 0; i < 3000; i += 3) {
+            expected.remove(i * 7);
+            builder.remove(i * 7);
+        }
+        PersistentHashSet<Integer> set = builder.build();
+        assertEquals(expected.size(), set.size());
+        Set<Integer> actual = new HashSet<>();
+        for (Integer element : set) {
+            actual.add(element);
+        }
+        assertEquals(expected, actual);
+        assertEquals(expected.hashCode(), set.hashCode());
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+@RunWith(JUnit4.class)
+public class PersistentVectorTest {
+    // Enough elements for a trie of three levels below the root.
+    private static final int COUNT = 40000;
+
+    @Test
+    public void addLeavesOriginalUnchanged() {
+        PersistentVector<String> empty = PersistentVector.empty();
+        PersistentVector<String> one = empty.add("a");
+        PersistentVector<String> two = one.add("b");
+        assertTrue(empty.isEmpty());
+        assertEquals(1, one.size());
+        assertEquals(2, two.size());
+        assertEquals("b", two.get(1));
+    }
+
+    @Test
+    public void addAndGetAcrossLevels() {
+        PersistentVector<Integer> vector = PersistentVector.empty();
+        for (int i = 0; i < COUNT; i++) {
+            vector = vector.add(i);
+        }
+        assertEquals(COUNT, vector.size());
+        for (int i = 0; i < COUNT; i++) {
+            assertEquals(Integer.valueOf(i), vector.get(i));
+        }
+    }
+
+    @Test
+    public void setLeavesOriginalUnchanged() {
+        PersistentVector<Integer> vector = PersistentVector.<Integer>empty().builder()
+                .addAll(range(COUNT)).build();
+        PersistentVector<Integer> updated = vector.set(5, -5).set(COUNT - 1, null);
+        assertEquals(Integer.valueOf(5), vector.get(5));
+        assertEquals(Integer.valueOf(COUNT - 1), vector.get(COUNT - 1));
+        assertEquals(Integer.valueOf(-5), updated.get(5));
+        assertNull(updated.get(COUNT - 1));
+    }
+
+    @Test
+    public void removeLastMatchesArrayList() {
+        List<Integer> expected = range(COUNT);
+        PersistentVector<Integer> vector = PersistentVector.<Integer>empty().builder()
+                .addAll(expected).build();
+        while (!expected.isEmpty()) {
+            expected.remove(expected.size() - 1);
+            vector = vector.removeLast();
+            assertEquals(expected.size(), vector.size());
+            if (!expected.isEmpty()) {
+                assertEquals(expected.get(expected.size() - 1), vector.get(vector.size() - 1));
+            }
+        }
+        assertTrue(vector.isEmpty());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void removeLastOnEmptyThrows() {
+        PersistentVector.empty().removeLast();
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getOutOfBoundsThrows() {
+        PersistentVector.<String>empty().add("a").get(1);
+    }
+
+    @Test
+    public void builderDoesNotAffectBuiltLists() {
+        PersistentVector.Builder<Integer> builder = PersistentVector.<Integer>empty().builder();
+        builder.addAll(range(COUNT));
+        PersistentVector<Integer> first = builder.build();
+        for (int i = 0; i < COUNT; i++) {
+            builder.set(i, -i);
+        }
+        builder.add(0);
+        PersistentVector<Integer> second = builder.build();
+        for (int i = 0; i < COUNT; i++) {
+            assertEquals(Integer.valueOf(i), first.get(i));
+            assertEquals(Integer.valueOf(-i), second.get(i));
+        }
+        assertEquals(COUNT, first.size());
+        assertEquals(COUNT + 1, second.size());
+    }
+
+    @Test
+    public void builderContinuesFromExistingList() {
+        PersistentVector<Integer> vector = PersistentVector.empty();
+        for (int i = 0; i < 100; i++) {
+            vector = vector.add(i);
+        }
+        PersistentVector<Integer> extended = vector.builder().addAll(range(100)).build();
+        assertEquals(200, extended.size());
+        assertEquals(Integer.valueOf(99), extended.get(99));
+        assertEquals(Integer.valueOf(0), extended.get(100));
+        assertEquals(100, vector.size());
+    }
+
+    @Test
+    public void iteratorVisitsInOrder() {
+        List<Integer> expected = range(1000);
+        PersistentVector<Integer> vector = PersistentVector.<Integer>empty().builder()
+                .addAll(expected).build();
+        Iterator<Integer> iterator = vector.iterator();
+        for (Integer value : expected) {
+            assertEquals(value, iterator.next());
+        }
+        assertTrue(!iterator.hasNext());
+        assertEquals(expected.hashCode(), vector.hashCode());
+    }
+
+    @Test
+    public void equalsAndToString() {
+        PersistentVector<String> a = PersistentVector.<String>empty().add("a").add("b");
+        PersistentVector<String> b = PersistentVector.<String>empty().builder()
+                .add("a").add("b").build();
+        assertEquals(a, b);
+        assertEquals("[a, b]", a.toString());
+        assertEquals("[]", PersistentVector.empty().toString());
+    }
+
+    private static List<Integer> range(int count) {
+        List<Integer> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(i);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.paging
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import kotlin.random.Random
+
+/**
+ * Measures random access reads across many small pages, the access pattern of a fast scroll
+ * through a long list held without a maxSize.
+ */
+@RunWith(AndroidJUnit4::class)
+@LargeTest
+class PagePresenterBenchmarkTest {
+    private val presenter = createPagePresenterForBenchmark(
+        List(PAGE_COUNT) { page -> List(PAGE_SIZE) { page * PAGE_SIZE + it } }
+    )
+
+    // Despite the fixed seed, the algorithm which produces random values may vary across
+    // OS versions. Since we're not doing cross-device comparison this is acceptable.
+    private val readIndices = IntArray(READ_COUNT).apply {
+        val random = Random(0)
+        for (i in indices) {
+            this[i] = random.nextInt(PAGE_COUNT * PAGE_SIZE)
+        }
+    }
+
+    @get:Rule
+    val benchmark = BenchmarkRule()
+
+    @Test fun randomAccess_10kPages() {
+        var sum = 0L
+        benchmark.measureRepeated {
+            for (index in readIndices) {
+                sum += presenter.getFromStorage(index)
+            }
+        }
+        check(sum > 0)
+    }
+
+    companion object {
+        private const val PAGE_COUNT = 10_000
+        private const val PAGE_SIZE = 10
+        private const val READ_COUNT = 1_000
+    }
+}
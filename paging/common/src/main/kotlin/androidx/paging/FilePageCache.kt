@@ -0,0 +1,197 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.paging
+
+import androidx.paging.PagingSource.LoadResult.Page
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+import java.io.BufferedOutputStream
+import java.io.ByteArrayOutputStream
+import java.io.DataInput
+import java.io.DataInputStream
+import java.io.DataOutput
+import java.io.DataOutputStream
+import java.io.File
+import java.io.FileOutputStream
+import java.io.IOException
+import java.io.InputStream
+import java.io.RandomAccessFile
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.util.zip.CRC32
+
+/**
+ * [PageCache] which persists a [Page] to a single [file].
+ *
+ * Pages are written to a temporary file which then replaces [file], so a crash while writing
+ * never leaves a partially written page behind. Reads memory-map [file] and verify its checksum
+ * before deserializing any item, treating a corrupted or unreadable file as a cache miss.
+ *
+ * @param file File to persist the [Page] to. Its parent directory must exist.
+ * @param keySerializer [Serializer] for the prevKey and nextKey of the [Page].
+ * @param valueSerializer [Serializer] for the items of the [Page].
+ * @param ioDispatcher [CoroutineDispatcher] to read and write [file] on.
+ */
+@ExperimentalPagingApi
+class FilePageCache<Key : Any, Value : Any> @JvmOverloads constructor(
+    private val file: File,
+    private val keySerializer: Serializer<Key>,
+    private val valueSerializer: Serializer<Value>,
+    private val ioDispatcher: CoroutineDispatcher = Dispatchers.IO
+) : PageCache<Key, Value> {
+    /**
+     * Converts keys or items to and from bytes.
+     */
+    interface Serializer<T : Any> {
+        fun write(value: T, output: DataOutput)
+
+        fun read(input: DataInput): T
+    }
+
+    private val tempFile = File(file.path + ".tmp")
+
+    override suspend fun read(): Page<Key, Value>? = withContext(ioDispatcher) {
+        if (!file.exists()) return@withContext null
+
+        val page = try {
+            readPage()
+        } catch (e: Exception) {
+            // Truncated, or written with incompatible serializers.
+            null
+        }
+        if (page == null) file.delete()
+        page
+    }
+
+    override suspend fun write(page: Page<Key, Value>) {
+        withContext(ioDispatcher) {
+            try {
+                writePage(page)
+            } catch (e: Exception) {
+                // Failing to persist a page, including a Serializer throwing, only costs a cache
+                // miss on the next start.
+                tempFile.delete()
+            }
+        }
+    }
+
+    override suspend fun clear() {
+        withContext(ioDispatcher) {
+            file.delete()
+        }
+    }
+
+    private fun readPage(): Page<Key, Value>? {
+        val buffer = RandomAccessFile(file, "r").use { raf ->
+            raf.channel.map(FileChannel.MapMode.READ_ONLY, 0, raf.length())
+        }
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt(0) != MAGIC) return null
+        if (buffer.getInt(4) != VERSION) return null
+
+        val payloadSize = buffer.getInt(8)
+        val checksum = buffer.getLong(12)
+        if (payloadSize < 0 || payloadSize != buffer.remaining() - HEADER_SIZE) return null
+
+        buffer.position(HEADER_SIZE)
+        val payload = buffer.slice()
+        if (crc32(payload.duplicate()) != checksum) return null
+
+        val input = DataInputStream(ByteBufferInputStream(payload))
+        val itemsBefore = input.readInt()
+        val itemsAfter = input.readInt()
+        val prevKey = if (input.readBoolean()) keySerializer.read(input) else null
+        val nextKey = if (input.readBoolean()) keySerializer.read(input) else null
+        val count = input.readInt()
+        val data = ArrayList<Value>(count)
+        repeat(count) { data.add(valueSerializer.read(input)) }
+        return Page(data, prevKey, nextKey, itemsBefore, itemsAfter)
+    }
+
+    private fun writePage(page: Page<Key, Value>) {
+        val payload = PayloadOutputStream()
+        DataOutputStream(payload).run {
+            writeInt(page.itemsBefore)
+            writeInt(page.itemsAfter)
+            writeBoolean(page.prevKey != null)
+            page.prevKey?.let { keySerializer.write(it, this) }
+            writeBoolean(page.nextKey != null)
+            page.nextKey?.let { keySerializer.write(it, this) }
+            writeInt(page.data.size)
+            page.data.forEach { valueSerializer.write(it, this) }
+            flush()
+        }
+
+        val fileOutput = FileOutputStream(tempFile)
+        try {
+            DataOutputStream(BufferedOutputStream(fileOutput)).run {
+                writeInt(MAGIC)
+                writeInt(VERSION)
+                writeInt(payload.size())
+                writeLong(crc32(payload.asByteBuffer()))
+                payload.writeTo(this)
+                flush()
+            }
+            fileOutput.fd.sync()
+        } finally {
+            fileOutput.close()
+        }
+
+        if (!tempFile.renameTo(file)) {
+            throw IOException("Failed to rename $tempFile to $file")
+        }
+    }
+
+    private fun crc32(buffer: ByteBuffer): Long {
+        val crc = CRC32()
+        val chunk = ByteArray(minOf(buffer.remaining(), CHUNK_SIZE))
+        while (buffer.hasRemaining()) {
+            val length = minOf(buffer.remaining(), chunk.size)
+            buffer.get(chunk, 0, length)
+            crc.update(chunk, 0, length)
+        }
+        return crc.value
+    }
+
+    private class PayloadOutputStream : ByteArrayOutputStream() {
+        fun asByteBuffer(): ByteBuffer = ByteBuffer.wrap(buf, 0, count)
+    }
+
+    private class ByteBufferInputStream(private val buffer: ByteBuffer) : InputStream() {
+        override fun read(): Int {
+            return if (buffer.hasRemaining()) buffer.get().toInt() and 0xFF else -1
+        }
+
+        override fun read(b: ByteArray, off: Int, len: Int): Int {
+            if (len == 0) return 0
+            if (!buffer.hasRemaining()) return -1
+            val count = minOf(len, buffer.remaining())
+            buffer.get(b, off, count)
+            return count
+        }
+
+        override fun available() = buffer.remaining()
+    }
+
+    private companion object {
+        const val MAGIC = 0x50474341 // "PGCA"
+        const val VERSION = 1
+        /** Magic, version, payload size and CRC32 of the payload. */
+        const val HEADER_SIZE = 4 + 4 + 4 + 8
+        const val CHUNK_SIZE = 8192
+    }
+}
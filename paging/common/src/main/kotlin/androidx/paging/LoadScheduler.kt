@@ -0,0 +1,28 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.paging
+
+/**
+ * Decides when calls to [PagingSource.load] of a [Pager] may run, relative to loads of other
+ * [Pager]s sharing the same [PagerGroup].
+ */
+internal interface LoadScheduler {
+    /**
+     * Suspends until [load] is allowed to run, then runs it.
+     */
+    suspend fun <T> schedule(loadType: LoadType, load: suspend () -> T): T
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.paging
+
+import androidx.paging.PagingSource.LoadResult.Page
+
+/**
+ * Persists the most recently viewed content of a [Pager], so that it can be presented immediately
+ * the next time the [Pager] is created, e.g., after process death.
+ *
+ * When a [PageCache] is passed to a [Pager], the first [PagingData] it emits is hydrated from
+ * [read] if it returns a [Page], without calling [PagingSource.load]. A new generation of
+ * [PagingData] backed by [PagingSource], and if set, a [RemoteMediator] REFRESH, follow right
+ * after. Every generation then calls [write] with the loaded items around the most recently
+ * accessed item as it loads pages, at most [PagingConfig.initialLoadSize] items plus a page.
+ *
+ * The keys of the persisted [Page] are those returned by [PagingSource], so they should remain
+ * valid for the [PagingSource] created by the next [Pager].
+ *
+ * @see FilePageCache
+ */
+@ExperimentalPagingApi
+interface PageCache<Key : Any, Value : Any> {
+    /**
+     * @return The [Page] passed to the most recent call to [write], or `null` if there is none or
+     * it could not be read.
+     */
+    suspend fun read(): Page<Key, Value>?
+
+    /**
+     * Persists [page], replacing any previously written [Page].
+     */
+    suspend fun write(page: Page<Key, Value>)
+
+    /**
+     * Removes any persisted [Page], e.g., when the user signs out.
+     */
+    suspend fun clear()
+}
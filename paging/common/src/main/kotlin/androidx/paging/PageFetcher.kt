@@ -36,10 +36,20 @@ internal class PageFetcher<Key : Any, Value : Any>(
     private val initialKey: Key?,
     private val config: PagingConfig,
     @OptIn(ExperimentalPagingApi::class)
-    remoteMediator: RemoteMediator<Key, Value>? = null
+    remoteMediator: RemoteMediator<Key, Value>? = null,
+    @OptIn(ExperimentalPagingApi::class)
+    private val pageCache: PageCache<Key, Value>? = null,
+    private val loadScheduler: LoadScheduler? = null
 ) {
     private val remoteMediatorAccessor = remoteMediator?.let { RemoteMediatorAccessor(it) }
 
+    /**
+     * [PrefetchStats] shared by all generations, so that load latency measured by previous
+     * generations informs [PagingConfig.prefetchPolicy] from the first prefetch onwards.
+     */
+    @OptIn(ExperimentalPagingApi::class)
+    val prefetchStats = PrefetchStats()
+
     /**
      * Channel of refresh signals that would trigger a new instance of [PageFetcherSnapshot].
      * Signals sent to this channel should be `true` if a remote REFRESH load should be triggered,
@@ -84,6 +94,14 @@ internal class PageFetcher<Key : Any, Value : Any>(
                 previousGeneration?.pagingSource?.invalidate() // Note: Invalidate is idempotent.
                 previousGeneration?.close()
 
+                // Hydrate the first generation from pageCache, if it has a page.
+                @OptIn(ExperimentalPagingApi::class)
+                val cachedInitialPage = when (previousGeneration) {
+                    null -> pageCache?.read()
+                    else -> null
+                }
+
+                @OptIn(ExperimentalPagingApi::class)
                 PageFetcherSnapshot(
                     initialKey = initialKey,
                     pagingSource = pagingSource,
@@ -91,9 +109,18 @@ internal class PageFetcher<Key : Any, Value : Any>(
                     retryFlow = retryChannel.asFlow(),
                     // Only trigger remote refresh on refresh signals that do not originate from
                     // initialization or PagingSource invalidation.
-                    triggerRemoteRefresh = triggerRemoteRefresh,
+                    triggerRemoteRefresh = triggerRemoteRefresh && cachedInitialPage == null,
                     remoteMediatorAccessor = remoteMediatorAccessor,
-                    invalidate = this@PageFetcher::refresh
+                    prefetchStats = prefetchStats,
+                    pageCache = pageCache.takeIf { cachedInitialPage == null },
+                    cachedInitialPage = cachedInitialPage,
+                    loadScheduler = loadScheduler,
+                    invalidate = when (cachedInitialPage) {
+                        // Once the cached page is presented, start a generation which loads from
+                        // PagingSource, passing along the initial remote refresh signal.
+                        null -> this@PageFetcher::refresh
+                        else -> { -> refreshChannel.offer(triggerRemoteRefresh) }
+                    }
                 )
             }
             .filterNotNull()
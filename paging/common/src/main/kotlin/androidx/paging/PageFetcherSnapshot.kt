@@ -24,6 +24,7 @@ import androidx.paging.LoadType.PREPEND
 import androidx.paging.LoadType.REFRESH
 import androidx.paging.PageEvent.Drop
 import androidx.paging.PageEvent.LoadStateUpdate
+import androidx.paging.PagingConfig.Companion.MAX_SIZE_UNBOUNDED
 import androidx.paging.PagingSource.LoadParams
 import androidx.paging.PagingSource.LoadResult
 import androidx.paging.PagingSource.LoadResult.Page
@@ -66,6 +67,24 @@ internal class PageFetcherSnapshot<Key : Any, Value : Any>(
     private val retryFlow: Flow<Unit>,
     private val triggerRemoteRefresh: Boolean = false,
     private val remoteMediatorAccessor: RemoteMediatorAccessor<Key, Value>? = null,
+    @OptIn(ExperimentalPagingApi::class)
+    private val prefetchStats: PrefetchStats = PrefetchStats(),
+    /**
+     * [PageCache] to persist the loaded items around the viewport to as pages load.
+     */
+    @OptIn(ExperimentalPagingApi::class)
+    private val pageCache: PageCache<Key, Value>? = null,
+    /**
+     * [Page] read from a [PageCache] to present instead of loading from [pagingSource]. This
+     * generation then only presents [cachedInitialPage] and calls [invalidate] so that the next
+     * generation loads from [PagingSource].
+     */
+    private val cachedInitialPage: Page<Key, Value>? = null,
+    /**
+     * Decides when calls to [PagingSource.load] may run, if this [PageFetcherSnapshot] belongs to
+     * a [PagerGroup].
+     */
+    private val loadScheduler: LoadScheduler? = null,
     private val invalidate: () -> Unit = {}
 ) {
     init {
@@ -78,6 +97,7 @@ internal class PageFetcherSnapshot<Key : Any, Value : Any>(
     @OptIn(ExperimentalCoroutinesApi::class)
     private val hintChannel = BroadcastChannel<ViewportHint>(CONFLATED)
     private var lastHint: ViewportHint? = null
+    private val scrollVelocityTracker = ScrollVelocityTracker()
 
     private val pageEventChCollected = AtomicBoolean(false)
     private val pageEventCh = Channel<PageEvent<Value>>(BUFFERED)
@@ -89,6 +109,8 @@ internal class PageFetcherSnapshot<Key : Any, Value : Any>(
 
     private val pageEventChannelFlowJob = Job()
 
+    private val viewportPageCh = Channel<Page<Key, Value>>(CONFLATED)
+
     @OptIn(ExperimentalCoroutinesApi::class)
     val pageEventFlow: Flow<PageEvent<Value>> = cancelableChannelFlow(pageEventChannelFlowJob) {
         check(pageEventChCollected.compareAndSet(false, true)) {
@@ -148,6 +170,24 @@ internal class PageFetcherSnapshot<Key : Any, Value : Any>(
                 }
         }
 
+        if (cachedInitialPage != null) {
+            // Anchor the next generation to the middle of the cached page, which is centered
+            // around the viewport it was persisted from, unless the user accesses an item first.
+            if (lastHint == null) {
+                lastHint = ViewportHint(0, cachedInitialPage.data.size / 2)
+            }
+            doInitialLoad(this, state)
+            invalidate()
+            return@cancelableChannelFlow
+        }
+
+        @OptIn(ExperimentalPagingApi::class)
+        if (pageCache != null) {
+            launch {
+                viewportPageCh.consumeAsFlow().collect { pageCache.write(it) }
+            }
+        }
+
         if (triggerRemoteRefresh) {
             remoteMediatorAccessor?.run {
                 val pagingState = stateLock.withLock { state.currentPagingState(null) }
@@ -197,6 +237,15 @@ internal class PageFetcherSnapshot<Key : Any, Value : Any>(
 
     fun addHint(hint: ViewportHint) {
         lastHint = hint
+        hint.accessedLoadedItem?.let { hit ->
+            @OptIn(ExperimentalPagingApi::class)
+            prefetchStats.recordAccess(hit)
+            // Positions derived from sourcePageIndex would assume every page has the same size,
+            // which the initial load and the last page usually do not.
+            hint.presenterIndex?.let { position ->
+                scrollVelocityTracker.addAccess(position = position, timeNanos = System.nanoTime())
+            }
+        }
         @OptIn(ExperimentalCoroutinesApi::class)
         hintChannel.offer(hint)
     }
@@ -220,6 +269,15 @@ internal class PageFetcherSnapshot<Key : Any, Value : Any>(
 
     @OptIn(ExperimentalCoroutinesApi::class, FlowPreview::class)
     private fun CoroutineScope.startConsumingHints() {
+        // Loads persist the viewport once they complete, but scrolling over loaded items moves
+        // it too. viewportPageCh is conflated, so only the latest viewport is written.
+        @OptIn(ExperimentalPagingApi::class)
+        if (pageCache != null) {
+            launch {
+                hintChannel.asFlow().collect { persistViewport() }
+            }
+        }
+
         // Pseudo-tiling via invalidation on jumps.
         if (config.jumpThreshold != COUNT_UNDEFINED) {
             launch {
@@ -323,14 +381,35 @@ internal class PageFetcherSnapshot<Key : Any, Value : Any>(
         pageSize = config.pageSize
     )
 
+    private suspend fun timedLoad(
+        loadType: LoadType,
+        params: LoadParams<Key>
+    ): LoadResult<Key, Value> {
+        val load: suspend () -> LoadResult<Key, Value> = {
+            // Only time the load itself, not time spent waiting on loadScheduler.
+            val startNanos = System.nanoTime()
+            pagingSource.load(params).also {
+                @OptIn(ExperimentalPagingApi::class)
+                prefetchStats.recordLoad(System.nanoTime() - startNanos)
+            }
+        }
+
+        return when (loadScheduler) {
+            null -> load()
+            else -> loadScheduler.schedule(loadType, load)
+        }
+    }
+
     private suspend fun doInitialLoad(
         scope: CoroutineScope,
         state: PageFetcherSnapshotState<Key, Value>
     ) {
-        stateLock.withLock { state.setLoading(REFRESH, false) }
+        if (cachedInitialPage == null) {
+            stateLock.withLock { state.setLoading(REFRESH, false) }
+        }
 
-        val params = loadParams(REFRESH, initialKey)
-        when (val result = pagingSource.load(params)) {
+        val result = cachedInitialPage ?: timedLoad(REFRESH, loadParams(REFRESH, initialKey))
+        when (result) {
             is Page<Key, Value> -> {
                 val insertApplied = stateLock.withLock { state.insert(0, REFRESH, result) }
 
@@ -368,10 +447,11 @@ internal class PageFetcherSnapshot<Key : Any, Value : Any>(
                             pageEventCh.send(result.toPageEvent(REFRESH))
                         }
                     }
+                    persistViewport()
                 }
 
                 // Launch any RemoteMediator boundary calls after applying initial insert.
-                if (remoteMediatorAccessor != null) {
+                if (remoteMediatorAccessor != null && cachedInitialPage == null) {
                     if (result.prevKey == null || result.nextKey == null) {
                         val pagingState = stateLock.withLock { state.currentPagingState(lastHint) }
 
@@ -423,7 +503,7 @@ internal class PageFetcherSnapshot<Key : Any, Value : Any>(
         var endOfPaginationReached = false
         loop@ while (loadKey != null) {
             val params = loadParams(loadType, loadKey)
-            val result: LoadResult<Key, Value> = pagingSource.load(params)
+            val result: LoadResult<Key, Value> = timedLoad(loadType, params)
             when (result) {
                 is Page<Key, Value> -> {
                     // First, check for common error case where the same key is re-used to load
@@ -526,6 +606,8 @@ internal class PageFetcherSnapshot<Key : Any, Value : Any>(
                 pageEventCh.send(pageEvent)
             }
 
+            persistViewport()
+
             val endsPrepend = params is LoadParams.Prepend && result.prevKey == null
             val endsAppend = params is LoadParams.Append && result.nextKey == null
             if (remoteMediatorAccessor != null && (endsPrepend || endsAppend)) {
@@ -636,19 +718,44 @@ internal class PageFetcherSnapshot<Key : Any, Value : Any>(
             generationId,
             pageIndex,
             indexInPage,
-            config.prefetchDistance + hintOffset.absoluteValue,
+            prefetchDistance(PREPEND) + hintOffset.absoluteValue,
             fromRetry
         )
         APPEND -> nextAppendKey(
             generationId,
             pageIndex,
             indexInPage,
-            config.prefetchDistance + hintOffset.absoluteValue,
+            prefetchDistance(APPEND) + hintOffset.absoluteValue,
             fromRetry
         )
         REFRESH -> throw IllegalArgumentException("Just use initialKey directly")
     }
 
+    /**
+     * The prefetch distance for [loadType], as adjusted by [PagingConfig.prefetchPolicy].
+     *
+     * The result is bounded below by [PagingConfig.prefetchDistance] and, if
+     * [PagingConfig.maxSize] is bounded, above by the largest distance that lets a prefetch
+     * window on both sides of a page fit without dropping it.
+     */
+    @OptIn(ExperimentalPagingApi::class)
+    private fun prefetchDistance(loadType: LoadType): Int {
+        val policy = config.prefetchPolicy ?: return config.prefetchDistance
+
+        val velocity = scrollVelocityTracker.velocity
+        val distance = policy.prefetchDistance(
+            config = config,
+            loadType = loadType,
+            scrollVelocity = if (loadType == PREPEND) -velocity else velocity,
+            averageLoadTimeMillis = prefetchStats.averageLoadTimeMillis
+        )
+        val maxDistance = when (config.maxSize) {
+            MAX_SIZE_UNBOUNDED -> MAX_PREFETCH_DISTANCE
+            else -> (config.maxSize - config.pageSize) / 2
+        }
+        return distance.coerceAtMost(maxDistance).coerceAtLeast(config.prefetchDistance)
+    }
+
     /**
      * The key to use to load next page to prepend or null if we should stop loading in this
      * direction for the provided [prefetchDistance] and [loadId].
@@ -689,6 +796,17 @@ internal class PageFetcherSnapshot<Key : Any, Value : Any>(
         return if (shouldLoad) pages.last().nextKey else null
     }
 
+    /**
+     * Queues the loaded items around [lastHint] to be written to [pageCache], if set.
+     */
+    private suspend fun persistViewport() {
+        @OptIn(ExperimentalPagingApi::class)
+        if (pageCache == null) return
+
+        stateLock.withLock { state.viewportPage(lastHint, config.initialLoadSize) }
+            ?.let { viewportPageCh.offer(it) }
+    }
+
     private suspend fun PageFetcherSnapshotState<Key, Value>.currentPagingState(
         lastHint: ViewportHint?
     ): PagingState<Key, Value> {
@@ -714,6 +832,14 @@ internal class PageFetcherSnapshot<Key : Any, Value : Any>(
             leadingPlaceholderCount = state.placeholdersBefore
         )
     }
+
+    private companion object {
+        /**
+         * Bound on the prefetch distance when [PagingConfig.maxSize] is unbounded, leaving room
+         * to add a hint offset without overflowing.
+         */
+        const val MAX_PREFETCH_DISTANCE = Int.MAX_VALUE / 2
+    }
 }
 
 /**
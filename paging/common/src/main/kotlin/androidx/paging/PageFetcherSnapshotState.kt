@@ -374,6 +374,52 @@ internal class PageFetcherSnapshotState<Key : Any, Value : Any>(
 
         return block(indexInPage, pageIndex, hintOffset)
     }
+
+    /**
+     * Merges the loaded pages around [hint], or around the initially loaded page if `null`, into
+     * a single [Page] of at least [itemCount] items if that many are loaded, to be persisted to a
+     * [PageCache].
+     */
+    internal suspend fun viewportPage(hint: ViewportHint?, itemCount: Int): Page<Key, Value>? {
+        if (pages.isEmpty()) return null
+
+        val anchorPageIndex = (hint ?: ViewportHint(0, 0)).withCoercedHint { _, pageIndex, _ ->
+            pageIndex
+        }
+        var firstPageIndex = anchorPageIndex
+        var lastPageIndex = anchorPageIndex
+        var size = pages[anchorPageIndex].data.size
+        while (size < itemCount && (firstPageIndex > 0 || lastPageIndex < pages.lastIndex)) {
+            if (firstPageIndex > 0) {
+                firstPageIndex--
+                size += pages[firstPageIndex].data.size
+            }
+            if (size < itemCount && lastPageIndex < pages.lastIndex) {
+                lastPageIndex++
+                size += pages[lastPageIndex].data.size
+            }
+        }
+
+        val data = ArrayList<Value>(size)
+        for (pageIndex in firstPageIndex..lastPageIndex) {
+            data.addAll(pages[pageIndex].data)
+        }
+        return Page(
+            data = data,
+            prevKey = pages[firstPageIndex].prevKey,
+            nextKey = pages[lastPageIndex].nextKey,
+            itemsBefore = when {
+                config.enablePlaceholders -> placeholdersBefore +
+                        (0 until firstPageIndex).sumBy { pages[it].data.size }
+                else -> COUNT_UNDEFINED
+            },
+            itemsAfter = when {
+                config.enablePlaceholders -> placeholdersAfter +
+                        (lastPageIndex + 1..pages.lastIndex).sumBy { pages[it].data.size }
+                else -> COUNT_UNDEFINED
+            }
+        )
+    }
 }
 
 internal class DropInfo(val pageCount: Int, val placeholdersRemaining: Int)
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.paging
+
+/**
+ * Start offsets of a list of pages that is only modified at its ends, used to find the page
+ * holding a given item with a binary search instead of walking the pages.
+ *
+ * Offsets are kept in a circular buffer relative to an origin that stays in place while pages are
+ * added or dropped at either end, so each update is amortized O(1) and lookups are O(log pages).
+ * Offsets are only ever compared relative to the first page, so they may wrap around without
+ * affecting results.
+ */
+internal class PageOffsetIndex {
+    private var starts = IntArray(INITIAL_CAPACITY)
+    private var head = 0
+
+    /**
+     * Offset just past the last item of the last page.
+     */
+    private var end = 0
+
+    /**
+     * Number of pages indexed.
+     */
+    var pageCount: Int = 0
+        private set
+
+    private val firstStart: Int
+        get() = if (pageCount == 0) end else starts[head]
+
+    private fun startOf(pageIndex: Int) = starts[(head + pageIndex) and (starts.size - 1)]
+
+    /**
+     * Number of items held by the pages before [pageIndex], or by all pages if [pageIndex] is
+     * [pageCount].
+     */
+    fun itemsBefore(pageIndex: Int): Int =
+        if (pageIndex == pageCount) end - firstStart else startOf(pageIndex) - firstStart
+
+    /**
+     * Index of the page holding the item at [localIndex], which must be between 0 and the total
+     * item count. Empty pages never hold an item, so they are skipped.
+     */
+    fun pageIndexOf(localIndex: Int): Int {
+        val first = firstStart
+        var low = 0
+        var high = pageCount - 1
+        // Find the last page starting at or before localIndex.
+        while (low < high) {
+            val mid = (low + high + 1) ushr 1
+            if (startOf(mid) - first <= localIndex) {
+                low = mid
+            } else {
+                high = mid - 1
+            }
+        }
+        return low
+    }
+
+    fun append(pageSize: Int) {
+        ensureCapacity()
+        starts[(head + pageCount) and (starts.size - 1)] = end
+        end += pageSize
+        pageCount++
+    }
+
+    fun prepend(pageSize: Int) {
+        ensureCapacity()
+        val start = firstStart - pageSize
+        head = (head - 1) and (starts.size - 1)
+        starts[head] = start
+        pageCount++
+    }
+
+    fun dropFirst(count: Int) {
+        check(count <= pageCount) { "Dropping $count of $pageCount pages" }
+        head = (head + count) and (starts.size - 1)
+        pageCount -= count
+    }
+
+    fun dropLast(count: Int) {
+        check(count <= pageCount) { "Dropping $count of $pageCount pages" }
+        end = if (count == 0) end else startOf(pageCount - count)
+        pageCount -= count
+    }
+
+    fun clear() {
+        head = 0
+        end = 0
+        pageCount = 0
+    }
+
+    fun copyFrom(other: PageOffsetIndex) {
+        starts = other.starts.copyOf()
+        head = other.head
+        end = other.end
+        pageCount = other.pageCount
+    }
+
+    private fun ensureCapacity() {
+        if (pageCount < starts.size) {
+            return
+        }
+        val grown = IntArray(starts.size * 2)
+        for (i in 0 until pageCount) {
+            grown[i] = startOf(i)
+        }
+        starts = grown
+        head = 0
+    }
+
+    private companion object {
+        /** Must be a power of two. */
+        const val INITIAL_CAPACITY = 16
+    }
+}
@@ -16,6 +16,7 @@
 
 package androidx.paging
 
+import androidx.annotation.RestrictTo
 import androidx.paging.LoadState.NotLoading
 import androidx.paging.LoadType.APPEND
 import androidx.paging.LoadType.PREPEND
@@ -29,6 +30,9 @@ internal class PagePresenter<T : Any>(
     insertEvent: PageEvent.Insert<T>
 ) : NullPaddedList<T> {
     private val pages: MutableList<TransformablePage<T>> = insertEvent.pages.toMutableList()
+    private val pageOffsets = PageOffsetIndex().apply {
+        insertEvent.pages.forEach { append(it.data.size) }
+    }
     override var storageCount: Int = insertEvent.pages.fullCount()
         private set
 
@@ -59,36 +63,23 @@ internal class PagePresenter<T : Any>(
     }
 
     override fun getFromStorage(localIndex: Int): T {
-        var pageIndex = 0
-        var indexInPage = localIndex
-
-        // Since we don't know if page sizes are regular, we walk to correct page.
-        val localPageCount = pages.size
-        while (pageIndex < localPageCount) {
-            val pageSize = pages[pageIndex].data.size
-            if (pageSize > indexInPage) {
-                // stop, found the page
-                break
-            }
-            indexInPage -= pageSize
-            pageIndex++
-        }
-        return pages[pageIndex].data[indexInPage]
+        val pageIndex = pageOffsets.pageIndexOf(localIndex)
+        return pages[pageIndex].data[localIndex - pageOffsets.itemsBefore(pageIndex)]
     }
 
     private inline fun <T> withIndex(
         index: Int,
         block: (pageIndex: Int, indexInPage: Int) -> T
     ): T {
-        var pageIndex = 0
-        var indexInPage = index - placeholdersBefore
-        while (indexInPage >= pages[pageIndex].data.size && pageIndex < pages.lastIndex) {
-            // index doesn't appear in current page, keep looking!
-            indexInPage -= pages[pageIndex].data.size
-            pageIndex++
+        val localIndex = index - placeholdersBefore
+        // Placeholders are attributed to the first or last page.
+        val pageIndex = when {
+            localIndex < 0 -> 0
+            localIndex >= storageCount -> pages.lastIndex
+            else -> pageOffsets.pageIndexOf(localIndex)
         }
 
-        return block(pageIndex, indexInPage)
+        return block(pageIndex, localIndex - pageOffsets.itemsBefore(pageIndex))
     }
 
     /**
@@ -170,6 +161,7 @@ internal class PagePresenter<T : Any>(
 
                 // first update all state...
                 pages.addAll(0, insert.pages)
+                insert.pages.asReversed().forEach { pageOffsets.prepend(it.data.size) }
                 storageCount += count
                 placeholdersBefore = insert.placeholdersBefore
 
@@ -192,6 +184,7 @@ internal class PagePresenter<T : Any>(
 
                 // first update all state...
                 pages.addAll(pages.size, insert.pages)
+                insert.pages.forEach { pageOffsets.append(it.data.size) }
                 storageCount += count
                 placeholdersAfter = insert.placeholdersAfter
 
@@ -230,6 +223,7 @@ internal class PagePresenter<T : Any>(
             for (i in 0 until drop.count) {
                 pages.removeAt(0)
             }
+            pageOffsets.dropFirst(drop.count)
             storageCount -= removeCount
             placeholdersBefore = drop.placeholdersRemaining
 
@@ -262,6 +256,7 @@ internal class PagePresenter<T : Any>(
             for (i in 0 until drop.count) {
                 pages.removeAt(pages.lastIndex)
             }
+            pageOffsets.dropLast(drop.count)
             storageCount -= removeCount
             placeholdersAfter = drop.placeholdersRemaining
 
@@ -301,3 +296,27 @@ internal class PagePresenter<T : Any>(
         fun onStateUpdate(loadType: LoadType, fromMediator: Boolean, loadState: LoadState)
     }
 }
+
+/**
+ * Creates a [PagePresenter] holding the given pages without placeholders, so that the paging
+ * benchmarks can measure its random access reads through [NullPaddedList.getFromStorage].
+ *
+ * @suppress
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+fun <T : Any> createPagePresenterForBenchmark(pages: List<List<T>>): NullPaddedList<T> =
+    PagePresenter(
+        PageEvent.Insert.Refresh(
+            pages = pages.mapIndexed { index, data ->
+                TransformablePage(
+                    originalPageOffset = index,
+                    data = data,
+                    originalPageSize = data.size,
+                    originalIndices = null
+                )
+            },
+            placeholdersBefore = 0,
+            placeholdersAfter = 0,
+            combinedLoadStates = CombinedLoadStates.IDLE_SOURCE
+        )
+    )
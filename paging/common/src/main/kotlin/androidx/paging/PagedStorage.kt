@@ -29,6 +29,7 @@ import java.util.AbstractList
 internal class PagedStorage<T : Any> : AbstractList<T>, LegacyPageFetcher.KeyProvider<Any>,
     NullPaddedList<T> {
     private val pages = mutableListOf<Page<*, T>>()
+    private val pageOffsets = PageOffsetIndex()
 
     internal val firstLoadedItem: T
         get() = pages.first().data.first()
@@ -77,6 +78,7 @@ internal class PagedStorage<T : Any> : AbstractList<T>, LegacyPageFetcher.KeyPro
 
     private constructor(other: PagedStorage<T>) {
         pages.addAll(other.pages)
+        pageOffsets.copyFrom(other.pageOffsets)
         placeholdersBefore = other.placeholdersBefore
         placeholdersAfter = other.placeholdersAfter
         positionOffset = other.positionOffset
@@ -97,6 +99,8 @@ internal class PagedStorage<T : Any> : AbstractList<T>, LegacyPageFetcher.KeyPro
         placeholdersBefore = leadingNulls
         pages.clear()
         pages.add(page)
+        pageOffsets.clear()
+        pageOffsets.append(page.data.size)
         placeholdersAfter = trailingNulls
 
         this.positionOffset = positionOffset
@@ -147,25 +151,13 @@ internal class PagedStorage<T : Any> : AbstractList<T>, LegacyPageFetcher.KeyPro
         localIndex: Int,
         crossinline onLastPage: (page: Page<*, T>, pageInternalIndex: Int) -> V
     ): V {
-        var localPageIndex = 0
-        var pageInternalIndex: Int = localIndex
-
-        // Since we don't know if page sizes are regular, we walk to correct page.
-        val localPageCount = pages.size
-        while (localPageIndex < localPageCount) {
-            val pageSize = pages[localPageIndex].data.size
-            if (pageSize > pageInternalIndex) {
-                // stop, found the page
-                break
-            }
-            pageInternalIndex -= pageSize
-            localPageIndex++
-        }
+        val localPageIndex = pageOffsets.pageIndexOf(localIndex)
+        val pageInternalIndex = localIndex - pageOffsets.itemsBefore(localPageIndex)
         return onLastPage(pages[localPageIndex], pageInternalIndex)
     }
 
     /**
-     * Walk through the list of pages to find the data at local index
+     * Look up the page holding local index to find its data
      */
     override fun getFromStorage(localIndex: Int): T =
         traversePages(localIndex) { page, pageInternalIndex ->
@@ -256,6 +248,7 @@ internal class PagedStorage<T : Any> : AbstractList<T>, LegacyPageFetcher.KeyPro
         var totalRemoved = 0
         while (needsTrimFromFront(maxSize, requiredRemaining)) {
             val page = pages.removeAt(0)
+            pageOffsets.dropFirst(1)
             val removed = page.data.size
             totalRemoved += removed
             storageCount -= removed
@@ -286,6 +279,7 @@ internal class PagedStorage<T : Any> : AbstractList<T>, LegacyPageFetcher.KeyPro
         var totalRemoved = 0
         while (needsTrimFromEnd(maxSize, requiredRemaining)) {
             val page = pages.removeAt(pages.size - 1)
+            pageOffsets.dropLast(1)
             val removed = page.data.size
             totalRemoved += removed
             storageCount -= removed
@@ -316,6 +310,7 @@ internal class PagedStorage<T : Any> : AbstractList<T>, LegacyPageFetcher.KeyPro
         }
 
         pages.add(0, page)
+        pageOffsets.prepend(count)
         storageCount += count
 
         val changedCount = minOf(placeholdersBefore, count)
@@ -336,6 +331,7 @@ internal class PagedStorage<T : Any> : AbstractList<T>, LegacyPageFetcher.KeyPro
         }
 
         pages.add(page)
+        pageOffsets.append(count)
         storageCount += count
 
         val changedCount = minOf(placeholdersAfter, count)
@@ -31,29 +31,47 @@ import kotlinx.coroutines.flow.Flow
  * [PagingData] can be transformed to alter data as it loads, and presented in a `RecyclerView` via
  * `AsyncPagingDataDiffer` or `PagingDataAdapter`.
  *
+ * A [PageCache] can be passed to persist the loaded items around the viewport, so that they are
+ * presented right away the next time a [Pager] is created, e.g., after process death, while fresh
+ * data is loaded from [PagingSource] and [RemoteMediator].
+ *
+ * [Pager]s presented together as rows of a 2D grid can be created by a [PagerGroup] instead, to
+ * share a budget of concurrent loads prioritized by the visible rows.
+ *
  * LiveData support is available as an extension property provided by the
  * `androidx.paging:paging-runtime` artifact.
  *
  * RxJava support is available as extension properties provided by the
  * `androidx.paging:paging-rxjava2` artifact.
  */
-class Pager<Key : Any, Value : Any>
-@JvmOverloads constructor(
-    config: PagingConfig,
-    initialKey: Key? = null,
-    @OptIn(ExperimentalPagingApi::class)
-    remoteMediator: RemoteMediator<Key, Value>? = null,
-    pagingSourceFactory: () -> PagingSource<Key, Value>
+class Pager<Key : Any, Value : Any> internal constructor(
+    internal val pageFetcher: PageFetcher<Key, Value>
 ) {
+    @JvmOverloads
+    constructor(
+        config: PagingConfig,
+        initialKey: Key? = null,
+        @OptIn(ExperimentalPagingApi::class)
+        remoteMediator: RemoteMediator<Key, Value>? = null,
+        @OptIn(ExperimentalPagingApi::class)
+        pageCache: PageCache<Key, Value>? = null,
+        pagingSourceFactory: () -> PagingSource<Key, Value>
+    ) : this(PageFetcher(pagingSourceFactory, initialKey, config, remoteMediator, pageCache))
+
     /**
      * A cold [Flow] of [PagingData], which emits new instances of [PagingData] once they become
      * invalidated by [PagingSource.invalidate] or calls to [AsyncPagingDataDiffer.refresh] or
      * [PagingDataAdapter.refresh].
      */
-    val flow: Flow<PagingData<Value>> = PageFetcher(
-        pagingSourceFactory,
-        initialKey,
-        config,
-        remoteMediator
-    ).flow
+    val flow: Flow<PagingData<Value>> = pageFetcher.flow
+
+    /**
+     * Hit / miss and load latency statistics of prefetching by this [Pager], accumulated across
+     * all [PagingData] emitted by [flow].
+     *
+     * @see PagingConfig.prefetchPolicy
+     */
+    @ExperimentalPagingApi
+    val prefetchStats: PrefetchStats
+        get() = pageFetcher.prefetchStats
 }
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.paging
+
+import androidx.annotation.IntRange
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CompletableDeferred
+
+/**
+ * Coordinates loading across [Pager]s which are presented together as rows of a 2D grid, e.g.,
+ * horizontally scrolling carousels stacked in a vertically scrolling list, where each row is
+ * backed by its own [Pager].
+ *
+ * Calls to [PagingSource.load] by all [Pager]s created by [pager] share a budget of
+ * [maxConcurrentLoads]. While more loads are waiting than the budget allows, they are started in
+ * order of:
+ *  1. Distance of their row from the visible rows, as most recently reported to
+ *  [onViewportChanged].
+ *  2. [LoadType], so that [LoadType.REFRESH] loads start before [LoadType.PREPEND] and
+ *  [LoadType.APPEND] loads.
+ *  3. The order they were requested in.
+ *
+ * The row half of the viewport is reported to [onViewportChanged], while the column half is
+ * reported to each row's [Pager] by its presenter as usual, which decides what that row
+ * prefetches. Each [Pager] still reports its own [LoadStates], where a load waiting for the budget
+ * is reported as [LoadState.Loading].
+ *
+ * Loads triggered by a [RemoteMediator] are not limited by the budget.
+ */
+@ExperimentalPagingApi
+class PagerGroup(
+    /**
+     * Maximum number of calls to [PagingSource.load] in progress at once across all [Pager]s in
+     * this group.
+     */
+    @IntRange(from = 1)
+    val maxConcurrentLoads: Int
+) {
+    init {
+        require(maxConcurrentLoads >= 1) { "maxConcurrentLoads must be >= 1" }
+    }
+
+    private val lock = Any()
+    private var activeLoads = 0
+    private var nextSequence = 0L
+    private val pendingLoads = mutableListOf<PendingLoad>()
+
+    // Until a viewport is reported, all rows are treated as visible.
+    private var firstVisibleRow = Int.MIN_VALUE
+    private var lastVisibleRow = Int.MAX_VALUE
+
+    private val priorityComparator = compareBy<PendingLoad>(
+        { distanceFromViewport(it.row) },
+        { it.loadType },
+        { it.sequence }
+    )
+
+    /**
+     * Updates the range of visible rows, prioritizing loads of [Pager]s in or closer to it.
+     */
+    fun onViewportChanged(firstVisibleRow: Int, lastVisibleRow: Int) {
+        require(firstVisibleRow <= lastVisibleRow) {
+            "firstVisibleRow must be <= lastVisibleRow, but was $firstVisibleRow > $lastVisibleRow"
+        }
+
+        synchronized(lock) {
+            this.firstVisibleRow = firstVisibleRow
+            this.lastVisibleRow = lastVisibleRow
+        }
+    }
+
+    /**
+     * Creates a [Pager] for the given [row] which loads within the budget of this group.
+     *
+     * @see Pager
+     */
+    @JvmOverloads
+    fun <Key : Any, Value : Any> pager(
+        row: Int,
+        config: PagingConfig,
+        initialKey: Key? = null,
+        remoteMediator: RemoteMediator<Key, Value>? = null,
+        pagingSourceFactory: () -> PagingSource<Key, Value>
+    ): Pager<Key, Value> {
+        val loadScheduler = object : LoadScheduler {
+            override suspend fun <T> schedule(loadType: LoadType, load: suspend () -> T): T {
+                return runLoad(row, loadType, load)
+            }
+        }
+
+        return Pager(
+            PageFetcher(
+                pagingSourceFactory,
+                initialKey,
+                config,
+                remoteMediator,
+                loadScheduler = loadScheduler
+            )
+        )
+    }
+
+    internal suspend fun <T> runLoad(row: Int, loadType: LoadType, load: suspend () -> T): T {
+        acquire(row, loadType)
+        try {
+            return load()
+        } finally {
+            release()
+        }
+    }
+
+    private suspend fun acquire(row: Int, loadType: LoadType) {
+        val pendingLoad = synchronized(lock) {
+            if (activeLoads < maxConcurrentLoads) {
+                activeLoads++
+                return
+            }
+
+            PendingLoad(row, loadType, nextSequence++).also { pendingLoads.add(it) }
+        }
+
+        try {
+            pendingLoad.granted.await()
+        } catch (e: CancellationException) {
+            // The slot may have been handed over just before cancellation, in which case it must
+            // be passed on to the next pending load.
+            val granted = synchronized(lock) {
+                pendingLoads.remove(pendingLoad)
+                pendingLoad.isGranted
+            }
+            if (granted) release()
+            throw e
+        }
+    }
+
+    private fun release() {
+        val nextLoad = synchronized(lock) {
+            if (pendingLoads.isEmpty()) {
+                activeLoads--
+                return
+            }
+
+            // Priorities change with the viewport, so pick the next load at the time a slot frees.
+            pendingLoads.sortWith(priorityComparator)
+            pendingLoads.removeAt(0).also { it.isGranted = true }
+        }
+
+        // Hand the slot over without decrementing activeLoads, so no other load can claim it.
+        nextLoad.granted.complete(Unit)
+    }
+
+    private fun distanceFromViewport(row: Int): Int = when {
+        row < firstVisibleRow -> firstVisibleRow - row
+        row > lastVisibleRow -> row - lastVisibleRow
+        else -> 0
+    }
+
+    private class PendingLoad(
+        val row: Int,
+        val loadType: LoadType,
+        val sequence: Long
+    ) {
+        val granted = CompletableDeferred<Unit>()
+
+        /**
+         * Set under lock once a slot is handed to this load, as [granted] is completed outside it.
+         */
+        var isGranted = false
+    }
+}
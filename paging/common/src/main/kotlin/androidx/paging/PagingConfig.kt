@@ -118,7 +118,19 @@ class PagingConfig @JvmOverloads constructor(
      * @see PagingSource.jumpingSupported
      */
     @JvmField
-    val jumpThreshold: Int = COUNT_UNDEFINED
+    val jumpThreshold: Int = COUNT_UNDEFINED,
+
+    /**
+     * Adapts the prefetch distance to scroll velocity and [PagingSource.load] latency. Defaults to
+     * `null`, which always uses [prefetchDistance].
+     *
+     * @see VelocityPrefetchPolicy
+     */
+    @OptIn(ExperimentalPagingApi::class)
+    @property:ExperimentalPagingApi
+    @field:ExperimentalPagingApi
+    @JvmField
+    val prefetchPolicy: PrefetchPolicy? = null
 ) {
     init {
         if (!enablePlaceholders && prefetchDistance == 0) {
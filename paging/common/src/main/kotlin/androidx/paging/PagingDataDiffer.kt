@@ -201,8 +201,14 @@ abstract class PagingDataDiffer<T : Any>(
         lastAccessedIndexUnfulfilled = true
         lastAccessedIndex = index
 
-        receiver?.addHint(presenter.indexToHint(index))
-        return presenter.get(index)
+        val item = presenter.get(index)
+        receiver?.addHint(
+            presenter.indexToHint(index).copy(
+                accessedLoadedItem = item != null,
+                presenterIndex = index
+            )
+        )
+        return item
     }
 
     /**
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.paging
+
+/**
+ * Decides how far ahead of the most recently accessed item a [Pager] prefetches, based on how
+ * quickly the user is scrolling and how long [PagingSource.load] takes to return.
+ *
+ * A [PrefetchPolicy] is set via [PagingConfig.prefetchPolicy] and is consulted every time the
+ * [Pager] decides whether to load another page in the direction of [LoadType.PREPEND] or
+ * [LoadType.APPEND]. The returned distance is never less than [PagingConfig.prefetchDistance] and,
+ * if [PagingConfig.maxSize] is bounded, never more than `(maxSize - pageSize) / 2`, so that
+ * prefetched pages are not dropped again right away.
+ *
+ * @see VelocityPrefetchPolicy
+ */
+@ExperimentalPagingApi
+interface PrefetchPolicy {
+    /**
+     * @param config The [PagingConfig] of the [Pager] that is prefetching.
+     * @param loadType Either [LoadType.PREPEND] or [LoadType.APPEND].
+     * @param scrollVelocity Recent scroll velocity in items per second. Positive values mean the
+     * user is scrolling towards the edge that [loadType] loads, negative values mean the user is
+     * scrolling away from it.
+     * @param averageLoadTimeMillis Moving average of the time taken by [PagingSource.load], or
+     * `0` if no load has completed yet.
+     *
+     * @return The number of items to keep loaded beyond the most recently accessed item in the
+     * direction of [loadType].
+     */
+    fun prefetchDistance(
+        config: PagingConfig,
+        loadType: LoadType,
+        scrollVelocity: Float,
+        averageLoadTimeMillis: Long
+    ): Int
+}
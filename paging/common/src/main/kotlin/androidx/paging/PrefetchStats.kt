@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.paging
+
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Statistics about how well a [Pager] keeps loaded content ahead of the user, accumulated across
+ * all generations of [PagingData] it has produced.
+ *
+ * An item access is a hit if the accessed item was already loaded, and a miss if a placeholder was
+ * presented instead. Misses can only be observed when placeholders are enabled; without them,
+ * falling behind shows up as the user reaching the end of the loaded list instead.
+ *
+ * @see Pager.prefetchStats
+ * @see PrefetchPolicy
+ */
+@ExperimentalPagingApi
+class PrefetchStats internal constructor() {
+    private val hits = AtomicLong()
+    private val misses = AtomicLong()
+    private val loads = AtomicLong()
+
+    @Volatile
+    private var averageLoadTimeNanos = 0L
+
+    /**
+     * Number of item accesses which found the item already loaded.
+     */
+    val hitCount: Long
+        get() = hits.get()
+
+    /**
+     * Number of item accesses which found a placeholder, as the item had not been loaded yet.
+     */
+    val missCount: Long
+        get() = misses.get()
+
+    /**
+     * Fraction of item accesses which were hits, or `1` if no items have been accessed yet.
+     */
+    val hitRatio: Float
+        get() {
+            val hits = hitCount
+            val total = hits + missCount
+            return if (total == 0L) 1f else hits.toFloat() / total
+        }
+
+    /**
+     * Number of completed calls to [PagingSource.load].
+     */
+    val loadCount: Long
+        get() = loads.get()
+
+    /**
+     * Exponential moving average of the time taken by [PagingSource.load], or `0` if no load has
+     * completed yet.
+     */
+    val averageLoadTimeMillis: Long
+        get() = averageLoadTimeNanos / 1_000_000
+
+    internal fun recordAccess(hit: Boolean) {
+        if (hit) hits.incrementAndGet() else misses.incrementAndGet()
+    }
+
+    @Synchronized
+    internal fun recordLoad(durationNanos: Long) {
+        averageLoadTimeNanos = if (loads.getAndIncrement() == 0L) {
+            durationNanos
+        } else {
+            averageLoadTimeNanos + (durationNanos - averageLoadTimeNanos) / LOAD_TIME_SMOOTHING
+        }
+    }
+
+    override fun toString(): String {
+        return "PrefetchStats(hitCount=$hitCount, missCount=$missCount, loadCount=$loadCount, " +
+                "averageLoadTimeMillis=$averageLoadTimeMillis)"
+    }
+
+    private companion object {
+        /**
+         * Each load moves the average 1/LOAD_TIME_SMOOTHING of the way towards its own duration.
+         */
+        const val LOAD_TIME_SMOOTHING = 4
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.paging
+
+/**
+ * Estimates scroll velocity, in items per second, from the positions of accessed items.
+ *
+ * Accesses closer together than [SAMPLE_INTERVAL_NANOS] are folded into one sample, since a single
+ * frame binds many items at once. After the user has been idle for [IDLE_TIMEOUT_NANOS], the next
+ * sample replaces the estimate rather than being blended into it.
+ */
+internal class ScrollVelocityTracker {
+    private var anchorPosition = 0
+    private var anchorTimeNanos = NO_TIME
+
+    /**
+     * Current estimate, where positive values mean scrolling towards the end of the list.
+     */
+    @Volatile
+    var velocity = 0f
+        private set
+
+    @Synchronized
+    fun addAccess(position: Int, timeNanos: Long) {
+        if (anchorTimeNanos == NO_TIME) {
+            anchorPosition = position
+            anchorTimeNanos = timeNanos
+            return
+        }
+
+        val elapsedNanos = timeNanos - anchorTimeNanos
+        if (elapsedNanos < SAMPLE_INTERVAL_NANOS) return
+
+        val sample = (position - anchorPosition) * 1_000_000_000f / elapsedNanos
+        velocity = if (elapsedNanos >= IDLE_TIMEOUT_NANOS) sample else (velocity + sample) / 2
+        anchorPosition = position
+        anchorTimeNanos = timeNanos
+    }
+
+    internal companion object {
+        private const val NO_TIME = Long.MIN_VALUE
+        const val SAMPLE_INTERVAL_NANOS = 50_000_000L
+        const val IDLE_TIMEOUT_NANOS = 1_000_000_000L
+    }
+}
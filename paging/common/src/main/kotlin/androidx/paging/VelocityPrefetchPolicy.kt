@@ -0,0 +1,68 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.paging
+
+import androidx.annotation.IntRange
+import kotlin.math.ceil
+
+/**
+ * [PrefetchPolicy] which extends [PagingConfig.prefetchDistance] by the number of items the user
+ * is expected to scroll past while a page is loading.
+ *
+ * When scrolling towards an edge at `v` items per second, with loads taking `t` milliseconds on
+ * average, the prefetch distance is `prefetchDistance + v * t / 1000 * loadTimeMultiplier`, capped
+ * at [maxPrefetchDistance]. When idle or scrolling away from an edge,
+ * [PagingConfig.prefetchDistance] is used as is.
+ */
+@ExperimentalPagingApi
+class VelocityPrefetchPolicy @JvmOverloads constructor(
+    /**
+     * Upper bound on the prefetch distance, in items.
+     */
+    @IntRange(from = 0)
+    val maxPrefetchDistance: Int,
+
+    /**
+     * Number of average load times worth of scrolling to stay ahead of. Values above `1` leave
+     * room for loads that are slower than average and for the user accelerating.
+     */
+    val loadTimeMultiplier: Float = DEFAULT_LOAD_TIME_MULTIPLIER
+) : PrefetchPolicy {
+    init {
+        require(maxPrefetchDistance >= 0) { "maxPrefetchDistance must be >= 0" }
+        require(loadTimeMultiplier >= 0f) { "loadTimeMultiplier must be >= 0" }
+    }
+
+    override fun prefetchDistance(
+        config: PagingConfig,
+        loadType: LoadType,
+        scrollVelocity: Float,
+        averageLoadTimeMillis: Long
+    ): Int {
+        if (scrollVelocity <= 0f || averageLoadTimeMillis <= 0) return config.prefetchDistance
+
+        val itemsScrolledDuringLoad =
+            scrollVelocity * averageLoadTimeMillis / 1000f * loadTimeMultiplier
+        val distance = config.prefetchDistance + ceil(itemsScrolledDuringLoad)
+        return distance.coerceAtMost(maxPrefetchDistance.toFloat()).toInt()
+            .coerceAtLeast(config.prefetchDistance)
+    }
+
+    internal companion object {
+        const val DEFAULT_LOAD_TIME_MULTIPLIER = 2f
+    }
+}
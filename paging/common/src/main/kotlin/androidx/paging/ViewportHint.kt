@@ -37,7 +37,20 @@ internal data class ViewportHint(
     /**
      * `true` if this hint should be resolved even if Paging is in an error state.
      */
-    val fromRetry: Boolean = false
+    val fromRetry: Boolean = false,
+
+    /**
+     * `true` if this hint was sent for a UI access of a loaded item, `false` if for a UI access of
+     * a placeholder and `null` if it was not sent for an access, e.g., when the last accessed
+     * index is re-sent after a page was inserted.
+     */
+    val accessedLoadedItem: Boolean? = null,
+
+    /**
+     * Index of the accessed item in the presenter, including placeholders, if this hint was sent
+     * for a UI access, `null` otherwise.
+     */
+    val presenterIndex: Int? = null
 ) : Comparable<ViewportHint> {
     override operator fun compareTo(other: ViewportHint): Int {
         if (sourcePageIndex != other.sourcePageIndex) return sourcePageIndex - other.sourcePageIndex
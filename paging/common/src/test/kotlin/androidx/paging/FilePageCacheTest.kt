@@ -0,0 +1,147 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.paging
+
+import androidx.paging.PagingSource.LoadResult.Page
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.runBlocking
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.junit.runner.RunWith
+import org.junit.runners.JUnit4
+import java.io.DataInput
+import java.io.DataOutput
+import java.io.File
+import java.io.RandomAccessFile
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertNull
+import kotlin.test.assertTrue
+
+@OptIn(ExperimentalPagingApi::class)
+@RunWith(JUnit4::class)
+class FilePageCacheTest {
+    @get:Rule
+    val tempFolder = TemporaryFolder()
+
+    private val file by lazy { File(tempFolder.root, "page") }
+
+    private val pageCache by lazy {
+        FilePageCache(file, IntSerializer, StringSerializer, Dispatchers.Unconfined)
+    }
+
+    @Test
+    fun read_missingFile() = runBlocking {
+        assertNull(pageCache.read())
+    }
+
+    @Test
+    fun writeThenRead() = runBlocking {
+        val page = Page(
+            data = listOf("a", "b", "c"),
+            prevKey = 9,
+            nextKey = 13,
+            itemsBefore = 10,
+            itemsAfter = 87
+        )
+        pageCache.write(page)
+
+        assertEquals(page, pageCache.read())
+        assertFalse(File(file.path + ".tmp").exists())
+    }
+
+    @Test
+    fun writeThenRead_nullKeys() = runBlocking {
+        val page = Page(data = listOf("a"), prevKey = null, nextKey = null)
+        pageCache.write(page)
+
+        assertEquals(page, pageCache.read())
+    }
+
+    @Test
+    fun write_replacesPreviousPage() = runBlocking {
+        pageCache.write(Page(data = listOf("a"), prevKey = null, nextKey = 1))
+        val page = Page(data = listOf("b", "c"), prevKey = 0, nextKey = null)
+        pageCache.write(page)
+
+        assertEquals(page, pageCache.read())
+    }
+
+    @Test
+    fun read_newCacheInstance() = runBlocking {
+        val page = Page(data = listOf("a", "b"), prevKey = 4, nextKey = 6)
+        pageCache.write(page)
+
+        val newPageCache = FilePageCache(file, IntSerializer, StringSerializer)
+        assertEquals(page, newPageCache.read())
+    }
+
+    @Test
+    fun read_corruptedFile() = runBlocking {
+        pageCache.write(Page(data = listOf("a", "b"), prevKey = 4, nextKey = 6))
+        RandomAccessFile(file, "rw").use { raf ->
+            raf.seek(raf.length() - 1)
+            val lastByte = raf.read()
+            raf.seek(raf.length() - 1)
+            raf.write(lastByte xor 0xFF)
+        }
+
+        assertNull(pageCache.read())
+        assertFalse(file.exists())
+    }
+
+    @Test
+    fun read_truncatedFile() = runBlocking {
+        pageCache.write(Page(data = listOf("a", "b"), prevKey = 4, nextKey = 6))
+        RandomAccessFile(file, "rw").use { raf -> raf.setLength(raf.length() - 2) }
+
+        assertNull(pageCache.read())
+        assertFalse(file.exists())
+    }
+
+    @Test
+    fun read_notAPageCacheFile() = runBlocking {
+        file.writeText("not a page")
+
+        assertNull(pageCache.read())
+        assertFalse(file.exists())
+    }
+
+    @Test
+    fun clear() = runBlocking {
+        pageCache.write(Page(data = listOf("a"), prevKey = null, nextKey = null))
+        assertTrue(file.exists())
+
+        pageCache.clear()
+
+        assertFalse(file.exists())
+        assertNull(pageCache.read())
+    }
+
+    private object IntSerializer : FilePageCache.Serializer<Int> {
+        override fun write(value: Int, output: DataOutput) = output.writeInt(value)
+
+        override fun read(input: DataInput) = input.readInt()
+    }
+
+    private object StringSerializer : FilePageCache.Serializer<String> {
+        override fun write(value: String, output: DataOutput) = output.writeUTF(value)
+
+        override fun read(input: DataInput): String = input.readUTF()
+    }
+}
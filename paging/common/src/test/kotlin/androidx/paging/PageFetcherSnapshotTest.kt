@@ -782,6 +782,102 @@ class PageFetcherSnapshotTest {
         }
     }
 
+    @OptIn(ExperimentalPagingApi::class)
+    @Test
+    fun prefetchPolicy_extendsPrefetchDistance() = testScope.runBlockingTest {
+        pauseDispatcher {
+            val config = PagingConfig(
+                pageSize = 1,
+                prefetchDistance = 1,
+                enablePlaceholders = true,
+                initialLoadSize = 2,
+                prefetchPolicy = constantPrefetchPolicy(3)
+            )
+            val pager = PageFetcherSnapshot(50, pagingSourceFactory(), config, retryCh.asFlow())
+
+            collectPagerData(pager) { pageEvents, _ ->
+                val expected = listOf<PageEvent<Int>>(
+                    LoadStateUpdate(REFRESH, false, Loading),
+                    createRefresh(50..51),
+                    LoadStateUpdate(APPEND, false, Loading),
+                    createAppend(pageOffset = 1, range = 52..52, endState = Loading),
+                    createAppend(pageOffset = 2, range = 53..53, endState = Loading),
+                    createAppend(pageOffset = 3, range = 54..54)
+                )
+
+                advanceUntilIdle()
+                pager.addHint(ViewportHint(0, 1))
+                advanceUntilIdle()
+
+                assertEvents(expected, pageEvents)
+            }
+        }
+    }
+
+    @OptIn(ExperimentalPagingApi::class)
+    @Test
+    fun prefetchPolicy_cappedByMaxSize() = testScope.runBlockingTest {
+        pauseDispatcher {
+            val config = PagingConfig(
+                pageSize = 1,
+                prefetchDistance = 1,
+                enablePlaceholders = true,
+                initialLoadSize = 2,
+                maxSize = 5,
+                prefetchPolicy = constantPrefetchPolicy(10)
+            )
+            val pager = PageFetcherSnapshot(50, pagingSourceFactory(), config, retryCh.asFlow())
+
+            collectPagerData(pager) { pageEvents, _ ->
+                // (maxSize - pageSize) / 2 = 2 items are prefetched, instead of 10.
+                val expected = listOf<PageEvent<Int>>(
+                    LoadStateUpdate(REFRESH, false, Loading),
+                    createRefresh(50..51),
+                    LoadStateUpdate(APPEND, false, Loading),
+                    createAppend(pageOffset = 1, range = 52..52, endState = Loading),
+                    createAppend(pageOffset = 2, range = 53..53)
+                )
+
+                advanceUntilIdle()
+                pager.addHint(ViewportHint(0, 1))
+                advanceUntilIdle()
+
+                assertEvents(expected, pageEvents)
+            }
+        }
+    }
+
+    @OptIn(ExperimentalPagingApi::class)
+    @Test
+    fun prefetchStats_countsAccessesAndLoads() = testScope.runBlockingTest {
+        pauseDispatcher {
+            val prefetchStats = PrefetchStats()
+            val pager = PageFetcherSnapshot(
+                initialKey = 50,
+                pagingSource = pagingSourceFactory(),
+                config = config,
+                retryFlow = retryCh.asFlow(),
+                prefetchStats = prefetchStats
+            )
+
+            collectPagerData(pager) { _, _ ->
+                advanceUntilIdle()
+                assertEquals(1, prefetchStats.loadCount)
+                assertEquals(1f, prefetchStats.hitRatio)
+
+                pager.addHint(ViewportHint(0, 0, accessedLoadedItem = true))
+                pager.addHint(ViewportHint(0, 1, accessedLoadedItem = true))
+                pager.addHint(ViewportHint(0, 2, accessedLoadedItem = false))
+                // Hints which were not sent for an access are not counted.
+                pager.addHint(ViewportHint(0, 2))
+
+                assertEquals(2, prefetchStats.hitCount)
+                assertEquals(1, prefetchStats.missCount)
+                assertEquals(2f / 3, prefetchStats.hitRatio)
+            }
+        }
+    }
+
     @Test
     fun retryTwice() = testScope.runBlockingTest {
         pauseDispatcher {
@@ -2148,3 +2244,13 @@ internal suspend fun <T : Any> CoroutineScope.collectPagerData(
     block(pageEvents, job)
     job.cancel()
 }
+
+@OptIn(ExperimentalPagingApi::class)
+private fun constantPrefetchPolicy(distance: Int) = object : PrefetchPolicy {
+    override fun prefetchDistance(
+        config: PagingConfig,
+        loadType: LoadType,
+        scrollVelocity: Float,
+        averageLoadTimeMillis: Long
+    ) = distance
+}
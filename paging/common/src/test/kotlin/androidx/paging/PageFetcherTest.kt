@@ -20,10 +20,12 @@ import androidx.paging.LoadState.Loading
 import androidx.paging.LoadType.APPEND
 import androidx.paging.LoadType.REFRESH
 import androidx.paging.PageEvent.LoadStateUpdate
+import androidx.paging.PagingSource.LoadResult.Page
 import androidx.paging.RemoteMediator.InitializeAction.LAUNCH_INITIAL_REFRESH
 import androidx.paging.RemoteMediator.InitializeAction.SKIP_INITIAL_REFRESH
 import com.google.common.truth.Truth.assertThat
 import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.Job
 import kotlinx.coroutines.async
@@ -35,17 +37,26 @@ import kotlinx.coroutines.flow.toList
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.test.TestCoroutineScope
 import kotlinx.coroutines.test.runBlockingTest
+import org.junit.Rule
 import org.junit.Test
+import org.junit.rules.TemporaryFolder
 import org.junit.runner.RunWith
 import org.junit.runners.JUnit4
+import java.io.DataInput
+import java.io.DataOutput
+import java.io.File
 import kotlin.test.assertEquals
 import kotlin.test.assertFailsWith
+import kotlin.test.assertFalse
 import kotlin.test.assertNotEquals
 import kotlin.test.assertTrue
 
 @OptIn(ExperimentalCoroutinesApi::class)
 @RunWith(JUnit4::class)
 class PageFetcherTest {
+    @get:Rule
+    val tempFolder = TemporaryFolder()
+
     private val testScope = TestCoroutineScope()
     private val pagingSourceFactory = { TestPagingSource() }
     private val config = PagingConfig(
@@ -344,6 +355,126 @@ class PageFetcherTest {
             assertTrue { job.isCompleted }
         }
     }
+
+    @OptIn(ExperimentalPagingApi::class)
+    @Test
+    fun pageCache_hydratesFirstGeneration() = testScope.runBlockingTest {
+        val pageCache = InMemoryPageCache(
+            Page(
+                data = listOf(20, 21),
+                prevKey = 19,
+                nextKey = 22,
+                itemsBefore = 20,
+                itemsAfter = 78
+            )
+        )
+        val pageFetcher = PageFetcher(pagingSourceFactory, 50, config, pageCache = pageCache)
+        val fetcherState = collectFetcherState(pageFetcher)
+
+        advanceUntilIdle()
+
+        // The cached page is presented without loading, then the next generation loads around it.
+        assertEquals(2, fetcherState.pagingDataList.size)
+        assertEvents(listOf(createRefresh(20..21)), fetcherState.pageEventLists[0])
+        assertEvents(
+            listOf(
+                LoadStateUpdate(REFRESH, false, Loading),
+                createRefresh(21..22)
+            ),
+            fetcherState.pageEventLists[1]
+        )
+        assertEquals(
+            Page(
+                data = listOf(21, 22),
+                prevKey = 20,
+                nextKey = 23,
+                itemsBefore = 21,
+                itemsAfter = 77
+            ),
+            pageCache.page
+        )
+        fetcherState.job.cancel()
+    }
+
+    @OptIn(ExperimentalPagingApi::class)
+    @Test
+    fun pageCache_empty() = testScope.runBlockingTest {
+        val pageCache = InMemoryPageCache(null)
+        val pageFetcher = PageFetcher(pagingSourceFactory, 50, config, pageCache = pageCache)
+        val fetcherState = collectFetcherState(pageFetcher)
+
+        advanceUntilIdle()
+
+        assertEquals(1, fetcherState.pagingDataList.size)
+        assertEvents(
+            listOf(
+                LoadStateUpdate(REFRESH, false, Loading),
+                createRefresh(50..51)
+            ),
+            fetcherState.pageEventLists[0]
+        )
+        assertEquals(
+            Page(
+                data = listOf(50, 51),
+                prevKey = 49,
+                nextKey = 52,
+                itemsBefore = 50,
+                itemsAfter = 48
+            ),
+            pageCache.page
+        )
+        fetcherState.job.cancel()
+    }
+
+    @OptIn(ExperimentalPagingApi::class)
+    @Test
+    fun pageCache_writeThrows() = testScope.runBlockingTest {
+        val file = File(tempFolder.root, "page")
+        val pageCache = FilePageCache(
+            file,
+            ThrowingSerializer,
+            ThrowingSerializer,
+            Dispatchers.Unconfined
+        )
+        val pageFetcher = PageFetcher(pagingSourceFactory, 50, config, pageCache = pageCache)
+        val fetcherState = collectFetcherState(pageFetcher)
+
+        advanceUntilIdle()
+
+        // A failed write only skips persisting the page, it must not fail the PagingData.
+        assertTrue { fetcherState.job.isActive }
+        assertEquals(1, fetcherState.pagingDataList.size)
+        assertEvents(
+            listOf(
+                LoadStateUpdate(REFRESH, false, Loading),
+                createRefresh(50..51)
+            ),
+            fetcherState.pageEventLists[0]
+        )
+        assertFalse(file.exists())
+        assertFalse(File(file.path + ".tmp").exists())
+        fetcherState.job.cancel()
+    }
+}
+
+@OptIn(ExperimentalPagingApi::class)
+private object ThrowingSerializer : FilePageCache.Serializer<Int> {
+    override fun write(value: Int, output: DataOutput): Unit = throw IllegalStateException()
+
+    override fun read(input: DataInput): Int = throw IllegalStateException()
+}
+
+@OptIn(ExperimentalPagingApi::class)
+private class InMemoryPageCache(var page: Page<Int, Int>?) : PageCache<Int, Int> {
+    override suspend fun read() = page
+
+    override suspend fun write(page: Page<Int, Int>) {
+        this.page = page
+    }
+
+    override suspend fun clear() {
+        page = null
+    }
 }
 
 internal class FetcherState<T : Any>(
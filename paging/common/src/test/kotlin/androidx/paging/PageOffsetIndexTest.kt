@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.paging
+
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.JUnit4
+import kotlin.random.Random
+import kotlin.test.assertEquals
+
+@RunWith(JUnit4::class)
+class PageOffsetIndexTest {
+    @Test
+    fun appendAndPrepend() {
+        val index = PageOffsetIndex()
+        index.append(3)
+        index.append(0)
+        index.append(2)
+        index.prepend(4)
+
+        // pages: [4], [3], [], [2]
+        assertEquals(4, index.pageCount)
+        assertEquals(listOf(0, 4, 7, 7, 9), (0..4).map { index.itemsBefore(it) })
+        assertEquals(
+            listOf(0, 0, 0, 0, 1, 1, 1, 3, 3),
+            (0 until 9).map { index.pageIndexOf(it) }
+        )
+    }
+
+    @Test
+    fun drop() {
+        val index = PageOffsetIndex()
+        repeat(5) { index.append(it + 1) }
+
+        // pages: [2], [3], [4]
+        index.dropFirst(1)
+        index.dropLast(1)
+        assertEquals(3, index.pageCount)
+        assertEquals(listOf(0, 2, 5, 9), (0..3).map { index.itemsBefore(it) })
+        assertEquals(2, index.pageIndexOf(8))
+
+        index.dropLast(3)
+        index.prepend(2)
+        assertEquals(1, index.pageCount)
+        assertEquals(2, index.itemsBefore(1))
+    }
+
+    @Test
+    fun matchesLinearWalk() {
+        val random = Random(42)
+        val index = PageOffsetIndex()
+        val pageSizes = mutableListOf<Int>()
+        repeat(5_000) {
+            val size = random.nextInt(4)
+            when (random.nextInt(4)) {
+                0 -> index.append(size).also { pageSizes.add(size) }
+                1 -> index.prepend(size).also { pageSizes.add(0, size) }
+                2 -> if (pageSizes.isNotEmpty()) {
+                    index.dropFirst(1)
+                    pageSizes.removeAt(0)
+                }
+                else -> if (pageSizes.isNotEmpty()) {
+                    index.dropLast(1)
+                    pageSizes.removeAt(pageSizes.lastIndex)
+                }
+            }
+
+            assertEquals(pageSizes.size, index.pageCount)
+            var itemsBefore = 0
+            pageSizes.forEachIndexed { pageIndex, pageSize ->
+                assertEquals(itemsBefore, index.itemsBefore(pageIndex))
+                for (i in itemsBefore until itemsBefore + pageSize) {
+                    assertEquals(pageIndex, index.pageIndexOf(i))
+                }
+                itemsBefore += pageSize
+            }
+            assertEquals(itemsBefore, index.itemsBefore(pageSizes.size))
+        }
+    }
+}
@@ -25,6 +25,7 @@ import androidx.paging.PagingSource.LoadResult.Page.Companion.COUNT_UNDEFINED
 import org.junit.Test
 import org.junit.runner.RunWith
 import org.junit.runners.JUnit4
+import kotlin.random.Random
 import kotlin.test.assertEquals
 import kotlin.test.assertFailsWith
 import kotlin.test.fail
@@ -552,6 +553,20 @@ class PagePresenterTest {
         assertEquals(ViewportHint(1, 2), pagePresenter.indexToHint(6))
     }
 
+    @Test
+    fun get_randomAccessAcrossManyPages() {
+        val pagePresenter = PagePresenter(
+            pages = List(1_000) { page -> List(10) { page * 10 + it } },
+            leadingNullCount = 0,
+            trailingNullCount = 0
+        )
+        val random = Random(0)
+        repeat(10_000) {
+            val index = random.nextInt(pagePresenter.size)
+            assertEquals(index, pagePresenter.get(index))
+        }
+    }
+
     companion object {
         val IDLE_EVENTS = listOf<PresenterEvent>(
             StateEvent(REFRESH, false, NotLoading.Incomplete),
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.paging
+
+import androidx.paging.LoadState.Loading
+import androidx.paging.LoadType.APPEND
+import androidx.paging.LoadType.PREPEND
+import androidx.paging.LoadType.REFRESH
+import androidx.paging.PageEvent.LoadStateUpdate
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.test.TestCoroutineScope
+import kotlinx.coroutines.test.runBlockingTest
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.JUnit4
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertTrue
+
+@OptIn(ExperimentalCoroutinesApi::class, ExperimentalPagingApi::class)
+@RunWith(JUnit4::class)
+class PagerGroupTest {
+    private val testScope = TestCoroutineScope()
+    private val startedLoads = mutableListOf<Pair<Int, LoadType>>()
+
+    @Test
+    fun invalidMaxConcurrentLoads() {
+        assertFailsWith<IllegalArgumentException> { PagerGroup(maxConcurrentLoads = 0) }
+    }
+
+    @Test
+    fun limitsConcurrentLoads() = testScope.runBlockingTest {
+        val pagerGroup = PagerGroup(maxConcurrentLoads = 2)
+        var activeLoads = 0
+        var maxActiveLoads = 0
+        val jobs = List(3) { row ->
+            launch {
+                pagerGroup.runLoad(row, REFRESH) {
+                    activeLoads++
+                    maxActiveLoads = maxOf(maxActiveLoads, activeLoads)
+                    delay(1000)
+                    activeLoads--
+                }
+            }
+        }
+
+        advanceTimeBy(1000)
+        assertEquals(listOf(true, true, false), jobs.map { it.isCompleted })
+
+        advanceTimeBy(1000)
+        assertTrue(jobs.all { it.isCompleted })
+        assertEquals(2, maxActiveLoads)
+    }
+
+    @Test
+    fun prioritizesRowsClosestToViewport() = testScope.runBlockingTest {
+        val pagerGroup = PagerGroup(maxConcurrentLoads = 1)
+        pagerGroup.onViewportChanged(firstVisibleRow = 5, lastVisibleRow = 6)
+
+        launchLoad(pagerGroup, row = 0, loadType = APPEND)
+        launchLoad(pagerGroup, row = 20, loadType = APPEND)
+        launchLoad(pagerGroup, row = 3, loadType = APPEND)
+        launchLoad(pagerGroup, row = 6, loadType = APPEND)
+        advanceUntilIdle()
+
+        assertEquals(listOf(0, 6, 3, 20), startedLoads.map { it.first })
+    }
+
+    @Test
+    fun prioritizesRefreshWithinRow() = testScope.runBlockingTest {
+        val pagerGroup = PagerGroup(maxConcurrentLoads = 1)
+
+        launchLoad(pagerGroup, row = 0, loadType = APPEND)
+        launchLoad(pagerGroup, row = 0, loadType = APPEND)
+        launchLoad(pagerGroup, row = 1, loadType = PREPEND)
+        launchLoad(pagerGroup, row = 1, loadType = REFRESH)
+        advanceUntilIdle()
+
+        // All rows are considered visible until a viewport is reported.
+        assertEquals(
+            listOf(0 to APPEND, 1 to REFRESH, 1 to PREPEND, 0 to APPEND),
+            startedLoads
+        )
+    }
+
+    @Test
+    fun viewportChangeReprioritizesPendingLoads() = testScope.runBlockingTest {
+        val pagerGroup = PagerGroup(maxConcurrentLoads = 1)
+        pagerGroup.onViewportChanged(firstVisibleRow = 0, lastVisibleRow = 1)
+
+        launchLoad(pagerGroup, row = 0, loadType = REFRESH)
+        launchLoad(pagerGroup, row = 10, loadType = REFRESH)
+        launchLoad(pagerGroup, row = 20, loadType = REFRESH)
+        pagerGroup.onViewportChanged(firstVisibleRow = 20, lastVisibleRow = 21)
+        advanceUntilIdle()
+
+        assertEquals(listOf(0, 20, 10), startedLoads.map { it.first })
+    }
+
+    @Test
+    fun cancelledPendingLoad() = testScope.runBlockingTest {
+        val pagerGroup = PagerGroup(maxConcurrentLoads = 1)
+
+        launchLoad(pagerGroup, row = 0, loadType = REFRESH)
+        launchLoad(pagerGroup, row = 1, loadType = REFRESH).cancel()
+        launchLoad(pagerGroup, row = 2, loadType = REFRESH)
+        advanceUntilIdle()
+        assertEquals(listOf(0, 2), startedLoads.map { it.first })
+
+        // The slot should be free again, so this load starts right away.
+        launchLoad(pagerGroup, row = 3, loadType = REFRESH)
+        assertEquals(listOf(0, 2, 3), startedLoads.map { it.first })
+        advanceUntilIdle()
+    }
+
+    @Test
+    fun failedLoadReleasesSlot() = testScope.runBlockingTest {
+        val pagerGroup = PagerGroup(maxConcurrentLoads = 1)
+
+        assertFailsWith<IllegalStateException> {
+            pagerGroup.runLoad(0, REFRESH) { throw IllegalStateException() }
+        }
+
+        launchLoad(pagerGroup, row = 1, loadType = REFRESH)
+        assertEquals(listOf(1 to REFRESH), startedLoads)
+        advanceUntilIdle()
+    }
+
+    @Test
+    fun pagersShareBudget() = testScope.runBlockingTest {
+        val pagerGroup = PagerGroup(maxConcurrentLoads = 1)
+        pagerGroup.onViewportChanged(firstVisibleRow = 1, lastVisibleRow = 1)
+        val config = PagingConfig(
+            pageSize = 1,
+            prefetchDistance = 1,
+            enablePlaceholders = true,
+            initialLoadSize = 2,
+            maxSize = 3
+        )
+        val fetcherStates = listOf(0, 5, 1).map { row ->
+            val pager = pagerGroup.pager(row, config, initialKey = 50) { TestPagingSource() }
+            collectFetcherState(pager.pageFetcher)
+        }
+
+        // Row 0 started loading before the others were created, then row 1 is visible, so it
+        // loads before row 5. Each Pager reports its own LoadStates while waiting.
+        advanceTimeBy(2000)
+        assertEvents(
+            listOf(LoadStateUpdate(REFRESH, false, Loading), createRefresh(50..51)),
+            fetcherStates[0].pageEventLists[0]
+        )
+        assertEvents(
+            listOf(LoadStateUpdate<Int>(REFRESH, false, Loading)),
+            fetcherStates[1].pageEventLists[0]
+        )
+        assertEvents(
+            listOf(LoadStateUpdate(REFRESH, false, Loading), createRefresh(50..51)),
+            fetcherStates[2].pageEventLists[0]
+        )
+
+        advanceTimeBy(1000)
+        assertEvents(
+            listOf(LoadStateUpdate(REFRESH, false, Loading), createRefresh(50..51)),
+            fetcherStates[1].pageEventLists[0]
+        )
+        fetcherStates.forEach { it.job.cancel() }
+    }
+
+    private fun CoroutineScope.launchLoad(
+        pagerGroup: PagerGroup,
+        row: Int,
+        loadType: LoadType
+    ): Job = launch {
+        pagerGroup.runLoad(row, loadType) {
+            startedLoads.add(row to loadType)
+            delay(1000)
+        }
+    }
+}
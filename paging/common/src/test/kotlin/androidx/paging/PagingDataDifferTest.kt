@@ -316,9 +316,9 @@ class PagingDataDifferTest {
 
         assertThat(receiver.hints).isEqualTo(
             listOf(
-                ViewportHint(-1, -2, false),
+                ViewportHint(-1, -2, false, accessedLoadedItem = false, presenterIndex = 0),
                 ViewportHint(-2, -2, false),
-                ViewportHint(1, 3, false),
+                ViewportHint(1, 3, false, accessedLoadedItem = false, presenterIndex = 5),
                 ViewportHint(2, 1, false)
             )
         )
@@ -392,7 +392,7 @@ class PagingDataDifferTest {
 
         assertThat(receiver.hints).isEqualTo(
             listOf(
-                ViewportHint(-1, -2, false),
+                ViewportHint(-1, -2, false, accessedLoadedItem = false, presenterIndex = 0),
                 ViewportHint(-2, -2, false)
             )
         )
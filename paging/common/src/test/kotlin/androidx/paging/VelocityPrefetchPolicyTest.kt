@@ -0,0 +1,98 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.paging
+
+import androidx.paging.LoadType.APPEND
+import androidx.paging.ScrollVelocityTracker.Companion.IDLE_TIMEOUT_NANOS
+import androidx.paging.ScrollVelocityTracker.Companion.SAMPLE_INTERVAL_NANOS
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.JUnit4
+import kotlin.test.assertFailsWith
+
+@OptIn(ExperimentalPagingApi::class)
+@RunWith(JUnit4::class)
+class VelocityPrefetchPolicyTest {
+    private val config = PagingConfig(pageSize = 10, prefetchDistance = 20)
+    private val policy = VelocityPrefetchPolicy(maxPrefetchDistance = 200)
+
+    @Test
+    fun idle() {
+        assertEquals(20, policy.prefetchDistance(config, APPEND, 0f, 100))
+    }
+
+    @Test
+    fun scrollingAway() {
+        assertEquals(20, policy.prefetchDistance(config, APPEND, -500f, 100))
+    }
+
+    @Test
+    fun noLoadTimeMeasured() {
+        assertEquals(20, policy.prefetchDistance(config, APPEND, 500f, 0))
+    }
+
+    @Test
+    fun scrollingTowards() {
+        // 100 items / s * 0.1 s * 2 = 20 items scrolled during two loads.
+        assertEquals(40, policy.prefetchDistance(config, APPEND, 100f, 100))
+    }
+
+    @Test
+    fun cappedAtMaxPrefetchDistance() {
+        assertEquals(200, policy.prefetchDistance(config, APPEND, 10_000f, 1_000))
+    }
+
+    @Test
+    fun maxPrefetchDistanceBelowConfig() {
+        val policy = VelocityPrefetchPolicy(maxPrefetchDistance = 5)
+        assertEquals(20, policy.prefetchDistance(config, APPEND, 100f, 100))
+    }
+
+    @Test
+    fun requireValidArguments() {
+        assertFailsWith<IllegalArgumentException> {
+            VelocityPrefetchPolicy(maxPrefetchDistance = -1)
+        }
+        assertFailsWith<IllegalArgumentException> {
+            VelocityPrefetchPolicy(maxPrefetchDistance = 10, loadTimeMultiplier = -1f)
+        }
+    }
+
+    @Test
+    fun velocityTracker() {
+        val tracker = ScrollVelocityTracker()
+        tracker.addAccess(position = 0, timeNanos = 0)
+        assertEquals(0f, tracker.velocity, 0f)
+
+        // Accesses within the same sample interval are ignored.
+        tracker.addAccess(position = 100, timeNanos = SAMPLE_INTERVAL_NANOS / 2)
+        assertEquals(0f, tracker.velocity, 0f)
+
+        // 10 items in 100ms: 100 items / s, averaged with the initial estimate of 0.
+        tracker.addAccess(position = 10, timeNanos = 100_000_000)
+        assertEquals(50f, tracker.velocity, 0.01f)
+
+        // Scrolling back 20 items in 100ms: -200 items / s.
+        tracker.addAccess(position = -10, timeNanos = 200_000_000)
+        assertEquals(-75f, tracker.velocity, 0.01f)
+
+        // After being idle, the previous estimate is discarded.
+        tracker.addAccess(position = 0, timeNanos = 200_000_000 + IDLE_TIMEOUT_NANOS)
+        assertEquals(10f, tracker.velocity, 0.01f)
+    }
+}
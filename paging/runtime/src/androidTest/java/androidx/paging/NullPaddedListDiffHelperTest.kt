@@ -102,6 +102,56 @@ class NullPaddedListDiffHelperTest {
         }
     }
 
+    @Test
+    fun changeBetweenUnchangedItems() {
+        validateTwoListDiff(
+            Storage(5, listOf("a", "b", "c1", "d", "e"), 5),
+            Storage(5, listOf("a", "b", "c2", "d", "e"), 5)
+        ) {
+            assertEquals(OnChangedEvent(7, 1, null), it.onChangedEvents[0])
+            assertEquals(1, it.interactions)
+        }
+    }
+
+    @Test
+    fun insertBetweenUnchangedItems() {
+        validateTwoListDiff(
+            Storage(0, listOf("a", "b", "e", "f"), 0),
+            Storage(0, listOf("a", "b", "c", "d", "e", "f"), 0)
+        ) {
+            assertEquals(OnInsertedEvent(2, 2), it.onInsertedEvents[0])
+            assertEquals(1, it.interactions)
+        }
+    }
+
+    @Test
+    fun removeAfterUnchangedItems() {
+        validateTwoListDiff(
+            Storage(5, listOf("a", "b", "c", "d"), 5),
+            Storage(5, listOf("a", "b"), 7)
+        ) {
+            assertEquals(OnInsertedEvent(14, 2), it.onInsertedEvents[0])
+            assertEquals(OnRemovedEvent(7, 2), it.onRemovedEvents[0])
+            assertEquals(2, it.interactions)
+        }
+    }
+
+    @Test
+    fun replaceBetweenUnchangedItems() {
+        val oldList = Storage(0, (0 until 1000).map { "a$it" }, 0)
+        val newList = Storage(0, (0 until 1000).map { if (it == 500) "b500" else "a$it" }, 0)
+        val diffResult = oldList.computeDiff(newList, DIFF_CALLBACK)
+        val listUpdateCallback = ListUpdateCallbackFake()
+        oldList.dispatchDiff(listUpdateCallback, newList, diffResult)
+
+        assertEquals(OnRemovedEvent(500, 1), listUpdateCallback.onRemovedEvents[0])
+        assertEquals(OnInsertedEvent(500, 1), listUpdateCallback.onInsertedEvents[0])
+        assertEquals(2, listUpdateCallback.interactions)
+        assertEquals(499, diffResult.convertOldPositionToNew(499))
+        assertEquals(-1, diffResult.convertOldPositionToNew(500))
+        assertEquals(501, diffResult.convertOldPositionToNew(501))
+    }
+
     @Test
     fun transformAnchorIndex_removal() {
         validateTwoListDiffTransform(
@@ -16,6 +16,7 @@
 
 package androidx.paging
 
+import androidx.recyclerview.widget.BatchingListUpdateCallback
 import androidx.recyclerview.widget.DiffUtil
 import androidx.recyclerview.widget.ListUpdateCallback
 
@@ -30,18 +31,51 @@ import androidx.recyclerview.widget.ListUpdateCallback
  *
  * To only inform DiffUtil about single loaded page in this case, by pruning all other nulls from
  * consideration.
+ *
+ * The diff space is further reduced by skipping loaded items at its start and end which are
+ * unchanged, either by identity or according to the [DiffUtil.ItemCallback], so that DiffUtil only
+ * runs over the range of pages which actually changed.
  */
 internal fun <T : Any> NullPaddedList<T>.computeDiff(
     newList: NullPaddedList<T>,
     diffCallback: DiffUtil.ItemCallback<T>
-): DiffUtil.DiffResult {
+): NullPaddedDiffResult {
     val oldSize = storageCount
     val newSize = newList.storageCount
 
-    return DiffUtil.calculateDiff(object : DiffUtil.Callback() {
+    fun isUnchanged(oldItemPosition: Int, newItemPosition: Int): Boolean {
+        val oldItem = getFromStorage(oldItemPosition)
+        val newItem = newList.getFromStorage(newItemPosition)
+
+        return oldItem === newItem || (diffCallback.areItemsTheSame(oldItem, newItem) &&
+                diffCallback.areContentsTheSame(oldItem, newItem))
+    }
+
+    // Items that are unchanged at the start or end of both lists are always part of the longest
+    // common subsequence, so only the range between them needs to be passed to DiffUtil. Most
+    // updates only touch a few pages, so this range is usually much smaller than the list.
+    val maxUnchanged = minOf(oldSize, newSize)
+    var unchangedPrefix = 0
+    while (unchangedPrefix < maxUnchanged && isUnchanged(unchangedPrefix, unchangedPrefix)) {
+        unchangedPrefix++
+    }
+    var unchangedSuffix = 0
+    while (unchangedSuffix < maxUnchanged - unchangedPrefix &&
+        isUnchanged(oldSize - 1 - unchangedSuffix, newSize - 1 - unchangedSuffix)
+    ) {
+        unchangedSuffix++
+    }
+
+    val oldChangedSize = oldSize - unchangedPrefix - unchangedSuffix
+    val newChangedSize = newSize - unchangedPrefix - unchangedSuffix
+    if (oldChangedSize == 0 && newChangedSize == 0) {
+        return NullPaddedDiffResult(oldSize, newSize, unchangedPrefix, unchangedSuffix, null)
+    }
+
+    val diffResult = DiffUtil.calculateDiff(object : DiffUtil.Callback() {
         override fun getChangePayload(oldItemPosition: Int, newItemPosition: Int): Any? {
-            val oldItem = getFromStorage(oldItemPosition)
-            val newItem = newList.getFromStorage(newItemPosition)
+            val oldItem = getFromStorage(oldItemPosition + unchangedPrefix)
+            val newItem = newList.getFromStorage(newItemPosition + unchangedPrefix)
 
             return when {
                 oldItem === newItem -> true
@@ -49,13 +83,13 @@ internal fun <T : Any> NullPaddedList<T>.computeDiff(
             }
         }
 
-        override fun getOldListSize() = oldSize
+        override fun getOldListSize() = oldChangedSize
 
-        override fun getNewListSize() = newSize
+        override fun getNewListSize() = newChangedSize
 
         override fun areItemsTheSame(oldItemPosition: Int, newItemPosition: Int): Boolean {
-            val oldItem = getFromStorage(oldItemPosition)
-            val newItem = newList.getFromStorage(newItemPosition)
+            val oldItem = getFromStorage(oldItemPosition + unchangedPrefix)
+            val newItem = newList.getFromStorage(newItemPosition + unchangedPrefix)
 
             return when {
                 oldItem === newItem -> true
@@ -64,8 +98,8 @@ internal fun <T : Any> NullPaddedList<T>.computeDiff(
         }
 
         override fun areContentsTheSame(oldItemPosition: Int, newItemPosition: Int): Boolean {
-            val oldItem = getFromStorage(oldItemPosition)
-            val newItem = newList.getFromStorage(newItemPosition)
+            val oldItem = getFromStorage(oldItemPosition + unchangedPrefix)
+            val newItem = newList.getFromStorage(newItemPosition + unchangedPrefix)
 
             return when {
                 oldItem === newItem -> true
@@ -73,6 +107,54 @@ internal fun <T : Any> NullPaddedList<T>.computeDiff(
             }
         }
     }, true)
+    return NullPaddedDiffResult(oldSize, newSize, unchangedPrefix, unchangedSuffix, diffResult)
+}
+
+/**
+ * Result of [computeDiff], in terms of the loaded items of both lists, i.e., excluding
+ * placeholders.
+ */
+internal class NullPaddedDiffResult(
+    private val oldSize: Int,
+    private val newSize: Int,
+    /**
+     * Number of leading loaded items which are unchanged between both lists.
+     */
+    private val unchangedPrefix: Int,
+    /**
+     * Number of trailing loaded items which are unchanged between both lists.
+     */
+    private val unchangedSuffix: Int,
+    /**
+     * Diff of the loaded items between [unchangedPrefix] and [unchangedSuffix], or `null` if
+     * there are none in either list.
+     */
+    private val diffResult: DiffUtil.DiffResult?
+) {
+    /**
+     * Dispatches the updates of the loaded items to [callback], with positions offset by [offset].
+     */
+    fun dispatchUpdatesTo(callback: ListUpdateCallback, offset: Int) {
+        val changedOffset = offset + unchangedPrefix
+        if (changedOffset != 0) {
+            diffResult?.dispatchUpdatesTo(OffsettingListUpdateCallback(changedOffset, callback))
+        } else {
+            diffResult?.dispatchUpdatesTo(callback)
+        }
+    }
+
+    /**
+     * Converts the position of a loaded item in the old list to its position in the new list, or
+     * `-1` if it was removed.
+     */
+    fun convertOldPositionToNew(oldPosition: Int): Int = when {
+        oldPosition < unchangedPrefix -> oldPosition
+        oldPosition >= oldSize - unchangedSuffix -> oldPosition - oldSize + newSize
+        else -> {
+            val newPosition = diffResult!!.convertOldPositionToNew(oldPosition - unchangedPrefix)
+            if (newPosition == -1) -1 else newPosition + unchangedPrefix
+        }
+    }
 }
 
 private class OffsettingListUpdateCallback internal constructor(
@@ -97,13 +179,13 @@ private class OffsettingListUpdateCallback internal constructor(
 }
 
 /**
- * TODO: improve diffing logic
- *
  * This function currently does a naive diff, assuming null does not become an item, and vice
  * versa (so it won't dispatch onChange events for these). It's similar to passing a list with
  * leading/trailing nulls in the beginning / end to DiffUtil, but dispatches the remove/insert
  * for changed nulls at the beginning / end of the list.
  *
+ * Updates are batched, so that consecutive updates of adjacent ranges are dispatched as one.
+ *
  * Note: if lists mutate between diffing the snapshot and dispatching the diff here, then we
  * handle this by passing the snapshot to the callback, and dispatching those changes
  * immediately after dispatching this diff.
@@ -111,7 +193,17 @@ private class OffsettingListUpdateCallback internal constructor(
 internal fun <T : Any> NullPaddedList<T>.dispatchDiff(
     callback: ListUpdateCallback,
     newList: NullPaddedList<T>,
-    diffResult: DiffUtil.DiffResult
+    diffResult: NullPaddedDiffResult
+) {
+    val batchingCallback = BatchingListUpdateCallback(callback)
+    dispatchDiffBatched(batchingCallback, newList, diffResult)
+    batchingCallback.dispatchLastEvent()
+}
+
+private fun <T : Any> NullPaddedList<T>.dispatchDiffBatched(
+    callback: ListUpdateCallback,
+    newList: NullPaddedList<T>,
+    diffResult: NullPaddedDiffResult
 ) {
     val trailingOld = placeholdersAfter
     val trailingNew = newList.placeholdersAfter
@@ -124,7 +216,7 @@ internal fun <T : Any> NullPaddedList<T>.dispatchDiff(
         leadingNew == 0
     ) {
         // Simple case, dispatch & return
-        diffResult.dispatchUpdatesTo(callback)
+        diffResult.dispatchUpdatesTo(callback, 0)
         return
     }
 
@@ -144,11 +236,7 @@ internal fun <T : Any> NullPaddedList<T>.dispatchDiff(
     }
 
     // apply the diff, with an offset if needed
-    if (leadingNew != 0) {
-        diffResult.dispatchUpdatesTo(OffsettingListUpdateCallback(leadingNew, callback))
-    } else {
-        diffResult.dispatchUpdatesTo(callback)
-    }
+    diffResult.dispatchUpdatesTo(callback, leadingNew)
 }
 
 /**
@@ -156,7 +244,7 @@ internal fun <T : Any> NullPaddedList<T>.dispatchDiff(
  * after the diff, or a guess if it no longer exists.
  */
 internal fun NullPaddedList<*>.transformAnchorIndex(
-    diffResult: DiffUtil.DiffResult,
+    diffResult: NullPaddedDiffResult,
     newList: NullPaddedList<*>,
     oldPosition: Int
 ): Int {
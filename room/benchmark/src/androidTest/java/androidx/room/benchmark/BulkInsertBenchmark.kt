@@ -0,0 +1,131 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.benchmark
+
+import android.os.Build
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.room.Dao
+import androidx.room.Database
+import androidx.room.Entity
+import androidx.room.Insert
+import androidx.room.PrimaryKey
+import androidx.room.Query
+import androidx.room.Room
+import androidx.room.RoomDatabase
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.LargeTest
+import androidx.test.filters.SdkSuppress
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+/**
+ * Compares inserting a list of entities with multi-row VALUES statements against inserting them
+ * one row at a time, which Room still does when the row ids are returned.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+@SdkSuppress(minSdkVersion = Build.VERSION_CODES.JELLY_BEAN)
+class BulkInsertBenchmark(private val sampleSize: Int, private val mode: Mode) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private lateinit var db: TestDatabase
+
+    @Before
+    fun setup() {
+        val context = ApplicationProvider.getApplicationContext() as android.content.Context
+        context.deleteDatabase(DB_NAME)
+        db = Room.databaseBuilder(context, TestDatabase::class.java, DB_NAME)
+            .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+            .build()
+    }
+
+    @After
+    fun teardown() {
+        db.close()
+    }
+
+    @Test
+    fun insertList() {
+        val records = List(sampleSize) { Record(it.toLong(), "name$it", it * 2L, it / 3.0) }
+        val dao = db.getRecordDao()
+
+        benchmarkRule.measureRepeated {
+            when (mode) {
+                Mode.BULK -> dao.insert(records)
+                Mode.PER_ROW -> dao.insertAndReturnIds(records)
+            }
+
+            runWithTimingDisabled {
+                assertEquals(sampleSize, dao.deleteAll())
+            }
+        }
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "sampleSize={0}, mode={1}")
+        fun data(): List<Array<Any>> {
+            return mutableListOf<Array<Any>>().apply {
+                arrayOf(Mode.BULK, Mode.PER_ROW).forEach { mode ->
+                    arrayOf(1_000, 10_000, 100_000).forEach { sampleSize ->
+                        add(arrayOf(sampleSize, mode))
+                    }
+                }
+            }
+        }
+
+        private const val DB_NAME = "bulk-insert-benchmark-test"
+    }
+
+    @Database(entities = [Record::class], version = 1, exportSchema = false)
+    abstract class TestDatabase : RoomDatabase() {
+        abstract fun getRecordDao(): RecordDao
+    }
+
+    @Entity
+    data class Record(
+        @PrimaryKey val id: Long,
+        val name: String,
+        val count: Long,
+        val score: Double
+    )
+
+    @Dao
+    interface RecordDao {
+        @Insert
+        fun insert(records: List<Record>)
+
+        @Insert
+        fun insertAndReturnIds(records: List<Record>): List<Long>
+
+        @Query("DELETE FROM Record")
+        fun deleteAll(): Int
+    }
+
+    enum class Mode {
+        BULK,
+        PER_ROW
+    }
+}
@@ -33,11 +33,15 @@ import androidx.test.filters.LargeTest
 import androidx.test.filters.SdkSuppress
 import org.junit.Assert.assertEquals
 import org.junit.Assert.assertTrue
+import org.junit.Assume.assumeFalse
+import org.junit.Assume.assumeTrue
 import org.junit.Before
 import org.junit.Rule
 import org.junit.Test
 import org.junit.runner.RunWith
 import org.junit.runners.Parameterized
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
 
 @LargeTest
 @RunWith(Parameterized::class)
@@ -61,6 +65,7 @@ class InvalidationTrackerBenchmark(private val sampleSize: Int, private val mode
 
     @Test
     fun largeTransaction() {
+        assumeFalse(mode.isDispatch)
         val db = Room.databaseBuilder(context, TestDatabase::class.java, DB_NAME)
             .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
             .build()
@@ -91,6 +96,60 @@ class InvalidationTrackerBenchmark(private val sampleSize: Int, private val mode
         db.close()
     }
 
+    /**
+     * Measures a burst of single-row transactions until an observer of the written table is
+     * notified, while [sampleSize] other observers watch a table that is not written to.
+     */
+    @Test
+    fun writeBurstWithManyObservers() {
+        assumeTrue(mode.isDispatch)
+        val builder = Room.databaseBuilder(context, TestDatabase::class.java, DB_NAME)
+            .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+        if (mode == Mode.DISPATCH_COALESCED) {
+            builder.setInvalidationCoalescingWindow(
+                COALESCING_WINDOW_MILLIS,
+                TimeUnit.MILLISECONDS
+            )
+        }
+        val db = builder.build()
+
+        repeat(sampleSize) {
+            db.invalidationTracker.addObserver(
+                object : InvalidationTracker.Observer("item") {
+                    override fun onInvalidated(tables: MutableSet<String>) {}
+                }
+            )
+        }
+
+        val users = List(BURST_SIZE) { User(it, "name$it") }
+
+        benchmarkRule.measureRepeated {
+            val invalidated = CountDownLatch(1)
+            val observer = object : InvalidationTracker.Observer("user") {
+                override fun onInvalidated(tables: MutableSet<String>) {
+                    invalidated.countDown()
+                }
+            }
+            runWithTimingConditional(pauseTiming = true) {
+                db.invalidationTracker.addObserver(observer)
+            }
+
+            for (user in users) {
+                db.getUserDao().insert(user)
+            }
+            assertTrue(invalidated.await(10, TimeUnit.SECONDS))
+
+            runWithTimingConditional(pauseTiming = true) {
+                db.invalidationTracker.removeObserver(observer)
+                assertEquals(db.getUserDao().deleteAll(), BURST_SIZE)
+                // Consume the invalidation of the delete so it cannot notify the next observer.
+                db.invalidationTracker.refreshVersionsSync()
+            }
+        }
+
+        db.close()
+    }
+
     private inline fun runWithTimingConditional(
         pauseTiming: Boolean = false,
         block: () -> Unit
@@ -114,13 +173,23 @@ class InvalidationTrackerBenchmark(private val sampleSize: Int, private val mode
                         add(arrayOf(sampleSize, mode))
                     }
                 }
+                arrayOf(Mode.DISPATCH, Mode.DISPATCH_COALESCED).forEach { mode ->
+                    // The number of observers of the table that is not written to.
+                    arrayOf(10, 100, 1000).forEach { sampleSize ->
+                        add(arrayOf(sampleSize, mode))
+                    }
+                }
             }
         }
 
         private const val DB_NAME = "invalidation-benchmark-test"
+
+        private const val BURST_SIZE = 100
+
+        private const val COALESCING_WINDOW_MILLIS = 16L
     }
 
-    @Database(entities = [User::class], version = 1, exportSchema = false)
+    @Database(entities = [User::class, Item::class], version = 1, exportSchema = false)
     abstract class TestDatabase : RoomDatabase() {
         abstract fun getUserDao(): UserDao
     }
@@ -128,6 +197,9 @@ class InvalidationTrackerBenchmark(private val sampleSize: Int, private val mode
     @Entity
     data class User(@PrimaryKey val id: Int, val name: String)
 
+    @Entity
+    data class Item(@PrimaryKey val id: Int, val name: String)
+
     @Dao
     interface UserDao {
         @Insert
@@ -137,9 +209,11 @@ class InvalidationTrackerBenchmark(private val sampleSize: Int, private val mode
         fun deleteAll(): Int
     }
 
-    enum class Mode {
+    enum class Mode(val isDispatch: Boolean = false) {
         MEASURE_INSERT,
         MEASURE_DELETE,
-        MEASURE_INSERT_AND_DELETE
+        MEASURE_INSERT_AND_DELETE,
+        DISPATCH(isDispatch = true),
+        DISPATCH_COALESCED(isDispatch = true)
     }
 }
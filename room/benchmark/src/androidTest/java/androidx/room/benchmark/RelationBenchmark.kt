@@ -43,7 +43,11 @@ import org.junit.runners.Parameterized
 @LargeTest
 @RunWith(Parameterized::class)
 @SdkSuppress(minSdkVersion = Build.VERSION_CODES.JELLY_BEAN)
-class RelationBenchmark(private val parentSampleSize: Int, private val childSampleSize: Int) {
+class RelationBenchmark(
+    private val parentSampleSize: Int,
+    private val childSampleSize: Int,
+    private val useKeyTable: Boolean
+) {
 
     @get:Rule
     val benchmarkRule = BenchmarkRule()
@@ -64,6 +68,11 @@ class RelationBenchmark(private val parentSampleSize: Int, private val childSamp
     fun largeRelationQuery() {
         val db = Room.databaseBuilder(context, TestDatabase::class.java, DB_NAME)
             .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+            .apply {
+                if (useKeyTable) {
+                    setRelationKeyTableThreshold(1)
+                }
+            }
             .build()
         val dao = db.getUserDao()
 
@@ -88,10 +97,14 @@ class RelationBenchmark(private val parentSampleSize: Int, private val childSamp
 
     companion object {
         @JvmStatic
-        @Parameterized.Parameters(name = "parentSampleSize={0}, childSampleSize={1}")
-        fun data() = arrayOf(100, 500, 1000).flatMap { parentSampleSize ->
-            arrayOf(10).map { childSampleSize ->
-                arrayOf(parentSampleSize, childSampleSize)
+        @Parameterized.Parameters(
+            name = "parentSampleSize={0}, childSampleSize={1}, useKeyTable={2}"
+        )
+        fun data() = arrayOf(100, 500, 1000, 5000).flatMap { parentSampleSize ->
+            arrayOf(10).flatMap { childSampleSize ->
+                arrayOf(false, true).map { useKeyTable ->
+                    arrayOf(parentSampleSize, childSampleSize, useKeyTable)
+                }
             }
         }
 
@@ -185,6 +185,33 @@ public class RoomWarnings {
      */
     public static final String MISMATCHED_SETTER = "ROOM_MISMATCHED_SETTER_TYPE";
 
+    /**
+     * Reported when the query plan of a {@code @Query} scans every row of a table, which usually
+     * means the table is missing an index on the columns the query filters by.
+     * <p>
+     * Query plans are only analyzed when the {@code room.queryPlan} annotation processor option
+     * is set to {@code warning} or {@code error}.
+     */
+    public static final String QUERY_PLAN_FULL_SCAN = "ROOM_QUERY_PLAN_FULL_SCAN";
+
+    /**
+     * Reported when the query plan of a {@code @Query} sorts rows in a temporary B-tree to
+     * satisfy its ORDER BY, GROUP BY or DISTINCT clause because no index provides that order.
+     * <p>
+     * Query plans are only analyzed when the {@code room.queryPlan} annotation processor option
+     * is set to {@code warning} or {@code error}.
+     */
+    public static final String QUERY_PLAN_TEMP_B_TREE = "ROOM_QUERY_PLAN_TEMP_B_TREE";
+
+    /**
+     * Reported when SQLite has to build a transient automatic index every time it runs a
+     * {@code @Query}, which means an index that the query needs is missing from the schema.
+     * <p>
+     * Query plans are only analyzed when the {@code room.queryPlan} annotation processor option
+     * is set to {@code warning} or {@code error}.
+     */
+    public static final String QUERY_PLAN_AUTOMATIC_INDEX = "ROOM_QUERY_PLAN_AUTOMATIC_INDEX";
+
     /** @deprecated This type should not be instantiated as it contains only static methods. */
     @Deprecated
     @SuppressWarnings("PrivateConstructorForUtilityClass")
@@ -17,16 +17,24 @@
 package androidx.room
 
 import androidx.room.ext.asTypeElement
+import androidx.room.ext.getAllMethods
+import androidx.room.ext.hasAnnotation
+import androidx.room.ext.isAbstract
+import androidx.room.ext.toAnnotationBox
+import androidx.room.parser.SqlParser
 import androidx.room.processor.Context
 import androidx.room.processor.DatabaseProcessor
 import androidx.room.processor.MissingTypeException
 import androidx.room.processor.ProcessorErrors
+import androidx.room.verifier.QueryPlanReport
 import androidx.room.vo.DaoMethod
 import androidx.room.vo.Warning
 import androidx.room.writer.DaoWriter
 import androidx.room.writer.DatabaseWriter
+import asTypeElement
 import com.google.auto.common.BasicAnnotationProcessor
 import com.google.common.collect.SetMultimap
+import isDeclared
 import java.io.File
 import javax.annotation.processing.ProcessingEnvironment
 import javax.lang.model.element.Element
@@ -38,6 +46,9 @@ class DatabaseProcessingStep(val processingEnv: ProcessingEnvironment) :
     ): MutableSet<Element> {
         val context = Context(processingEnv)
         val rejectedElements = mutableSetOf<Element>()
+        elementsByAnnotation[Database::class.java]?.let {
+            prefetchQueries(it)
+        }
         val databases = elementsByAnnotation[Database::class.java]
             ?.mapNotNull {
                 try {
@@ -91,6 +102,14 @@ class DatabaseProcessingStep(val processingEnv: ProcessingEnvironment) :
                             "${db.version}.json"
                         )
                     )
+                    if (context.queryPlanReporting != Context.QueryPlanReporting.NONE) {
+                        QueryPlanReport(db).write(
+                            File(
+                                dbSchemaFolder,
+                                "${db.version}-query-plans.json"
+                            )
+                        )
+                    }
                 }
             }
         }
@@ -101,6 +120,33 @@ class DatabaseProcessingStep(val processingEnv: ProcessingEnvironment) :
         return mutableSetOf(Database::class.java)
     }
 
+    /**
+     * Parses the queries of the DAOs of the given databases on all cores. Processing itself has
+     * to run on this thread since the javax.lang.model APIs are not thread safe, but it then
+     * finds the parsed queries in the [SqlParser] cache.
+     */
+    private fun prefetchQueries(databases: Collection<Element>) {
+        val queries = databases.flatMap { db ->
+            db.asTypeElement().getAllMethods(processingEnv).filter {
+                it.isAbstract()
+            }.mapNotNull {
+                val returnType = it.returnType
+                if (returnType.isDeclared()) {
+                    returnType.asTypeElement()
+                } else {
+                    null
+                }
+            }.filter {
+                it.hasAnnotation(Dao::class)
+            }
+        }.distinct().flatMap { dao ->
+            dao.getAllMethods(processingEnv).mapNotNull {
+                it.toAnnotationBox(Query::class)?.value?.value
+            }
+        }
+        SqlParser.prefetch(queries)
+    }
+
     /**
      * Traverses all dao methods and assigns them suffix if they are used in multiple databases.
      */
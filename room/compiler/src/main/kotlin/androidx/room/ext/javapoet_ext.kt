@@ -87,10 +87,18 @@ object RoomTypeNames {
             ClassName.get("$ROOM_PACKAGE.util", "ViewInfo")
     val LIMIT_OFFSET_DATA_SOURCE: ClassName =
             ClassName.get("$ROOM_PACKAGE.paging", "LimitOffsetDataSource")
+    val KEYSET_DATA_SOURCE: ClassName =
+            ClassName.get("$ROOM_PACKAGE.paging", "KeysetDataSource")
     val DB_UTIL: ClassName =
             ClassName.get("$ROOM_PACKAGE.util", "DBUtil")
     val CURSOR_UTIL: ClassName =
             ClassName.get("$ROOM_PACKAGE.util", "CursorUtil")
+    val CURSOR_ITERATOR: ClassName =
+            ClassName.get("$ROOM_PACKAGE.util", "CursorIterator")
+    val CLOSEABLE_ITERATOR: ClassName =
+            ClassName.get(ROOM_PACKAGE, "CloseableIterator")
+    val RELATION_KEY_TABLE: ClassName =
+            ClassName.get(ROOM_PACKAGE, "RelationKeyTable")
 }
 
 object PagingTypeNames {
@@ -128,6 +136,7 @@ object CommonTypeNames {
     val STRING = ClassName.get("java.lang", "String")
     val INTEGER = ClassName.get("java.lang", "Integer")
     val OPTIONAL = ClassName.get("java.util", "Optional")
+    val INPUT_STREAM = ClassName.get("java.io", "InputStream")
 }
 
 object GuavaBaseTypeNames {
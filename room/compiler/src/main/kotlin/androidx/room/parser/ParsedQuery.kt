@@ -19,6 +19,7 @@ package androidx.room.parser
 import androidx.room.parser.SectionType.BIND_VAR
 import androidx.room.parser.SectionType.NEWLINE
 import androidx.room.parser.SectionType.TEXT
+import androidx.room.verifier.QueryPlan
 import androidx.room.verifier.QueryResultInfo
 import org.antlr.v4.runtime.tree.TerminalNode
 
@@ -37,13 +38,21 @@ data class Section(val text: String, val type: SectionType) {
 }
 
 data class Table(val name: String, val alias: String)
+
+/**
+ * A column of the ORDER BY clause of a query.
+ */
+data class OrderingTerm(val columnName: String, val descending: Boolean)
+
 data class ParsedQuery(
     val original: String,
     val type: QueryType,
     val inputs: List<TerminalNode>,
     val tables: Set<Table>, // pairs of table name and alias
     val syntaxErrors: List<String>,
-    val runtimeQueryPlaceholder: Boolean
+    val runtimeQueryPlaceholder: Boolean,
+    // the ORDER BY columns of a simple SELECT without LIMIT, empty if any term is not a column
+    val orderingTerms: List<OrderingTerm> = emptyList()
 ) {
     companion object {
         val STARTS_WITH_NUMBER = "^\\?[0-9]".toRegex()
@@ -63,6 +72,12 @@ data class ParsedQuery(
      * always handle not having it.
      */
     var resultInfo: QueryResultInfo? = null
+
+    /**
+     * Optional plan of the query, assigned like [resultInfo] when the annotation processor is
+     * asked to analyze query plans.
+     */
+    var queryPlan: QueryPlan? = null
     val sections by lazy {
         val lines = original.lines()
         val inputsByLine = inputs.groupBy { it.symbol.line }
@@ -20,6 +20,8 @@ import androidx.room.ColumnInfo
 import androidx.room.ext.getArrayType
 import androidx.room.ext.requireTypeMirror
 import box
+import com.google.common.cache.Cache
+import com.google.common.cache.CacheBuilder
 import com.squareup.javapoet.TypeName
 import org.antlr.v4.runtime.tree.ParseTree
 import org.antlr.v4.runtime.tree.TerminalNode
@@ -38,11 +40,17 @@ class QueryVisitor(
     private val tableNames = mutableSetOf<Table>()
     private val withClauseNames = mutableSetOf<String>()
     private val queryType: QueryType
+    private val orderingTerms: List<OrderingTerm>
 
     init {
         queryType = (0 until statement.childCount).map {
             findQueryType(statement.getChild(it))
         }.filterNot { it == QueryType.UNKNOWN }.firstOrNull() ?: QueryType.UNKNOWN
+        orderingTerms = (0 until statement.childCount).map {
+            statement.getChild(it)
+        }.filterIsInstance<SQLiteParser.Select_stmtContext>().firstOrNull()?.let {
+            findOrderingTerms(it)
+        } ?: emptyList()
         statement.accept(this)
     }
 
@@ -66,6 +74,28 @@ class QueryVisitor(
         }
     }
 
+    private fun findOrderingTerms(select: SQLiteParser.Select_stmtContext): List<OrderingTerm> {
+        val orderClause = select.order_clause()
+        if (orderClause == null || select.limit_clause() != null ||
+            select.select_or_values().size != 1
+        ) {
+            return emptyList()
+        }
+        // an ORDER BY term matching a result column alias refers to that column instead
+        val aliases = select.select_or_values(0).result_column().mapNotNull { column ->
+            column.column_alias()?.text?.let { unescapeIdentifier(it) }
+        }
+        return orderClause.ordering_term().map { term ->
+            val columnName = term.expr().column_name()?.text?.let { unescapeIdentifier(it) }
+            if (columnName == null || term.collation_name() != null ||
+                aliases.any { it.equals(columnName, ignoreCase = true) }
+            ) {
+                return emptyList()
+            }
+            OrderingTerm(columnName, descending = term.K_DESC() != null)
+        }
+    }
+
     override fun visitExpr(ctx: SQLiteParser.ExprContext): Void? {
         val bindParameter = ctx.BIND_PARAMETER()
         if (bindParameter != null) {
@@ -81,7 +111,8 @@ class QueryVisitor(
             inputs = bindingExpressions.sortedBy { it.sourceInterval.a },
             tables = tableNames,
             syntaxErrors = syntaxErrors,
-            runtimeQueryPlaceholder = forRuntimeQuery
+            runtimeQueryPlaceholder = forRuntimeQuery,
+            orderingTerms = orderingTerms
         )
     }
 
@@ -130,7 +161,31 @@ class SqlParser {
     companion object {
         private val INVALID_IDENTIFIER_CHARS = arrayOf('`', '\"')
 
-        fun parse(input: String) = SingleQuerySqlParser.parse(
+        private const val MAX_CACHED_QUERIES = 10_000L
+
+        /**
+         * Parsed queries by their SQL. Parsing only depends on the query text, so results can be
+         * shared between databases, processing rounds and compilations running in the same JVM.
+         * Callers get a copy since [ParsedQuery.resultInfo] is assigned per database.
+         */
+        private val cache: Cache<String, ParsedQuery> = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_QUERIES)
+            .build()
+
+        fun parse(input: String): ParsedQuery = cache.get(input) { doParse(input) }.copy()
+
+        /**
+         * Parses the given queries in parallel, so that later calls to [parse] for them are
+         * served from the cache.
+         */
+        fun prefetch(inputs: Collection<String>) {
+            inputs.filter { cache.getIfPresent(it) == null }
+                .distinct()
+                .parallelStream()
+                .forEach { input -> cache.get(input) { doParse(input) } }
+        }
+
+        private fun doParse(input: String) = SingleQuerySqlParser.parse(
             input = input,
             visit = { statement, syntaxErrors ->
                 QueryVisitor(
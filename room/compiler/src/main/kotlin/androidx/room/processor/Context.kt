@@ -116,6 +116,14 @@ class Context private constructor(
         }
     }
 
+    val queryPlanReporting by lazy {
+        when (processingEnv.options[ProcessorOptions.OPTION_QUERY_PLAN.argName]?.toLowerCase()) {
+            "warning" -> QueryPlanReporting.WARNING
+            "error" -> QueryPlanReporting.ERROR
+            else -> QueryPlanReporting.NONE
+        }
+    }
+
     fun <T> collectLogs(handler: (Context) -> T): Pair<T, RLog.CollectingMessager> {
         val collector = RLog.CollectingMessager()
         val subContext = Context(processingEnv = processingEnv,
@@ -168,7 +176,17 @@ class Context private constructor(
     }
 
     enum class ProcessorOptions(val argName: String) {
-        OPTION_SCHEMA_FOLDER("room.schemaLocation")
+        OPTION_SCHEMA_FOLDER("room.schemaLocation"),
+        OPTION_QUERY_PLAN("room.queryPlan")
+    }
+
+    /**
+     * How inefficient query plans are reported, see [ProcessorOptions.OPTION_QUERY_PLAN].
+     */
+    enum class QueryPlanReporting {
+        NONE,
+        WARNING,
+        ERROR
     }
 
     enum class BooleanProcessorOptions(val argName: String, private val defaultValue: Boolean) {
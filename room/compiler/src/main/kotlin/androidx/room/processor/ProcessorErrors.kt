@@ -604,6 +604,21 @@ object ProcessorErrors {
     val PAGING_SPECIFY_PAGING_SOURCE_TYPE = "For now, Room only supports PagingSource with Key of" +
             " type Int."
 
+    val CLOSEABLE_ITERATOR_WITH_RELATION = "A CloseableIterator cannot return POJOs with" +
+            " @Relation fields since their relations are queried for the whole result at once." +
+            " Return a List instead."
+
+    val CLOSEABLE_ITERATOR_IN_TRANSACTION = "A method returning a CloseableIterator cannot be" +
+            " annotated with @Transaction since its rows are read after the method returns."
+
+    val BLOB_STREAM_IN_TRANSACTION = "A method returning an InputStream cannot be annotated" +
+            " with @Transaction since its value is read after the method returns."
+
+    fun blobStreamMultipleColumns(columnNames: List<String>): String {
+        return "A method returning an InputStream must select a single BLOB or TEXT column but" +
+                " the query returns ${columnNames.joinToString(", ")}."
+    }
+
     fun primaryKeyNull(field: String): String {
         return "You must annotate primary keys with @NonNull. \"$field\" is nullable. SQLite " +
                 "considers this a " +
@@ -26,6 +26,8 @@ import androidx.room.ext.typeName
 import androidx.room.parser.ParsedQuery
 import androidx.room.parser.QueryType
 import androidx.room.parser.SqlParser
+import androidx.room.solver.query.result.BlobStreamQueryResultBinder
+import androidx.room.solver.query.result.CloseableIteratorQueryResultBinder
 import androidx.room.solver.query.result.PojoRowAdapter
 import androidx.room.verifier.DatabaseVerificationErrors
 import androidx.room.verifier.DatabaseVerifier
@@ -175,6 +177,27 @@ private class InternalQueryProcessor(
                 executableElement,
                 DatabaseVerificationErrors.cannotVerifyQuery(query.resultInfo!!.error!!)
             )
+        } else if (dbVerifier != null) {
+            reportQueryPlan(query, dbVerifier)
+        }
+    }
+
+    private fun reportQueryPlan(query: ParsedQuery, dbVerifier: DatabaseVerifier) {
+        val reporting = context.queryPlanReporting
+        if (reporting == Context.QueryPlanReporting.NONE) {
+            return
+        }
+        val plan = dbVerifier.explainQueryPlan(query.original) ?: return
+        query.queryPlan = plan
+        plan.issues.forEach { issue ->
+            val msg = DatabaseVerificationErrors.queryPlanIssue(issue)
+            if (reporting == Context.QueryPlanReporting.ERROR) {
+                if (!context.logger.suppressedWarnings.contains(issue.warning)) {
+                    context.logger.e(executableElement, msg)
+                }
+            } else {
+                context.logger.w(issue.warning, executableElement, msg)
+            }
         }
     }
 
@@ -215,6 +238,16 @@ private class InternalQueryProcessor(
         )
 
         val inTransaction = executableElement.hasAnnotation(Transaction::class)
+        context.checker.check(
+            !inTransaction || resultBinder !is CloseableIteratorQueryResultBinder,
+            executableElement,
+            ProcessorErrors.CLOSEABLE_ITERATOR_IN_TRANSACTION
+        )
+        context.checker.check(
+            !inTransaction || resultBinder !is BlobStreamQueryResultBinder,
+            executableElement,
+            ProcessorErrors.BLOB_STREAM_IN_TRANSACTION
+        )
         if (query.type == QueryType.SELECT && !inTransaction) {
             // put a warning if it is has relations and not annotated w/ transaction
             if (rowAdapter is PojoRowAdapter && rowAdapter.relationCollectors.isNotEmpty()) {
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.solver.binderprovider
+
+import androidx.room.ext.RoomTypeNames
+import androidx.room.ext.extendsBoundOrSelf
+import androidx.room.ext.typeName
+import androidx.room.parser.ParsedQuery
+import androidx.room.processor.Context
+import androidx.room.processor.ProcessorErrors
+import androidx.room.solver.QueryResultBinderProvider
+import androidx.room.solver.query.result.CloseableIteratorQueryResultAdapter
+import androidx.room.solver.query.result.CloseableIteratorQueryResultBinder
+import androidx.room.solver.query.result.PojoRowAdapter
+import androidx.room.solver.query.result.QueryResultBinder
+import erasure
+import javax.lang.model.type.DeclaredType
+
+class CloseableIteratorQueryResultBinderProvider(
+    val context: Context
+) : QueryResultBinderProvider {
+    override fun provide(declared: DeclaredType, query: ParsedQuery): QueryResultBinder {
+        val typeArg = declared.typeArguments.first().extendsBoundOrSelf()
+        val rowAdapter = context.typeAdapterStore.findRowAdapter(typeArg, query)
+        if (rowAdapter is PojoRowAdapter && rowAdapter.relationCollectors.isNotEmpty()) {
+            context.logger.e(ProcessorErrors.CLOSEABLE_ITERATOR_WITH_RELATION)
+        }
+        return CloseableIteratorQueryResultBinder(
+            rowAdapter?.let { CloseableIteratorQueryResultAdapter(it) }
+        )
+    }
+
+    override fun matches(declared: DeclaredType): Boolean =
+        declared.typeArguments.size == 1 &&
+                declared.erasure(context.processingEnv.typeUtils).typeName() ==
+                RoomTypeNames.CLOSEABLE_ITERATOR
+}
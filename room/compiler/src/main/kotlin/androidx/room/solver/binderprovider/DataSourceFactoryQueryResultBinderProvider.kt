@@ -23,6 +23,7 @@ import androidx.room.processor.Context
 import androidx.room.processor.ProcessorErrors
 import androidx.room.solver.QueryResultBinderProvider
 import androidx.room.solver.query.result.DataSourceFactoryQueryResultBinder
+import androidx.room.solver.query.result.KeysetOrdering
 import androidx.room.solver.query.result.ListQueryResultAdapter
 import androidx.room.solver.query.result.PositionalDataSourceQueryResultBinder
 import androidx.room.solver.query.result.QueryResultBinder
@@ -47,7 +48,9 @@ class DataSourceFactoryQueryResultBinderProvider(val context: Context) : QueryRe
 
         val tableNames = ((adapter?.accessedTableNames() ?: emptyList()) +
                 query.tables.map { it.name }).toSet()
-        val countedBinder = PositionalDataSourceQueryResultBinder(adapter, tableNames)
+        val countedBinder = PositionalDataSourceQueryResultBinder(
+            adapter, tableNames, KeysetOrdering.find(context, query)
+        )
         return DataSourceFactoryQueryResultBinder(countedBinder)
     }
 
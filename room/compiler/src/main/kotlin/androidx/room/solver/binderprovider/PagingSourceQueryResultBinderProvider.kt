@@ -23,6 +23,7 @@ import androidx.room.parser.ParsedQuery
 import androidx.room.processor.Context
 import androidx.room.processor.ProcessorErrors
 import androidx.room.solver.QueryResultBinderProvider
+import androidx.room.solver.query.result.KeysetOrdering
 import androidx.room.solver.query.result.ListQueryResultAdapter
 import androidx.room.solver.query.result.PagingSourceQueryResultBinder
 import androidx.room.solver.query.result.PositionalDataSourceQueryResultBinder
@@ -49,7 +50,9 @@ class PagingSourceQueryResultBinderProvider(val context: Context) : QueryResultB
         val tableNames = ((listAdapter?.accessedTableNames() ?: emptyList()) +
                 query.tables.map { it.name }).toSet()
         return PagingSourceQueryResultBinder(
-            PositionalDataSourceQueryResultBinder(listAdapter, tableNames)
+            PositionalDataSourceQueryResultBinder(
+                listAdapter, tableNames, KeysetOrdering.find(context, query)
+            )
         )
     }
 
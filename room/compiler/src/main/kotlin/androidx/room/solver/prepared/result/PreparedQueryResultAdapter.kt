@@ -99,6 +99,8 @@ class PreparedQueryResultAdapter(
                 addStatement("$N.endTransaction()", dbField)
                 if (preparedStmtField != null) {
                     addStatement("$N.release($L)", preparedStmtField, stmtQueryVal)
+                } else {
+                    addStatement("$N.releaseStatement($L)", dbField, stmtQueryVal)
                 }
             }
             endControlFlow()
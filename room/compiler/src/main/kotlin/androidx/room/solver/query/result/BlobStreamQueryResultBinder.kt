@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package androidx.room.solver.query.result
+
+import androidx.room.ext.CommonTypeNames
+import androidx.room.ext.L
+import androidx.room.ext.N
+import androidx.room.ext.RoomTypeNames
+import androidx.room.ext.T
+import androidx.room.solver.CodeGenScope
+import androidx.room.writer.DaoWriter
+import com.squareup.javapoet.FieldSpec
+
+/**
+ * Returns an InputStream that reads the single BLOB or TEXT value of the query in chunks as the
+ * caller consumes it. The stream works on its own copy of the query.
+ */
+class BlobStreamQueryResultBinder : QueryResultBinder(NO_OP_RESULT_ADAPTER) {
+    override fun convertAndReturn(
+        roomSQLiteQueryVar: String,
+        canReleaseQuery: Boolean,
+        dbField: FieldSpec,
+        inTransaction: Boolean,
+        scope: CodeGenScope
+    ) {
+        scope.builder().apply {
+            addStatement("$N.assertNotSuspendingTransaction()", DaoWriter.dbField)
+            val resultVar = scope.getTmpVar("_result")
+            if (canReleaseQuery) {
+                beginControlFlow("try").apply {
+                    addStatement("final $T $L = $T.queryBlobStream($N, $L)",
+                            CommonTypeNames.INPUT_STREAM, resultVar, RoomTypeNames.DB_UTIL,
+                            dbField, roomSQLiteQueryVar)
+                    addStatement("return $L", resultVar)
+                }
+                nextControlFlow("finally").apply {
+                    addStatement("$L.release()", roomSQLiteQueryVar)
+                }
+                endControlFlow()
+            } else {
+                addStatement("final $T $L = $T.queryBlobStream($N, $L)",
+                        CommonTypeNames.INPUT_STREAM, resultVar, RoomTypeNames.DB_UTIL,
+                        dbField, roomSQLiteQueryVar)
+                addStatement("return $L", resultVar)
+            }
+        }
+    }
+
+    companion object {
+        private val NO_OP_RESULT_ADAPTER = object : QueryResultAdapter(null) {
+            override fun convert(outVarName: String, cursorVarName: String, scope: CodeGenScope) {
+            }
+        }
+    }
+}
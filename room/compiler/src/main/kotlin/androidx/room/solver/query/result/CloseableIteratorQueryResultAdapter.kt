@@ -0,0 +1,38 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.solver.query.result
+
+import androidx.room.ext.L
+import androidx.room.ext.T
+import androidx.room.ext.typeName
+import androidx.room.solver.CodeGenScope
+
+/**
+ * Converts the row a cursor is positioned on, for [CloseableIteratorQueryResultBinder] which
+ * moves the cursor one row at a time.
+ */
+class CloseableIteratorQueryResultAdapter(rowAdapter: RowAdapter) :
+    QueryResultAdapter(rowAdapter) {
+    val type = rowAdapter.out
+
+    override fun convert(outVarName: String, cursorVarName: String, scope: CodeGenScope) {
+        scope.builder().apply {
+            addStatement("final $T $L", type.typeName(), outVarName)
+            rowAdapter?.convert(outVarName, cursorVarName, scope)
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.solver.query.result
+
+import androidx.room.ext.AndroidTypeNames
+import androidx.room.ext.L
+import androidx.room.ext.N
+import androidx.room.ext.RoomTypeNames
+import androidx.room.ext.T
+import androidx.room.ext.typeName
+import androidx.room.solver.CodeGenScope
+import androidx.room.writer.DaoWriter
+import com.squareup.javapoet.FieldSpec
+import com.squareup.javapoet.MethodSpec
+import com.squareup.javapoet.ParameterSpec
+import com.squareup.javapoet.ParameterizedTypeName
+import com.squareup.javapoet.TypeName
+import com.squareup.javapoet.TypeSpec
+import javax.lang.model.element.Modifier
+
+/**
+ * Runs the query and returns a CursorIterator that converts the rows of the cursor as the caller
+ * advances it. The column indices are resolved once, before the iterator is returned.
+ */
+class CloseableIteratorQueryResultBinder(
+    adapter: CloseableIteratorQueryResultAdapter?
+) : QueryResultBinder(adapter) {
+    val itemTypeName: TypeName = adapter?.rowAdapter?.out?.typeName() ?: TypeName.OBJECT
+
+    override fun convertAndReturn(
+        roomSQLiteQueryVar: String,
+        canReleaseQuery: Boolean,
+        dbField: FieldSpec,
+        inTransaction: Boolean,
+        scope: CodeGenScope
+    ) {
+        scope.builder().apply {
+            addStatement("$N.assertNotSuspendingTransaction()", DaoWriter.dbField)
+            val cursorVar = scope.getTmpVar("_cursor")
+            // not through DBUtil, which may size the cursor window for the whole result
+            addStatement(
+                "final $T $L = $N.query($L)",
+                AndroidTypeNames.CURSOR,
+                cursorVar,
+                dbField,
+                roomSQLiteQueryVar
+            )
+            // the cursor and query are owned by the iterator once it is returned
+            beginControlFlow("try").apply {
+                adapter?.rowAdapter?.onCursorReady(cursorVar, scope)
+                val spec = TypeSpec.anonymousClassBuilder("$L, $L",
+                        cursorVar, if (canReleaseQuery) roomSQLiteQueryVar else "null").apply {
+                    superclass(ParameterizedTypeName.get(RoomTypeNames.CURSOR_ITERATOR,
+                            itemTypeName))
+                    addMethod(createConvertMethod(scope))
+                }.build()
+                addStatement("return $L", spec)
+            }
+            nextControlFlow("catch ($T e)", RuntimeException::class.java).apply {
+                addStatement("$L.close()", cursorVar)
+                if (canReleaseQuery) {
+                    addStatement("$L.release()", roomSQLiteQueryVar)
+                }
+                addStatement("throw e")
+            }
+            endControlFlow()
+        }
+    }
+
+    private fun createConvertMethod(scope: CodeGenScope): MethodSpec =
+            MethodSpec.methodBuilder("convert").apply {
+                addAnnotation(Override::class.java)
+                addModifiers(Modifier.PROTECTED)
+                returns(itemTypeName)
+                val cursorParam = ParameterSpec.builder(AndroidTypeNames.CURSOR, "cursor")
+                        .build()
+                addParameter(cursorParam)
+                val convertScope = scope.fork()
+                val itemVar = convertScope.getTmpVar("_item")
+                adapter?.convert(itemVar, cursorParam.name, convertScope)
+                addCode(convertScope.builder().build())
+                addStatement("return $L", itemVar)
+            }.build()
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package androidx.room.solver.query.result
+
+import androidx.room.parser.ParsedQuery
+import androidx.room.parser.SQLTypeAffinity
+import androidx.room.processor.Context
+import androidx.room.vo.Entity
+import androidx.room.vo.Field
+import androidx.room.vo.FtsEntity
+import androidx.room.vo.columnNames
+
+/**
+ * The unique, non null column a paged query is ordered by, which lets the generated data source
+ * seek to the next page with a `WHERE` clause rather than skip rows with `OFFSET`.
+ */
+data class KeysetOrdering(val columnName: String, val descending: Boolean) {
+    companion object {
+        /**
+         * Returns the ordering of the given query if it selects from a single entity, is ordered
+         * by one of its columns that is unique and non null, and returns that column. Returns
+         * null otherwise, including when the database verifier is disabled.
+         */
+        fun find(context: Context, query: ParsedQuery): KeysetOrdering? {
+            val term = query.orderingTerms.singleOrNull() ?: return null
+            val table = query.tables.singleOrNull() ?: return null
+            val resultInfo = query.resultInfo ?: return null
+            if (resultInfo.error != null) {
+                return null
+            }
+            val entity = context.databaseVerifier?.entitiesAndViews?.firstOrNull {
+                it.tableName.equals(table.name, ignoreCase = true)
+            } as? Entity ?: return null
+            if (entity is FtsEntity) {
+                return null
+            }
+            val field = entity.fields.firstOrNull {
+                it.columnName.equals(term.columnName, ignoreCase = true)
+            } ?: return null
+            if (!isUnique(entity, field)) {
+                return null
+            }
+            val resultColumn = resultInfo.columns.filter {
+                it.name.equals(field.columnName, ignoreCase = true)
+            }.singleOrNull() ?: return null
+            return KeysetOrdering(resultColumn.name, term.descending)
+        }
+
+        private fun isUnique(entity: Entity, field: Field): Boolean {
+            val singleColumn = listOf(field.columnName)
+            if (entity.primaryKey.columnNames == singleColumn) {
+                // an INTEGER PRIMARY KEY is the rowid, which is never null
+                return field.nonNull || field.affinity == SQLTypeAffinity.INTEGER
+            }
+            return field.nonNull && entity.indices.any {
+                it.unique && it.columnNames == singleColumn
+            }
+        }
+    }
+}
@@ -21,6 +21,7 @@ import androidx.room.ext.CommonTypeNames
 import androidx.room.ext.L
 import androidx.room.ext.N
 import androidx.room.ext.RoomTypeNames
+import androidx.room.ext.S
 import androidx.room.ext.typeName
 import androidx.room.solver.CodeGenScope
 import com.squareup.javapoet.FieldSpec
@@ -33,11 +34,16 @@ import javax.lang.model.element.Modifier
 
 class PositionalDataSourceQueryResultBinder(
     val listAdapter: ListQueryResultAdapter?,
-    val tableNames: Set<String>
+    val tableNames: Set<String>,
+    val keyset: KeysetOrdering? = null
 ) : QueryResultBinder(listAdapter) {
     val itemTypeName: TypeName = listAdapter?.rowAdapter?.out?.typeName() ?: TypeName.OBJECT
     val typeName: ParameterizedTypeName = ParameterizedTypeName.get(
-            RoomTypeNames.LIMIT_OFFSET_DATA_SOURCE, itemTypeName)
+            if (keyset == null) {
+                RoomTypeNames.LIMIT_OFFSET_DATA_SOURCE
+            } else {
+                RoomTypeNames.KEYSET_DATA_SOURCE
+            }, itemTypeName)
     override fun convertAndReturn(
         roomSQLiteQueryVar: String,
         canReleaseQuery: Boolean,
@@ -49,8 +55,14 @@ class PositionalDataSourceQueryResultBinder(
         // we don't need a comma. If list is empty, this prevents generating bad code (it is still
         // an error to have empty list but that is already reported while item is processed)
         val tableNamesList = tableNames.joinToString("") { ", \"$it\"" }
-        val spec = TypeSpec.anonymousClassBuilder("$N, $L, $L $L",
-                dbField, roomSQLiteQueryVar, inTransaction, tableNamesList).apply {
+        val spec = if (keyset == null) {
+            TypeSpec.anonymousClassBuilder("$N, $L, $L $L",
+                    dbField, roomSQLiteQueryVar, inTransaction, tableNamesList)
+        } else {
+            TypeSpec.anonymousClassBuilder("$N, $L, $L, $S, $L $L",
+                    dbField, roomSQLiteQueryVar, inTransaction, keyset.columnName,
+                    keyset.descending, tableNamesList)
+        }.apply {
             superclass(typeName)
             addMethod(createConvertRowsMethod(scope))
         }.build()
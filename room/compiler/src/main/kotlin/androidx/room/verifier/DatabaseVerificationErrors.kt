@@ -16,6 +16,7 @@
 
 package androidx.room.verifier
 
+import androidx.room.vo.Warning
 import java.sql.SQLException
 
 object DatabaseVerificationErrors {
@@ -29,4 +30,18 @@ object DatabaseVerificationErrors {
     fun cannotCreateConnection(exception: Throwable): String {
         return CANNOT_CREATE_SQLITE_CONNECTION.format(exception.message)
     }
+
+    fun queryPlanIssue(issue: QueryPlanIssue): String {
+        val problem = when (issue.warning) {
+            Warning.QUERY_PLAN_FULL_SCAN -> "The query scans every row of a table. Consider " +
+                    "adding an index on the columns it filters by."
+            Warning.QUERY_PLAN_TEMP_B_TREE -> "The query sorts its rows in a temporary B-tree. " +
+                    "Consider adding an index that matches its ORDER BY, GROUP BY or DISTINCT " +
+                    "columns."
+            Warning.QUERY_PLAN_AUTOMATIC_INDEX -> "SQLite builds an automatic index every time " +
+                    "it runs the query. Consider adding that index to the entity."
+            else -> "The query plan is inefficient."
+        }
+        return "$problem Query plan step: ${issue.step}"
+    }
 }
@@ -29,6 +29,7 @@ import org.sqlite.SQLiteJDBCLoader
 import java.io.File
 import java.sql.Connection
 import java.sql.SQLException
+import java.sql.Types
 import java.util.regex.Pattern
 import javax.lang.model.element.Element
 
@@ -37,13 +38,20 @@ import javax.lang.model.element.Element
  * This class is also used to resolve the return types.
  */
 class DatabaseVerifier private constructor(
-    val connection: Connection,
+    private val database: VerifierDatabaseCache.SchemaDatabase,
     val context: Context,
     entities: List<Entity>,
     views: List<DatabaseView>
 ) {
+    val connection: Connection = database.connection
+
     val entitiesAndViews: List<EntityOrView> = entities + views
 
+    private val tableNames: Set<String> = entities.map { it.tableName }.toSet()
+
+    // whether the schema was created without errors and can be reused by another verifier
+    private var reusable = true
+
     companion object {
         private const val CONNECTION_URL = "jdbc:sqlite::memory:"
 
@@ -94,6 +102,18 @@ class DatabaseVerifier private constructor(
             }
         }
 
+        private fun createTableQuery(entity: Entity): String {
+            return if (entity is FtsEntity &&
+                !FtsOptions.defaultTokenizers.contains(entity.ftsOptions.tokenizer)
+            ) {
+                // Custom FTS tokenizer used, use create statement without custom tokenizer
+                // since the DB used for verification probably doesn't have the tokenizer.
+                entity.getCreateTableQueryWithoutTokenizer()
+            } else {
+                entity.createTableQuery
+            }
+        }
+
         /**
          * Tries to create a verifier but returns null if it cannot find the driver.
          */
@@ -104,8 +124,18 @@ class DatabaseVerifier private constructor(
             views: List<DatabaseView>
         ): DatabaseVerifier? {
             try {
-                val connection = JDBC.createConnection(CONNECTION_URL, java.util.Properties())
-                return DatabaseVerifier(connection, context, entities, views)
+                val schemaKey = VerifierDatabaseCache.schemaKey(
+                    entities.flatMap { entity ->
+                        listOf(createTableQuery(entity)) +
+                                entity.indices.map { it.createQuery(entity.tableName) }
+                    } + views.map { it.createViewQuery }
+                )
+                val database = VerifierDatabaseCache.acquire(schemaKey)
+                    ?: VerifierDatabaseCache.SchemaDatabase(
+                        schemaKey,
+                        JDBC.createConnection(CONNECTION_URL, java.util.Properties())
+                    )
+                return DatabaseVerifier(database, context, entities, views)
             } catch (ex: Exception) {
                 context.logger.w(
                     Warning.CANNOT_CREATE_VERIFICATION_DATABASE, element,
@@ -117,20 +147,19 @@ class DatabaseVerifier private constructor(
     }
 
     init {
+        if (!database.hasSchema) {
+            createSchema(entities, views)
+            database.hasSchema = true
+        }
+    }
+
+    private fun createSchema(entities: List<Entity>, views: List<DatabaseView>) {
         entities.forEach { entity ->
             val stmt = connection.createStatement()
-            val createTableQuery = if (entity is FtsEntity &&
-                !FtsOptions.defaultTokenizers.contains(entity.ftsOptions.tokenizer)
-            ) {
-                // Custom FTS tokenizer used, use create statement without custom tokenizer
-                // since the DB used for verification probably doesn't have the tokenizer.
-                entity.getCreateTableQueryWithoutTokenizer()
-            } else {
-                entity.createTableQuery
-            }
             try {
-                stmt.executeUpdate(stripLocalizeCollations(createTableQuery))
+                stmt.executeUpdate(stripLocalizeCollations(createTableQuery(entity)))
             } catch (e: SQLException) {
+                reusable = false
                 context.logger.e(entity.element, "${e.message}")
             }
             entity.indices.forEach {
@@ -142,24 +171,70 @@ class DatabaseVerifier private constructor(
             try {
                 stmt.executeUpdate(stripLocalizeCollations(view.createViewQuery))
             } catch (e: SQLException) {
+                reusable = false
                 context.logger.e(view.element, "${e.message}")
             }
         }
     }
 
     fun analyze(sql: String): QueryResultInfo {
-        return try {
-            val stmt = connection.prepareStatement(stripLocalizeCollations(sql))
-            QueryResultInfo(stmt.columnInfo())
+        return database.resultInfos.getOrPut(sql) {
+            try {
+                val stmt = connection.prepareStatement(stripLocalizeCollations(sql))
+                QueryResultInfo(stmt.columnInfo())
+            } catch (ex: SQLException) {
+                QueryResultInfo(emptyList(), ex)
+            }
+        }
+    }
+
+    /**
+     * Runs `EXPLAIN QUERY PLAN` for the given query with all of its arguments bound to null.
+     *
+     * @return The plan, or null if SQLite cannot explain the query.
+     */
+    fun explainQueryPlan(sql: String): QueryPlan? {
+        // A null plan is cached too, so getOrPut would re-explain queries SQLite cannot explain.
+        val queryPlans = database.queryPlans
+        if (queryPlans.containsKey(sql)) {
+            return queryPlans[sql]
+        }
+        val plan = try {
+            val stmt = connection.prepareStatement(
+                "EXPLAIN QUERY PLAN ${stripLocalizeCollations(sql)}"
+            )
+            try {
+                for (index in 1..stmt.parameterMetaData.parameterCount) {
+                    stmt.setNull(index, Types.NULL)
+                }
+                val steps = arrayListOf<String>()
+                val resultSet = stmt.executeQuery()
+                while (resultSet.next()) {
+                    steps.add(resultSet.getString("detail"))
+                }
+                QueryPlan.create(steps, tableNames)
+            } finally {
+                stmt.close()
+            }
         } catch (ex: SQLException) {
-            QueryResultInfo(emptyList(), ex)
+            null
         }
+        queryPlans[sql] = plan
+        return plan
     }
 
     private fun stripLocalizeCollations(sql: String) =
         COLLATE_LOCALIZED_UNICODE_PATTERN.matcher(sql).replaceAll(" COLLATE NOCASE")
 
+    /**
+     * Releases the in-memory database, keeping it for a later verifier with the same schema if
+     * it was created without errors.
+     */
     fun closeConnection(context: Context) {
+        if (reusable && !connection.isClosed) {
+            VerifierDatabaseCache.release(database)
+            return
+        }
         if (!connection.isClosed) {
             try {
                 connection.close()
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package androidx.room.verifier
+
+import androidx.room.vo.Warning
+
+/**
+ * The steps SQLite takes to run a query, as reported by `EXPLAIN QUERY PLAN`.
+ */
+data class QueryPlan(val steps: List<String>, val issues: List<QueryPlanIssue>) {
+    companion object {
+        private val SCAN_PATTERN = "^SCAN (?:TABLE )?(\\S+)".toRegex()
+
+        /**
+         * Creates the plan for the given steps, flagging the ones that indicate a missing index.
+         *
+         * @param tableNames The tables of the database. Scans of other sources, such as
+         * subqueries, are not flagged.
+         */
+        fun create(steps: List<String>, tableNames: Set<String>): QueryPlan {
+            val issues = steps.mapNotNull { step ->
+                val warning = when {
+                    step.contains("AUTOMATIC") -> Warning.QUERY_PLAN_AUTOMATIC_INDEX
+                    step.contains("USE TEMP B-TREE") -> Warning.QUERY_PLAN_TEMP_B_TREE
+                    isFullScan(step, tableNames) -> Warning.QUERY_PLAN_FULL_SCAN
+                    else -> null
+                }
+                warning?.let { QueryPlanIssue(it, step) }
+            }
+            return QueryPlan(steps, issues)
+        }
+
+        private fun isFullScan(step: String, tableNames: Set<String>): Boolean {
+            // scans of an index or of a virtual table (FTS) are not reported
+            if (step.contains(" USING ") || step.contains("VIRTUAL TABLE")) {
+                return false
+            }
+            val table = SCAN_PATTERN.find(step)?.groupValues?.get(1) ?: return false
+            return tableNames.any { it.equals(table, ignoreCase = true) }
+        }
+    }
+}
+
+/**
+ * A step of a [QueryPlan] that suggests the schema is missing an index.
+ */
+data class QueryPlanIssue(val warning: Warning, val step: String)
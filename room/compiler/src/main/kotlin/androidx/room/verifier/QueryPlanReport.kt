@@ -0,0 +1,67 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.verifier
+
+import androidx.room.migration.bundle.QueryPlanBundle
+import androidx.room.vo.Database
+import java.io.File
+
+/**
+ * Writes the query plans of a database's DAO queries as JSON so that they can be reviewed or
+ * diffed between builds.
+ */
+class QueryPlanReport(val database: Database) {
+
+    /**
+     * Writes the report into the given file. Nothing is written if no query was verified.
+     */
+    fun write(file: File) {
+        val bundle = bundle() ?: return
+        QueryPlanBundle.serialize(bundle, file)
+    }
+
+    /**
+     * Returns the plans of the verified queries, or null if no query was verified.
+     */
+    private fun bundle(): QueryPlanBundle? {
+        val queries = database.daoMethods
+            .map { it.dao }
+            .distinctBy { it.typeName }
+            .sortedBy { it.typeName.toString() }
+            .flatMap { dao ->
+                dao.queryMethods
+                    .sortedBy { it.name }
+                    .mapNotNull { method ->
+                        method.query.queryPlan?.let { plan ->
+                            QueryPlanBundle.QueryBundle(
+                                dao.typeName.toString(),
+                                method.name,
+                                method.query.original,
+                                plan.steps,
+                                plan.issues.map {
+                                    QueryPlanBundle.IssueBundle(it.warning.publicKey, it.step)
+                                }
+                            )
+                        }
+                    }
+            }
+        if (queries.isEmpty()) {
+            return null
+        }
+        return QueryPlanBundle(database.typeName.toString(), database.version, queries)
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package androidx.room.verifier
+
+import org.apache.commons.codec.digest.DigestUtils
+import java.sql.Connection
+
+/**
+ * Keeps the in-memory databases created by [DatabaseVerifier] after their database has been
+ * processed, so that a later processing round or compilation in the same JVM (e.g. the Gradle
+ * daemon) that declares an identical schema does not need to create it again.
+ *
+ * Databases are keyed by a hash of the statements that create their schema, and remember the
+ * result of every query they analyzed. Only a few idle databases are kept; the least recently
+ * released ones are closed first.
+ */
+internal object VerifierDatabaseCache {
+    private const val MAX_IDLE_DATABASES = 8
+
+    // insertion ordered, so the first entry is the least recently released database
+    private val idle = LinkedHashMap<String, SchemaDatabase>()
+
+    fun schemaKey(statements: List<String>): String =
+        DigestUtils.sha256Hex(statements.joinToString(separator = ";\n"))
+
+    /**
+     * Returns an idle database with the given schema, or null if there is none. The database is
+     * owned by the caller until it is [released][release].
+     */
+    @Synchronized
+    fun acquire(schemaKey: String): SchemaDatabase? = idle.remove(schemaKey)
+
+    @Synchronized
+    fun release(database: SchemaDatabase) {
+        if (idle.containsKey(database.schemaKey)) {
+            database.close()
+            return
+        }
+        idle[database.schemaKey] = database
+        if (idle.size > MAX_IDLE_DATABASES) {
+            val eldest = idle.keys.first()
+            idle.remove(eldest)?.close()
+        }
+    }
+
+    @Synchronized
+    fun clear() {
+        idle.values.forEach { it.close() }
+        idle.clear()
+    }
+
+    class SchemaDatabase(val schemaKey: String, val connection: Connection) {
+        /** Whether the schema has been created in [connection]. */
+        var hasSchema = false
+
+        /** The result of every query analyzed against the schema, keyed by its SQL. */
+        val resultInfos = mutableMapOf<String, QueryResultInfo>()
+
+        /** The plan of every query explained against the schema, keyed by its SQL. */
+        val queryPlans = mutableMapOf<String, QueryPlan?>()
+
+        fun close() {
+            try {
+                connection.close()
+            } catch (ignored: Throwable) {
+            }
+        }
+    }
+}
@@ -42,10 +42,20 @@ class Relation(
 
     fun createLoadAllSql(): String {
         val resultFields = projection.toSet()
-        return createSelect(resultFields)
+        return createSelect(resultFields, "(:args)")
     }
 
-    private fun createSelect(resultFields: Set<String>) = buildString {
+    /**
+     * Creates the query that loads the relation for the keys of a batch in the temporary key
+     * table. Its only argument is the id of the batch.
+     */
+    fun createLoadAllFromKeyTableSql(): String {
+        val resultFields = projection.toSet()
+        return createSelect(resultFields, "(SELECT relation_key" +
+                " FROM temp.$RELATION_KEY_TABLE WHERE batch_id = ?)")
+    }
+
+    private fun createSelect(resultFields: Set<String>, keys: String) = buildString {
         if (junction != null) {
             val resultColumns = resultFields.map { "`${entity.tableName}`.`$it` AS `$it`" } +
                     "_junction.`${junction.parentField.columnName}`"
@@ -54,12 +64,17 @@ class Relation(
             append(" INNER JOIN `${entity.tableName}` ON" +
                     " (_junction.`${junction.entityField.columnName}`" +
                     " = `${entity.tableName}`.`${entityField.columnName}`)")
-            append(" WHERE _junction.`${junction.parentField.columnName}` IN (:args)")
+            append(" WHERE _junction.`${junction.parentField.columnName}` IN $keys")
         } else {
             val resultColumns = resultFields.map { "`$it`" }.toSet() + "`${entityField.columnName}`"
             append("SELECT ${resultColumns.joinToString(",")}")
             append(" FROM `${entity.tableName}`")
-            append(" WHERE `${entityField.columnName}` IN (:args)")
+            append(" WHERE `${entityField.columnName}` IN $keys")
         }
     }
+
+    companion object {
+        // see RelationKeyTable in the runtime
+        private const val RELATION_KEY_TABLE = "room_relation_keys"
+    }
 }
@@ -41,6 +41,9 @@ enum class Warning(val publicKey: String) {
     JDK_VERSION_HAS_BUG("JDK_VERSION_HAS_BUG"),
     MISMATCHED_GETTER_TYPE("ROOM_MISMATCHED_GETTER_TYPE"),
     MISMATCHED_SETTER_TYPE("ROOM_MISMATCHED_SETTER_TYPE"),
+    QUERY_PLAN_FULL_SCAN("ROOM_QUERY_PLAN_FULL_SCAN"),
+    QUERY_PLAN_TEMP_B_TREE("ROOM_QUERY_PLAN_TEMP_B_TREE"),
+    QUERY_PLAN_AUTOMATIC_INDEX("ROOM_QUERY_PLAN_AUTOMATIC_INDEX"),
     // NOTE there is no constant for this in RoomWarnings since this is a temporary case until
     // expand projection is removed.
     EXPAND_PROJECTION_WITH_REMOVE_UNUSED_COLUMNS("ROOM_EXPAND_PROJECTION_WITH_UNUSED_COLUMNS");
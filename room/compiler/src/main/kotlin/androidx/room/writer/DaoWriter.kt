@@ -406,7 +406,7 @@ class DaoWriter(
                 val listSizeArgs = queryWriter.prepareQuery(sqlVar, this)
                 builder().apply {
                     addStatement(
-                        "final $T $L = $N.compileStatement($L)",
+                        "final $T $L = $N.acquireStatement($L)",
                         SupportDbTypeNames.SQLITE_STMT, stmtVar, dbField, sqlVar
                     )
                 }
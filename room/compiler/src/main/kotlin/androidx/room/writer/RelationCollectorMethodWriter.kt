@@ -34,6 +34,7 @@ import com.squareup.javapoet.ParameterSpec
 import com.squareup.javapoet.ParameterizedTypeName
 import com.squareup.javapoet.TypeName
 import stripNonJava
+import java.nio.ByteBuffer
 import javax.lang.model.element.Modifier
 
 /**
@@ -57,6 +58,16 @@ class RelationCollectorMethodWriter(private val collector: RelationCollector) :
                 "-${relation.createLoadAllSql()}"
     }
 
+    private fun CodeBlock.Builder.addKeyTableInsert(keyTableVar: String, keyVar: String) {
+        when (collector.keyTypeName) {
+            TypeName.LONG.box() -> addStatement("$L.addLong($L)", keyTableVar, keyVar)
+            TypeName.DOUBLE.box() -> addStatement("$L.addDouble($L)", keyTableVar, keyVar)
+            TypeName.get(ByteBuffer::class.java) ->
+                addStatement("$L.addBlob($L.array())", keyTableVar, keyVar)
+            else -> addStatement("$L.addString($L)", keyTableVar, keyVar)
+        }
+    }
+
     override fun prepare(methodName: String, writer: ClassWriter, builder: MethodSpec.Builder) {
         val scope = CodeGenScope(writer)
         val relation = collector.relation
@@ -69,6 +80,7 @@ class RelationCollectorMethodWriter(private val collector: RelationCollector) :
         val cursorVar = "_cursor"
         val itemKeyIndexVar = "_itemKeyIndex"
         val stmtVar = scope.getTmpVar("_stmt")
+        val keyTableVar = scope.getTmpVar("_keyTable")
         scope.builder().apply {
             val usingLongSparseArray =
                     collector.mapTypeName.rawType == CollectionTypeNames.LONG_SPARSE_ARRAY
@@ -99,9 +111,12 @@ class RelationCollectorMethodWriter(private val collector: RelationCollector) :
                 addStatement("return")
             }
             endControlFlow()
+            addStatement("final $T $L = $T.acquire($N, $N.size())",
+                RoomTypeNames.RELATION_KEY_TABLE, keyTableVar, RoomTypeNames.RELATION_KEY_TABLE,
+                DaoWriter.dbField, param)
             addStatement("// check if the size is too big, if so divide")
-            beginControlFlow("if($N.size() > $T.MAX_BIND_PARAMETER_CNT)",
-                    param, RoomTypeNames.ROOM_DB).apply {
+            beginControlFlow("if($L == null && $N.size() > $T.MAX_BIND_PARAMETER_CNT)",
+                    keyTableVar, param, RoomTypeNames.ROOM_DB).apply {
                 // divide it into chunks
                 val tmpMapVar = scope.getTmpVar("_tmpInnerMap")
                 addStatement("$T $L = new $T($L.MAX_BIND_PARAMETER_CNT)",
@@ -162,19 +177,49 @@ class RelationCollectorMethodWriter(private val collector: RelationCollector) :
                 }.endControlFlow()
                 addStatement("return")
             }.endControlFlow()
-            collector.queryWriter.prepareReadAndBind(sqlQueryVar, stmtVar, scope)
-
             val shouldCopyCursor = collector.rowAdapter.let {
                 it is PojoRowAdapter && it.relationCollectors.isNotEmpty()
             }
-            addStatement("final $T $L = $T.query($N, $L, $L, $L)",
-                    AndroidTypeNames.CURSOR,
+            addStatement("final $T $L", AndroidTypeNames.CURSOR, cursorVar)
+            beginControlFlow("if ($L != null)", keyTableVar).apply {
+                beginControlFlow("try").apply {
+                    // add the keys to the key table, then load all rows with a single query
+                    if (usingLongSparseArray) {
+                        val indexVar = scope.getTmpVar("_index")
+                        beginControlFlow("for (int $L = 0; $L < $N.size(); $L++)",
+                            indexVar, indexVar, param, indexVar).apply {
+                            addStatement("$L.addLong($N.keyAt($L))", keyTableVar, param, indexVar)
+                        }
+                        endControlFlow()
+                    } else {
+                        val keyVar = scope.getTmpVar("_key")
+                        beginControlFlow("for ($T $L : $L)",
+                            collector.keyTypeName, keyVar, KEY_SET_VARIABLE).apply {
+                            addKeyTableInsert(keyTableVar, keyVar)
+                        }
+                        endControlFlow()
+                    }
+                    addStatement("$L = $L.query($S, $L)", cursorVar, keyTableVar,
+                        relation.createLoadAllFromKeyTableSql(),
+                        if (shouldCopyCursor) "true" else "false")
+                }
+                nextControlFlow("catch ($T e)", RuntimeException::class.java).apply {
+                    addStatement("$L.close()", keyTableVar)
+                    addStatement("throw e")
+                }
+                endControlFlow()
+            }
+            nextControlFlow("else").apply {
+                collector.queryWriter.prepareReadAndBind(sqlQueryVar, stmtVar, scope)
+                addStatement("$L = $T.query($N, $L, $L, $L)",
                     cursorVar,
                     RoomTypeNames.DB_UTIL,
                     DaoWriter.dbField,
                     stmtVar,
                     if (shouldCopyCursor) "true" else "false",
                     "null")
+            }
+            endControlFlow()
 
             beginControlFlow("try").apply {
                 if (relation.junction != null) {
@@ -229,6 +274,10 @@ class RelationCollectorMethodWriter(private val collector: RelationCollector) :
             }
             nextControlFlow("finally").apply {
                 addStatement("$L.close()", cursorVar)
+                beginControlFlow("if ($L != null)", keyTableVar).apply {
+                    addStatement("$L.close()", keyTableVar)
+                }
+                endControlFlow()
             }
             endControlFlow()
         }
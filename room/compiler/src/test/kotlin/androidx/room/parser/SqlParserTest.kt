@@ -15,8 +15,11 @@
  */
 package androidx.room.parser
 
+import androidx.room.verifier.QueryResultInfo
 import org.hamcrest.CoreMatchers.`is`
 import org.hamcrest.CoreMatchers.not
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.CoreMatchers.sameInstance
 import org.hamcrest.MatcherAssert.assertThat
 import org.junit.Test
 import org.junit.runner.RunWith
@@ -198,6 +201,43 @@ class SqlParserTest {
         assertThat(query.errors, `is`(emptyList()))
     }
 
+    @Test
+    fun parseReturnsCopyOfCachedQuery() {
+        val first = SqlParser.parse("SELECT * FROM users WHERE id = :id")
+        first.resultInfo = QueryResultInfo(emptyList())
+        val second = SqlParser.parse("SELECT * FROM users WHERE id = :id")
+        assertThat(second, not(sameInstance(first)))
+        assertThat(second.inputs, sameInstance(first.inputs))
+        assertThat(second.resultInfo, nullValue())
+    }
+
+    @Test
+    fun orderingTerms() {
+        assertThat(
+            SqlParser.parse("SELECT * FROM users ORDER BY `id` DESC").orderingTerms,
+            `is`(listOf(OrderingTerm("id", descending = true)))
+        )
+        assertThat(
+            SqlParser.parse("SELECT * FROM users u ORDER BY u.name, id ASC").orderingTerms,
+            `is`(listOf(OrderingTerm("name", false), OrderingTerm("id", false)))
+        )
+    }
+
+    @Test
+    fun orderingTerms_notSeekable() {
+        listOf(
+            "SELECT * FROM users",
+            "SELECT * FROM users ORDER BY id LIMIT 10",
+            "SELECT * FROM users ORDER BY id + 1",
+            "SELECT * FROM users ORDER BY name COLLATE NOCASE",
+            "SELECT name AS id FROM users ORDER BY id",
+            "SELECT id FROM users UNION SELECT id FROM books ORDER BY id",
+            "DELETE FROM users WHERE id IN (SELECT id FROM users ORDER BY id)"
+        ).forEach {
+            assertThat(it, SqlParser.parse(it).orderingTerms, `is`(emptyList()))
+        }
+    }
+
     @Test
     fun findBindVariables() {
         assertVariables("select * from users")
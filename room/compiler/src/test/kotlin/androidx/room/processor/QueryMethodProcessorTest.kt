@@ -23,6 +23,7 @@ import androidx.room.ext.CommonTypeNames
 import androidx.room.ext.KotlinTypeNames
 import androidx.room.ext.LifecyclesTypeNames
 import androidx.room.ext.PagingTypeNames
+import androidx.room.ext.RoomTypeNames
 import androidx.room.ext.asDeclaredType
 import androidx.room.ext.asExecutableElement
 import androidx.room.ext.asTypeElement
@@ -34,9 +35,13 @@ import androidx.room.ext.typeName
 import androidx.room.parser.QueryType
 import androidx.room.parser.Table
 import androidx.room.processor.ProcessorErrors.cannotFindQueryResultAdapter
+import androidx.room.solver.query.result.BlobStreamQueryResultBinder
+import androidx.room.solver.query.result.CloseableIteratorQueryResultBinder
 import androidx.room.solver.query.result.DataSourceFactoryQueryResultBinder
+import androidx.room.solver.query.result.KeysetOrdering
 import androidx.room.solver.query.result.ListQueryResultAdapter
 import androidx.room.solver.query.result.LiveDataQueryResultBinder
+import androidx.room.solver.query.result.PagingSourceQueryResultBinder
 import androidx.room.solver.query.result.PojoRowAdapter
 import androidx.room.solver.query.result.SingleEntityQueryResultAdapter
 import androidx.room.testing.TestInvocation
@@ -492,6 +497,80 @@ class QueryMethodProcessorTest(val enableVerification: Boolean) {
         }.compilesWithoutError()
     }
 
+    @Test
+    fun testCloseableIteratorQuery() {
+        singleQueryMethod<ReadQueryMethod>(
+                """
+                @Query("select * from user")
+                abstract ${RoomTypeNames.CLOSEABLE_ITERATOR}<User> iterate();
+                """
+        ) { parsedQuery, _ ->
+            assertThat(parsedQuery.returnType.typeName(),
+                    `is`(ParameterizedTypeName.get(RoomTypeNames.CLOSEABLE_ITERATOR,
+                            COMMON.USER_TYPE_NAME) as TypeName))
+            assertThat(parsedQuery.queryResultBinder,
+                    instanceOf(CloseableIteratorQueryResultBinder::class.java))
+        }.compilesWithoutError()
+    }
+
+    @Test
+    fun testCloseableIteratorQueryInTransaction() {
+        singleQueryMethod<ReadQueryMethod>(
+                """
+                @androidx.room.Transaction
+                @Query("select * from user")
+                abstract ${RoomTypeNames.CLOSEABLE_ITERATOR}<User> iterate();
+                """
+        ) { _, _ ->
+        }.failsToCompile()
+                .withErrorContaining(ProcessorErrors.CLOSEABLE_ITERATOR_IN_TRANSACTION)
+    }
+
+    @Test
+    fun testCloseableIteratorQueryWithRelation() {
+        singleQueryMethod<ReadQueryMethod>(
+                """
+                static class Merged extends User {
+                   @Relation(parentColumn = "name", entityColumn = "lastName",
+                             entity = User.class)
+                   java.util.List<User> users;
+                }
+                @Query("select * from user")
+                abstract ${RoomTypeNames.CLOSEABLE_ITERATOR}<Merged> iterate();
+                """
+        ) { _, _ ->
+        }.failsToCompile()
+                .withErrorContaining(ProcessorErrors.CLOSEABLE_ITERATOR_WITH_RELATION)
+    }
+
+    @Test
+    fun testBlobStreamQuery() {
+        singleQueryMethod<ReadQueryMethod>(
+                """
+                @Query("select name from user where uid = :id")
+                abstract java.io.InputStream streamName(int id);
+                """
+        ) { parsedQuery, _ ->
+            assertThat(parsedQuery.returnType.typeName(),
+                    `is`(CommonTypeNames.INPUT_STREAM as TypeName))
+            assertThat(parsedQuery.queryResultBinder,
+                    instanceOf(BlobStreamQueryResultBinder::class.java))
+        }.compilesWithoutError()
+    }
+
+    @Test
+    fun testBlobStreamQueryMultipleColumns() {
+        singleQueryMethod<ReadQueryMethod>(
+                """
+                @Query("select uid, name from user")
+                abstract java.io.InputStream streamName();
+                """
+        ) { _, _ ->
+        }.failsToCompile()
+                .withErrorContaining(ProcessorErrors.blobStreamMultipleColumns(
+                        listOf("uid", "name")))
+    }
+
     @Test
     fun testBadReturnForDeleteQuery() {
         singleQueryMethod<WriteQueryMethod>(
@@ -560,6 +639,53 @@ class QueryMethodProcessorTest(val enableVerification: Boolean) {
         }.compilesWithoutError()
     }
 
+    @Test
+    fun testKeysetPagingSourceQuery() {
+        singleQueryMethod<ReadQueryMethod>(
+                """
+                @Query("select * from user order by uid desc")
+                abstract ${PagingTypeNames.PAGING_SOURCE}<Integer, User> pagingSource();
+                """
+        ) { parsedQuery, _ ->
+            val keyset = (parsedQuery.queryResultBinder as PagingSourceQueryResultBinder)
+                    .positionalDataSourceQueryResultBinder.keyset
+            if (enableVerification) {
+                assertThat(keyset, `is`(KeysetOrdering("uid", descending = true)))
+            } else {
+                assertThat(keyset, nullValue())
+            }
+        }.compilesWithoutError()
+    }
+
+    @Test
+    fun testKeysetPagingSourceQuery_nonUniqueKey() {
+        singleQueryMethod<ReadQueryMethod>(
+                """
+                @Query("select * from user order by name")
+                abstract ${PagingTypeNames.PAGING_SOURCE}<Integer, User> pagingSource();
+                """
+        ) { parsedQuery, _ ->
+            val keyset = (parsedQuery.queryResultBinder as PagingSourceQueryResultBinder)
+                    .positionalDataSourceQueryResultBinder.keyset
+            assertThat(keyset, nullValue())
+        }.compilesWithoutError()
+    }
+
+    @Test
+    fun testKeysetDataSourceFactoryQuery_keyNotInResult() {
+        singleQueryMethod<ReadQueryMethod>(
+                """
+                @Query("select name from user order by uid")
+                abstract ${PagingTypeNames.DATA_SOURCE_FACTORY}<Integer, String>
+                nameDataSourceFactory();
+                """
+        ) { parsedQuery, _ ->
+            val keyset = (parsedQuery.queryResultBinder as DataSourceFactoryQueryResultBinder)
+                    .positionalDataSourceQueryResultBinder.keyset
+            assertThat(keyset, nullValue())
+        }.compilesWithoutError()
+    }
+
     @Test
     fun testBadChannelReturnForQuery() {
         singleQueryMethod<QueryMethod>(
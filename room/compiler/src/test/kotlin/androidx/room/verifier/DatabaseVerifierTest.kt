@@ -33,6 +33,7 @@ import androidx.room.vo.FieldGetter
 import androidx.room.vo.FieldSetter
 import androidx.room.vo.Fields
 import androidx.room.vo.PrimaryKey
+import androidx.room.vo.Warning
 import collect
 import columnNames
 import com.squareup.javapoet.TypeName
@@ -40,6 +41,8 @@ import org.hamcrest.CoreMatchers.`is`
 import org.hamcrest.CoreMatchers.containsString
 import org.hamcrest.CoreMatchers.hasItem
 import org.hamcrest.CoreMatchers.notNullValue
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.CoreMatchers.sameInstance
 import org.hamcrest.MatcherAssert.assertThat
 import org.junit.Test
 import org.junit.runner.RunWith
@@ -78,6 +81,54 @@ class DatabaseVerifierTest(private val useLocalizedCollation: Boolean) {
                 db.entities, db.views)!!
     }
 
+    @Test
+    fun testReusesDatabaseWithSameSchema() {
+        simpleRun { invocation ->
+            val verifier = createVerifier(invocation)
+            val connection = verifier.connection
+            verifier.closeConnection(invocation.context)
+            val reused = createVerifier(invocation)
+            assertThat(reused.connection, sameInstance(connection))
+            assertThat(reused.analyze("select * from User").error, nullValue())
+            reused.closeConnection(invocation.context)
+        }.compilesWithoutError()
+    }
+
+    @Test
+    fun testQueryPlanFullScan() {
+        simpleRun { invocation ->
+            val verifier = createVerifier(invocation)
+            val plan = verifier.explainQueryPlan("select * from User where name = ?")!!
+            assertThat(plan.issues.map { it.warning }, `is`(listOf(Warning.QUERY_PLAN_FULL_SCAN)))
+        }.compilesWithoutError()
+    }
+
+    @Test
+    fun testQueryPlanPrimaryKeyLookup() {
+        simpleRun { invocation ->
+            val verifier = createVerifier(invocation)
+            val plan = verifier.explainQueryPlan("select * from User where id = ?")!!
+            assertThat(plan.steps.isEmpty(), `is`(false))
+            assertThat(plan.issues, `is`(emptyList()))
+        }.compilesWithoutError()
+    }
+
+    @Test
+    fun testQueryPlanTempBTree() {
+        simpleRun { invocation ->
+            val verifier = createVerifier(invocation)
+            val plan = verifier.explainQueryPlan("select * from User order by name")!!
+            assertThat(plan.issues.map { it.warning }, `is`(listOf(
+                    Warning.QUERY_PLAN_FULL_SCAN, Warning.QUERY_PLAN_TEMP_B_TREE)))
+        }.compilesWithoutError()
+    }
+
+    @Test
+    fun testQueryPlanIgnoresUnknownTables() {
+        val plan = QueryPlan.create(listOf("SCAN SUBQUERY 1", "SCAN TABLE User"), setOf("Pet"))
+        assertThat(plan.issues, `is`(emptyList()))
+    }
+
     @Test
     fun testFullEntityQuery() {
         validQueryTest("select * from User") {
@@ -23,6 +23,7 @@ import androidx.room.integration.testapp.vo.BlobEntity;
 
 import com.google.common.collect.ImmutableList;
 
+import java.io.InputStream;
 import java.util.List;
 
 @Dao
@@ -40,6 +41,9 @@ public interface BlobEntityDao {
     @Query("SELECT content FROM BlobEntity WHERE id = :id")
     byte[] getContent(long id);
 
+    @Query("SELECT content FROM BlobEntity WHERE id = :id")
+    InputStream getContentStream(long id);
+
     @Query("UPDATE BlobEntity SET content = :content WHERE id = :id")
     void updateContent(long id, byte[] content);
 }
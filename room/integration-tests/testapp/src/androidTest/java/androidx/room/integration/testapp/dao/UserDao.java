@@ -20,6 +20,7 @@ import android.database.Cursor;
 
 import androidx.lifecycle.LiveData;
 import androidx.paging.DataSource;
+import androidx.room.CloseableIterator;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
@@ -181,6 +182,9 @@ public abstract class UserDao {
     @Query("select mId from user where mId IN (:ids)")
     public abstract Cursor findUsersAsCursor(int... ids);
 
+    @Query("select * from user where mId IN (:ids) ORDER BY mId")
+    public abstract CloseableIterator<User> iterateUsers(int... ids);
+
     @Query("select * from user where mId = :id")
     public abstract io.reactivex.Flowable<User> rx2_flowableUserById(int id);
 
@@ -276,6 +280,9 @@ public abstract class UserDao {
     @Query("SELECT * FROM user ORDER BY mAge DESC")
     public abstract DataSource.Factory<Integer, User> loadUsersByAgeDesc();
 
+    @Query("SELECT * FROM user ORDER BY mId DESC")
+    public abstract DataSource.Factory<Integer, User> loadUsersByIdDesc();
+
     @Query("DELETE FROM User WHERE mId IN (:ids) AND mAge == :age")
     public abstract int deleteByAgeAndIds(int age, List<Integer> ids);
 
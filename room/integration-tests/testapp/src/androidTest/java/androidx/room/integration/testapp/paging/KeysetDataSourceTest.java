@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package androidx.room.integration.testapp.paging;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import androidx.annotation.NonNull;
+import androidx.room.integration.testapp.test.TestDatabaseTest;
+import androidx.room.integration.testapp.test.TestUtil;
+import androidx.room.integration.testapp.vo.User;
+import androidx.room.paging.KeysetDataSource;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@MediumTest
+@RunWith(AndroidJUnit4.class)
+public class KeysetDataSourceTest extends TestDatabaseTest {
+
+    @After
+    public void teardown() {
+        mUserDao.deleteEverything();
+    }
+
+    private KeysetDataSource<User> loadUsersByIdDesc() {
+        return (KeysetDataSource<User>) mUserDao.loadUsersByIdDesc().create();
+    }
+
+    @Test
+    public void loadCount() {
+        createUsers(6);
+        KeysetDataSource<User> dataSource = loadUsersByIdDesc();
+        assertThat(dataSource.countItems(), is(6));
+    }
+
+    @Test
+    public void loadAll() {
+        List<User> users = createUsers(10);
+        KeysetDataSource<User> dataSource = loadUsersByIdDesc();
+        assertThat(dataSource.loadRange(0, 10), is(users));
+    }
+
+    @Test
+    public void loadAfter() {
+        List<User> users = createUsers(10);
+        KeysetDataSource<User> dataSource = loadUsersByIdDesc();
+        assertThat(dataSource.loadRange(0, 3), is(users.subList(0, 3)));
+        // seeks past the last loaded row
+        assertThat(dataSource.loadRange(3, 3), is(users.subList(3, 6)));
+        assertThat(dataSource.loadRange(6, 10), is(users.subList(6, 10)));
+        assertThat(dataSource.loadRange(10, 3).isEmpty(), is(true));
+    }
+
+    @Test
+    public void loadBefore() {
+        List<User> users = createUsers(10);
+        KeysetDataSource<User> dataSource = loadUsersByIdDesc();
+        assertThat(dataSource.loadRange(6, 2), is(users.subList(6, 8)));
+        // seeks back from the first loaded row
+        assertThat(dataSource.loadRange(3, 3), is(users.subList(3, 6)));
+        assertThat(dataSource.loadRange(0, 3), is(users.subList(0, 3)));
+    }
+
+    @Test
+    public void loadUnanchored() {
+        List<User> users = createUsers(10);
+        KeysetDataSource<User> dataSource = loadUsersByIdDesc();
+        assertThat(dataSource.loadRange(4, 2), is(users.subList(4, 6)));
+    }
+
+    @NonNull
+    private List<User> createUsers(int count) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            User user = TestUtil.createUser(i);
+            mUserDao.insert(user);
+            users.add(user);
+        }
+        Collections.reverse(users);
+        return users;
+    }
+}
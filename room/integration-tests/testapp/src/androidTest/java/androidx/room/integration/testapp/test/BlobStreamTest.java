@@ -0,0 +1,153 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package androidx.room.integration.testapp.test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+import androidx.room.integration.testapp.dao.BlobEntityDao;
+import androidx.room.integration.testapp.vo.BlobEntity;
+import androidx.sqlite.db.SupportSQLiteBlob;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+@MediumTest
+@RunWith(AndroidJUnit4.class)
+public class BlobStreamTest extends TestDatabaseTest {
+    // Larger than the chunks that both blobs and streams read at once.
+    private static final int LARGE_SIZE = 3 * 1024 * 1024 + 17;
+
+    private BlobEntityDao mBlobEntityDao;
+
+    @Before
+    public void setUp() {
+        mBlobEntityDao = mDatabase.getBlobEntityDao();
+    }
+
+    @Test
+    public void streamQueryResult() throws IOException {
+        byte[] content = createContent(LARGE_SIZE);
+        mBlobEntityDao.insert(new BlobEntity(1, content));
+
+        InputStream stream = mBlobEntityDao.getContentStream(1);
+        try {
+            assertThat(stream.available(), is(LARGE_SIZE));
+            assertThat(Arrays.equals(readFully(stream), content), is(true));
+        } finally {
+            stream.close();
+        }
+    }
+
+    @Test
+    public void streamQueryResult_missing() {
+        mBlobEntityDao.insert(new BlobEntity(1, null));
+
+        assertThat(mBlobEntityDao.getContentStream(1), is(nullValue()));
+        assertThat(mBlobEntityDao.getContentStream(2), is(nullValue()));
+    }
+
+    @Test
+    public void writeAndReadBlob() throws IOException {
+        SupportSQLiteDatabase db = mDatabase.getOpenHelper().getWritableDatabase();
+        db.execSQL("INSERT INTO BlobEntity (id, content) VALUES (1, zeroblob(?))",
+                new Object[]{LARGE_SIZE});
+        byte[] content = createContent(LARGE_SIZE);
+
+        OutputStream out = db.openBlob("BlobEntity", "content", 1, true).openOutputStream();
+        try {
+            out.write(content);
+        } finally {
+            out.close();
+        }
+
+        InputStream stream = mBlobEntityDao.getContentStream(1);
+        try {
+            assertThat(Arrays.equals(readFully(stream), content), is(true));
+        } finally {
+            stream.close();
+        }
+        SupportSQLiteBlob blob = db.openBlob("BlobEntity", "content", 1, false);
+        try {
+            assertThat(blob.length(), is((long) LARGE_SIZE));
+            assertThat(blob.isWritable(), is(false));
+            ByteBuffer buffer = ByteBuffer.allocateDirect(10);
+            assertThat(blob.read(buffer, LARGE_SIZE - 5), is(5));
+            buffer.flip();
+            for (int i = 0; i < 5; i++) {
+                assertThat(buffer.get(), is(content[LARGE_SIZE - 5 + i]));
+            }
+            assertThat(blob.read(buffer, LARGE_SIZE), is(-1));
+        } finally {
+            blob.close();
+        }
+    }
+
+    @Test
+    public void writeInPlace() throws IOException {
+        mBlobEntityDao.insert(new BlobEntity(1, new byte[]{0, 1, 2, 3, 4, 5}));
+        SupportSQLiteDatabase db = mDatabase.getOpenHelper().getWritableDatabase();
+
+        SupportSQLiteBlob blob = db.openBlob("BlobEntity", "content", 1, true);
+        try {
+            assertThat(blob.write(ByteBuffer.wrap(new byte[]{-1, 0, -2}), 2), is(3));
+            try {
+                blob.write(ByteBuffer.wrap(new byte[]{9, 9}), 5);
+                fail("writing past the end of the blob should fail");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        } finally {
+            blob.close();
+        }
+
+        assertThat(Arrays.equals(mBlobEntityDao.getContent(1), new byte[]{0, 1, -1, 0, -2, 5}),
+                is(true));
+    }
+
+    private static byte[] createContent(int size) {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) (i * 31);
+        }
+        return content;
+    }
+
+    private static byte[] readFully(InputStream stream) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[64 * 1024];
+        int read;
+        while ((read = stream.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
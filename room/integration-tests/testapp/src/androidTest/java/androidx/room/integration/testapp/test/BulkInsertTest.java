@@ -0,0 +1,186 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.integration.testapp.test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import android.content.Context;
+
+import androidx.room.Dao;
+import androidx.room.Database;
+import androidx.room.Entity;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.PrimaryKey;
+import androidx.room.Query;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inserts more entities than fit into one multi-row statement, so that they are split into
+ * several chunks.
+ */
+@RunWith(AndroidJUnit4.class)
+@MediumTest
+public class BulkInsertTest {
+    // Two bind arguments per row fit 499 rows into a chunk.
+    private static final int COUNT = 1200;
+
+    private BulkInsertDatabase mDb;
+
+    @Database(version = 1, entities = {Item.class}, exportSchema = false)
+    public abstract static class BulkInsertDatabase extends RoomDatabase {
+        abstract ItemDao itemDao();
+    }
+
+    @Entity
+    public static class Item {
+        @PrimaryKey(autoGenerate = true)
+        public long id;
+        public String name;
+
+        Item(long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    @Dao
+    public interface ItemDao {
+        @Insert
+        void insert(List<Item> items);
+
+        @Insert
+        void insertArray(Item... items);
+
+        @Insert(onConflict = OnConflictStrategy.REPLACE)
+        void insertOrReplace(List<Item> items);
+
+        @Insert(onConflict = OnConflictStrategy.IGNORE)
+        void insertOrIgnore(List<Item> items);
+
+        @Insert(onConflict = OnConflictStrategy.IGNORE)
+        List<Long> insertOrIgnoreAndReturnIds(List<Item> items);
+
+        @Query("SELECT * FROM Item ORDER BY id")
+        List<Item> loadAll();
+    }
+
+    @Before
+    public void openDatabase() {
+        Context context = ApplicationProvider.getApplicationContext();
+        mDb = Room.inMemoryDatabaseBuilder(context, BulkInsertDatabase.class).build();
+    }
+
+    @After
+    public void closeDatabase() {
+        mDb.close();
+    }
+
+    private static List<Item> createItems(int count) {
+        List<Item> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(new Item(0, "item" + i));
+        }
+        return items;
+    }
+
+    private void assertNames(List<Item> items, String... names) {
+        assertThat(items.size(), is(names.length));
+        for (int i = 0; i < names.length; i++) {
+            assertThat(items.get(i).name, is(names[i]));
+        }
+    }
+
+    @Test
+    public void insertList() {
+        mDb.itemDao().insert(createItems(COUNT));
+
+        List<Item> items = mDb.itemDao().loadAll();
+        assertThat(items.size(), is(COUNT));
+        for (int i = 0; i < COUNT; i++) {
+            assertThat(items.get(i).id, is(i + 1L));
+            assertThat(items.get(i).name, is("item" + i));
+        }
+    }
+
+    @Test
+    public void insertArray() {
+        mDb.itemDao().insertArray(createItems(COUNT).toArray(new Item[0]));
+
+        List<Item> items = mDb.itemDao().loadAll();
+        assertThat(items.size(), is(COUNT));
+        assertThat(items.get(COUNT - 1).id, is((long) COUNT));
+        assertThat(items.get(COUNT - 1).name, is("item" + (COUNT - 1)));
+    }
+
+    @Test
+    public void insertOrReplace_acrossChunks() {
+        List<Item> items = createItems(COUNT);
+        // Conflicts within the first chunk, and between the first and the second chunk.
+        items.set(0, new Item(1, "first"));
+        items.set(1, new Item(1, "second"));
+        items.set(2, new Item(2, "third"));
+        items.set(700, new Item(2, "replaced"));
+        mDb.itemDao().insertOrReplace(items);
+
+        List<Item> loaded = mDb.itemDao().loadAll();
+        assertThat(loaded.size(), is(COUNT - 2));
+        assertNames(loaded.subList(0, 2), "second", "replaced");
+    }
+
+    @Test
+    public void insertOrIgnore_acrossChunks() {
+        List<Item> items = createItems(COUNT);
+        items.set(0, new Item(1, "first"));
+        items.set(1, new Item(1, "second"));
+        items.set(2, new Item(2, "third"));
+        items.set(700, new Item(2, "ignored"));
+        mDb.itemDao().insertOrIgnore(items);
+
+        List<Item> loaded = mDb.itemDao().loadAll();
+        assertThat(loaded.size(), is(COUNT - 2));
+        assertNames(loaded.subList(0, 2), "first", "third");
+    }
+
+    @Test
+    public void insertOrIgnore_returnsIds() {
+        List<Item> items = createItems(COUNT);
+        items.set(700, new Item(1, "ignored"));
+        List<Long> ids = mDb.itemDao().insertOrIgnoreAndReturnIds(items);
+
+        assertThat(ids.size(), is(COUNT));
+        assertThat(ids.get(0), is(1L));
+        assertThat(ids.get(699), is(700L));
+        assertThat(ids.get(700), is(-1L));
+        assertThat(ids.get(701), is(701L));
+        assertThat(ids.get(COUNT - 1), is(COUNT - 1L));
+        assertThat(mDb.itemDao().loadAll().size(), is(COUNT - 1));
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package androidx.room.integration.testapp.test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteConstraintException;
+
+import androidx.room.GroupCommitStats;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.room.integration.testapp.TestDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@MediumTest
+@RunWith(AndroidJUnit4.class)
+public class GroupCommitTest extends TestDatabaseTest {
+    private static final int THREAD_COUNT = 8;
+
+    @Override
+    protected RoomDatabase.Builder<TestDatabase> createDatabaseBuilder(Context context) {
+        return super.createDatabaseBuilder(context)
+                .enableGroupCommit(100, TimeUnit.MILLISECONDS, THREAD_COUNT);
+    }
+
+    @Test
+    public void concurrentTransactionsShareCommits() throws InterruptedException {
+        runConcurrently(index -> mDatabase.runInGroupTransaction(
+                () -> mUserDao.insert(TestUtil.createUser(index))));
+
+        assertThat(mUserDao.loadIds(), is(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7)));
+        GroupCommitStats stats = mDatabase.getGroupCommitStats();
+        assertThat(stats.getTransactionCount(), is((long) THREAD_COUNT));
+        assertThat(stats.getFailedCount(), is(0L));
+        assertThat(stats.getBatchCount() < THREAD_COUNT, is(true));
+    }
+
+    @Test
+    public void failedTransactionIsRolledBackAlone() throws InterruptedException {
+        List<Throwable> errors = runConcurrently(index -> mDatabase.runInGroupTransaction(() -> {
+            mUserDao.insert(TestUtil.createUser(index));
+            if (index % 2 == 1) {
+                throw new IllegalStateException("Boom " + index);
+            }
+        }));
+
+        assertThat(errors.size(), is(THREAD_COUNT / 2));
+        for (Throwable error : errors) {
+            assertThat(error instanceof IllegalStateException, is(true));
+        }
+        assertThat(mUserDao.loadIds(), is(Arrays.asList(0, 2, 4, 6)));
+        assertThat(mDatabase.getGroupCommitStats().getFailedCount(), is((long) THREAD_COUNT / 2));
+    }
+
+    @Test
+    public void failedNestedTransactionRetriesOthers() throws InterruptedException {
+        mUserDao.insert(TestUtil.createUser(3));
+
+        List<Throwable> errors = runConcurrently(index -> mDatabase.runInGroupTransaction(
+                () -> mUserDao.insert(TestUtil.createUser(index))));
+
+        assertThat(errors.size(), is(1));
+        assertThat(errors.get(0) instanceof SQLiteConstraintException, is(true));
+        assertThat(mUserDao.loadIds(), is(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7)));
+    }
+
+    @Test
+    public void failedNestedTransactionOnOpenHelperRetriesOthers()
+            throws InterruptedException {
+        List<Throwable> errors = runConcurrently(index -> mDatabase.runInGroupTransaction(() -> {
+            if (index != 3) {
+                mUserDao.insert(TestUtil.createUser(index));
+                return;
+            }
+            SupportSQLiteDatabase db = mDatabase.getOpenHelper().getWritableDatabase();
+            db.beginTransaction();
+            try {
+                mUserDao.insert(TestUtil.createUser(index));
+            } finally {
+                // Not successful, so SQLite rolls back the enclosing transaction
+                db.endTransaction();
+            }
+        }));
+
+        assertThat(errors.size(), is(0));
+        assertThat(mUserDao.loadIds(), is(Arrays.asList(0, 1, 2, 4, 5, 6, 7)));
+    }
+
+    @Test
+    public void fromTransactionExecutor() throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(1);
+        mDatabase.getTransactionExecutor().execute(() -> {
+            mDatabase.runInGroupTransaction(() -> mUserDao.insert(TestUtil.createUser(2)));
+            done.countDown();
+        });
+
+        assertThat(done.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(mUserDao.loadIds(), is(Arrays.asList(2)));
+    }
+
+    @Test
+    public void nestedInTransaction() {
+        mDatabase.runInTransaction(() -> {
+            mDatabase.runInGroupTransaction(() -> mUserDao.insert(TestUtil.createUser(1)));
+            assertThat(mUserDao.load(1).getId(), is(1));
+        });
+        assertThat(mUserDao.loadIds(), is(Arrays.asList(1)));
+    }
+
+    @Test
+    public void disabled() {
+        Context context = ApplicationProvider.getApplicationContext();
+        TestDatabase db = Room.inMemoryDatabaseBuilder(context, TestDatabase.class).build();
+        try {
+            assertThat(db.getGroupCommitStats(), is(nullValue()));
+            int id = db.runInGroupTransaction(() -> {
+                db.getUserDao().insert(TestUtil.createUser(5));
+                return 5;
+            });
+            assertThat(db.getUserDao().load(id).getId(), is(5));
+        } finally {
+            db.close();
+        }
+    }
+
+    private List<Throwable> runConcurrently(final Body body) throws InterruptedException {
+        final List<Throwable> errors = new ArrayList<>();
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            final int index = i;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    body.run(index);
+                } catch (Throwable t) {
+                    synchronized (errors) {
+                        errors.add(t);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        return errors;
+    }
+
+    private interface Body {
+        void run(int index);
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package androidx.room.integration.testapp.test;
+
+import android.content.Context;
+
+import androidx.room.RoomDatabase;
+import androidx.room.integration.testapp.TestDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import org.junit.runner.RunWith;
+
+/**
+ * Runs the relation tests with every relation loaded through the temporary key table.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class PojoWithRelationKeyTableTest extends PojoWithRelationTest {
+    @Override
+    protected RoomDatabase.Builder<TestDatabase> createDatabaseBuilder(Context context) {
+        return super.createDatabaseBuilder(context).setRelationKeyTableThreshold(1);
+    }
+}
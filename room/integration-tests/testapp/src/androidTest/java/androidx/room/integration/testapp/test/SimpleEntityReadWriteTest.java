@@ -28,11 +28,13 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import android.annotation.SuppressLint;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteConstraintException;
 import android.database.sqlite.SQLiteException;
 
+import androidx.room.CloseableIterator;
 import androidx.room.Room;
 import androidx.room.integration.testapp.TestDatabase;
 import androidx.room.integration.testapp.dao.BlobEntityDao;
@@ -50,6 +52,7 @@ import androidx.room.integration.testapp.vo.User;
 import androidx.room.integration.testapp.vo.UserAndAllPets;
 import androidx.room.integration.testapp.vo.UserSummary;
 import androidx.room.integration.testapp.vo.Username;
+import androidx.room.util.CursorIterator;
 import androidx.test.core.app.ApplicationProvider;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import androidx.test.filters.SmallTest;
@@ -466,6 +469,42 @@ public class SimpleEntityReadWriteTest {
         }
     }
 
+    @SuppressLint("RestrictedApi")
+    @Test
+    public void readViaCloseableIterator() {
+        User[] users = TestUtil.createUsersArray(3, 5, 7, 9);
+        mUserDao.insertAll(users);
+        CloseableIterator<User> iterator = mUserDao.iterateUsers(9, 3, 5);
+        try {
+            assertThat(iterator.next(), is(users[0]));
+            assertThat(iterator.next(), is(users[1]));
+            assertThat(iterator.hasNext(), is(true));
+            assertThat(iterator.next(), is(users[3]));
+            assertThat(iterator.hasNext(), is(false));
+            // Exhausting the iterator releases its cursor.
+            assertThat(((CursorIterator<User>) iterator).isClosed(), is(true));
+        } finally {
+            iterator.close();
+        }
+    }
+
+    @SuppressLint("RestrictedApi")
+    @Test
+    public void closeCloseableIteratorEarly() {
+        User[] users = TestUtil.createUsersArray(3, 5, 7, 9);
+        mUserDao.insertAll(users);
+        CloseableIterator<User> iterator = mUserDao.iterateUsers(3, 5, 7, 9);
+        assertThat(iterator.next(), is(users[0]));
+        assertThat(((CursorIterator<User>) iterator).isClosed(), is(false));
+
+        iterator.close();
+
+        assertThat(((CursorIterator<User>) iterator).isClosed(), is(true));
+        assertThat(iterator.hasNext(), is(false));
+        // Closing again has no effect.
+        iterator.close();
+    }
+
     @Test
     public void readDirectWithTypeAdapter() {
         User user = TestUtil.createUser(3);
@@ -512,6 +551,22 @@ public class SimpleEntityReadWriteTest {
         assertThat(immutableList.get(1).content, is(equalTo("def".getBytes(Charsets.UTF_8))));
     }
 
+    @Test
+    public void blobLargerThanCursorWindow() {
+        // about 5 MB, so that the result does not fit in the default 2 MB window
+        for (int i = 0; i < 1250; i++) {
+            byte[] content = new byte[4096];
+            Arrays.fill(content, (byte) i);
+            mBlobEntityDao.insert(new BlobEntity(i, content));
+        }
+        List<BlobEntity> list = mBlobEntityDao.selectAll();
+        assertThat(list, hasSize(1250));
+        for (int i = 0; i < 1250; i++) {
+            assertThat(list.get(i).id, is((long) i));
+            assertThat(list.get(i).content[4095], is((byte) i));
+        }
+    }
+
     @Test
     public void transactionByRunnable() {
         User a = TestUtil.createUser(3);
@@ -19,6 +19,7 @@ package androidx.room.integration.testapp.test;
 import android.content.Context;
 
 import androidx.room.Room;
+import androidx.room.RoomDatabase;
 import androidx.room.integration.testapp.TestDatabase;
 import androidx.room.integration.testapp.dao.FunnyNamedDao;
 import androidx.room.integration.testapp.dao.PagingSourceOnlyUserDao;
@@ -57,7 +58,7 @@ public abstract class TestDatabaseTest {
     @Before
     public void createDb() {
         Context context = ApplicationProvider.getApplicationContext();
-        mDatabase = Room.inMemoryDatabaseBuilder(context, TestDatabase.class).build();
+        mDatabase = createDatabaseBuilder(context).build();
         mUserDao = mDatabase.getUserDao();
         mPagingSourceOnlyUserDao = mDatabase.getPagingSourceOnlyUserDao();
         mPetDao = mDatabase.getPetDao();
@@ -72,4 +73,8 @@ public abstract class TestDatabaseTest {
         mUserHouseDao = mDatabase.getUserHouseDao();
         mRobotsDao = mDatabase.getRobotsDao();
     }
+
+    protected RoomDatabase.Builder<TestDatabase> createDatabaseBuilder(Context context) {
+        return Room.inMemoryDatabaseBuilder(context, TestDatabase.class);
+    }
 }
@@ -19,6 +19,9 @@ package androidx.room
 import androidx.annotation.RestrictTo
 import kotlinx.coroutines.Job
 import kotlinx.coroutines.asContextElement
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.flowOn
 import kotlinx.coroutines.runBlocking
 import kotlinx.coroutines.suspendCancellableCoroutine
 import kotlinx.coroutines.withContext
@@ -69,6 +72,39 @@ suspend fun <R> RoomDatabase.withTransaction(block: suspend () -> R): R {
     }
 }
 
+/**
+ * Streams the rows of a [CloseableIterator] returning query as a cold [Flow] of chunks of at most
+ * [chunkSize] rows, so that large results can be processed without loading them all in memory.
+ *
+ * The [query] is invoked, and the rows are read, on Room's query executor each time the flow is
+ * collected. The iterator, and therefore the underlying cursor, is closed once all rows have been
+ * emitted or when the collector is cancelled.
+ *
+ * Note that unlike observable queries, the returned flow does not re-emit when the database
+ * changes.
+ */
+fun <T> RoomDatabase.chunkedFlow(
+    chunkSize: Int,
+    query: () -> CloseableIterator<T>
+): Flow<List<T>> {
+    require(chunkSize > 0) { "chunkSize must be positive: $chunkSize" }
+    return flow {
+        query().use { iterator ->
+            var chunk = ArrayList<T>(chunkSize)
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next())
+                if (chunk.size == chunkSize) {
+                    emit(chunk)
+                    chunk = ArrayList(chunkSize)
+                }
+            }
+            if (chunk.isNotEmpty()) {
+                emit(chunk)
+            }
+        }
+    }.flowOn(queryDispatcher)
+}
+
 /**
  * Creates a [CoroutineContext] for performing database operations within a coroutine transaction.
  *
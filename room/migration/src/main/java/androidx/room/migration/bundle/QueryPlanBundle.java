@@ -0,0 +1,194 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.migration.bundle;
+
+import androidx.annotation.RestrictTo;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.annotations.SerializedName;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.util.List;
+
+/**
+ * Data class that holds the query plans of the DAO queries of a database, reported next to its
+ * schema export.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+public class QueryPlanBundle {
+
+    @SerializedName("database")
+    private String mDatabase;
+    @SerializedName("version")
+    private int mVersion;
+    @SerializedName("queries")
+    private List<QueryBundle> mQueries;
+
+    private static final Gson GSON = new GsonBuilder()
+            .setPrettyPrinting()
+            .disableHtmlEscaping()
+            .create();
+    private static final String CHARSET = "UTF-8";
+
+    public QueryPlanBundle(String database, int version, List<QueryBundle> queries) {
+        mDatabase = database;
+        mVersion = version;
+        mQueries = queries;
+    }
+
+    public String getDatabase() {
+        return mDatabase;
+    }
+
+    public int getVersion() {
+        return mVersion;
+    }
+
+    public List<QueryBundle> getQueries() {
+        return mQueries;
+    }
+
+    /**
+     * Writes the bundle into the given file, leaving the file untouched if it already holds the
+     * same report so that it does not invalidate incremental builds.
+     *
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+    public static void serialize(QueryPlanBundle bundle, File file) throws IOException {
+        final String json = GSON.toJson(bundle);
+        if (file.exists() && json.equals(readText(file))) {
+            return;
+        }
+        FileOutputStream fos = new FileOutputStream(file, false);
+        OutputStreamWriter osw = new OutputStreamWriter(fos, CHARSET);
+        try {
+            osw.write(json);
+        } finally {
+            safeClose(osw);
+            safeClose(fos);
+        }
+    }
+
+    private static String readText(File file) throws IOException {
+        Reader reader = new InputStreamReader(new FileInputStream(file), CHARSET);
+        try {
+            StringBuilder text = new StringBuilder();
+            char[] buffer = new char[4096];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                text.append(buffer, 0, read);
+            }
+            return text.toString();
+        } finally {
+            safeClose(reader);
+        }
+    }
+
+    private static void safeClose(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (Throwable ignored) {
+            }
+        }
+    }
+
+    /**
+     * The plan of a single DAO query.
+     *
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+    public static class QueryBundle {
+        @SerializedName("dao")
+        private String mDao;
+        @SerializedName("method")
+        private String mMethod;
+        @SerializedName("query")
+        private String mQuery;
+        @SerializedName("steps")
+        private List<String> mSteps;
+        @SerializedName("issues")
+        private List<IssueBundle> mIssues;
+
+        public QueryBundle(String dao, String method, String query, List<String> steps,
+                List<IssueBundle> issues) {
+            mDao = dao;
+            mMethod = method;
+            mQuery = query;
+            mSteps = steps;
+            mIssues = issues;
+        }
+
+        public String getDao() {
+            return mDao;
+        }
+
+        public String getMethod() {
+            return mMethod;
+        }
+
+        public String getQuery() {
+            return mQuery;
+        }
+
+        public List<String> getSteps() {
+            return mSteps;
+        }
+
+        public List<IssueBundle> getIssues() {
+            return mIssues;
+        }
+    }
+
+    /**
+     * A step of a query plan that suggests the schema is missing an index.
+     *
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+    public static class IssueBundle {
+        @SerializedName("warning")
+        private String mWarning;
+        @SerializedName("step")
+        private String mStep;
+
+        public IssueBundle(String warning, String step) {
+            mWarning = warning;
+            mStep = step;
+        }
+
+        public String getWarning() {
+            return mWarning;
+        }
+
+        public String getStep() {
+            return mStep;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.migration.bundle;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import static java.util.Arrays.asList;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Collections;
+
+@RunWith(JUnit4.class)
+public class QueryPlanBundleTest {
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void serialize() throws IOException {
+        File file = mTemporaryFolder.newFile();
+        QueryPlanBundle.serialize(createBundle("SELECT * FROM User\nWHERE name = \"a\""), file);
+
+        JsonObject json = read(file);
+        assertThat(json.get("database").getAsString(), is("foo.MyDatabase"));
+        assertThat(json.get("version").getAsInt(), is(3));
+        JsonObject query = json.getAsJsonArray("queries").get(0).getAsJsonObject();
+        assertThat(query.get("dao").getAsString(), is("foo.UserDao"));
+        assertThat(query.get("method").getAsString(), is("loadByName"));
+        assertThat(query.get("query").getAsString(), is("SELECT * FROM User\nWHERE name = \"a\""));
+        assertThat(query.getAsJsonArray("steps").get(0).getAsString(), is("SCAN TABLE User"));
+        JsonObject issue = query.getAsJsonArray("issues").get(0).getAsJsonObject();
+        assertThat(issue.get("warning").getAsString(), is("ROOM_QUERY_PLAN_FULL_SCAN"));
+        assertThat(issue.get("step").getAsString(), is("SCAN TABLE User"));
+    }
+
+    @Test
+    public void serialize_unchanged_notRewritten() throws IOException {
+        File file = mTemporaryFolder.newFile();
+        QueryPlanBundle.serialize(createBundle("SELECT * FROM User"), file);
+        assertThat(file.setLastModified(0), is(true));
+
+        QueryPlanBundle.serialize(createBundle("SELECT * FROM User"), file);
+        assertThat(file.lastModified(), is(0L));
+
+        QueryPlanBundle.serialize(createBundle("SELECT * FROM User LIMIT 1"), file);
+        assertThat(file.lastModified() != 0L, is(true));
+    }
+
+    private static QueryPlanBundle createBundle(String query) {
+        return new QueryPlanBundle("foo.MyDatabase", 3, Collections.singletonList(
+                new QueryPlanBundle.QueryBundle("foo.UserDao", "loadByName", query,
+                        asList("SCAN TABLE User"),
+                        asList(new QueryPlanBundle.IssueBundle("ROOM_QUERY_PLAN_FULL_SCAN",
+                                "SCAN TABLE User")))));
+    }
+
+    private static JsonObject read(File file) throws IOException {
+        Reader reader = new FileReader(file);
+        try {
+            return new JsonParser().parse(reader).getAsJsonObject();
+        } finally {
+            reader.close();
+        }
+    }
+}
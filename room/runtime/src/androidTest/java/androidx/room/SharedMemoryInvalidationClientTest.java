@@ -0,0 +1,172 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(AndroidJUnit4.class)
+@MediumTest
+public class SharedMemoryInvalidationClientTest {
+    private static final String NAME = "shared-memory-invalidation.db";
+    private static final long POLL_INTERVAL_MILLIS = 10;
+
+    // Runs set up and checks on the calling thread, which is the test or the delay scheduler.
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(@NonNull Runnable command) {
+            command.run();
+        }
+    };
+
+    private final List<SharedMemoryInvalidationClient> mClients = new ArrayList<>();
+    private Context mContext;
+    private File mCounterFile;
+
+    @Before
+    public void setup() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mCounterFile = new File(mContext.getDatabasePath(NAME).getPath() + "-invalidation");
+        mCounterFile.delete();
+    }
+
+    @After
+    public void tearDown() {
+        for (SharedMemoryInvalidationClient client : mClients) {
+            client.stop();
+        }
+        // Also removes the directory left by the fallback test, as it is empty.
+        mCounterFile.delete();
+    }
+
+    private static InvalidationTracker createTracker() {
+        // The mocked database is not open, so adding observers does not sync triggers.
+        return new InvalidationTracker(mock(RoomDatabase.class), "user", "pet");
+    }
+
+    private SharedMemoryInvalidationClient createClient(InvalidationTracker tracker) {
+        SharedMemoryInvalidationClient client = new SharedMemoryInvalidationClient(mContext,
+                NAME, tracker, DIRECT_EXECUTOR, POLL_INTERVAL_MILLIS);
+        mClients.add(client);
+        return client;
+    }
+
+    @Test
+    public void pollsOnlyWhileObserved() {
+        InvalidationTracker tracker = createTracker();
+        SharedMemoryInvalidationClient client = createClient(tracker);
+        assertThat(client.getFallbackClient(), is(nullValue()));
+        assertThat(client.isPolling(), is(false));
+
+        InvalidationTracker.Observer first = new LatchObserver("user");
+        InvalidationTracker.Observer second = new LatchObserver("pet");
+        tracker.addObserver(first);
+        assertThat(client.isPolling(), is(true));
+        tracker.addObserver(second);
+        tracker.removeObserver(first);
+        assertThat(client.isPolling(), is(true));
+        tracker.removeObserver(second);
+        assertThat(client.isPolling(), is(false));
+    }
+
+    @Test
+    public void startsPollingForObserverAddedBeforeClient() {
+        InvalidationTracker tracker = createTracker();
+        tracker.addObserver(new LatchObserver("user"));
+        SharedMemoryInvalidationClient client = createClient(tracker);
+        assertThat(client.isPolling(), is(true));
+    }
+
+    @Test
+    public void stopCancelsPolling() {
+        InvalidationTracker tracker = createTracker();
+        SharedMemoryInvalidationClient client = createClient(tracker);
+        tracker.addObserver(new LatchObserver("user"));
+        client.stop();
+        assertThat(client.isPolling(), is(false));
+    }
+
+    @Test
+    public void otherInstanceIsNotified() throws InterruptedException {
+        InvalidationTracker writerTracker = createTracker();
+        createClient(writerTracker);
+        InvalidationTracker readerTracker = createTracker();
+        createClient(readerTracker);
+        LatchObserver observer = new LatchObserver("user");
+        readerTracker.addObserver(observer);
+
+        // Stands in for the writing tracker notifying the client's observer after a refresh.
+        mClients.get(0).increment(Collections.singleton("user"));
+
+        assertThat(observer.mLatch.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(observer.mTables.contains("user"), is(true));
+    }
+
+    @Test
+    public void fallsBackToBinderWhenCounterFileCannotBeOpened() {
+        // A directory in place of the counter file cannot be opened for writing.
+        assertThat(mCounterFile.mkdirs(), is(true));
+        InvalidationTracker tracker = createTracker();
+        SharedMemoryInvalidationClient client = createClient(tracker);
+        assertThat(client.getFallbackClient(), is(notNullValue()));
+
+        tracker.addObserver(new LatchObserver("user"));
+        assertThat(client.isPolling(), is(false));
+
+        client.stop();
+        assertThat(client.getFallbackClient(), is(nullValue()));
+    }
+
+    private static class LatchObserver extends InvalidationTracker.Observer {
+        final CountDownLatch mLatch = new CountDownLatch(1);
+        volatile Set<String> mTables;
+
+        LatchObserver(String table) {
+            super(table);
+        }
+
+        @Override
+        public void onInvalidated(@NonNull Set<String> tables) {
+            mTables = tables;
+            mLatch.countDown();
+        }
+    }
+}
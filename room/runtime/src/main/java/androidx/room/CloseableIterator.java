@@ -0,0 +1,49 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * An {@link Iterator} over the rows of a query that holds its database cursor open until it is
+ * closed.
+ * <p>
+ * A {@link Query} method returning a {@code CloseableIterator} maps each row on demand as the
+ * iterator advances, instead of reading the whole result into a list, so that iterating a large
+ * result only needs memory for the current row. The iterator closes itself once it is
+ * exhausted; if iteration stops early it must be closed by the caller.
+ * <pre>
+ * {@literal @}Dao
+ * interface SongDao {
+ *     {@literal @}Query("SELECT * FROM song")
+ *     CloseableIterator&lt;Song&gt; iterateAll();
+ * }
+ * </pre>
+ * Methods returning a {@code CloseableIterator} cannot be annotated with {@link Transaction}
+ * and cannot return POJOs with {@link androidx.room.Relation Relation} fields, since the rows
+ * are read after the method returns.
+ *
+ * @param <T> The type of the rows.
+ */
+public interface CloseableIterator<T> extends Iterator<T>, Closeable {
+    /**
+     * Closes the underlying cursor. Calling this method more than once has no effect.
+     */
+    @Override
+    void close();
+}
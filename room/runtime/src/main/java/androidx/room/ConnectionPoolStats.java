@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+
+/**
+ * A snapshot of how queries acquired connections from the reader connection pool of a
+ * {@link RoomDatabase}.
+ *
+ * @see RoomDatabase.Builder#setReaderConnectionPoolSize(int)
+ * @see RoomDatabase#getReaderConnectionPoolStats()
+ */
+public final class ConnectionPoolStats {
+    private final int mPoolSize;
+    private final int mOpenConnectionCount;
+    private final long mAcquireCount;
+    private final long mWaitCount;
+    private final long mTotalWaitNanos;
+    private final long mMaxWaitNanos;
+
+    ConnectionPoolStats(int poolSize, int openConnectionCount, long acquireCount, long waitCount,
+            long totalWaitNanos, long maxWaitNanos) {
+        mPoolSize = poolSize;
+        mOpenConnectionCount = openConnectionCount;
+        mAcquireCount = acquireCount;
+        mWaitCount = waitCount;
+        mTotalWaitNanos = totalWaitNanos;
+        mMaxWaitNanos = maxWaitNanos;
+    }
+
+    /**
+     * Returns the maximum number of reader connections.
+     */
+    public int getPoolSize() {
+        return mPoolSize;
+    }
+
+    /**
+     * Returns the number of reader connections opened so far.
+     */
+    public int getOpenConnectionCount() {
+        return mOpenConnectionCount;
+    }
+
+    /**
+     * Returns the number of times a query acquired a reader connection.
+     */
+    public long getAcquireCount() {
+        return mAcquireCount;
+    }
+
+    /**
+     * Returns the number of acquisitions that had to wait because every reader connection was
+     * in use.
+     */
+    public long getWaitCount() {
+        return mWaitCount;
+    }
+
+    /**
+     * Returns the total time, in nanoseconds, that acquisitions spent waiting for a reader
+     * connection.
+     */
+    public long getTotalWaitNanos() {
+        return mTotalWaitNanos;
+    }
+
+    /**
+     * Returns the longest time, in nanoseconds, that a single acquisition waited for a reader
+     * connection.
+     */
+    public long getMaxWaitNanos() {
+        return mMaxWaitNanos;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "ConnectionPoolStats[poolSize=%d, open=%d, acquired=%d,"
+                        + " waited=%d, totalWaitNanos=%d, maxWaitNanos=%d]", mPoolSize,
+                mOpenConnectionCount, mAcquireCount, mWaitCount, mTotalWaitNanos, mMaxWaitNanos);
+    }
+}
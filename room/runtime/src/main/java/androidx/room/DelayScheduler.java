@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs tasks on an {@link Executor} after a delay, without holding one of its threads or the
+ * main thread while waiting.
+ * <p>
+ * A single daemon thread shared by all databases keeps time and only hands each task over to
+ * its executor. The thread exits when no task has been scheduled for a while.
+ */
+final class DelayScheduler {
+    private static final long KEEP_ALIVE_SECONDS = 10;
+
+    private static final ScheduledThreadPoolExecutor sTimer;
+
+    static {
+        sTimer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(@NonNull Runnable runnable) {
+                Thread thread = new Thread(runnable, "Room-delay-scheduler");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        sTimer.setKeepAliveTime(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+        sTimer.allowCoreThreadTimeOut(true);
+    }
+
+    private DelayScheduler() {
+    }
+
+    /**
+     * Executes {@code task} on {@code executor} once {@code delayMillis} have passed.
+     *
+     * @return A future which cancels the task if it has not been handed over yet.
+     */
+    @NonNull
+    static ScheduledFuture<?> schedule(@NonNull final Executor executor,
+            @NonNull final Runnable task, long delayMillis) {
+        return sTimer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                executor.execute(task);
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+}
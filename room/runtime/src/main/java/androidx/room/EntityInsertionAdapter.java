@@ -16,11 +16,16 @@
 
 package androidx.room;
 
+import android.os.Build;
+
+import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 import androidx.sqlite.db.SupportSQLiteStatement;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -34,6 +39,17 @@ import java.util.List;
 @SuppressWarnings({"WeakerAccess", "unused"})
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
 public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
+    /**
+     * SQLite versions before 3.8.8 limit a multi-row VALUES clause to this many rows, as they
+     * treat it as a compound SELECT.
+     */
+    private static final int MAX_BULK_ROWS = 500;
+
+    private final RoomDatabase mDatabase;
+    // Lazily parsed from createQuery, null if the query cannot be inserted in bulk.
+    private volatile BulkInsertQuery mBulkQuery;
+    private volatile boolean mBulkQueryParsed;
+
     /**
      * Creates an InsertionAdapter that can insert the entity type T into the given database.
      *
@@ -41,6 +57,7 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
      */
     public EntityInsertionAdapter(RoomDatabase database) {
         super(database);
+        mDatabase = database;
     }
 
     /**
@@ -73,6 +90,9 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
      * @param entities Entities to insert
      */
     public final void insert(T[] entities) {
+        if (entities.length > 1 && insertInBulk(Arrays.asList(entities).iterator())) {
+            return;
+        }
         final SupportSQLiteStatement stmt = acquire();
         try {
             for (T entity : entities) {
@@ -90,6 +110,9 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
      * @param entities Entities to insert
      */
     public final void insert(Iterable<? extends T> entities) {
+        if (insertInBulk(entities.iterator())) {
+            return;
+        }
         final SupportSQLiteStatement stmt = acquire();
         try {
             for (T entity : entities) {
@@ -248,4 +271,247 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
             release(stmt);
         }
     }
+
+    /**
+     * Inserts the given entities with multi-row {@code VALUES} statements, binding as many rows
+     * per statement as the SQLite variable limit allows. Row ids are not returned, since SQLite
+     * only reports the row id of the last inserted row.
+     *
+     * @return false if the entities could not be inserted in bulk and none were inserted.
+     */
+    private boolean insertInBulk(Iterator<? extends T> entities) {
+        final BulkInsertQuery bulkQuery = getBulkQuery();
+        if (bulkQuery == null) {
+            return false;
+        }
+        final List<T> rows = new ArrayList<>();
+        while (entities.hasNext()) {
+            rows.add(entities.next());
+            if (rows.size() == bulkQuery.mMaxRows) {
+                insertRows(bulkQuery, rows);
+                rows.clear();
+            }
+        }
+        if (!rows.isEmpty()) {
+            insertRows(bulkQuery, rows);
+        }
+        return true;
+    }
+
+    private void insertRows(BulkInsertQuery bulkQuery, List<T> rows) {
+        if (rows.size() == 1) {
+            insert(rows.get(0));
+            return;
+        }
+        // Statements for full chunks share the same SQL, so they are reused from the statement
+        // cache of the database.
+        final SupportSQLiteStatement stmt = mDatabase.acquireStatement(
+                bulkQuery.createQuery(rows.size()));
+        try {
+            final OffsetBindingStatement rowStmt = new OffsetBindingStatement(stmt);
+            for (int i = 0; i < rows.size(); i++) {
+                rowStmt.mOffset = i * bulkQuery.mRowArgCount;
+                bind(rowStmt, rows.get(i));
+            }
+            stmt.executeInsert();
+        } finally {
+            mDatabase.releaseStatement(stmt);
+        }
+    }
+
+    @Nullable
+    private BulkInsertQuery getBulkQuery() {
+        if (!mBulkQueryParsed) {
+            // Multi-row VALUES clauses need SQLite 3.7.11.
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                mBulkQuery = BulkInsertQuery.parse(createQuery());
+            }
+            mBulkQueryParsed = true;
+        }
+        return mBulkQuery;
+    }
+
+    /**
+     * Splits an insert query into the part before its row of values and the row itself, so that
+     * the row can be repeated.
+     */
+    static class BulkInsertQuery {
+        private static final String INSERT_OR = "INSERT OR ";
+        private static final String INTO = " INTO ";
+        private static final String VALUES = " VALUES ";
+
+        final String mPrefix;
+        final String mRow;
+        final int mRowArgCount;
+        final int mMaxRows;
+
+        private BulkInsertQuery(String prefix, String row, int rowArgCount) {
+            mPrefix = prefix;
+            mRow = row;
+            mRowArgCount = rowArgCount;
+            mMaxRows = Math.min(MAX_BULK_ROWS, RoomDatabase.MAX_BIND_PARAMETER_CNT / rowArgCount);
+        }
+
+        /**
+         * Parses a query of the form
+         * {@code INSERT OR <conflict> INTO `table` (`column`,...) VALUES (?,...)} as generated
+         * by Room. The names are skipped as quoted identifiers, so any text within them is not
+         * mistaken for the structure of the query.
+         *
+         * @return The parsed query, or null if it cannot be repeated in bulk.
+         */
+        @Nullable
+        static BulkInsertQuery parse(String query) {
+            if (!query.startsWith(INSERT_OR)) {
+                return null;
+            }
+            // The conflict algorithm is a single keyword.
+            int index = query.indexOf(INTO, INSERT_OR.length());
+            if (index < 0) {
+                return null;
+            }
+            index = skipIdentifier(query, index + INTO.length());
+            if (index < 0 || !query.startsWith(" (", index)) {
+                return null;
+            }
+            index += 2;
+            while (true) {
+                index = skipIdentifier(query, index);
+                if (index < 0 || index >= query.length()) {
+                    return null;
+                }
+                final char separator = query.charAt(index++);
+                if (separator == ')') {
+                    break;
+                } else if (separator != ',') {
+                    return null;
+                }
+            }
+            if (!query.startsWith(VALUES, index)) {
+                return null;
+            }
+            final int rowIndex = index + VALUES.length();
+            final String row = query.substring(rowIndex);
+            if (!row.startsWith("(") || !row.endsWith(")")) {
+                return null;
+            }
+            int argCount = 0;
+            for (int i = 0; i < row.length(); i++) {
+                if (row.charAt(i) == '?') {
+                    argCount++;
+                }
+            }
+            if (argCount == 0 || argCount > RoomDatabase.MAX_BIND_PARAMETER_CNT / 2) {
+                return null;
+            }
+            return new BulkInsertQuery(query.substring(0, rowIndex), row, argCount);
+        }
+
+        /**
+         * Returns the index after the backtick quoted identifier starting at {@code start}, or -1
+         * if there is none.
+         */
+        private static int skipIdentifier(String query, int start) {
+            if (start >= query.length() || query.charAt(start) != '`') {
+                return -1;
+            }
+            int index = start + 1;
+            while (index < query.length()) {
+                if (query.charAt(index) == '`') {
+                    // A doubled backtick is an escaped backtick within the identifier.
+                    if (index + 1 < query.length() && query.charAt(index + 1) == '`') {
+                        index += 2;
+                        continue;
+                    }
+                    return index + 1;
+                }
+                index++;
+            }
+            return -1;
+        }
+
+        String createQuery(int rowCount) {
+            final StringBuilder builder = new StringBuilder(
+                    mPrefix.length() + (mRow.length() + 1) * rowCount);
+            builder.append(mPrefix).append(mRow);
+            for (int i = 1; i < rowCount; i++) {
+                builder.append(',').append(mRow);
+            }
+            return builder.toString();
+        }
+    }
+
+    /**
+     * Shifts the bind indices of one row into its position in a multi-row statement, so that
+     * the generated {@link #bind(SupportSQLiteStatement, Object)} can bind any row. All other
+     * calls are passed to the multi-row statement as they are.
+     */
+    private static class OffsetBindingStatement implements SupportSQLiteStatement {
+        private final SupportSQLiteStatement mDelegate;
+        int mOffset;
+
+        OffsetBindingStatement(SupportSQLiteStatement delegate) {
+            mDelegate = delegate;
+        }
+
+        @Override
+        public void bindNull(int index) {
+            mDelegate.bindNull(mOffset + index);
+        }
+
+        @Override
+        public void bindLong(int index, long value) {
+            mDelegate.bindLong(mOffset + index, value);
+        }
+
+        @Override
+        public void bindDouble(int index, double value) {
+            mDelegate.bindDouble(mOffset + index, value);
+        }
+
+        @Override
+        public void bindString(int index, String value) {
+            mDelegate.bindString(mOffset + index, value);
+        }
+
+        @Override
+        public void bindBlob(int index, byte[] value) {
+            mDelegate.bindBlob(mOffset + index, value);
+        }
+
+        @Override
+        public void clearBindings() {
+            mDelegate.clearBindings();
+        }
+
+        @Override
+        public void execute() {
+            mDelegate.execute();
+        }
+
+        @Override
+        public int executeUpdateDelete() {
+            return mDelegate.executeUpdateDelete();
+        }
+
+        @Override
+        public long executeInsert() {
+            return mDelegate.executeInsert();
+        }
+
+        @Override
+        public long simpleQueryForLong() {
+            return mDelegate.simpleQueryForLong();
+        }
+
+        @Override
+        public String simpleQueryForString() {
+            return mDelegate.simpleQueryForString();
+        }
+
+        @Override
+        public void close() {
+            mDelegate.close();
+        }
+    }
 }
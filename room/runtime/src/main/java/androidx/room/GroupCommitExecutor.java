@@ -0,0 +1,325 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package androidx.room;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merges group transactions submitted from different threads into a single SQLite transaction,
+ * so that they share one commit.
+ * <p>
+ * A batch starts on the transaction executor once its oldest transaction has waited for the
+ * configured window or enough transactions are pending, and holds that executor while it waits.
+ * Each body runs within its own savepoint: a body that throws is rolled back to it without
+ * affecting the others. A body that fails within a nested transaction makes SQLite roll back
+ * the whole batch though, so the other bodies of that batch run again in the next one. Each
+ * batch records its commit in a temporary table, which also catches nested transactions that
+ * did not go through the {@link RoomDatabase}: if the batch turns out to be rolled back, its
+ * bodies run again in transactions of their own.
+ * <p>
+ * Results are only handed out once the batch has committed.
+ */
+class GroupCommitExecutor {
+    private static final String SAVEPOINT = "room_group_commit";
+    private static final String COMMIT_TABLE = "room_group_commit_log";
+    private static final String CREATE_COMMIT_TABLE_SQL = "CREATE TEMP TABLE IF NOT EXISTS "
+            + COMMIT_TABLE + " (id INTEGER PRIMARY KEY, batch INTEGER NOT NULL)";
+
+    private final RoomDatabase mDatabase;
+    private final TransactionExecutor mTransactionExecutor;
+    private final long mWindowNanos;
+    private final int mMaxBatchSize;
+
+    // Should be accessed with synchronization on this only.
+    private final ArrayDeque<Entry<?>> mPending = new ArrayDeque<>();
+    private boolean mBatchQueued;
+    private long mBatchCount;
+    private long mBatchSequence;
+    private long mTransactionCount;
+    private long mFailedCount;
+    private long mRetriedCount;
+    private int mLargestBatchSize;
+    private long mTotalWaitNanos;
+    private long mMaxWaitNanos;
+    private long mTotalCommitNanos;
+    private long mMaxCommitNanos;
+
+    private final Runnable mBatchRunnable = new Runnable() {
+        @Override
+        public void run() {
+            runBatch();
+        }
+    };
+
+    GroupCommitExecutor(@NonNull RoomDatabase database,
+            @NonNull TransactionExecutor transactionExecutor, long windowMillis, int maxBatchSize) {
+        mDatabase = database;
+        mTransactionExecutor = transactionExecutor;
+        mWindowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        mMaxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Queues the body to run in the next batch.
+     *
+     * @param body The transaction body.
+     * @return The future result of the body, completed once its batch has committed.
+     */
+    @NonNull
+    <V> FutureTask<V> submit(@NonNull Callable<V> body) {
+        final Entry<V> entry = new Entry<>(body, System.nanoTime());
+        synchronized (this) {
+            mPending.add(entry);
+            if (!mBatchQueued) {
+                mBatchQueued = true;
+                mTransactionExecutor.execute(mBatchRunnable);
+            } else if (mPending.size() >= mMaxBatchSize) {
+                notifyAll();
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Returns true if the calling thread is running a task of the transaction executor, where it
+     * would wait for its own batch forever.
+     */
+    boolean isRunningOnTransactionExecutor() {
+        return mTransactionExecutor.isRunningOnCurrentThread();
+    }
+
+    @NonNull
+    synchronized GroupCommitStats getStats() {
+        return new GroupCommitStats(mBatchCount, mTransactionCount, mFailedCount, mRetriedCount,
+                mLargestBatchSize, mTotalWaitNanos, mMaxWaitNanos, mTotalCommitNanos,
+                mMaxCommitNanos);
+    }
+
+    // synthetic access
+    @SuppressWarnings("WeakerAccess")
+    void runBatch() {
+        final List<Entry<?>> batch = awaitBatch();
+        try {
+            if (!batch.isEmpty()) {
+                execute(batch);
+            }
+        } finally {
+            synchronized (this) {
+                if (mPending.isEmpty()) {
+                    mBatchQueued = false;
+                } else {
+                    mTransactionExecutor.execute(mBatchRunnable);
+                }
+            }
+        }
+    }
+
+    private synchronized List<Entry<?>> awaitBatch() {
+        final Entry<?> oldest = mPending.peek();
+        if (oldest != null) {
+            final long deadline = oldest.mEnqueueNanos + mWindowNanos;
+            long remaining = deadline - System.nanoTime();
+            while (mPending.size() < mMaxBatchSize && remaining > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                remaining = deadline - System.nanoTime();
+            }
+        }
+        final List<Entry<?>> batch = new ArrayList<>();
+        final long start = System.nanoTime();
+        while (batch.size() < mMaxBatchSize && !mPending.isEmpty()) {
+            final Entry<?> entry = mPending.poll();
+            if (!entry.isCancelled()) {
+                batch.add(entry);
+                final long waitNanos = start - entry.mEnqueueNanos;
+                mTotalWaitNanos += waitNanos;
+                mMaxWaitNanos = Math.max(mMaxWaitNanos, waitNanos);
+            }
+        }
+        return batch;
+    }
+
+    @SuppressWarnings("deprecation")
+    private void execute(List<Entry<?>> batch) {
+        Entry<?> culprit = null;
+        int failedCount = 0;
+        long commitStart = 0;
+        final long batchId;
+        synchronized (this) {
+            batchId = ++mBatchSequence;
+        }
+        final boolean committed;
+        try {
+            final SupportSQLiteDatabase db = mDatabase.getOpenHelper().getWritableDatabase();
+            db.execSQL(CREATE_COMMIT_TABLE_SQL);
+            mDatabase.beginTransaction();
+            try {
+                db.execSQL("INSERT OR REPLACE INTO " + COMMIT_TABLE + " VALUES(0, " + batchId
+                        + ")");
+                for (Entry<?> entry : batch) {
+                    final int failedNested = mDatabase.getFailedNestedTransactionCount();
+                    db.execSQL("SAVEPOINT " + SAVEPOINT);
+                    final boolean succeeded = entry.runBody();
+                    if (mDatabase.getFailedNestedTransactionCount() != failedNested) {
+                        // SQLite will roll back the whole transaction when it ends
+                        culprit = entry;
+                        break;
+                    }
+                    if (!succeeded) {
+                        failedCount++;
+                        // The leading semicolon keeps the framework from treating the statement
+                        // as the end of the transaction.
+                        db.execSQL(";ROLLBACK TO " + SAVEPOINT);
+                    }
+                    db.execSQL("RELEASE " + SAVEPOINT);
+                }
+                if (culprit == null) {
+                    mDatabase.setTransactionSuccessful();
+                }
+            } finally {
+                commitStart = System.nanoTime();
+                mDatabase.endTransaction();
+            }
+            committed = culprit == null && isCommitted(db, batchId);
+        } catch (RuntimeException | Error e) {
+            for (Entry<?> entry : batch) {
+                entry.fail(e);
+            }
+            recordBatch(batch.size(), batch.size(), 0, commitStart);
+            return;
+        }
+        if (culprit != null) {
+            // The culprit keeps the outcome it would have had in a transaction of its own.
+            culprit.complete();
+            final List<Entry<?>> retried = new ArrayList<>(batch);
+            retried.remove(culprit);
+            synchronized (this) {
+                for (int i = retried.size() - 1; i >= 0; i--) {
+                    mPending.addFirst(retried.get(i));
+                }
+            }
+            recordBatch(batch.size(), culprit.mError != null ? 1 : 0, retried.size(), commitStart);
+            return;
+        }
+        if (!committed && batch.size() > 1) {
+            // A body failed within a nested transaction we could not see, so run each body on its
+            // own to roll back only the one that failed.
+            recordBatch(batch.size(), 0, batch.size(), commitStart);
+            for (Entry<?> entry : batch) {
+                execute(Collections.<Entry<?>>singletonList(entry));
+            }
+            return;
+        }
+        // A single body that was rolled back keeps the outcome it has in a transaction of its own.
+        for (Entry<?> entry : batch) {
+            entry.complete();
+        }
+        recordBatch(batch.size(), failedCount, 0, commitStart);
+    }
+
+    /**
+     * Returns true if the batch with the given id has committed. The commit table is temporary,
+     * so it is only visible to the writer connection, which is used within a transaction.
+     */
+    private static boolean isCommitted(SupportSQLiteDatabase db, long batchId) {
+        db.beginTransactionNonExclusive();
+        try {
+            final Cursor cursor = db.query("SELECT batch FROM " + COMMIT_TABLE);
+            try {
+                return cursor.moveToFirst() && cursor.getLong(0) == batchId;
+            } finally {
+                cursor.close();
+            }
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private synchronized void recordBatch(int size, int failedCount, int retriedCount,
+            long commitStart) {
+        mBatchCount++;
+        mTransactionCount += size;
+        mFailedCount += failedCount;
+        mRetriedCount += retriedCount;
+        mLargestBatchSize = Math.max(mLargestBatchSize, size);
+        if (commitStart != 0) {
+            final long commitNanos = System.nanoTime() - commitStart;
+            mTotalCommitNanos += commitNanos;
+            mMaxCommitNanos = Math.max(mMaxCommitNanos, commitNanos);
+        }
+    }
+
+    /**
+     * A group transaction, completed explicitly once its batch has committed.
+     */
+    private static final class Entry<V> extends FutureTask<V> {
+        final Callable<V> mBody;
+        final long mEnqueueNanos;
+        V mResult;
+        Throwable mError;
+
+        Entry(Callable<V> body, long enqueueNanos) {
+            super(body);
+            mBody = body;
+            mEnqueueNanos = enqueueNanos;
+        }
+
+        /**
+         * Runs the body, keeping its outcome until {@link #complete()}.
+         *
+         * @return True if the body returned normally.
+         */
+        boolean runBody() {
+            mError = null;
+            try {
+                mResult = mBody.call();
+                return true;
+            } catch (Exception e) {
+                mError = e;
+                return false;
+            }
+        }
+
+        void complete() {
+            if (mError != null) {
+                setException(mError);
+            } else {
+                set(mResult);
+            }
+        }
+
+        void fail(Throwable error) {
+            setException(error);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package androidx.room;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+
+/**
+ * A snapshot of how a {@link RoomDatabase} merged group transactions into batches.
+ *
+ * @see RoomDatabase.Builder#enableGroupCommit(long, java.util.concurrent.TimeUnit, int)
+ * @see RoomDatabase#getGroupCommitStats()
+ */
+public final class GroupCommitStats {
+    private final long mBatchCount;
+    private final long mTransactionCount;
+    private final long mFailedCount;
+    private final long mRetriedCount;
+    private final int mMaxBatchSize;
+    private final long mTotalWaitNanos;
+    private final long mMaxWaitNanos;
+    private final long mTotalCommitNanos;
+    private final long mMaxCommitNanos;
+
+    GroupCommitStats(long batchCount, long transactionCount, long failedCount, long retriedCount,
+            int maxBatchSize, long totalWaitNanos, long maxWaitNanos, long totalCommitNanos,
+            long maxCommitNanos) {
+        mBatchCount = batchCount;
+        mTransactionCount = transactionCount;
+        mFailedCount = failedCount;
+        mRetriedCount = retriedCount;
+        mMaxBatchSize = maxBatchSize;
+        mTotalWaitNanos = totalWaitNanos;
+        mMaxWaitNanos = maxWaitNanos;
+        mTotalCommitNanos = totalCommitNanos;
+        mMaxCommitNanos = maxCommitNanos;
+    }
+
+    /**
+     * Returns the number of SQLite transactions that ran group transactions.
+     */
+    public long getBatchCount() {
+        return mBatchCount;
+    }
+
+    /**
+     * Returns the number of group transactions that ran in a batch, including failed ones.
+     */
+    public long getTransactionCount() {
+        return mTransactionCount;
+    }
+
+    /**
+     * Returns the number of group transactions whose body threw and that were rolled back.
+     */
+    public long getFailedCount() {
+        return mFailedCount;
+    }
+
+    /**
+     * Returns the number of times a group transaction had to run again because another body in
+     * its batch failed within a nested transaction, which rolls back the whole batch.
+     */
+    public long getRetriedCount() {
+        return mRetriedCount;
+    }
+
+    /**
+     * Returns the largest number of group transactions that ran in a single batch.
+     */
+    public int getMaxBatchSize() {
+        return mMaxBatchSize;
+    }
+
+    /**
+     * Returns the average number of group transactions per batch, or 0 if there were no batches.
+     */
+    public double getAverageBatchSize() {
+        return mBatchCount == 0 ? 0 : (double) mTransactionCount / mBatchCount;
+    }
+
+    /**
+     * Returns the total time, in nanoseconds, that group transactions waited for their batch to
+     * start.
+     */
+    public long getTotalWaitNanos() {
+        return mTotalWaitNanos;
+    }
+
+    /**
+     * Returns the longest time, in nanoseconds, that a single group transaction waited for its
+     * batch to start.
+     */
+    public long getMaxWaitNanos() {
+        return mMaxWaitNanos;
+    }
+
+    /**
+     * Returns the total time, in nanoseconds, spent committing batches.
+     */
+    public long getTotalCommitNanos() {
+        return mTotalCommitNanos;
+    }
+
+    /**
+     * Returns the longest time, in nanoseconds, spent committing a single batch.
+     */
+    public long getMaxCommitNanos() {
+        return mMaxCommitNanos;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "GroupCommitStats[batches=%d, transactions=%d,"
+                        + " failed=%d, retried=%d, maxBatchSize=%d, averageBatchSize=%.2f,"
+                        + " totalWaitNanos=%d, maxWaitNanos=%d, totalCommitNanos=%d,"
+                        + " maxCommitNanos=%d]", mBatchCount, mTransactionCount, mFailedCount,
+                mRetriedCount, mMaxBatchSize, getAverageBatchSize(), mTotalWaitNanos,
+                mMaxWaitNanos, mTotalCommitNanos, mMaxCommitNanos);
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package androidx.room;
+
+import androidx.annotation.NonNull;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A memory-mapped file of per-table change counters, shared by every instance of a database in
+ * every process for multi-instance invalidation.
+ * <p>
+ * The file starts with a header identifying the tables, followed by {@link #MAX_SLOTS} slots of
+ * one counter per table. Each instance claims a slot by locking a byte of the header, so every
+ * counter has a single writer that increments it without further synchronization. Readers
+ * compare the counters of all other slots with the values they saw last. The system releases
+ * the locks of a process when it dies, which frees its slot for the next instance.
+ */
+final class InvalidationCounterFile implements Closeable {
+
+    static final int MAX_SLOTS = 16;
+
+    private static final int MAGIC = 0x526f6f6d;
+    // magic, table count, hash of the table names and one reserved int
+    private static final int HEADER_LOCK_SIZE = 16;
+    private static final int SLOT_LOCKS_OFFSET = HEADER_LOCK_SIZE;
+    private static final int COUNTERS_OFFSET = SLOT_LOCKS_OFFSET + MAX_SLOTS;
+
+    // Closing any channel of a file drops every lock the process holds on it, so the instances
+    // of a process share one channel per file. Should be accessed with synchronization on it.
+    private static final Map<String, SharedChannel> sChannels = new HashMap<>();
+
+    private final String mPath;
+    private final SharedChannel mChannel;
+    private final String[] mTableNames;
+    private final Map<String, Integer> mTableIndices;
+    private final MappedByteBuffer mBuffer;
+    private final int mSlot;
+    private final FileLock mSlotLock;
+    // Should be accessed with synchronization on this only.
+    private final long[] mSeenCounters;
+    private boolean mClosed;
+
+    /**
+     * Opens the counter file, initializing it if it is new or was created for other tables by
+     * instances that no longer run, and claims a slot for this instance.
+     *
+     * @param file       The counter file.
+     * @param tableNames The names of the tables to count changes of, in any order.
+     * @return The opened file.
+     * @throws IOException If the file cannot be mapped, is in use for other tables or has no
+     *                     free slot.
+     */
+    @NonNull
+    static InvalidationCounterFile open(@NonNull File file, @NonNull String[] tableNames)
+            throws IOException {
+        final String path = file.getCanonicalPath();
+        final String[] sortedNames = tableNames.clone();
+        Arrays.sort(sortedNames);
+        synchronized (sChannels) {
+            SharedChannel channel = sChannels.get(path);
+            if (channel == null) {
+                channel = new SharedChannel(new RandomAccessFile(file, "rw").getChannel());
+                sChannels.put(path, channel);
+            }
+            channel.mRefCount++;
+            try {
+                return new InvalidationCounterFile(path, channel, sortedNames);
+            } catch (IOException | RuntimeException e) {
+                releaseChannel(path, channel);
+                throw e;
+            }
+        }
+    }
+
+    private InvalidationCounterFile(String path, SharedChannel channel, String[] tableNames)
+            throws IOException {
+        mPath = path;
+        mChannel = channel;
+        mTableNames = tableNames;
+        mTableIndices = new HashMap<>();
+        for (int i = 0; i < tableNames.length; i++) {
+            mTableIndices.put(tableNames[i], i);
+        }
+        final FileChannel fileChannel = channel.mFileChannel;
+        mBuffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                COUNTERS_OFFSET + (long) MAX_SLOTS * tableNames.length * 8);
+        final FileLock headerLock = fileChannel.lock(0, HEADER_LOCK_SIZE, false);
+        try {
+            final int hash = Arrays.hashCode(tableNames);
+            if (mBuffer.getInt(0) != MAGIC || mBuffer.getInt(4) != tableNames.length
+                    || mBuffer.getInt(8) != hash) {
+                if (mBuffer.getInt(0) == MAGIC && hasClaimedSlots(fileChannel)) {
+                    throw new IOException("Invalidation counters in " + path
+                            + " are in use for other tables");
+                }
+                for (int offset = COUNTERS_OFFSET; offset < mBuffer.capacity(); offset += 8) {
+                    mBuffer.putLong(offset, 0);
+                }
+                mBuffer.putInt(4, tableNames.length);
+                mBuffer.putInt(8, hash);
+                mBuffer.putInt(0, MAGIC);
+            }
+            FileLock slotLock = null;
+            int slot = 0;
+            for (; slot < MAX_SLOTS && slotLock == null; slot++) {
+                slotLock = tryLockSlot(fileChannel, slot);
+            }
+            if (slotLock == null) {
+                throw new IOException("No free invalidation counter slot in " + path);
+            }
+            mSlot = slot - 1;
+            mSlotLock = slotLock;
+        } finally {
+            headerLock.release();
+        }
+        mSeenCounters = new long[MAX_SLOTS * tableNames.length];
+        for (int i = 0; i < mSeenCounters.length; i++) {
+            mSeenCounters[i] = mBuffer.getLong(COUNTERS_OFFSET + i * 8);
+        }
+    }
+
+    /**
+     * Increments the counters of the given tables in the slot of this instance. Names of tables
+     * the file does not count are ignored.
+     */
+    synchronized void increment(@NonNull Set<String> tables) {
+        if (mClosed) {
+            return;
+        }
+        for (String table : tables) {
+            final Integer index = mTableIndices.get(table);
+            if (index != null) {
+                final int offset = counterOffset(mSlot, index);
+                mBuffer.putLong(offset, mBuffer.getLong(offset) + 1);
+            }
+        }
+    }
+
+    /**
+     * Returns the tables whose counters other instances changed since the last call.
+     *
+     * @return The names of the invalidated tables, possibly empty.
+     */
+    @NonNull
+    synchronized String[] collectInvalidated() {
+        if (mClosed) {
+            return new String[0];
+        }
+        final boolean[] invalidated = new boolean[mTableNames.length];
+        int count = 0;
+        for (int slot = 0; slot < MAX_SLOTS; slot++) {
+            if (slot == mSlot) {
+                continue;
+            }
+            for (int index = 0; index < mTableNames.length; index++) {
+                final int seenIndex = slot * mTableNames.length + index;
+                final long counter = mBuffer.getLong(counterOffset(slot, index));
+                if (counter != mSeenCounters[seenIndex]) {
+                    mSeenCounters[seenIndex] = counter;
+                    if (!invalidated[index]) {
+                        invalidated[index] = true;
+                        count++;
+                    }
+                }
+            }
+        }
+        final String[] tables = new String[count];
+        for (int index = 0, i = 0; i < count; index++) {
+            if (invalidated[index]) {
+                tables[i++] = mTableNames[index];
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * Returns the slot claimed by this instance.
+     */
+    int getSlot() {
+        return mSlot;
+    }
+
+    /**
+     * Releases the slot of this instance. Its counters are kept so that the next instance
+     * claiming it continues from them.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (mClosed) {
+                return;
+            }
+            mClosed = true;
+        }
+        synchronized (sChannels) {
+            try {
+                mSlotLock.release();
+            } finally {
+                releaseChannel(mPath, mChannel);
+            }
+        }
+    }
+
+    private int counterOffset(int slot, int index) {
+        return COUNTERS_OFFSET + (slot * mTableNames.length + index) * 8;
+    }
+
+    private static boolean hasClaimedSlots(FileChannel channel) throws IOException {
+        for (int slot = 0; slot < MAX_SLOTS; slot++) {
+            final FileLock lock = tryLockSlot(channel, slot);
+            if (lock == null) {
+                return true;
+            }
+            lock.release();
+        }
+        return false;
+    }
+
+    private static FileLock tryLockSlot(FileChannel channel, int slot) throws IOException {
+        try {
+            return channel.tryLock(SLOT_LOCKS_OFFSET + slot, 1, false);
+        } catch (OverlappingFileLockException e) {
+            // claimed by another instance in this process
+            return null;
+        }
+    }
+
+    private static void releaseChannel(String path, SharedChannel channel) throws IOException {
+        if (--channel.mRefCount == 0) {
+            sChannels.remove(path);
+            channel.mFileChannel.close();
+        }
+    }
+
+    private static final class SharedChannel {
+        final FileChannel mFileChannel;
+        int mRefCount;
+
+        SharedChannel(FileChannel fileChannel) {
+            mFileChannel = fileChannel;
+        }
+    }
+}
@@ -20,6 +20,7 @@ import android.annotation.SuppressLint;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteException;
+import android.os.SystemClock;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
@@ -59,7 +60,9 @@ import java.util.concurrent.locks.Lock;
 // * Each update (write operation) on one of the observed tables triggers an update into the
 // memory table table, flipping the invalidated flag ON.
 // * When multi-instance invalidation is turned on, MultiInstanceInvalidationClient will be created.
-// It works as an Observer, and notifies other instances of table invalidation.
+// It works as an Observer, and notifies other instances of table invalidation. If a shared memory
+// poll interval is set, SharedMemoryInvalidationClient is created instead and exchanges
+// invalidations through counters in a memory-mapped file.
 public class InvalidationTracker {
 
     private static final String[] TRIGGERS = new String[]{"UPDATE", "DELETE", "INSERT"};
@@ -108,8 +111,30 @@ public class InvalidationTracker {
     @SuppressLint("RestrictedApi")
     final SafeIterableMap<Observer, ObserverWrapper> mObserverMap = new SafeIterableMap<>();
 
+    // Observers indexed by the ids of the tables they observe, so that dispatch only visits the
+    // observers of invalidated tables. Each array is replaced rather than modified so that a
+    // dispatch can keep iterating while observers add or remove themselves from a callback.
+    // Should be accessed with synchronization on mObserverMap only.
+    private final ObserverWrapper[][] mObserversByTable;
+
+    // Incremented for every dispatch so that an observer of several invalidated tables is only
+    // notified once. Should be accessed with synchronization on mObserverMap only.
+    private int mDispatchGeneration;
+
+    // Number of observers which are not remote. Should be accessed with synchronization on
+    // mObserverMap only.
+    private int mLocalObserverCount;
+
+    private volatile long mCoalescingWindowMillis;
+
+    private volatile long mLastRefreshUptimeMillis;
+
+    private volatile long mSharedMemoryPollIntervalMillis;
+
     private MultiInstanceInvalidationClient mMultiInstanceInvalidationClient;
 
+    private volatile SharedMemoryInvalidationClient mSharedMemoryInvalidationClient;
+
     /**
      * Used by the generated code.
      *
@@ -138,6 +163,8 @@ public class InvalidationTracker {
         mInvalidationLiveDataContainer = new InvalidationLiveDataContainer(mDatabase);
         final int size = tableNames.length;
         mTableNames = new String[size];
+        mObserversByTable = new ObserverWrapper[size][];
+        Arrays.fill(mObserversByTable, ObserverWrapper.EMPTY_ARRAY);
         for (int id = 0; id < size; id++) {
             final String tableName = tableNames[id].toLowerCase(Locale.US);
             mTableIdLookup.put(tableName, id);
@@ -183,8 +210,14 @@ public class InvalidationTracker {
     }
 
     void startMultiInstanceInvalidation(Context context, String name) {
-        mMultiInstanceInvalidationClient = new MultiInstanceInvalidationClient(context, name, this,
-                mDatabase.getQueryExecutor());
+        final long pollIntervalMillis = mSharedMemoryPollIntervalMillis;
+        if (pollIntervalMillis > 0) {
+            mSharedMemoryInvalidationClient = new SharedMemoryInvalidationClient(context, name,
+                    this, mDatabase.getQueryExecutor(), pollIntervalMillis);
+        } else {
+            mMultiInstanceInvalidationClient = new MultiInstanceInvalidationClient(context, name,
+                    this, mDatabase.getQueryExecutor());
+        }
     }
 
     void stopMultiInstanceInvalidation() {
@@ -192,6 +225,10 @@ public class InvalidationTracker {
             mMultiInstanceInvalidationClient.stop();
             mMultiInstanceInvalidationClient = null;
         }
+        if (mSharedMemoryInvalidationClient != null) {
+            mSharedMemoryInvalidationClient.stop();
+            mSharedMemoryInvalidationClient = null;
+        }
     }
 
     private static void appendTriggerName(StringBuilder builder, String tableName,
@@ -268,12 +305,28 @@ public class InvalidationTracker {
         }
         ObserverWrapper wrapper = new ObserverWrapper(observer, tableIds, tableNames);
         ObserverWrapper currentObserver;
+        boolean firstLocalObserver = false;
         synchronized (mObserverMap) {
             currentObserver = mObserverMap.putIfAbsent(observer, wrapper);
+            if (currentObserver == null) {
+                if (!observer.isRemote()) {
+                    firstLocalObserver = mLocalObserverCount++ == 0;
+                }
+                for (int tableId : tableIds) {
+                    ObserverWrapper[] observers = mObserversByTable[tableId];
+                    ObserverWrapper[] newObservers =
+                            Arrays.copyOf(observers, observers.length + 1);
+                    newObservers[observers.length] = wrapper;
+                    mObserversByTable[tableId] = newObservers;
+                }
+            }
         }
         if (currentObserver == null && mObservedTableTracker.onAdded(tableIds)) {
             syncTriggers();
         }
+        if (firstLocalObserver) {
+            onLocalObserversChanged();
+        }
     }
 
     private String[] validateAndResolveTableNames(String[] tableNames) {
@@ -330,12 +383,52 @@ public class InvalidationTracker {
     @WorkerThread
     public void removeObserver(@NonNull final Observer observer) {
         ObserverWrapper wrapper;
+        boolean lastLocalObserver = false;
         synchronized (mObserverMap) {
             wrapper = mObserverMap.remove(observer);
+            if (wrapper != null) {
+                if (!observer.isRemote()) {
+                    lastLocalObserver = --mLocalObserverCount == 0;
+                }
+                wrapper.mRemoved = true;
+                for (int tableId : wrapper.mTableIds) {
+                    removeFromTable(tableId, wrapper);
+                }
+            }
         }
         if (wrapper != null && mObservedTableTracker.onRemoved(wrapper.mTableIds)) {
             syncTriggers();
         }
+        if (lastLocalObserver) {
+            onLocalObserversChanged();
+        }
+    }
+
+    boolean hasLocalObservers() {
+        synchronized (mObserverMap) {
+            return mLocalObserverCount > 0;
+        }
+    }
+
+    private void onLocalObserversChanged() {
+        final SharedMemoryInvalidationClient client = mSharedMemoryInvalidationClient;
+        if (client != null) {
+            client.onLocalObserversChanged();
+        }
+    }
+
+    // Should be called with synchronization on mObserverMap only.
+    private void removeFromTable(int tableId, ObserverWrapper wrapper) {
+        ObserverWrapper[] observers = mObserversByTable[tableId];
+        for (int i = 0; i < observers.length; i++) {
+            if (observers[i] == wrapper) {
+                ObserverWrapper[] newObservers = new ObserverWrapper[observers.length - 1];
+                System.arraycopy(observers, 0, newObservers, 0, i);
+                System.arraycopy(observers, i + 1, newObservers, i, observers.length - i - 1);
+                mObserversByTable[tableId] = newObservers;
+                return;
+            }
+        }
     }
 
     @SuppressWarnings("WeakerAccess") /* synthetic access */
@@ -359,7 +452,7 @@ public class InvalidationTracker {
         @Override
         public void run() {
             final Lock closeLock = mDatabase.getCloseLock();
-            Set<Integer> invalidatedTableIds = null;
+            long[] invalidatedTableIds = null;
             closeLock.lock();
             try {
 
@@ -379,6 +472,10 @@ public class InvalidationTracker {
                     return;
                 }
 
+                if (mCoalescingWindowMillis > 0) {
+                    mLastRefreshUptimeMillis = SystemClock.uptimeMillis();
+                }
+
                 if (mDatabase.mWriteAheadLoggingEnabled) {
                     // This transaction has to be on the underlying DB rather than the RoomDatabase
                     // in order to avoid a recursive loop after endTransaction.
@@ -400,34 +497,88 @@ public class InvalidationTracker {
             } finally {
                 closeLock.unlock();
             }
-            if (invalidatedTableIds != null && !invalidatedTableIds.isEmpty()) {
-                synchronized (mObserverMap) {
-                    for (Map.Entry<Observer, ObserverWrapper> entry : mObserverMap) {
-                        entry.getValue().notifyByTableInvalidStatus(invalidatedTableIds);
-                    }
-                }
+            if (invalidatedTableIds != null) {
+                notifyObserversByTableIds(invalidatedTableIds);
             }
         }
 
-        private Set<Integer> checkUpdatedTable() {
-            HashSet<Integer> invalidatedTableIds = new HashSet<>();
+        /**
+         * @return A bitmask of the invalidated table ids, or null if no table was invalidated.
+         */
+        @Nullable
+        private long[] checkUpdatedTable() {
+            long[] invalidatedTableIds = null;
             Cursor cursor = mDatabase.query(new SimpleSQLiteQuery(SELECT_UPDATED_TABLES_SQL));
             //noinspection TryFinallyCanBeTryWithResources
             try {
                 while (cursor.moveToNext()) {
                     final int tableId = cursor.getInt(0);
-                    invalidatedTableIds.add(tableId);
+                    if (invalidatedTableIds == null) {
+                        invalidatedTableIds = new long[(mTableNames.length + 63) >>> 6];
+                    }
+                    invalidatedTableIds[tableId >>> 6] |= 1L << tableId;
                 }
             } finally {
                 cursor.close();
             }
-            if (!invalidatedTableIds.isEmpty()) {
+            if (invalidatedTableIds != null) {
                 mCleanupStatement.executeUpdateDelete();
             }
             return invalidatedTableIds;
         }
     };
 
+    /**
+     * Notifies the observers of the tables whose ids are set in the given bitmask, visiting only
+     * the observers of those tables.
+     *
+     * @param invalidatedTableIds A bitmask where bit {@code id & 63} of word {@code id >>> 6} is
+     *                            set if the table with that id is invalidated.
+     */
+    @VisibleForTesting
+    void notifyObserversByTableIds(long[] invalidatedTableIds) {
+        synchronized (mObserverMap) {
+            final int generation = ++mDispatchGeneration;
+            for (int word = 0; word < invalidatedTableIds.length; word++) {
+                long bits = invalidatedTableIds[word];
+                while (bits != 0) {
+                    final int tableId = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    for (ObserverWrapper wrapper : mObserversByTable[tableId]) {
+                        // Skip observers already notified in this dispatch, or removed by an
+                        // observer notified earlier in it.
+                        if (wrapper.mDispatchGeneration != generation && !wrapper.mRemoved) {
+                            wrapper.mDispatchGeneration = generation;
+                            wrapper.notifyByTableIds(invalidatedTableIds);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the minimum time between two refreshes started by {@link #refreshVersionsAsync()}.
+     * Invalidations that happen within the window of the last refresh are delivered together
+     * when it ends, as a single notification per observer.
+     *
+     * @param windowMillis The window in milliseconds, or 0 to refresh after every transaction.
+     */
+    void setCoalescingWindow(long windowMillis) {
+        mCoalescingWindowMillis = windowMillis;
+    }
+
+    /**
+     * Makes multi-instance invalidation use change counters in shared memory, polled at the
+     * given interval, instead of the binder service. Called by the {@link RoomDatabase.Builder}
+     * before {@link #startMultiInstanceInvalidation(Context, String)}.
+     *
+     * @param pollIntervalMillis The poll interval, or 0 to use the binder service.
+     */
+    void setSharedMemoryPollInterval(long pollIntervalMillis) {
+        mSharedMemoryPollIntervalMillis = pollIntervalMillis;
+    }
+
     /**
      * Enqueues a task to refresh the list of updated tables.
      * <p>
@@ -439,7 +590,16 @@ public class InvalidationTracker {
     public void refreshVersionsAsync() {
         // TODO we should consider doing this sync instead of async.
         if (mPendingRefresh.compareAndSet(false, true)) {
-            mDatabase.getQueryExecutor().execute(mRefreshRunnable);
+            final long window = mCoalescingWindowMillis;
+            final long delay = window > 0
+                    ? mLastRefreshUptimeMillis + window - SystemClock.uptimeMillis() : 0;
+            if (delay > 0) {
+                // Further calls are no-ops until the refresh runs, and the modification log
+                // accumulates every table invalidated in the meantime.
+                DelayScheduler.schedule(mDatabase.getQueryExecutor(), mRefreshRunnable, delay);
+            } else {
+                mDatabase.getQueryExecutor().execute(mRefreshRunnable);
+            }
         }
     }
 
@@ -589,50 +749,59 @@ public class InvalidationTracker {
      */
     @SuppressWarnings("WeakerAccess")
     static class ObserverWrapper {
+        static final ObserverWrapper[] EMPTY_ARRAY = new ObserverWrapper[0];
+
         final int[] mTableIds;
         private final String[] mTableNames;
         final Observer mObserver;
-        private final Set<String> mSingleTableSet;
+        // All of the observed tables, passed as is when they are all invalidated at once.
+        private final Set<String> mAllTablesSet;
+
+        // Should be accessed with synchronization on mObserverMap only.
+        int mDispatchGeneration;
+        boolean mRemoved;
 
         ObserverWrapper(Observer observer, int[] tableIds, String[] tableNames) {
             mObserver = observer;
             mTableIds = tableIds;
             mTableNames = tableNames;
-            if (tableIds.length == 1) {
-                HashSet<String> set = new HashSet<>();
-                set.add(mTableNames[0]);
-                mSingleTableSet = Collections.unmodifiableSet(set);
-            } else {
-                mSingleTableSet = null;
-            }
+            mAllTablesSet = Collections.unmodifiableSet(
+                    new HashSet<>(Arrays.asList(tableNames)));
         }
 
         /**
          * Notifies the underlying {@link #mObserver} if any of the observed tables are invalidated
-         * based on the given invalid status set.
+         * based on the given bitmask of table ids.
          *
-         * @param invalidatedTablesIds The table ids of the tables that are invalidated.
+         * @param invalidatedTableIds A bitmask of the ids of the tables that are invalidated.
          */
-        void notifyByTableInvalidStatus(Set<Integer> invalidatedTablesIds) {
-            Set<String> invalidatedTables = null;
+        void notifyByTableIds(long[] invalidatedTableIds) {
             final int size = mTableIds.length;
+            int invalidatedCount = 0;
             for (int index = 0; index < size; index++) {
-                final int tableId = mTableIds[index];
-                if (invalidatedTablesIds.contains(tableId)) {
-                    if (size == 1) {
-                        // Optimization for a single-table observer
-                        invalidatedTables = mSingleTableSet;
-                    } else {
-                        if (invalidatedTables == null) {
-                            invalidatedTables = new HashSet<>(size);
-                        }
-                        invalidatedTables.add(mTableNames[index]);
-                    }
+                if (isSet(invalidatedTableIds, mTableIds[index])) {
+                    invalidatedCount++;
                 }
             }
-            if (invalidatedTables != null) {
-                mObserver.onInvalidated(invalidatedTables);
+            if (invalidatedCount == 0) {
+                return;
+            }
+            if (invalidatedCount == size) {
+                // Covers single-table observers without allocating.
+                mObserver.onInvalidated(mAllTablesSet);
+                return;
             }
+            Set<String> invalidatedTables = new HashSet<>(invalidatedCount);
+            for (int index = 0; index < size; index++) {
+                if (isSet(invalidatedTableIds, mTableIds[index])) {
+                    invalidatedTables.add(mTableNames[index]);
+                }
+            }
+            mObserver.onInvalidated(invalidatedTables);
+        }
+
+        private static boolean isSet(long[] bitmask, int tableId) {
+            return (bitmask[tableId >>> 6] & (1L << tableId)) != 0;
         }
 
         /**
@@ -647,7 +816,7 @@ public class InvalidationTracker {
                 for (String table : tables) {
                     if (table.equalsIgnoreCase(mTableNames[0])) {
                         // Optimization for a single-table observer
-                        invalidatedTables = mSingleTableSet;
+                        invalidatedTables = mAllTablesSet;
                         break;
                     }
                 }
@@ -0,0 +1,365 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.CursorWrapper;
+import android.os.Build;
+import android.os.CancellationSignal;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of read-only connections to a database in write-ahead logging mode, so that queries
+ * running outside of a transaction do not wait for the writer connection.
+ * <p>
+ * Each reader is a separate {@link SupportSQLiteOpenHelper} created by the factory of the
+ * database, or the factory it wraps to copy a pre-packaged database, opened lazily once the
+ * writer has created, copied or migrated the database. Readers are
+ * marked {@code query_only} so that a misrouted statement fails instead of writing outside of
+ * the writer's transactions.
+ * <p>
+ * A reader is held by the cursor returned from {@link #query(SupportSQLiteQuery,
+ * CancellationSignal)} until that cursor is closed. A thread that already holds a reader, for
+ * example while it iterates over a cursor, gets the same reader for its nested queries instead of
+ * waiting for another one, which could otherwise never be released.
+ */
+class ReaderConnectionPool {
+
+    private final SupportSQLiteOpenHelper.Factory mFactory;
+    private final Context mContext;
+    private final String mName;
+    private final SupportSQLiteOpenHelper mWriter;
+    private final int mSize;
+
+    // Should be accessed with synchronization on this only.
+    private final ArrayDeque<SupportSQLiteDatabase> mIdleReaders = new ArrayDeque<>();
+    private final List<SupportSQLiteOpenHelper> mReaderHelpers = new ArrayList<>();
+    private final Map<SupportSQLiteDatabase, Hold> mHolds = new IdentityHashMap<>();
+    private int mOpenedReaders;
+    private boolean mClosed;
+
+    private final ThreadLocal<Hold> mCurrentHold = new ThreadLocal<>();
+
+    private final AtomicLong mAcquireCount = new AtomicLong();
+    private final AtomicLong mWaitCount = new AtomicLong();
+    private final AtomicLong mTotalWaitNanos = new AtomicLong();
+    private final AtomicLong mMaxWaitNanos = new AtomicLong();
+
+    ReaderConnectionPool(@NonNull SupportSQLiteOpenHelper.Factory factory,
+            @NonNull Context context, @NonNull String name,
+            @NonNull SupportSQLiteOpenHelper writer, int size) {
+        if (factory instanceof SQLiteCopyOpenHelperFactory) {
+            // The writer has already copied the database by the time a reader opens it.
+            mFactory = ((SQLiteCopyOpenHelperFactory) factory).getDelegate();
+        } else {
+            mFactory = factory;
+        }
+        mContext = context;
+        mName = name;
+        mWriter = writer;
+        mSize = size;
+    }
+
+    /**
+     * Returns true if the given SQL can run on a reader. Only plain {@code SELECT} statements
+     * qualify; anything else, including a {@code WITH} clause that may wrap a write, stays on
+     * the writer.
+     */
+    static boolean isReadOnlyQuery(@NonNull String sql) {
+        final int length = sql.length();
+        int start = 0;
+        while (start < length && Character.isWhitespace(sql.charAt(start))) {
+            start++;
+        }
+        return sql.regionMatches(true, start, "SELECT", 0, 6);
+    }
+
+    /**
+     * Runs the query on a reader. The reader is returned to the pool when the returned cursor is
+     * closed.
+     */
+    @NonNull
+    Cursor query(@NonNull SupportSQLiteQuery query, @Nullable CancellationSignal signal) {
+        return query(query, signal, 0);
+    }
+
+    /**
+     * Runs the query on a reader with cursor windows of the given size, or of the default size
+     * if it is 0.
+     */
+    @NonNull
+    Cursor query(@NonNull SupportSQLiteQuery query, @Nullable CancellationSignal signal,
+            long cursorWindowSize) {
+        final SupportSQLiteDatabase reader = acquire();
+        try {
+            final Cursor cursor;
+            if (cursorWindowSize > 0) {
+                cursor = reader.query(query, signal, cursorWindowSize);
+            } else if (signal != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                cursor = reader.query(query, signal);
+            } else {
+                cursor = reader.query(query);
+            }
+            return new ReleasingCursor(cursor, reader);
+        } catch (RuntimeException e) {
+            release(reader);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the reader the calling thread already holds, or takes an idle reader, opening a
+     * new one if fewer than the pool size are open, or waits for one to be released.
+     */
+    @VisibleForTesting
+    @NonNull
+    SupportSQLiteDatabase acquire() {
+        final Hold current = mCurrentHold.get();
+        long waitStart = 0;
+        synchronized (this) {
+            while (true) {
+                if (mClosed) {
+                    throw new IllegalStateException("Cannot acquire a reader, the database is "
+                            + "closed.");
+                }
+                if (current != null && current.mCount > 0) {
+                    current.mCount++;
+                    recordAcquire(waitStart);
+                    return current.mReader;
+                }
+                SupportSQLiteDatabase reader = mIdleReaders.pollFirst();
+                if (reader != null) {
+                    hold(reader);
+                    recordAcquire(waitStart);
+                    return reader;
+                }
+                if (mOpenedReaders < mSize) {
+                    mOpenedReaders++;
+                    break;
+                }
+                if (waitStart == 0) {
+                    waitStart = System.nanoTime();
+                }
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for a reader.", e);
+                }
+            }
+        }
+        // Open the new reader outside of the lock, so that releases are not blocked by it.
+        try {
+            final SupportSQLiteDatabase reader = openReader();
+            synchronized (this) {
+                hold(reader);
+            }
+            recordAcquire(waitStart);
+            return reader;
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                mOpenedReaders--;
+                notify();
+            }
+            throw e;
+        }
+    }
+
+    // Should be called with synchronization on this.
+    private void hold(SupportSQLiteDatabase reader) {
+        final Hold hold = new Hold(reader);
+        mHolds.put(reader, hold);
+        mCurrentHold.set(hold);
+    }
+
+    /**
+     * Releases one acquisition of the reader, returning it to the pool once every acquisition
+     * of the thread holding it is released.
+     */
+    @VisibleForTesting
+    void release(@NonNull SupportSQLiteDatabase reader) {
+        synchronized (this) {
+            final Hold hold = mHolds.get(reader);
+            if (hold != null && --hold.mCount > 0) {
+                return;
+            }
+            mHolds.remove(reader);
+            if (!mClosed) {
+                mIdleReaders.addFirst(reader);
+                notify();
+            }
+        }
+    }
+
+    private SupportSQLiteDatabase openReader() {
+        // The reader must not create or migrate the database, so it expects the version the
+        // writer has already brought it to.
+        final int version = mWriter.getWritableDatabase().getVersion();
+        final SupportSQLiteOpenHelper helper = mFactory.create(
+                SupportSQLiteOpenHelper.Configuration.builder(mContext)
+                        .name(mName)
+                        .callback(new ReaderCallback(version))
+                        .build());
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            // Without this the framework would switch the journal mode away from WAL.
+            helper.setWriteAheadLoggingEnabled(true);
+        }
+        final SupportSQLiteDatabase reader = helper.getWritableDatabase();
+        synchronized (this) {
+            if (mClosed) {
+                helper.close();
+                throw new IllegalStateException("Cannot acquire a reader, the database is "
+                        + "closed.");
+            }
+            mReaderHelpers.add(helper);
+        }
+        return reader;
+    }
+
+    private void recordAcquire(long waitStart) {
+        mAcquireCount.incrementAndGet();
+        if (waitStart == 0) {
+            return;
+        }
+        final long waitNanos = System.nanoTime() - waitStart;
+        mWaitCount.incrementAndGet();
+        mTotalWaitNanos.addAndGet(waitNanos);
+        long max;
+        do {
+            max = mMaxWaitNanos.get();
+        } while (waitNanos > max && !mMaxWaitNanos.compareAndSet(max, waitNanos));
+    }
+
+    /**
+     * Returns a snapshot of the acquisition metrics of this pool.
+     */
+    @NonNull
+    ConnectionPoolStats getStats() {
+        final int openedReaders;
+        synchronized (this) {
+            openedReaders = mOpenedReaders;
+        }
+        return new ConnectionPoolStats(mSize, openedReaders, mAcquireCount.get(),
+                mWaitCount.get(), mTotalWaitNanos.get(), mMaxWaitNanos.get());
+    }
+
+    /**
+     * Closes every reader. Cursors that are still open become unusable, as they would if the
+     * writer were closed.
+     */
+    void close() {
+        final List<SupportSQLiteOpenHelper> helpers;
+        synchronized (this) {
+            mClosed = true;
+            mIdleReaders.clear();
+            mHolds.clear();
+            helpers = new ArrayList<>(mReaderHelpers);
+            mReaderHelpers.clear();
+            notifyAll();
+        }
+        for (SupportSQLiteOpenHelper helper : helpers) {
+            helper.close();
+        }
+    }
+
+    /**
+     * Opens an existing database without creating or migrating it, and makes the connection
+     * read-only.
+     */
+    static class ReaderCallback extends SupportSQLiteOpenHelper.Callback {
+
+        ReaderCallback(int version) {
+            super(version);
+        }
+
+        @Override
+        public void onCreate(@NonNull SupportSQLiteDatabase db) {
+            throw new IllegalStateException("A reader connection cannot create the database.");
+        }
+
+        @Override
+        public void onUpgrade(@NonNull SupportSQLiteDatabase db, int oldVersion,
+                int newVersion) {
+            throw new IllegalStateException("A reader connection cannot migrate the database.");
+        }
+
+        @Override
+        public void onDowngrade(@NonNull SupportSQLiteDatabase db, int oldVersion,
+                int newVersion) {
+            throw new IllegalStateException("A reader connection cannot migrate the database.");
+        }
+
+        @Override
+        public void onOpen(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("PRAGMA query_only = 1");
+        }
+    }
+
+    /**
+     * The acquisitions of a reader by the thread holding it.
+     */
+    private static class Hold {
+        final SupportSQLiteDatabase mReader;
+        // Should be accessed with synchronization on the pool only.
+        int mCount = 1;
+
+        Hold(SupportSQLiteDatabase reader) {
+            mReader = reader;
+        }
+    }
+
+    /**
+     * Returns its reader to the pool once closed.
+     */
+    private class ReleasingCursor extends CursorWrapper {
+        private final SupportSQLiteDatabase mReader;
+        private boolean mReleased;
+
+        ReleasingCursor(Cursor cursor, SupportSQLiteDatabase reader) {
+            super(cursor);
+            mReader = reader;
+        }
+
+        @Override
+        public void close() {
+            try {
+                super.close();
+            } finally {
+                synchronized (this) {
+                    if (!mReleased) {
+                        mReleased = true;
+                        release(mReader);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package androidx.room;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+import androidx.room.util.DBUtil;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the parent keys of a relation in a temporary table so that the related rows can be
+ * loaded with a single query, however many keys there are.
+ * <p>
+ * Each instance stores its keys under its own batch id so that nested relations can be loaded
+ * while the cursor of their parents is still open. Keys are written and read within a
+ * transaction to make sure the query runs on the connection that holds the temporary table.
+ * <p>
+ * This class is used by generated code.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+public final class RelationKeyTable implements Closeable {
+    /**
+     * The relation queries generated for this table select the keys of their batch with
+     * {@code SELECT relation_key FROM temp.room_relation_keys WHERE batch_id = ?}.
+     */
+    public static final String TABLE_NAME = "room_relation_keys";
+
+    private static final String CREATE_QUERY = "CREATE TEMP TABLE IF NOT EXISTS " + TABLE_NAME
+            + " (batch_id INTEGER NOT NULL, relation_key, PRIMARY KEY(batch_id, relation_key))";
+    private static final String INSERT_QUERY =
+            "INSERT OR IGNORE INTO temp." + TABLE_NAME + " VALUES(?, ?)";
+    private static final String DELETE_QUERY =
+            "DELETE FROM temp." + TABLE_NAME + " WHERE batch_id = ?";
+
+    private static final AtomicLong sNextBatchId = new AtomicLong();
+
+    private final RoomDatabase mDatabase;
+    private final SupportSQLiteDatabase mConnection;
+    private final long mBatchId;
+    @Nullable
+    private SupportSQLiteStatement mInsertStatement;
+
+    private RelationKeyTable(RoomDatabase database, SupportSQLiteDatabase connection,
+            long batchId) {
+        mDatabase = database;
+        mConnection = connection;
+        mBatchId = batchId;
+    }
+
+    /**
+     * Starts loading a relation through the key table if it has enough keys.
+     *
+     * @param database The database to load the relation from.
+     * @param keyCount The number of parent keys of the relation.
+     * @return The key table to add the keys to, or null if the relation should be loaded with
+     * bound arguments instead.
+     * @see RoomDatabase.Builder#setRelationKeyTableThreshold(int)
+     */
+    @Nullable
+    public static RelationKeyTable acquire(@NonNull RoomDatabase database, int keyCount) {
+        if (keyCount < database.getRelationKeyTableThreshold()) {
+            return null;
+        }
+        database.assertNotMainThread();
+        final SupportSQLiteDatabase connection = database.getOpenHelper().getWritableDatabase();
+        // Only the temporary table is written, so there are no invalidations to dispatch and
+        // the wrappers in RoomDatabase are not used.
+        connection.beginTransactionNonExclusive();
+        try {
+            connection.execSQL(CREATE_QUERY);
+        } catch (RuntimeException e) {
+            connection.endTransaction();
+            throw e;
+        }
+        return new RelationKeyTable(database, connection, sNextBatchId.incrementAndGet());
+    }
+
+    /**
+     * Adds a key with INTEGER affinity.
+     */
+    public void addLong(long key) {
+        insertStatement().bindLong(2, key);
+        mInsertStatement.executeInsert();
+    }
+
+    /**
+     * Adds a key with REAL affinity.
+     */
+    public void addDouble(double key) {
+        insertStatement().bindDouble(2, key);
+        mInsertStatement.executeInsert();
+    }
+
+    /**
+     * Adds a key with TEXT affinity.
+     */
+    public void addString(@NonNull String key) {
+        insertStatement().bindString(2, key);
+        mInsertStatement.executeInsert();
+    }
+
+    /**
+     * Adds a key with BLOB affinity.
+     */
+    public void addBlob(@NonNull byte[] key) {
+        insertStatement().bindBlob(2, key);
+        mInsertStatement.executeInsert();
+    }
+
+    /**
+     * Runs the relation query, binding the batch id of this table as its only argument.
+     *
+     * @param sql The relation query.
+     * @param maybeCopy True if the result cursor should maybe be copied, see
+     *                  {@link DBUtil#query(RoomDatabase, androidx.sqlite.db.SupportSQLiteQuery,
+     *                  boolean)}.
+     * @return The related rows.
+     */
+    @NonNull
+    public Cursor query(@NonNull String sql, boolean maybeCopy) {
+        releaseInsertStatement();
+        return DBUtil.query(mDatabase, new SimpleSQLiteQuery(sql, new Object[]{mBatchId}),
+                maybeCopy);
+    }
+
+    /**
+     * Removes the keys of this batch and ends the transaction started by
+     * {@link #acquire(RoomDatabase, int)}.
+     */
+    @Override
+    public void close() {
+        try {
+            releaseInsertStatement();
+            SupportSQLiteStatement delete = mDatabase.acquireStatement(DELETE_QUERY);
+            try {
+                delete.bindLong(1, mBatchId);
+                delete.executeUpdateDelete();
+            } finally {
+                mDatabase.releaseStatement(delete);
+            }
+            // the keys are removed explicitly so that an enclosing transaction does not fail
+            mConnection.setTransactionSuccessful();
+        } finally {
+            mConnection.endTransaction();
+        }
+    }
+
+    private SupportSQLiteStatement insertStatement() {
+        if (mInsertStatement == null) {
+            mInsertStatement = mDatabase.acquireStatement(INSERT_QUERY);
+            mInsertStatement.bindLong(1, mBatchId);
+        }
+        return mInsertStatement;
+    }
+
+    private void releaseInsertStatement() {
+        if (mInsertStatement != null) {
+            mDatabase.releaseStatement(mInsertStatement);
+            mInsertStatement = null;
+        }
+    }
+}
@@ -52,7 +52,10 @@ import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -74,6 +77,8 @@ public abstract class RoomDatabase {
      */
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
     public static final int MAX_BIND_PARAMETER_CNT = 999;
+    // Bounds the cursor windows that are sized for a whole result by default.
+    private static final long DEFAULT_MAX_CURSOR_WINDOW_SIZE = 16 * 1024 * 1024;
     /**
      * Set by the generated open helper.
      *
@@ -87,6 +92,25 @@ public abstract class RoomDatabase {
     private final InvalidationTracker mInvalidationTracker;
     private boolean mAllowMainThreadQueries;
     boolean mWriteAheadLoggingEnabled;
+    private int mReaderConnectionPoolSize;
+    @Nullable
+    private ReaderConnectionPool mReaderConnectionPool;
+    private int mStatementCacheSize = StatementCache.DEFAULT_MAX_SIZE;
+    private StatementCache mStatementCache;
+    private int mRelationKeyTableThreshold = Integer.MAX_VALUE;
+    private long mMaxCursorWindowSize = DEFAULT_MAX_CURSOR_WINDOW_SIZE;
+    private long mGroupCommitWindowMillis;
+    private int mGroupCommitMaxBatchSize;
+    @Nullable
+    private GroupCommitExecutor mGroupCommitExecutor;
+
+    // Depth of the transactions begun through this class and which of them were marked
+    // successful. Only accessed by the thread holding the transaction of the writer connection.
+    private int mTransactionDepth;
+    private long mSuccessfulTransactionDepths;
+    // Number of nested transactions that ended without being marked successful, each of which
+    // makes SQLite roll back the outermost transaction when it ends.
+    private int mFailedNestedTransactionCount;
 
     /**
      * @deprecated Will be hidden in the next release.
@@ -170,15 +194,133 @@ public abstract class RoomDatabase {
         }
         mCallbacks = configuration.callbacks;
         mQueryExecutor = configuration.queryExecutor;
-        mTransactionExecutor = new TransactionExecutor(configuration.transactionExecutor);
+        final TransactionExecutor transactionExecutor =
+                new TransactionExecutor(configuration.transactionExecutor);
+        mTransactionExecutor = transactionExecutor;
         mAllowMainThreadQueries = configuration.allowMainThreadQueries;
         mWriteAheadLoggingEnabled = wal;
+        mStatementCache = new StatementCache(mStatementCacheSize);
+        if (mGroupCommitMaxBatchSize > 0) {
+            mGroupCommitExecutor = new GroupCommitExecutor(this, transactionExecutor,
+                    mGroupCommitWindowMillis, mGroupCommitMaxBatchSize);
+        }
+        if (wal && mReaderConnectionPoolSize > 0 && configuration.name != null) {
+            mReaderConnectionPool = new ReaderConnectionPool(
+                    configuration.sqliteOpenHelperFactory, configuration.context,
+                    configuration.name, mOpenHelper, mReaderConnectionPoolSize);
+        }
         if (configuration.multiInstanceInvalidation) {
             mInvalidationTracker.startMultiInstanceInvalidation(configuration.context,
                     configuration.name);
         }
     }
 
+    /**
+     * Sets the number of read-only connections queries outside of a transaction may use. Called
+     * by the {@link Builder} before {@link #init(DatabaseConfiguration)}.
+     */
+    void setReaderConnectionPoolSize(int size) {
+        mReaderConnectionPoolSize = size;
+    }
+
+    /**
+     * Sets the maximum number of idle compiled statements to keep. Called by the {@link Builder}
+     * before {@link #init(DatabaseConfiguration)}.
+     */
+    void setStatementCacheSize(int size) {
+        mStatementCacheSize = size;
+    }
+
+    /**
+     * Sets the number of parent keys from which relations are loaded through a temporary key
+     * table. Called by the {@link Builder} before {@link #init(DatabaseConfiguration)}.
+     */
+    void setRelationKeyTableThreshold(int keyCount) {
+        mRelationKeyTableThreshold = keyCount;
+    }
+
+    /**
+     * Returns the number of parent keys from which relations are loaded through a temporary key
+     * table.
+     *
+     * @see Builder#setRelationKeyTableThreshold(int)
+     */
+    int getRelationKeyTableThreshold() {
+        return mRelationKeyTableThreshold;
+    }
+
+    /**
+     * Sets the largest cursor window Room may size for a query. Called by the {@link Builder}
+     * before {@link #init(DatabaseConfiguration)}.
+     */
+    void setMaxCursorWindowSize(long bytes) {
+        mMaxCursorWindowSize = bytes;
+    }
+
+    /**
+     * Returns the largest cursor window Room may size for a query, or 0 if Room keeps the
+     * default window size.
+     *
+     * @see Builder#setMaxCursorWindowSize(long)
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+    public long getMaxCursorWindowSize() {
+        return mMaxCursorWindowSize;
+    }
+
+    /**
+     * Enables group commit. Called by the {@link Builder} before
+     * {@link #init(DatabaseConfiguration)}.
+     */
+    void setGroupCommit(long windowMillis, int maxBatchSize) {
+        mGroupCommitWindowMillis = windowMillis;
+        mGroupCommitMaxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Returns how group transactions were merged into batches.
+     *
+     * @return The group commit metrics, or null if group commit is not enabled.
+     * @see Builder#enableGroupCommit(long, TimeUnit, int)
+     */
+    @Nullable
+    public GroupCommitStats getGroupCommitStats() {
+        final GroupCommitExecutor executor = mGroupCommitExecutor;
+        return executor == null ? null : executor.getStats();
+    }
+
+    /**
+     * Returns the number of nested transactions begun through this database that ended without
+     * being marked successful.
+     */
+    int getFailedNestedTransactionCount() {
+        return mFailedNestedTransactionCount;
+    }
+
+    /**
+     * Returns how often compiled statements were reused from the statement cache.
+     *
+     * @return The statement cache metrics.
+     * @see Builder#setStatementCacheSize(int)
+     */
+    @NonNull
+    public StatementCacheStats getStatementCacheStats() {
+        return mStatementCache.getStats();
+    }
+
+    /**
+     * Returns how queries acquired connections from the reader connection pool.
+     *
+     * @return The pool metrics, or null if this database does not use a reader connection pool.
+     * @see Builder#setReaderConnectionPoolSize(int)
+     */
+    @Nullable
+    public ConnectionPoolStats getReaderConnectionPoolStats() {
+        final ReaderConnectionPool pool = mReaderConnectionPool;
+        return pool == null ? null : pool.getStats();
+    }
+
     /**
      * Returns the SQLite open helper used by this database.
      *
@@ -244,6 +386,10 @@ public abstract class RoomDatabase {
             closeLock.lock();
             try {
                 mInvalidationTracker.stopMultiInstanceInvalidation();
+                if (mReaderConnectionPool != null) {
+                    mReaderConnectionPool.close();
+                }
+                mStatementCache.clear();
                 mOpenHelper.close();
             } finally {
                 closeLock.unlock();
@@ -320,8 +466,33 @@ public abstract class RoomDatabase {
      */
     @NonNull
     public Cursor query(@NonNull SupportSQLiteQuery query, @Nullable CancellationSignal signal) {
+        return query(query, signal, 0);
+    }
+
+    /**
+     * Wrapper for {@link SupportSQLiteDatabase#query(SupportSQLiteQuery, CancellationSignal,
+     * long)}.
+     *
+     * @param query The Query which includes the SQL and a bind callback for bind arguments.
+     * @param signal The cancellation signal to be attached to the query.
+     * @param cursorWindowSize The size of the cursor windows in bytes, or 0 for the default.
+     * @return Result of the query.
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+    @NonNull
+    public Cursor query(@NonNull SupportSQLiteQuery query, @Nullable CancellationSignal signal,
+            long cursorWindowSize) {
         assertNotMainThread();
         assertNotSuspendingTransaction();
+        final ReaderConnectionPool pool = mReaderConnectionPool;
+        if (pool != null && !inTransaction()
+                && ReaderConnectionPool.isReadOnlyQuery(query.getSql())) {
+            return pool.query(query, signal, cursorWindowSize);
+        }
+        if (cursorWindowSize > 0) {
+            return mOpenHelper.getWritableDatabase().query(query, signal, cursorWindowSize);
+        }
         if (signal != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
             return mOpenHelper.getWritableDatabase().query(query, signal);
         } else {
@@ -341,6 +512,38 @@ public abstract class RoomDatabase {
         return mOpenHelper.getWritableDatabase().compileStatement(sql);
     }
 
+    /**
+     * Takes the compiled statement for the given SQL from the statement cache of this database,
+     * compiling it if none is cached. Unlike {@link #compileStatement(String)}, the statement
+     * must be handed back with {@link #releaseStatement(SupportSQLiteStatement)} and must not be
+     * closed.
+     *
+     * @param sql The query to compile.
+     * @return The compiled query, owned by the caller until released.
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+    // used in generated code
+    @NonNull
+    public SupportSQLiteStatement acquireStatement(@NonNull String sql) {
+        assertNotMainThread();
+        assertNotSuspendingTransaction();
+        return mStatementCache.acquire(mOpenHelper.getWritableDatabase(), sql);
+    }
+
+    /**
+     * Returns a statement obtained from {@link #acquireStatement(String)} to the statement cache
+     * of this database. Its bindings are cleared.
+     *
+     * @param statement The statement to release.
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+    // used in generated code
+    public void releaseStatement(@NonNull SupportSQLiteStatement statement) {
+        mStatementCache.release(statement);
+    }
+
     /**
      * Wrapper for {@link SupportSQLiteDatabase#beginTransaction()}.
      *
@@ -352,6 +555,9 @@ public abstract class RoomDatabase {
         SupportSQLiteDatabase database = mOpenHelper.getWritableDatabase();
         mInvalidationTracker.syncTriggers(database);
         database.beginTransaction();
+        if (++mTransactionDepth <= Long.SIZE) {
+            mSuccessfulTransactionDepths &= ~(1L << (mTransactionDepth - 1));
+        }
     }
 
     /**
@@ -361,6 +567,13 @@ public abstract class RoomDatabase {
      */
     @Deprecated
     public void endTransaction() {
+        if (mTransactionDepth > 1 && mTransactionDepth <= Long.SIZE
+                && (mSuccessfulTransactionDepths & (1L << (mTransactionDepth - 1))) == 0) {
+            mFailedNestedTransactionCount++;
+        }
+        if (mTransactionDepth > 0) {
+            mTransactionDepth--;
+        }
         mOpenHelper.getWritableDatabase().endTransaction();
         if (!inTransaction()) {
             // enqueue refresh only if we are NOT in a transaction. Otherwise, wait for the last
@@ -393,6 +606,9 @@ public abstract class RoomDatabase {
     @Deprecated
     public void setTransactionSuccessful() {
         mOpenHelper.getWritableDatabase().setTransactionSuccessful();
+        if (mTransactionDepth > 0 && mTransactionDepth <= Long.SIZE) {
+            mSuccessfulTransactionDepths |= 1L << (mTransactionDepth - 1);
+        }
     }
 
     /**
@@ -441,6 +657,76 @@ public abstract class RoomDatabase {
         }
     }
 
+    /**
+     * Executes the specified {@link Runnable} in a transaction that may be merged with the group
+     * transactions of other threads.
+     *
+     * @param body The piece of code to execute.
+     * @see #runInGroupTransaction(Callable)
+     */
+    public void runInGroupTransaction(@NonNull final Runnable body) {
+        runInGroupTransaction(new Callable<Void>() {
+            @Override
+            public Void call() {
+                body.run();
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Executes the specified {@link Callable} in a transaction that may be merged with the group
+     * transactions of other threads, so that they share a single commit.
+     * <p>
+     * If group commit is enabled with {@link Builder#enableGroupCommit(long, TimeUnit, int)},
+     * the body runs on the transaction executor, in a batch with other group transactions, and
+     * this method blocks until that batch has committed. The body is rolled back on its own if
+     * it throws. A body that throws from a nested transaction, such as a failing DAO method,
+     * rolls back its whole batch though, in which case the other bodies of that batch run
+     * again. Bodies should therefore only change the database.
+     * <p>
+     * If group commit is not enabled, or this is called within a transaction or from the
+     * transaction executor, this behaves like {@link #runInTransaction(Callable)}.
+     *
+     * @param body The piece of code to execute.
+     * @param <V>  The type of the return value.
+     * @return The value returned from the {@link Callable}.
+     */
+    public <V> V runInGroupTransaction(@NonNull Callable<V> body) {
+        final GroupCommitExecutor executor = mGroupCommitExecutor;
+        if (executor == null || inTransaction() || executor.isRunningOnTransactionExecutor()) {
+            // The batch would wait for the transaction executor this thread is holding.
+            return runInTransaction(body);
+        }
+        assertNotMainThread();
+        final FutureTask<V> future = executor.submit(body);
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    // the body may already be running, so keep waiting for its outcome
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            SneakyThrow.reThrow((Exception) cause);
+            return null; // Unreachable code, but compiler doesn't know it.
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
     /**
      * Called by the generated code when database is open.
      * <p>
@@ -549,6 +835,14 @@ public abstract class RoomDatabase {
         private boolean mAllowMainThreadQueries;
         private JournalMode mJournalMode;
         private boolean mMultiInstanceInvalidation;
+        private long mInvalidationCoalescingWindowMillis;
+        private long mSharedMemoryInvalidationPollIntervalMillis;
+        private int mReaderConnectionPoolSize;
+        private int mStatementCacheSize = StatementCache.DEFAULT_MAX_SIZE;
+        private int mRelationKeyTableThreshold = Integer.MAX_VALUE;
+        private long mMaxCursorWindowSize = DEFAULT_MAX_CURSOR_WINDOW_SIZE;
+        private long mGroupCommitWindowMillis;
+        private int mGroupCommitMaxBatchSize;
         private boolean mRequireMigration;
         private boolean mAllowDestructiveMigrationOnDowngrade;
         /**
@@ -565,6 +859,7 @@ public abstract class RoomDatabase {
 
         private String mCopyFromAssetPath;
         private File mCopyFromFile;
+        private boolean mCopyPrepackagedDatabaseInBackground;
 
         Builder(@NonNull Context context, @NonNull Class<T> klass, @Nullable String name) {
             mContext = context;
@@ -624,6 +919,26 @@ public abstract class RoomDatabase {
             return this;
         }
 
+        /**
+         * Configures Room to copy the pre-packaged database set with
+         * {@link #createFromAsset(String)} or {@link #createFromFile(File)} on the query executor
+         * as soon as the database is built, instead of when it is first accessed. The first
+         * access still waits for the copy if it has not finished yet.
+         * <p>
+         * If the background copy fails, it is retried on the first access, which then reports
+         * the error.
+         * <p>
+         * Pre-packaged databases may also be gzip compressed, in which case they are decompressed
+         * while being copied.
+         *
+         * @return This {@link Builder} instance.
+         */
+        @NonNull
+        public Builder<T> copyPrepackagedDatabaseInBackground() {
+            mCopyPrepackagedDatabaseInBackground = true;
+            return this;
+        }
+
         /**
          * Sets the database factory. If not set, it defaults to
          * {@link FrameworkSQLiteOpenHelperFactory}.
@@ -780,6 +1095,190 @@ public abstract class RoomDatabase {
             return this;
         }
 
+        /**
+         * Makes multi-instance invalidation exchange invalidated tables through change counters
+         * in a memory-mapped file next to the database file, instead of the binder service.
+         * <p>
+         * With the binder service, every write makes one IPC call per instance of the database.
+         * With shared memory, a write only increments the counters of its tables, and each
+         * instance checks the counters of the others once per poll interval. Observers in other
+         * instances are then notified up to one interval later.
+         * <p>
+         * This only has an effect if {@link #enableMultiInstanceInvalidation()} is also called,
+         * and it must be set for every instance of the database. If the counter file cannot be
+         * mapped, or is in use by instances of a different schema, the binder service is used
+         * instead.
+         *
+         * @param interval The interval at which the counters of other instances are checked.
+         * @param timeUnit The time unit of the interval.
+         * @return This {@link Builder} instance.
+         */
+        @NonNull
+        public Builder<T> setSharedMemoryInvalidationPollInterval(long interval,
+                @NonNull TimeUnit timeUnit) {
+            if (interval <= 0) {
+                throw new IllegalArgumentException("interval must be positive");
+            }
+            mSharedMemoryInvalidationPollIntervalMillis = Math.max(1, timeUnit.toMillis(interval));
+            return this;
+        }
+
+        /**
+         * Sets a window over which table invalidations are coalesced before observers are
+         * notified.
+         * <p>
+         * By default, {@link InvalidationTracker} checks for invalidated tables and notifies
+         * observers after every transaction. With a window set, it does so at most once per
+         * window; observers of tables written during the window are notified once, when it ends,
+         * with all of their invalidated tables. This reduces the cost of bursts of small writes
+         * at the expense of notification latency.
+         * <p>
+         * {@link InvalidationTracker#refreshVersionsAsync()} is also subject to the window.
+         *
+         * @param duration The length of the window, or 0 to notify after every transaction.
+         * @param timeUnit The unit of {@code duration}.
+         * @return This {@link Builder} instance.
+         */
+        @NonNull
+        public Builder<T> setInvalidationCoalescingWindow(long duration,
+                @NonNull TimeUnit timeUnit) {
+            if (duration < 0) {
+                throw new IllegalArgumentException("duration must not be negative");
+            }
+            mInvalidationCoalescingWindowMillis = timeUnit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Sets the number of read-only connections that queries running outside of a transaction
+         * use, so that they run concurrently with each other and with the writer connection.
+         * Queries inside a transaction, and all writes, keep using the single writer connection.
+         * <p>
+         * The pool is only used when the database is file-backed and its journal mode resolves
+         * to {@link JournalMode#WRITE_AHEAD_LOGGING}, since only write-ahead logging lets readers
+         * proceed while a write is in progress. Each reader connection holds its own page cache.
+         * <p>
+         * Use {@link RoomDatabase#getReaderConnectionPoolStats()} to see how often queries had to
+         * wait for a reader.
+         *
+         * @param size The maximum number of reader connections, or 0 to run every query on the
+         *             writer connection. Defaults to 0.
+         * @return This {@link Builder} instance.
+         */
+        @NonNull
+        public Builder<T> setReaderConnectionPoolSize(int size) {
+            if (size < 0) {
+                throw new IllegalArgumentException("size must not be negative");
+            }
+            mReaderConnectionPoolSize = size;
+            return this;
+        }
+
+        /**
+         * Sets the number of compiled statements Room keeps for reuse, keyed by their SQL.
+         * <p>
+         * Write queries whose SQL depends on their arguments, such as a {@code DELETE} with an
+         * {@code IN} list, and statements that are compiled while the shared statement of a DAO
+         * method is in use, are compiled once and reused through this cache rather than compiled
+         * on every call. The cache is cleared whenever the database is closed, so statements
+         * never outlive a schema migration.
+         * <p>
+         * Use {@link RoomDatabase#getStatementCacheStats()} to see how often statements were
+         * reused.
+         *
+         * @param size The maximum number of idle statements to keep, or 0 to compile a new
+         *             statement for every call. Defaults to 16.
+         * @return This {@link Builder} instance.
+         */
+        @NonNull
+        public Builder<T> setStatementCacheSize(int size) {
+            if (size < 0) {
+                throw new IllegalArgumentException("size must not be negative");
+            }
+            mStatementCacheSize = size;
+            return this;
+        }
+
+        /**
+         * Sets the number of parent keys from which {@link Relation}s are loaded through a
+         * temporary table instead of bound arguments.
+         * <p>
+         * By default the keys of a relation are bound into {@code IN (?, ?, ...)} lists of at
+         * most {@link RoomDatabase#MAX_BIND_PARAMETER_CNT} arguments, so a large number of
+         * parents is loaded in many queries of different shapes. Above the threshold, Room
+         * inserts the keys into a temporary table and loads all related rows with one query that
+         * selects from it. This requires a short transaction on the writable connection, which is
+         * why it is disabled by default.
+         *
+         * @param keyCount The minimum number of parent keys to use the temporary table for.
+         * @return This {@link Builder} instance.
+         */
+        @NonNull
+        public Builder<T> setRelationKeyTableThreshold(int keyCount) {
+            if (keyCount < 1) {
+                throw new IllegalArgumentException("keyCount must be positive");
+            }
+            mRelationKeyTableThreshold = keyCount;
+            return this;
+        }
+
+        /**
+         * Sets the largest cursor window Room may use for a query whose result it reads as a
+         * whole.
+         * <p>
+         * A cursor holds its rows in a window, 2 MB by default, and every time it moves past its
+         * window the query runs again up to the next one. On API 28 and higher, when the result
+         * of a query does not fit in one window, Room estimates the width of its rows from the
+         * first window and runs the query again with a window sized for the whole result, as
+         * long as that is no larger than this limit. Larger results are copied out of the cursor
+         * window by window as before.
+         *
+         * @param bytes The largest window size in bytes, or 0 to always use the default window
+         *              size. Defaults to 16 MB.
+         * @return This {@link Builder} instance.
+         */
+        @NonNull
+        public Builder<T> setMaxCursorWindowSize(long bytes) {
+            if (bytes < 0) {
+                throw new IllegalArgumentException("bytes must not be negative");
+            }
+            mMaxCursorWindowSize = bytes;
+            return this;
+        }
+
+        /**
+         * Enables group commit, which merges the transactions that different threads run with
+         * {@link RoomDatabase#runInGroupTransaction(Callable)} into a single SQLite transaction.
+         * <p>
+         * Each SQLite commit waits for the journal to be synced to disk, so many small write
+         * transactions are limited by the cost of syncing rather than by the work they do. With
+         * group commit, a group transaction waits up to {@code maxDelay} for others to join its
+         * batch, and the whole batch commits at once. Each transaction runs in its own savepoint,
+         * so one that throws is rolled back without affecting the rest of its batch.
+         * <p>
+         * Use {@link RoomDatabase#getGroupCommitStats()} to see how large batches are and how
+         * long transactions wait for them.
+         *
+         * @param maxDelay     The longest time a group transaction waits for its batch to start.
+         * @param timeUnit     The time unit of {@code maxDelay}.
+         * @param maxBatchSize The number of group transactions at which a batch starts without
+         *                     waiting any longer.
+         * @return This {@link Builder} instance.
+         */
+        @NonNull
+        public Builder<T> enableGroupCommit(long maxDelay, @NonNull TimeUnit timeUnit,
+                int maxBatchSize) {
+            if (maxDelay < 0) {
+                throw new IllegalArgumentException("maxDelay must not be negative");
+            }
+            if (maxBatchSize < 1) {
+                throw new IllegalArgumentException("maxBatchSize must be positive");
+            }
+            mGroupCommitWindowMillis = timeUnit.toMillis(maxDelay);
+            mGroupCommitMaxBatchSize = maxBatchSize;
+            return this;
+        }
+
         /**
          * Allows Room to destructively recreate database tables if {@link Migration}s that would
          * migrate old database schemas to the latest schema version are not found.
@@ -950,7 +1449,31 @@ public abstract class RoomDatabase {
                             mCopyFromAssetPath,
                             mCopyFromFile);
             T db = Room.getGeneratedImplementation(mDatabaseClass, DB_IMPL_SUFFIX);
+            db.getInvalidationTracker().setCoalescingWindow(mInvalidationCoalescingWindowMillis);
+            db.getInvalidationTracker().setSharedMemoryPollInterval(
+                    mSharedMemoryInvalidationPollIntervalMillis);
+            db.setReaderConnectionPoolSize(mReaderConnectionPoolSize);
+            db.setStatementCacheSize(mStatementCacheSize);
+            db.setRelationKeyTableThreshold(mRelationKeyTableThreshold);
+            db.setMaxCursorWindowSize(mMaxCursorWindowSize);
+            db.setGroupCommit(mGroupCommitWindowMillis, mGroupCommitMaxBatchSize);
             db.init(configuration);
+            if (mCopyPrepackagedDatabaseInBackground
+                    && db.getOpenHelper() instanceof SQLiteCopyOpenHelper) {
+                final SQLiteCopyOpenHelper copyOpenHelper =
+                        (SQLiteCopyOpenHelper) db.getOpenHelper();
+                mQueryExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            copyOpenHelper.prepareDatabaseFile();
+                        } catch (RuntimeException e) {
+                            Log.w(Room.LOG_TAG, "Unable to copy the pre-packaged database "
+                                    + "in the background.", e);
+                        }
+                    }
+                });
+            }
             return db;
         }
     }
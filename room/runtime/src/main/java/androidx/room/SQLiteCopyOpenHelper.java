@@ -29,20 +29,34 @@ import androidx.room.util.FileUtil;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 import androidx.sqlite.db.SupportSQLiteOpenHelper;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
+import java.util.zip.GZIPInputStream;
 
 /**
  * An open helper that will copy & open a pre-populated database if it doesn't exists in internal
  * storage.
+ * <p>
+ * The pre-populated database may be gzip compressed, in which case it is decompressed while being
+ * copied and the gzip checksum is verified as the end of the stream is reached.
  */
 class SQLiteCopyOpenHelper implements SupportSQLiteOpenHelper {
 
+    private static final int GZIP_MAGIC_BYTE_1 = 0x1f;
+    private static final int GZIP_MAGIC_BYTE_2 = 0x8b;
+    private static final int GZIP_INPUT_BUFFER_SIZE = 64 * 1024;
+    private static final int DECOMPRESSED_BUFFER_SIZE = 1024 * 1024;
+    private static final byte[] SQLITE_HEADER = {
+            'S', 'Q', 'L', 'i', 't', 'e', ' ', 'f', 'o', 'r', 'm', 'a', 't', ' ', '3', 0};
+
     @NonNull
     private final Context mContext;
     @Nullable
@@ -83,20 +97,25 @@ class SQLiteCopyOpenHelper implements SupportSQLiteOpenHelper {
 
     @Override
     public synchronized SupportSQLiteDatabase getWritableDatabase() {
-        if (!mVerified) {
-            verifyDatabaseFile();
-            mVerified = true;
-        }
+        prepareDatabaseFile();
         return mDelegate.getWritableDatabase();
     }
 
     @Override
     public synchronized SupportSQLiteDatabase getReadableDatabase() {
+        prepareDatabaseFile();
+        return mDelegate.getReadableDatabase();
+    }
+
+    /**
+     * Copies the pre-packaged database if needed, without opening it. Called ahead of the first
+     * access when {@link RoomDatabase.Builder#copyPrepackagedDatabaseInBackground()} is set.
+     */
+    synchronized void prepareDatabaseFile() {
         if (!mVerified) {
             verifyDatabaseFile();
             mVerified = true;
         }
-        return mDelegate.getReadableDatabase();
     }
 
     @Override
@@ -174,10 +193,29 @@ class SQLiteCopyOpenHelper implements SupportSQLiteOpenHelper {
 
     private void copyDatabaseFile(File destinationFile) throws IOException {
         ReadableByteChannel input;
+        boolean compressed;
         if (mCopyFromAssetPath != null) {
-            input = Channels.newChannel(mContext.getAssets().open(mCopyFromAssetPath));
+            InputStream inputStream = new BufferedInputStream(
+                    mContext.getAssets().open(mCopyFromAssetPath));
+            inputStream.mark(2);
+            compressed = inputStream.read() == GZIP_MAGIC_BYTE_1
+                    && inputStream.read() == GZIP_MAGIC_BYTE_2;
+            inputStream.reset();
+            input = compressed
+                    ? Channels.newChannel(
+                            new GZIPInputStream(inputStream, GZIP_INPUT_BUFFER_SIZE))
+                    : Channels.newChannel(inputStream);
         } else if (mCopyFromFile != null) {
-            input = new FileInputStream(mCopyFromFile).getChannel();
+            FileChannel fileChannel = new FileInputStream(mCopyFromFile).getChannel();
+            ByteBuffer magic = ByteBuffer.allocate(2);
+            fileChannel.read(magic, 0);
+            compressed = magic.position() == 2
+                    && (magic.get(0) & 0xff) == GZIP_MAGIC_BYTE_1
+                    && (magic.get(1) & 0xff) == GZIP_MAGIC_BYTE_2;
+            input = compressed
+                    ? Channels.newChannel(new GZIPInputStream(
+                            Channels.newInputStream(fileChannel), GZIP_INPUT_BUFFER_SIZE))
+                    : fileChannel;
         } else {
             throw new IllegalStateException("copyFromAssetPath and copyFromFile == null!");
         }
@@ -188,7 +226,16 @@ class SQLiteCopyOpenHelper implements SupportSQLiteOpenHelper {
                 "room-copy-helper", ".tmp", mContext.getCacheDir());
         intermediateFile.deleteOnExit();
         FileChannel output = new FileOutputStream(intermediateFile).getChannel();
-        FileUtil.copy(input, output);
+        try {
+            if (compressed) {
+                copyDecompressed(input, output);
+            } else {
+                FileUtil.copy(input, output);
+            }
+        } catch (IOException e) {
+            intermediateFile.delete();
+            throw e;
+        }
 
         File parent = destinationFile.getParentFile();
         if (parent != null && !parent.exists() && !parent.mkdirs()) {
@@ -202,4 +249,52 @@ class SQLiteCopyOpenHelper implements SupportSQLiteOpenHelper {
                     + destinationFile.getAbsolutePath() + ").");
         }
     }
+
+    /**
+     * Copies a decompressing channel using a large direct buffer, as
+     * {@link FileChannel#transferFrom} only moves a few kilobytes at a time from channels that
+     * are not backed by a file. The header is checked as soon as it is decompressed so that an
+     * asset that is not a database fails before the whole file is written, while a corrupted
+     * archive fails on the gzip checksum as the end of the stream is read.
+     */
+    private static void copyDecompressed(ReadableByteChannel input, FileChannel output)
+            throws IOException {
+        try {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(DECOMPRESSED_BUFFER_SIZE);
+            boolean headerChecked = false;
+            boolean endOfStream = false;
+            while (!endOfStream) {
+                endOfStream = input.read(buffer) < 0;
+                if (!headerChecked) {
+                    if (!endOfStream && buffer.position() < SQLITE_HEADER.length) {
+                        continue;
+                    }
+                    checkHeader(buffer);
+                    headerChecked = true;
+                }
+                if (endOfStream || !buffer.hasRemaining()) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        output.write(buffer);
+                    }
+                    buffer.clear();
+                }
+            }
+            output.force(false);
+        } finally {
+            input.close();
+            output.close();
+        }
+    }
+
+    private static void checkHeader(ByteBuffer buffer) throws IOException {
+        boolean valid = buffer.position() >= SQLITE_HEADER.length;
+        for (int i = 0; valid && i < SQLITE_HEADER.length; i++) {
+            valid = buffer.get(i) == SQLITE_HEADER[i];
+        }
+        if (!valid) {
+            throw new IOException("The decompressed pre-packaged database is not a SQLite "
+                    + "database file.");
+        }
+    }
 }
@@ -53,4 +53,12 @@ class SQLiteCopyOpenHelperFactory implements SupportSQLiteOpenHelper.Factory {
                 configuration.callback.version,
                 mDelegate.create(configuration));
     }
+
+    /**
+     * Returns the factory of the helpers that open the database once it has been copied.
+     */
+    @NonNull
+    SupportSQLiteOpenHelper.Factory getDelegate() {
+        return mDelegate;
+    }
 }
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package androidx.room;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Synchronizes table invalidation with other instances of a database through an
+ * {@link InvalidationCounterFile} next to the database file, instead of the binder calls of
+ * {@link MultiInstanceInvalidationClient}.
+ * <p>
+ * Writes only increment counters in shared memory. While the {@link InvalidationTracker} has
+ * observers of its own, the counters of other instances are polled at a fixed interval on the
+ * query executor. If the counter file cannot be used, this falls back to a
+ * {@link MultiInstanceInvalidationClient}.
+ */
+class SharedMemoryInvalidationClient {
+
+    // synthetic access
+    @SuppressWarnings("WeakerAccess")
+    final Context mAppContext;
+
+    // synthetic access
+    @SuppressWarnings("WeakerAccess")
+    final String mName;
+
+    // synthetic access
+    @SuppressWarnings("WeakerAccess")
+    final InvalidationTracker mInvalidationTracker;
+
+    // synthetic access
+    @SuppressWarnings("WeakerAccess")
+    final Executor mExecutor;
+
+    // synthetic access
+    @SuppressWarnings("WeakerAccess")
+    final long mPollIntervalMillis;
+
+    // synthetic access
+    @SuppressWarnings("WeakerAccess")
+    final InvalidationTracker.Observer mObserver;
+
+    // Should be accessed with synchronization on this only.
+    @Nullable
+    private InvalidationCounterFile mCounterFile;
+
+    // Should be accessed with synchronization on this only.
+    @Nullable
+    private MultiInstanceInvalidationClient mFallbackClient;
+
+    // Should be accessed with synchronization on this only.
+    @Nullable
+    private ScheduledFuture<?> mPollFuture;
+
+    // Should be accessed with synchronization on this only.
+    private boolean mStopped;
+
+    // synthetic access
+    @SuppressWarnings("WeakerAccess")
+    final Runnable mSetUpRunnable = new Runnable() {
+        @Override
+        public void run() {
+            setUp();
+            // Observers may have been added before polling could start.
+            onLocalObserversChanged();
+        }
+    };
+
+    // synthetic access
+    @SuppressWarnings("WeakerAccess")
+    final Runnable mCheckRunnable = new Runnable() {
+        @Override
+        public void run() {
+            check();
+        }
+    };
+
+    /**
+     * @param context             The Context used to locate the database file.
+     * @param name                The name of the database file.
+     * @param invalidationTracker The {@link InvalidationTracker}.
+     * @param executor            The background executor to poll on.
+     * @param pollIntervalMillis  The interval between checks of the counters of other instances.
+     */
+    SharedMemoryInvalidationClient(Context context, String name,
+            InvalidationTracker invalidationTracker, Executor executor, long pollIntervalMillis) {
+        mAppContext = context.getApplicationContext();
+        mName = name;
+        mInvalidationTracker = invalidationTracker;
+        mExecutor = executor;
+        mPollIntervalMillis = pollIntervalMillis;
+        // Use all tables names for observer.
+        final Set<String> tableNames = invalidationTracker.mTableIdLookup.keySet();
+        mObserver = new InvalidationTracker.Observer(tableNames.toArray(new String[0])) {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                increment(tables);
+            }
+
+            @Override
+            boolean isRemote() {
+                return true;
+            }
+        };
+        mExecutor.execute(mSetUpRunnable);
+    }
+
+    // synthetic access
+    @SuppressWarnings("WeakerAccess")
+    synchronized void setUp() {
+        if (mStopped) {
+            return;
+        }
+        final File file = new File(mAppContext.getDatabasePath(mName).getPath() + "-invalidation");
+        try {
+            mCounterFile = InvalidationCounterFile.open(file,
+                    mInvalidationTracker.mTableIdLookup.keySet().toArray(new String[0]));
+        } catch (IOException e) {
+            Log.w(Room.LOG_TAG, "Cannot share invalidation counters, falling back to binder", e);
+            mFallbackClient = new MultiInstanceInvalidationClient(mAppContext, mName,
+                    mInvalidationTracker, mExecutor);
+            return;
+        }
+        mInvalidationTracker.addObserver(mObserver);
+    }
+
+    /**
+     * Starts polling when the {@link InvalidationTracker} gets its first observer of its own, and
+     * stops polling when it loses its last one.
+     */
+    void onLocalObserversChanged() {
+        // The observers are counted outside of the lock on this, so that it is never held while
+        // waiting for the lock of the tracker. Repeat if they changed in the meantime.
+        boolean observed;
+        do {
+            observed = mInvalidationTracker.hasLocalObservers();
+            updatePolling(observed);
+        } while (observed != mInvalidationTracker.hasLocalObservers());
+    }
+
+    private synchronized void updatePolling(boolean observed) {
+        if (mStopped || mCounterFile == null) {
+            return;
+        }
+        if (observed) {
+            if (mPollFuture == null) {
+                mPollFuture = DelayScheduler.schedule(mExecutor, mCheckRunnable,
+                        mPollIntervalMillis);
+            }
+        } else if (mPollFuture != null) {
+            mPollFuture.cancel(false);
+            mPollFuture = null;
+        }
+    }
+
+    // synthetic access
+    @SuppressWarnings("WeakerAccess")
+    void increment(Set<String> tables) {
+        final InvalidationCounterFile counterFile;
+        synchronized (this) {
+            counterFile = mCounterFile;
+        }
+        if (counterFile != null) {
+            counterFile.increment(tables);
+        }
+    }
+
+    // synthetic access
+    @SuppressWarnings("WeakerAccess")
+    void check() {
+        final InvalidationCounterFile counterFile;
+        synchronized (this) {
+            counterFile = mCounterFile;
+        }
+        if (counterFile == null) {
+            return;
+        }
+        final String[] tables = counterFile.collectInvalidated();
+        if (tables.length > 0) {
+            mInvalidationTracker.notifyObserversByTableNames(tables);
+        }
+        synchronized (this) {
+            // Polling may have been stopped, or stopped and restarted with a pending check,
+            // while this check was running.
+            if (mPollFuture != null && mPollFuture.isDone()) {
+                mPollFuture = DelayScheduler.schedule(mExecutor, mCheckRunnable,
+                        mPollIntervalMillis);
+            }
+        }
+    }
+
+    @VisibleForTesting
+    synchronized boolean isPolling() {
+        return mPollFuture != null;
+    }
+
+    @VisibleForTesting
+    @Nullable
+    synchronized MultiInstanceInvalidationClient getFallbackClient() {
+        return mFallbackClient;
+    }
+
+    synchronized void stop() {
+        if (mStopped) {
+            return;
+        }
+        mStopped = true;
+        if (mFallbackClient != null) {
+            mFallbackClient.stop();
+            mFallbackClient = null;
+        }
+        if (mPollFuture != null) {
+            mPollFuture.cancel(false);
+            mPollFuture = null;
+        }
+        if (mCounterFile != null) {
+            mInvalidationTracker.removeObserver(mObserver);
+            try {
+                mCounterFile.close();
+            } catch (IOException e) {
+                Log.w(Room.LOG_TAG, "Cannot release invalidation counters", e);
+            }
+            mCounterFile = null;
+        }
+    }
+}
@@ -73,8 +73,8 @@ public abstract class SharedSQLiteStatement {
             }
             stmt = mStmt;
         } else {
-            // it is in use, create a one off statement
-            stmt = createNewStatement();
+            // it is in use, borrow a one off statement from the database's statement cache
+            stmt = mDatabase.acquireStatement(createQuery());
         }
         return stmt;
     }
@@ -95,6 +95,8 @@ public abstract class SharedSQLiteStatement {
     public void release(SupportSQLiteStatement statement) {
         if (statement == mStmt) {
             mLock.set(false);
+        } else {
+            mDatabase.releaseStatement(statement);
         }
     }
 }
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded, least recently used cache of compiled statements of one database connection, keyed
+ * by their SQL.
+ * <p>
+ * A statement is taken out of the cache while it is in use, so each one is only ever used by a
+ * single caller at a time. When the connection changes, e.g. because the database was closed
+ * and opened again, possibly running migrations, every cached statement is discarded.
+ */
+class StatementCache {
+    static final int DEFAULT_MAX_SIZE = 16;
+
+    private final int mMaxSize;
+
+    // Should be accessed with synchronization on this only.
+    private final LinkedHashMap<String, CachedStatement> mIdleStatements =
+            new LinkedHashMap<>(0, 0.75f, true);
+    @Nullable
+    private SupportSQLiteDatabase mDatabase;
+    private int mGeneration;
+    private long mHitCount;
+    private long mMissCount;
+    private long mEvictionCount;
+
+    StatementCache(int maxSize) {
+        mMaxSize = maxSize;
+    }
+
+    /**
+     * Takes the statement for the given SQL out of the cache, compiling a new one on the given
+     * database if none is cached. The statement must be handed back with
+     * {@link #release(SupportSQLiteStatement)} once it is no longer in use.
+     */
+    @NonNull
+    SupportSQLiteStatement acquire(@NonNull SupportSQLiteDatabase database,
+            @NonNull String sql) {
+        final List<CachedStatement> stale;
+        final int generation;
+        synchronized (this) {
+            if (database == mDatabase) {
+                final CachedStatement cached = mIdleStatements.remove(sql);
+                if (cached != null) {
+                    mHitCount++;
+                    return cached;
+                }
+                stale = null;
+            } else {
+                stale = clearLocked();
+                mDatabase = database;
+            }
+            mMissCount++;
+            generation = mGeneration;
+        }
+        closeAll(stale);
+        return new CachedStatement(database.compileStatement(sql), sql, generation);
+    }
+
+    /**
+     * Returns a statement obtained from {@link #acquire(SupportSQLiteDatabase, String)} to the
+     * cache, evicting the least recently used statement if the cache is full. Statements of a
+     * previous connection are closed instead.
+     */
+    void release(@NonNull SupportSQLiteStatement statement) {
+        if (!(statement instanceof CachedStatement)) {
+            return;
+        }
+        final CachedStatement cached = (CachedStatement) statement;
+        if (cached.mClosed) {
+            return;
+        }
+        cached.clearBindings();
+        CachedStatement discarded = cached;
+        List<CachedStatement> evicted = null;
+        synchronized (this) {
+            if (cached.mGeneration == mGeneration && mMaxSize > 0
+                    && !mIdleStatements.containsKey(cached.mSql)) {
+                mIdleStatements.put(cached.mSql, cached);
+                if (mIdleStatements.size() > mMaxSize) {
+                    final Iterator<CachedStatement> iterator =
+                            mIdleStatements.values().iterator();
+                    evicted = new ArrayList<>(1);
+                    evicted.add(iterator.next());
+                    iterator.remove();
+                    mEvictionCount++;
+                }
+                discarded = null;
+            }
+        }
+        if (discarded != null) {
+            // Another caller already returned a statement for the same SQL, or this one belongs
+            // to a connection that is gone.
+            closeQuietly(discarded);
+        }
+        closeAll(evicted);
+    }
+
+    /**
+     * Closes every cached statement. Statements that are in use are closed when released.
+     */
+    void clear() {
+        final List<CachedStatement> stale;
+        synchronized (this) {
+            stale = clearLocked();
+            mDatabase = null;
+        }
+        closeAll(stale);
+    }
+
+    @NonNull
+    synchronized StatementCacheStats getStats() {
+        return new StatementCacheStats(mMaxSize, mIdleStatements.size(), mHitCount, mMissCount,
+                mEvictionCount);
+    }
+
+    private List<CachedStatement> clearLocked() {
+        mGeneration++;
+        final List<CachedStatement> stale = new ArrayList<>(mIdleStatements.values());
+        mIdleStatements.clear();
+        return stale;
+    }
+
+    private static void closeAll(@Nullable List<CachedStatement> statements) {
+        if (statements == null) {
+            return;
+        }
+        for (CachedStatement statement : statements) {
+            closeQuietly(statement);
+        }
+    }
+
+    private static void closeQuietly(CachedStatement statement) {
+        try {
+            statement.close();
+        } catch (IOException ignored) {
+            // Closing a compiled statement only releases its native resources.
+        }
+    }
+
+    /**
+     * Remembers the SQL and the connection generation a cached statement was compiled for.
+     */
+    private static class CachedStatement implements SupportSQLiteStatement {
+        private final SupportSQLiteStatement mDelegate;
+        final String mSql;
+        final int mGeneration;
+        volatile boolean mClosed;
+
+        CachedStatement(SupportSQLiteStatement delegate, String sql, int generation) {
+            mDelegate = delegate;
+            mSql = sql;
+            mGeneration = generation;
+        }
+
+        @Override
+        public void execute() {
+            mDelegate.execute();
+        }
+
+        @Override
+        public int executeUpdateDelete() {
+            return mDelegate.executeUpdateDelete();
+        }
+
+        @Override
+        public long executeInsert() {
+            return mDelegate.executeInsert();
+        }
+
+        @Override
+        public long simpleQueryForLong() {
+            return mDelegate.simpleQueryForLong();
+        }
+
+        @Override
+        public String simpleQueryForString() {
+            return mDelegate.simpleQueryForString();
+        }
+
+        @Override
+        public void bindNull(int index) {
+            mDelegate.bindNull(index);
+        }
+
+        @Override
+        public void bindLong(int index, long value) {
+            mDelegate.bindLong(index, value);
+        }
+
+        @Override
+        public void bindDouble(int index, double value) {
+            mDelegate.bindDouble(index, value);
+        }
+
+        @Override
+        public void bindString(int index, String value) {
+            mDelegate.bindString(index, value);
+        }
+
+        @Override
+        public void bindBlob(int index, byte[] value) {
+            mDelegate.bindBlob(index, value);
+        }
+
+        @Override
+        public void clearBindings() {
+            mDelegate.clearBindings();
+        }
+
+        @Override
+        public void close() throws IOException {
+            mClosed = true;
+            mDelegate.close();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+
+/**
+ * A snapshot of how often a {@link RoomDatabase} reused compiled statements from its statement
+ * cache.
+ *
+ * @see RoomDatabase.Builder#setStatementCacheSize(int)
+ * @see RoomDatabase#getStatementCacheStats()
+ */
+public final class StatementCacheStats {
+    private final int mMaxSize;
+    private final int mSize;
+    private final long mHitCount;
+    private final long mMissCount;
+    private final long mEvictionCount;
+
+    StatementCacheStats(int maxSize, int size, long hitCount, long missCount,
+            long evictionCount) {
+        mMaxSize = maxSize;
+        mSize = size;
+        mHitCount = hitCount;
+        mMissCount = missCount;
+        mEvictionCount = evictionCount;
+    }
+
+    /**
+     * Returns the maximum number of idle statements the cache keeps.
+     */
+    public int getMaxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * Returns the number of idle statements in the cache.
+     */
+    public int getSize() {
+        return mSize;
+    }
+
+    /**
+     * Returns the number of times a statement was reused from the cache.
+     */
+    public long getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * Returns the number of times a statement had to be compiled because none was cached.
+     */
+    public long getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * Returns the number of statements closed to keep the cache within its maximum size.
+     */
+    public long getEvictionCount() {
+        return mEvictionCount;
+    }
+
+    /**
+     * Returns the fraction of statement requests served from the cache, or 0 if there were no
+     * requests.
+     */
+    public double getHitRate() {
+        final long requests = mHitCount + mMissCount;
+        return requests == 0 ? 0 : (double) mHitCount / requests;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "StatementCacheStats[maxSize=%d, size=%d, hits=%d,"
+                        + " misses=%d, evictions=%d, hitRate=%.2f]", mMaxSize, mSize, mHitCount,
+                mMissCount, mEvictionCount, getHitRate());
+    }
+}
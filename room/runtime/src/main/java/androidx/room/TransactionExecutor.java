@@ -33,6 +33,8 @@ class TransactionExecutor implements Executor {
     private final Executor mExecutor;
     private final ArrayDeque<Runnable> mTasks = new ArrayDeque<>();
     private Runnable mActive;
+    // The thread running the active task, if any.
+    private volatile Thread mActiveThread;
 
     TransactionExecutor(@NonNull Executor executor) {
         mExecutor = executor;
@@ -43,9 +45,11 @@ class TransactionExecutor implements Executor {
         mTasks.offer(new Runnable() {
             @Override
             public void run() {
+                mActiveThread = Thread.currentThread();
                 try {
                     command.run();
                 } finally {
+                    mActiveThread = null;
                     scheduleNext();
                 }
             }
@@ -55,6 +59,14 @@ class TransactionExecutor implements Executor {
         }
     }
 
+    /**
+     * Returns true if the calling thread is running a task of this executor, so that waiting for
+     * another task would never end.
+     */
+    boolean isRunningOnCurrentThread() {
+        return mActiveThread == Thread.currentThread();
+    }
+
     @SuppressWarnings("WeakerAccess")
     synchronized void scheduleNext() {
         if ((mActive = mTasks.poll()) != null) {
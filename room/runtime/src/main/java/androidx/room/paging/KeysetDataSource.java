@@ -0,0 +1,290 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package androidx.room.paging;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+import androidx.room.InvalidationTracker;
+import androidx.room.RoomDatabase;
+import androidx.room.RoomSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A data source implementation that pages a query ordered by a unique, non null key by seeking
+ * to the key of an adjacent, already loaded row instead of skipping rows with OFFSET.
+ * <p>
+ * The data source remembers the key of the first and last row of every page it loads. When a
+ * range starts right after, or ends right before, a remembered row, it is loaded with
+ * {@code WHERE key > ? LIMIT ?} (or {@code key < ?}), which SQLite answers by seeking the key's
+ * index, so appending and prepending cost the same regardless of the scroll position. Ranges
+ * without an adjacent loaded row, such as the initial load of a new generation, fall back to
+ * LIMIT and OFFSET.
+ * <p>
+ * The row count is only queried when placeholders are enabled, since it is otherwise ignored.
+ *
+ * @param <T> Data type returned by the data source.
+ *
+ * @hide
+ */
+@SuppressWarnings("deprecation")
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+public abstract class KeysetDataSource<T> extends androidx.paging.PositionalDataSource<T> {
+    private final RoomSQLiteQuery mSourceQuery;
+    private final String mKeyColumn;
+    private final String mCountQuery;
+    private final String mLimitOffsetQuery;
+    private final String mSeekAfterQuery;
+    private final String mSeekBeforeQuery;
+    private final RoomDatabase mDb;
+    @SuppressWarnings("FieldCanBeLocal")
+    private final InvalidationTracker.Observer mObserver;
+    private final boolean mInTransaction;
+    // Keys of the first and last row of each loaded page, by position.
+    private final HashMap<Integer, Object> mKeys = new HashMap<>();
+
+    protected KeysetDataSource(RoomDatabase db, SupportSQLiteQuery query, boolean inTransaction,
+            String keyColumn, boolean descending, String... tables) {
+        this(db, RoomSQLiteQuery.copyFrom(query), inTransaction, keyColumn, descending, tables);
+    }
+
+    protected KeysetDataSource(RoomDatabase db, RoomSQLiteQuery query, boolean inTransaction,
+            String keyColumn, boolean descending, String... tables) {
+        mDb = db;
+        mSourceQuery = query;
+        mInTransaction = inTransaction;
+        mKeyColumn = keyColumn;
+        final String source = "SELECT * FROM ( " + mSourceQuery.getSql() + " )";
+        final String key = "`" + keyColumn + "`";
+        final String after = descending ? " < ?" : " > ?";
+        final String before = descending ? " > ?" : " < ?";
+        final String forward = descending ? " DESC" : " ASC";
+        final String backward = descending ? " ASC" : " DESC";
+        mCountQuery = "SELECT COUNT(*) FROM ( " + mSourceQuery.getSql() + " )";
+        mLimitOffsetQuery = source + " LIMIT ? OFFSET ?";
+        mSeekAfterQuery = source + " WHERE " + key + after + " ORDER BY " + key + forward
+                + " LIMIT ?";
+        mSeekBeforeQuery = source + " WHERE " + key + before + " ORDER BY " + key + backward
+                + " LIMIT ?";
+        mObserver = new InvalidationTracker.Observer(tables) {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                invalidate();
+            }
+        };
+        db.getInvalidationTracker().addWeakObserver(mObserver);
+    }
+
+    /**
+     * Count number of rows query can return
+     *
+     * @hide
+     */
+    @SuppressWarnings("WeakerAccess")
+    public int countItems() {
+        final RoomSQLiteQuery sqLiteQuery = RoomSQLiteQuery.acquire(mCountQuery,
+                mSourceQuery.getArgCount());
+        sqLiteQuery.copyArgumentsFrom(mSourceQuery);
+        Cursor cursor = mDb.query(sqLiteQuery);
+        try {
+            if (cursor.moveToFirst()) {
+                return cursor.getInt(0);
+            }
+            return 0;
+        } finally {
+            cursor.close();
+            sqLiteQuery.release();
+        }
+    }
+
+    @Override
+    public boolean isInvalid() {
+        mDb.getInvalidationTracker().refreshVersionsSync();
+        return super.isInvalid();
+    }
+
+    @SuppressWarnings("WeakerAccess")
+    protected abstract List<T> convertRows(Cursor cursor);
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public void loadInitial(@NonNull LoadInitialParams params,
+            @NonNull LoadInitialCallback<T> callback) {
+        if (!params.placeholdersEnabled) {
+            int position = params.requestedStartPosition;
+            List<T> list = loadRange(position, params.requestedLoadSize);
+            if (list.isEmpty() && position > 0) {
+                // the requested position is past the end, start over.
+                position = 0;
+                list = loadRange(position, params.requestedLoadSize);
+            }
+            callback.onResult(list, position);
+            return;
+        }
+        List<T> list = Collections.emptyList();
+        int totalCount = 0;
+        int firstLoadPosition = 0;
+        mDb.beginTransaction();
+        try {
+            totalCount = countItems();
+            if (totalCount != 0) {
+                // bound the size requested, based on known count
+                firstLoadPosition = computeInitialLoadPosition(params, totalCount);
+                int firstLoadSize = computeInitialLoadSize(params, firstLoadPosition, totalCount);
+                List<T> rows = queryRange(firstLoadPosition, firstLoadSize);
+                mDb.setTransactionSuccessful();
+                list = rows;
+            }
+        } finally {
+            mDb.endTransaction();
+        }
+
+        callback.onResult(list, firstLoadPosition, totalCount);
+    }
+
+    @Override
+    public void loadRange(@NonNull LoadRangeParams params,
+            @NonNull LoadRangeCallback<T> callback) {
+        callback.onResult(loadRange(params.startPosition, params.loadSize));
+    }
+
+    /**
+     * Return the rows from startPos to startPos + loadCount
+     *
+     * @hide
+     */
+    @SuppressWarnings("deprecation")
+    @NonNull
+    public List<T> loadRange(int startPosition, int loadCount) {
+        if (mInTransaction) {
+            mDb.beginTransaction();
+            try {
+                List<T> rows = queryRange(startPosition, loadCount);
+                mDb.setTransactionSuccessful();
+                return rows;
+            } finally {
+                mDb.endTransaction();
+            }
+        } else {
+            return queryRange(startPosition, loadCount);
+        }
+    }
+
+    private List<T> queryRange(int startPosition, int loadCount) {
+        final RoomSQLiteQuery sqLiteQuery;
+        final boolean reversed;
+        final Object keyBefore = getKey(startPosition - 1);
+        final Object keyAfter = keyBefore == null ? getKey(startPosition + loadCount) : null;
+        if (keyBefore != null) {
+            sqLiteQuery = getSeekQuery(mSeekAfterQuery, keyBefore, loadCount);
+            reversed = false;
+        } else if (keyAfter != null) {
+            sqLiteQuery = getSeekQuery(mSeekBeforeQuery, keyAfter, loadCount);
+            reversed = true;
+        } else {
+            sqLiteQuery = getLimitOffsetQuery(startPosition, loadCount);
+            reversed = false;
+        }
+        Cursor cursor = mDb.query(sqLiteQuery);
+        //noinspection TryFinallyCanBeTryWithResources
+        try {
+            List<T> rows = convertRows(cursor);
+            if (reversed) {
+                Collections.reverse(rows);
+            }
+            rememberKeys(cursor, startPosition, reversed);
+            return rows;
+        } finally {
+            cursor.close();
+            sqLiteQuery.release();
+        }
+    }
+
+    @Nullable
+    private Object getKey(int position) {
+        synchronized (mKeys) {
+            return mKeys.get(position);
+        }
+    }
+
+    private void rememberKeys(Cursor cursor, int startPosition, boolean reversed) {
+        final int count = cursor.getCount();
+        if (count == 0) {
+            return;
+        }
+        final int keyIndex = cursor.getColumnIndexOrThrow(mKeyColumn);
+        cursor.moveToFirst();
+        final Object firstKey = readKey(cursor, keyIndex);
+        cursor.moveToLast();
+        final Object lastKey = readKey(cursor, keyIndex);
+        synchronized (mKeys) {
+            mKeys.put(startPosition, reversed ? lastKey : firstKey);
+            mKeys.put(startPosition + count - 1, reversed ? firstKey : lastKey);
+        }
+    }
+
+    @Nullable
+    private static Object readKey(Cursor cursor, int index) {
+        switch (cursor.getType(index)) {
+            case Cursor.FIELD_TYPE_INTEGER:
+                return cursor.getLong(index);
+            case Cursor.FIELD_TYPE_FLOAT:
+                return cursor.getDouble(index);
+            case Cursor.FIELD_TYPE_STRING:
+                return cursor.getString(index);
+            case Cursor.FIELD_TYPE_BLOB:
+                return cursor.getBlob(index);
+            default:
+                return null;
+        }
+    }
+
+    private RoomSQLiteQuery getSeekQuery(String sql, Object key, int loadCount) {
+        final RoomSQLiteQuery sqLiteQuery = RoomSQLiteQuery.acquire(sql,
+                mSourceQuery.getArgCount() + 2);
+        sqLiteQuery.copyArgumentsFrom(mSourceQuery);
+        final int keyIndex = sqLiteQuery.getArgCount() - 1;
+        if (key instanceof Long) {
+            sqLiteQuery.bindLong(keyIndex, (Long) key);
+        } else if (key instanceof Double) {
+            sqLiteQuery.bindDouble(keyIndex, (Double) key);
+        } else if (key instanceof String) {
+            sqLiteQuery.bindString(keyIndex, (String) key);
+        } else {
+            sqLiteQuery.bindBlob(keyIndex, (byte[]) key);
+        }
+        sqLiteQuery.bindLong(sqLiteQuery.getArgCount(), loadCount);
+        return sqLiteQuery;
+    }
+
+    private RoomSQLiteQuery getLimitOffsetQuery(int startPosition, int loadCount) {
+        final RoomSQLiteQuery sqLiteQuery = RoomSQLiteQuery.acquire(mLimitOffsetQuery,
+                mSourceQuery.getArgCount() + 2);
+        sqLiteQuery.copyArgumentsFrom(mSourceQuery);
+        sqLiteQuery.bindLong(sqLiteQuery.getArgCount() - 1, loadCount);
+        sqLiteQuery.bindLong(sqLiteQuery.getArgCount(), startPosition);
+        return sqLiteQuery;
+    }
+}
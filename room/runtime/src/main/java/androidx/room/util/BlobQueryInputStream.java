@@ -0,0 +1,288 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package androidx.room.util;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.room.RoomDatabase;
+import androidx.room.RoomSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteProgram;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Streams the BLOB or TEXT value in the first column of the first row of a query.
+ * <p>
+ * The value is read a chunk at a time by selecting a {@code substr()} of it from the query, so
+ * only one chunk is ever copied through a {@link android.database.CursorWindow}. Each chunk runs
+ * the query again, which suits queries that look a row up by its key.
+ * <p>
+ * SQLite loads the whole value to evaluate {@code substr()}, so every chunk costs I/O
+ * proportional to the length of the value. Chunks are therefore read at the largest size that
+ * fits the cursor window and buffered, however small the reads of the caller are.
+ */
+final class BlobQueryInputStream extends InputStream {
+    // Fits comfortably in the default 2 MB cursor window.
+    private static final int MAX_CHUNK_SIZE = 256 * 1024;
+
+    private final RoomDatabase mDatabase;
+    private final RoomSQLiteQuery mQuery;
+    private final String mChunkSql;
+    private final long mLength;
+    private long mPosition;
+    private long mMark;
+    @Nullable
+    private byte[] mBuffer;
+    // The position in the value of the first byte of mBuffer.
+    private long mBufferStart;
+    private boolean mClosed;
+
+    private BlobQueryInputStream(RoomDatabase database, RoomSQLiteQuery query, String chunkSql,
+            long length) {
+        mDatabase = database;
+        mQuery = query;
+        mChunkSql = chunkSql;
+        mLength = length;
+    }
+
+    /**
+     * Runs the query to find the length of its value.
+     *
+     * @param db    The database to run the query on.
+     * @param query The query, which is copied so that the caller keeps owning it.
+     * @return A stream reading the value, or null if the query returns no rows or a NULL value.
+     */
+    @Nullable
+    static BlobQueryInputStream open(@NonNull RoomDatabase db,
+            @NonNull SupportSQLiteQuery query) {
+        final RoomSQLiteQuery copy = RoomSQLiteQuery.copyFrom(query);
+        try {
+            String sql = copy.getSql().trim();
+            while (sql.endsWith(";")) {
+                sql = sql.substring(0, sql.length() - 1).trim();
+            }
+            final String column;
+            Cursor cursor = db.query(new WrappedQuery(copy, "SELECT * FROM (" + sql
+                    + ") LIMIT 0", 0, 0));
+            try {
+                column = "`" + cursor.getColumnName(0).replace("`", "``") + "`";
+            } finally {
+                cursor.close();
+            }
+            final String value = "CAST(" + column + " AS BLOB)";
+            final long length;
+            cursor = db.query(new WrappedQuery(copy, "SELECT length(" + value + ") FROM ("
+                    + sql + ") LIMIT 1", 0, 0));
+            try {
+                if (!cursor.moveToFirst() || cursor.isNull(0)) {
+                    copy.release();
+                    return null;
+                }
+                length = cursor.getLong(0);
+            } finally {
+                cursor.close();
+            }
+            return new BlobQueryInputStream(db, copy, "SELECT substr(" + value + ", ?, ?) FROM ("
+                    + sql + ") LIMIT 1", length);
+        } catch (RuntimeException e) {
+            copy.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] b = new byte[1];
+        return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (mClosed) {
+            throw new IOException("Stream is closed");
+        }
+        if (mPosition >= mLength) {
+            return -1;
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (mBuffer == null || mPosition < mBufferStart
+                || mPosition >= mBufferStart + mBuffer.length) {
+            mBuffer = readChunk(mPosition);
+            mBufferStart = mPosition;
+        }
+        final int offset = (int) (mPosition - mBufferStart);
+        final int read = Math.min(len, mBuffer.length - offset);
+        System.arraycopy(mBuffer, offset, b, off, read);
+        mPosition += read;
+        return read;
+    }
+
+    private byte[] readChunk(long position) throws IOException {
+        final int count = (int) Math.min(MAX_CHUNK_SIZE, mLength - position);
+        final byte[] chunk;
+        final Cursor cursor = mDatabase.query(
+                new WrappedQuery(mQuery, mChunkSql, position + 1, count));
+        try {
+            if (!cursor.moveToFirst() || cursor.isNull(0)) {
+                throw new IOException("The value was removed while it was being read");
+            }
+            chunk = cursor.getBlob(0);
+        } finally {
+            cursor.close();
+        }
+        if (chunk.length == 0) {
+            throw new IOException("The value was truncated while it was being read");
+        }
+        return chunk;
+    }
+
+    @Override
+    public long skip(long n) {
+        final long skipped = Math.max(0, Math.min(n, mLength - mPosition));
+        mPosition += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, mLength - mPosition);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+        mMark = mPosition;
+    }
+
+    @Override
+    public synchronized void reset() {
+        mPosition = mMark;
+    }
+
+    @Override
+    public void close() {
+        if (!mClosed) {
+            mClosed = true;
+            mBuffer = null;
+            mQuery.release();
+        }
+    }
+
+    /**
+     * Runs a query that wraps the original one as a subquery, binding the offset and length of a
+     * chunk, if any, followed by the arguments of the original query.
+     * <p>
+     * SQLite numbers anonymous arguments in the order they appear in the SQL, and the offset and
+     * length of {@code substr()} appear before the subquery.
+     */
+    private static final class WrappedQuery implements SupportSQLiteQuery {
+        private final SupportSQLiteQuery mQuery;
+        private final String mSql;
+        private final long mOffset;
+        private final int mCount;
+
+        WrappedQuery(SupportSQLiteQuery query, String sql, long offset, int count) {
+            mQuery = query;
+            mSql = sql;
+            mOffset = offset;
+            mCount = count;
+        }
+
+        @Override
+        public String getSql() {
+            return mSql;
+        }
+
+        @Override
+        public void bindTo(SupportSQLiteProgram statement) {
+            if (mCount > 0) {
+                statement.bindLong(1, mOffset);
+                statement.bindLong(2, mCount);
+                mQuery.bindTo(new OffsetBindingProgram(statement, 2));
+            } else {
+                mQuery.bindTo(statement);
+            }
+        }
+
+        @Override
+        public int getArgCount() {
+            return mQuery.getArgCount() + (mCount > 0 ? 2 : 0);
+        }
+    }
+
+    /**
+     * Shifts the bind indices of the original query past the arguments that precede it.
+     */
+    private static final class OffsetBindingProgram implements SupportSQLiteProgram {
+        private final SupportSQLiteProgram mDelegate;
+        private final int mOffset;
+
+        OffsetBindingProgram(SupportSQLiteProgram delegate, int offset) {
+            mDelegate = delegate;
+            mOffset = offset;
+        }
+
+        @Override
+        public void bindNull(int index) {
+            mDelegate.bindNull(mOffset + index);
+        }
+
+        @Override
+        public void bindLong(int index, long value) {
+            mDelegate.bindLong(mOffset + index, value);
+        }
+
+        @Override
+        public void bindDouble(int index, double value) {
+            mDelegate.bindDouble(mOffset + index, value);
+        }
+
+        @Override
+        public void bindString(int index, String value) {
+            mDelegate.bindString(mOffset + index, value);
+        }
+
+        @Override
+        public void bindBlob(int index, byte[] value) {
+            mDelegate.bindBlob(mOffset + index, value);
+        }
+
+        @Override
+        public void clearBindings() {
+            mDelegate.clearBindings();
+        }
+
+        @Override
+        public void close() throws IOException {
+            mDelegate.close();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.util;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+import androidx.room.CloseableIterator;
+import androidx.room.RoomSQLiteQuery;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A {@link CloseableIterator} that maps the rows of a cursor as it advances.
+ * <p>
+ * This is an internal library class and all of its implementations are auto-generated.
+ *
+ * @param <T> The type of the rows.
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+public abstract class CursorIterator<T> implements CloseableIterator<T> {
+    private final Cursor mCursor;
+    @Nullable
+    private RoomSQLiteQuery mQuery;
+    // Whether the cursor has been moved to the row that next() returns.
+    private boolean mHasPeeked;
+    private boolean mHasNext;
+    private boolean mClosed;
+
+    /**
+     * @param cursor The cursor to iterate, positioned before its first row.
+     * @param query  The query that produced the cursor, released on close, or null if it is
+     *               owned by the caller.
+     */
+    public CursorIterator(@NonNull Cursor cursor, @Nullable RoomSQLiteQuery query) {
+        mCursor = cursor;
+        mQuery = query;
+    }
+
+    /**
+     * Maps the row the cursor is positioned on.
+     *
+     * @param cursor The cursor, positioned on the row to map.
+     * @return The mapped row.
+     */
+    protected abstract T convert(@NonNull Cursor cursor);
+
+    @Override
+    public boolean hasNext() {
+        if (mClosed) {
+            return false;
+        }
+        if (!mHasPeeked) {
+            mHasNext = mCursor.moveToNext();
+            mHasPeeked = true;
+            if (!mHasNext) {
+                close();
+            }
+        }
+        return mHasNext;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        mHasPeeked = false;
+        return convert(mCursor);
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns whether the underlying cursor has been closed, either by {@link #close()} or by
+     * iterating past the last row.
+     *
+     * @return True if the cursor is closed.
+     */
+    public boolean isClosed() {
+        return mCursor.isClosed();
+    }
+
+    @Override
+    public void close() {
+        if (mClosed) {
+            return;
+        }
+        mClosed = true;
+        mCursor.close();
+        if (mQuery != null) {
+            mQuery.release();
+            mQuery = null;
+        }
+    }
+}
@@ -18,6 +18,8 @@ package androidx.room.util;
 
 import android.database.AbstractWindowedCursor;
 import android.database.Cursor;
+import android.database.CursorWindow;
+import android.database.CursorWrapper;
 import android.os.Build;
 import android.os.CancellationSignal;
 
@@ -31,6 +33,7 @@ import androidx.sqlite.db.SupportSQLiteQuery;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.ArrayList;
@@ -43,6 +46,13 @@ import java.util.List;
  */
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
 public class DBUtil {
+    // Number of rows of the first window whose width is measured.
+    private static final int WINDOW_SIZE_SAMPLE_ROWS = 16;
+    // Bytes a cursor window uses for the slot of every field.
+    private static final int WINDOW_FIELD_OVERHEAD = 16;
+    private static final int WINDOW_SIZE_SLACK = 64 * 1024;
+    // Size of the cursor windows of the framework.
+    private static final long DEFAULT_WINDOW_SIZE = 2 * 1024 * 1024;
 
     /**
      * Performs the SQLiteQuery on the given database.
@@ -69,7 +79,10 @@ public class DBUtil {
      * <p>
      * This util method encapsulates copying the cursor if the {@code maybeCopy} parameter is
      * {@code true} and either the api level is below a certain threshold or the full result of the
-     * query does not fit in a single window.
+     * query does not fit in a single window. On API 28 and higher, a result that does not fit
+     * in a single window is first queried again with a window sized for it, if that is within
+     * {@link RoomDatabase#getMaxCursorWindowSize()}, whether or not it may be copied. Results
+     * that are streamed rather than read as a whole must not be queried through this method.
      *
      * @param db          The database to perform the query on.
      * @param sqLiteQuery The query to perform.
@@ -80,22 +93,103 @@ public class DBUtil {
     @NonNull
     public static Cursor query(@NonNull RoomDatabase db, @NonNull SupportSQLiteQuery sqLiteQuery,
             boolean maybeCopy, @Nullable CancellationSignal signal) {
-        final Cursor cursor = db.query(sqLiteQuery, signal);
-        if (maybeCopy && cursor instanceof AbstractWindowedCursor) {
-            AbstractWindowedCursor windowedCursor = (AbstractWindowedCursor) cursor;
-            int rowsInCursor = windowedCursor.getCount(); // Should fill the window.
-            int rowsInWindow;
-            if (windowedCursor.hasWindow()) {
-                rowsInWindow = windowedCursor.getWindow().getNumRows();
-            } else {
-                rowsInWindow = rowsInCursor;
+        Cursor cursor = db.query(sqLiteQuery, signal);
+        final boolean maybeResize = Build.VERSION.SDK_INT >= Build.VERSION_CODES.P
+                && db.getMaxCursorWindowSize() > 0;
+        AbstractWindowedCursor windowedCursor =
+                maybeCopy || maybeResize ? findWindowedCursor(cursor) : null;
+        if (windowedCursor == null) {
+            return cursor;
+        }
+        if (maybeResize && !fitsInWindow(windowedCursor)) {
+            // Rather than reading the result through many windows, each of which runs the
+            // query again, run it once more with a window sized for the whole result.
+            final long windowSize = estimateWindowSize(windowedCursor.getWindow(),
+                    windowedCursor.getColumnCount(), windowedCursor.getCount());
+            if (windowSize > 0 && windowSize <= db.getMaxCursorWindowSize()) {
+                cursor.close();
+                cursor = db.query(sqLiteQuery, signal, windowSize);
+                // The estimate can still fall short, so check the new result before returning it.
+                windowedCursor = findWindowedCursor(cursor);
             }
-            if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M || rowsInWindow < rowsInCursor) {
-                return CursorUtil.copyAndClose(windowedCursor);
+        }
+        if (maybeCopy && windowedCursor != null && (Build.VERSION.SDK_INT < Build.VERSION_CODES.M
+                || !fitsInWindow(windowedCursor))) {
+            return CursorUtil.copyAndClose(cursor);
+        }
+        return cursor;
+    }
+
+    private static boolean fitsInWindow(AbstractWindowedCursor cursor) {
+        final int rowsInCursor = cursor.getCount(); // Should fill the window.
+        final int rowsInWindow;
+        if (cursor.hasWindow()) {
+            rowsInWindow = cursor.getWindow().getNumRows();
+        } else {
+            rowsInWindow = rowsInCursor;
+        }
+        return rowsInWindow >= rowsInCursor;
+    }
+
+    @Nullable
+    private static AbstractWindowedCursor findWindowedCursor(Cursor cursor) {
+        while (cursor instanceof CursorWrapper) {
+            cursor = ((CursorWrapper) cursor).getWrappedCursor();
+        }
+        return cursor instanceof AbstractWindowedCursor ? (AbstractWindowedCursor) cursor : null;
+    }
+
+    /**
+     * Estimates the size of a window that holds all rows of a result from the rows in its first
+     * window.
+     *
+     * @return The estimated window size in bytes, or 0 if the window holds no rows.
+     */
+    private static long estimateWindowSize(CursorWindow window, int columnCount, int rowCount) {
+        final int sampleCount = Math.min(window.getNumRows(), WINDOW_SIZE_SAMPLE_ROWS);
+        if (sampleCount == 0) {
+            return 0;
+        }
+        final int start = window.getStartPosition();
+        long sampleBytes = 0;
+        for (int row = start; row < start + sampleCount; row++) {
+            for (int column = 0; column < columnCount; column++) {
+                sampleBytes += WINDOW_FIELD_OVERHEAD;
+                switch (window.getType(row, column)) {
+                    case Cursor.FIELD_TYPE_STRING:
+                    case Cursor.FIELD_TYPE_BLOB:
+                        // the string's bytes as they are stored in the window
+                        sampleBytes += window.getBlob(row, column).length;
+                        break;
+                    default:
+                        break;
+                }
             }
         }
+        final long rowBytes = sampleBytes / sampleCount + 1;
+        // The default window filled up with the rows it holds, which bounds the estimate from
+        // below when the sampled rows are narrower than the rest.
+        final long filledBytes = DEFAULT_WINDOW_SIZE / window.getNumRows() * rowCount;
+        // leave room for rows that are wider than the sampled ones
+        return Math.max(rowBytes * rowCount * 5 / 4, filledBytes) + WINDOW_SIZE_SLACK;
+    }
 
-        return cursor;
+    /**
+     * Performs the SQLiteQuery on the given database and streams the BLOB or TEXT value in the
+     * first column of its first row.
+     * <p>
+     * The value is read in bounded chunks as the stream is consumed, by running the query again
+     * for each chunk, so the value is never copied as a whole.
+     *
+     * @param db          The database to perform the query on.
+     * @param sqLiteQuery The query to perform, which is copied so that the caller keeps owning it.
+     * @return A stream reading the value, which must be closed, or null if the query returns no
+     * rows or a NULL value.
+     */
+    @Nullable
+    public static InputStream queryBlobStream(@NonNull RoomDatabase db,
+            @NonNull SupportSQLiteQuery sqLiteQuery) {
+        return BlobQueryInputStream.open(db, sqLiteQuery);
     }
 
     /**
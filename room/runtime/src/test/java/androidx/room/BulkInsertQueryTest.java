@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class BulkInsertQueryTest {
+    private static final String QUERY =
+            "INSERT OR ABORT INTO `User` (`uid`,`name`,`age`) VALUES (nullif(?, 0),?,?)";
+
+    @Test
+    public void repeatsRow() {
+        EntityInsertionAdapter.BulkInsertQuery bulkQuery =
+                EntityInsertionAdapter.BulkInsertQuery.parse(QUERY);
+        assertThat(bulkQuery.mRowArgCount, is(3));
+        assertThat(bulkQuery.createQuery(1), is(QUERY));
+        assertThat(bulkQuery.createQuery(3), is("INSERT OR ABORT INTO `User` (`uid`,`name`,`age`)"
+                + " VALUES (nullif(?, 0),?,?),(nullif(?, 0),?,?),(nullif(?, 0),?,?)"));
+    }
+
+    @Test
+    public void maxRowsFitsBindLimit() {
+        EntityInsertionAdapter.BulkInsertQuery bulkQuery =
+                EntityInsertionAdapter.BulkInsertQuery.parse(QUERY);
+        assertThat(bulkQuery.mMaxRows, is(RoomDatabase.MAX_BIND_PARAMETER_CNT / 3));
+        EntityInsertionAdapter.BulkInsertQuery singleColumn =
+                EntityInsertionAdapter.BulkInsertQuery.parse(
+                        "INSERT OR REPLACE INTO `Tag` (`name`) VALUES (?)");
+        assertThat(singleColumn.mMaxRows, is(500));
+    }
+
+    @Test
+    public void columnNamedValues() {
+        EntityInsertionAdapter.BulkInsertQuery bulkQuery =
+                EntityInsertionAdapter.BulkInsertQuery.parse(
+                        "INSERT OR ABORT INTO `Foo` (` VALUES `) VALUES (?)");
+        assertThat(bulkQuery.createQuery(2),
+                is("INSERT OR ABORT INTO `Foo` (` VALUES `) VALUES (?),(?)"));
+    }
+
+    @Test
+    public void namesContainingQueryStructure() {
+        EntityInsertionAdapter.BulkInsertQuery bulkQuery =
+                EntityInsertionAdapter.BulkInsertQuery.parse("INSERT OR IGNORE INTO"
+                        + " `Foo VALUES (x)` (`a) VALUES (`,`b``c`) VALUES (?,?)");
+        assertThat(bulkQuery.mRowArgCount, is(2));
+        assertThat(bulkQuery.createQuery(2), is("INSERT OR IGNORE INTO"
+                + " `Foo VALUES (x)` (`a) VALUES (`,`b``c`) VALUES (?,?),(?,?)"));
+    }
+
+    @Test
+    public void unknownFormat() {
+        assertThat(EntityInsertionAdapter.BulkInsertQuery.parse(
+                "INSERT INTO Foo SELECT * FROM Bar"), nullValue());
+        assertThat(EntityInsertionAdapter.BulkInsertQuery.parse(
+                "INSERT INTO Foo DEFAULT VALUES "), nullValue());
+        assertThat(EntityInsertionAdapter.BulkInsertQuery.parse(
+                "INSERT OR ABORT INTO `Foo` (`a` VALUES (?)"), nullValue());
+    }
+}
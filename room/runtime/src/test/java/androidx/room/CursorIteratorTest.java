@@ -0,0 +1,117 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package androidx.room;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.room.util.CursorIterator;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.NoSuchElementException;
+
+@RunWith(JUnit4.class)
+public class CursorIteratorTest {
+    private Cursor mCursor;
+
+    @Before
+    public void setup() {
+        RoomSQLiteQuery.sQueryPool.clear();
+        mCursor = mock(Cursor.class);
+        when(mCursor.moveToNext()).thenReturn(true, true, false);
+        when(mCursor.getInt(0)).thenReturn(1, 2);
+    }
+
+    @Test
+    public void iteratesAllRows() {
+        IntIterator iterator = new IntIterator(mCursor, null);
+        assertThat(iterator.hasNext(), is(true));
+        assertThat(iterator.next(), is(1));
+        assertThat(iterator.next(), is(2));
+        assertThat(iterator.hasNext(), is(false));
+    }
+
+    @Test
+    public void hasNextDoesNotAdvance() {
+        IntIterator iterator = new IntIterator(mCursor, null);
+        assertThat(iterator.hasNext(), is(true));
+        assertThat(iterator.hasNext(), is(true));
+        assertThat(iterator.next(), is(1));
+        verify(mCursor, times(1)).moveToNext();
+    }
+
+    @Test
+    public void closesAfterLastRow() {
+        RoomSQLiteQuery query = RoomSQLiteQuery.acquire("SELECT 1", 0);
+        IntIterator iterator = new IntIterator(mCursor, query);
+        iterator.next();
+        iterator.next();
+        assertThat(iterator.hasNext(), is(false));
+        verify(mCursor).close();
+        assertThat(RoomSQLiteQuery.sQueryPool.size(), is(1));
+    }
+
+    @Test
+    public void closeIsIdempotent() {
+        RoomSQLiteQuery query = RoomSQLiteQuery.acquire("SELECT 1", 0);
+        IntIterator iterator = new IntIterator(mCursor, query);
+        iterator.close();
+        iterator.close();
+        assertThat(iterator.hasNext(), is(false));
+        verify(mCursor, times(1)).close();
+        verify(mCursor, times(0)).moveToNext();
+        assertThat(RoomSQLiteQuery.sQueryPool.size(), is(1));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void nextAfterEnd() {
+        IntIterator iterator = new IntIterator(mCursor, null);
+        iterator.next();
+        iterator.next();
+        iterator.next();
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void removeUnsupported() {
+        IntIterator iterator = new IntIterator(mCursor, null);
+        iterator.next();
+        iterator.remove();
+    }
+
+    private static class IntIterator extends CursorIterator<Integer> {
+        IntIterator(Cursor cursor, RoomSQLiteQuery query) {
+            super(cursor, query);
+        }
+
+        @Override
+        protected Integer convert(@NonNull Cursor cursor) {
+            return cursor.getInt(0);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package androidx.room;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class InvalidationCounterFileTest {
+    private static final String[] TABLES = {"user", "pet", "toy"};
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private final List<InvalidationCounterFile> mOpened = new ArrayList<>();
+    private File mFile;
+
+    @Before
+    public void setup() {
+        mFile = new File(mTemporaryFolder.getRoot(), "test.db-invalidation");
+    }
+
+    @After
+    public void closeAll() throws IOException {
+        for (InvalidationCounterFile counterFile : mOpened) {
+            counterFile.close();
+        }
+    }
+
+    private InvalidationCounterFile open(String... tables) throws IOException {
+        InvalidationCounterFile counterFile = InvalidationCounterFile.open(mFile, tables);
+        mOpened.add(counterFile);
+        return counterFile;
+    }
+
+    private static List<String> collect(InvalidationCounterFile counterFile) {
+        return Arrays.asList(counterFile.collectInvalidated());
+    }
+
+    @Test
+    public void instancesClaimDifferentSlots() throws IOException {
+        InvalidationCounterFile first = open(TABLES);
+        InvalidationCounterFile second = open(TABLES);
+        assertThat(first.getSlot(), is(not(second.getSlot())));
+    }
+
+    @Test
+    public void otherInstanceSeesIncrements() throws IOException {
+        InvalidationCounterFile writer = open(TABLES);
+        InvalidationCounterFile reader = open(TABLES);
+        writer.increment(new HashSet<>(Arrays.asList("user", "toy", "unknown")));
+
+        assertThat(collect(reader), is(Arrays.asList("toy", "user")));
+        assertThat(collect(reader), is(Collections.<String>emptyList()));
+        // an instance is not notified of its own writes
+        assertThat(collect(writer), is(Collections.<String>emptyList()));
+    }
+
+    @Test
+    public void newInstanceIgnoresEarlierIncrements() throws IOException {
+        InvalidationCounterFile writer = open(TABLES);
+        writer.increment(Collections.singleton("pet"));
+        InvalidationCounterFile reader = open(TABLES);
+        assertThat(collect(reader), is(Collections.<String>emptyList()));
+    }
+
+    @Test
+    public void releasedSlotKeepsCounting() throws IOException {
+        InvalidationCounterFile reader = open(TABLES);
+        InvalidationCounterFile writer = InvalidationCounterFile.open(mFile, TABLES);
+        writer.increment(Collections.singleton("pet"));
+        assertThat(collect(reader), is(Arrays.asList("pet")));
+        int slot = writer.getSlot();
+        writer.close();
+
+        InvalidationCounterFile next = open(TABLES);
+        assertThat(next.getSlot(), is(slot));
+        assertThat(collect(reader), is(Collections.<String>emptyList()));
+        next.increment(Collections.singleton("pet"));
+        assertThat(collect(reader), is(Arrays.asList("pet")));
+    }
+
+    @Test
+    public void reinitializesUnusedFileForOtherTables() throws IOException {
+        InvalidationCounterFile old = InvalidationCounterFile.open(mFile, TABLES);
+        old.increment(Collections.singleton("pet"));
+        old.close();
+
+        InvalidationCounterFile reader = open("user", "house");
+        InvalidationCounterFile writer = open("user", "house");
+        writer.increment(Collections.singleton("house"));
+        assertThat(collect(reader), is(Arrays.asList("house")));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherTablesWhileInUse() throws IOException {
+        open(TABLES);
+        open("user", "house");
+    }
+}
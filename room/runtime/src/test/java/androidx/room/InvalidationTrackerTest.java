@@ -420,6 +420,59 @@ public class InvalidationTrackerTest {
         assertThat(observer.getInvalidatedTables(), hasItem("a"));
     }
 
+    @Test
+    public void multiTableObserverNotifiedOnce() {
+        CountingObserver observer = new CountingObserver("a", "B", "i");
+        CountingObserver unrelated = new CountingObserver("C");
+        mTracker.addObserver(observer);
+        mTracker.addObserver(unrelated);
+
+        mTracker.notifyObserversByTableIds(new long[]{0b111});
+        assertThat(observer.mCount, is(1));
+        assertThat(observer.mInvalidatedTables, hasItems("a", "B", "i"));
+        assertThat(unrelated.mCount, is(0));
+
+        mTracker.notifyObserversByTableIds(new long[]{0b1010});
+        assertThat(observer.mCount, is(2));
+        assertThat(observer.mInvalidatedTables.size(), is(1));
+        assertThat(observer.mInvalidatedTables, hasItem("B"));
+        assertThat(unrelated.mCount, is(1));
+    }
+
+    @Test
+    public void observerRemovedDuringDispatchIsNotNotified() {
+        final CountingObserver removed = new CountingObserver("B");
+        CountingObserver remover = new CountingObserver("a") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                super.onInvalidated(tables);
+                mTracker.removeObserver(removed);
+            }
+        };
+        mTracker.addObserver(remover);
+        mTracker.addObserver(removed);
+
+        mTracker.notifyObserversByTableIds(new long[]{0b11});
+        assertThat(remover.mCount, is(1));
+        assertThat(removed.mCount, is(0));
+    }
+
+    @Test
+    public void notifyTableIdsBeyondFirstWord() {
+        String[] tableNames = new String[70];
+        for (int i = 0; i < tableNames.length; i++) {
+            tableNames[i] = "t" + i;
+        }
+        InvalidationTracker tracker = new InvalidationTracker(mRoomDatabase, tableNames);
+        CountingObserver observer = new CountingObserver("t3", "t66");
+        tracker.addObserver(observer);
+
+        tracker.notifyObserversByTableIds(new long[]{0, 1L << 2});
+        assertThat(observer.mCount, is(1));
+        assertThat(observer.mInvalidatedTables.size(), is(1));
+        assertThat(observer.mInvalidatedTables, hasItem("t66"));
+    }
+
     @Test
     public void failFastCreateLiveData() {
         // assert that sending a bad createLiveData table name fails instantly
@@ -518,6 +571,21 @@ public class InvalidationTrackerTest {
         }
     }
 
+    static class CountingObserver extends InvalidationTracker.Observer {
+        int mCount;
+        Set<String> mInvalidatedTables;
+
+        CountingObserver(String... tableNames) {
+            super(tableNames);
+        }
+
+        @Override
+        public void onInvalidated(@NonNull Set<String> tables) {
+            mCount++;
+            mInvalidatedTables = tables;
+        }
+    }
+
     private static void forceGc() {
         // Use a random index in the list to detect the garbage collection each time because
         // .get() may accidentally trigger a strong reference during collection.
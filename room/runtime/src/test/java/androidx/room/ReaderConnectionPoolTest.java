@@ -0,0 +1,213 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(JUnit4.class)
+public class ReaderConnectionPoolTest {
+    private static final int POOL_SIZE = 2;
+
+    private final List<SupportSQLiteOpenHelper> mReaderHelpers = new ArrayList<>();
+    private SupportSQLiteOpenHelper mWriter;
+    private SupportSQLiteOpenHelper.Factory mFactory;
+    private ReaderConnectionPool mPool;
+
+    @Before
+    public void setup() {
+        SupportSQLiteDatabase writerDb = mock(SupportSQLiteDatabase.class);
+        when(writerDb.getVersion()).thenReturn(3);
+        mWriter = mock(SupportSQLiteOpenHelper.class);
+        when(mWriter.getWritableDatabase()).thenReturn(writerDb);
+        mFactory = mock(SupportSQLiteOpenHelper.Factory.class);
+        when(mFactory.create(any(SupportSQLiteOpenHelper.Configuration.class))).thenAnswer(
+                new Answer<SupportSQLiteOpenHelper>() {
+                    @Override
+                    public SupportSQLiteOpenHelper answer(InvocationOnMock invocation) {
+                        SupportSQLiteOpenHelper.Configuration configuration =
+                                invocation.getArgument(0);
+                        assertThat(configuration.name, is("test.db"));
+                        assertThat(configuration.callback.version, is(3));
+                        SupportSQLiteOpenHelper helper = mock(SupportSQLiteOpenHelper.class);
+                        when(helper.getWritableDatabase()).thenReturn(
+                                mock(SupportSQLiteDatabase.class));
+                        mReaderHelpers.add(helper);
+                        return helper;
+                    }
+                });
+        mPool = new ReaderConnectionPool(mFactory, mock(Context.class), "test.db", mWriter,
+                POOL_SIZE);
+    }
+
+    @Test
+    public void readersBypassCopyOpenHelper() {
+        mPool = new ReaderConnectionPool(
+                new SQLiteCopyOpenHelperFactory("assets-path", null, mFactory),
+                mock(Context.class), "test.db", mWriter, POOL_SIZE);
+        SupportSQLiteDatabase reader = mPool.acquire();
+        assertThat(mReaderHelpers.size(), is(1));
+        assertThat(reader, sameInstance(mReaderHelpers.get(0).getWritableDatabase()));
+    }
+
+    @Test
+    public void readOnlyQueries() {
+        assertThat(ReaderConnectionPool.isReadOnlyQuery("SELECT * FROM Foo"), is(true));
+        assertThat(ReaderConnectionPool.isReadOnlyQuery("  \nselect 1"), is(true));
+        assertThat(ReaderConnectionPool.isReadOnlyQuery("INSERT INTO Foo VALUES(1)"), is(false));
+        assertThat(ReaderConnectionPool.isReadOnlyQuery("WITH x AS (SELECT 1) DELETE FROM Foo"),
+                is(false));
+        assertThat(ReaderConnectionPool.isReadOnlyQuery("SEL"), is(false));
+        assertThat(ReaderConnectionPool.isReadOnlyQuery(""), is(false));
+    }
+
+    @Test
+    public void releasedReaderIsReused() {
+        SupportSQLiteDatabase first = mPool.acquire();
+        mPool.release(first);
+        assertThat(mPool.acquire(), sameInstance(first));
+        assertThat(mReaderHelpers.size(), is(1));
+        ConnectionPoolStats stats = mPool.getStats();
+        assertThat(stats.getAcquireCount(), is(2L));
+        assertThat(stats.getWaitCount(), is(0L));
+        assertThat(stats.getOpenConnectionCount(), is(1));
+    }
+
+    private SupportSQLiteDatabase acquireOnOtherThread() throws InterruptedException {
+        final SupportSQLiteDatabase[] acquired = new SupportSQLiteDatabase[1];
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                acquired[0] = mPool.acquire();
+            }
+        });
+        thread.start();
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+        assertThat(acquired[0] != null, is(true));
+        return acquired[0];
+    }
+
+    @Test
+    public void opensUpToPoolSize() throws InterruptedException {
+        SupportSQLiteDatabase first = mPool.acquire();
+        SupportSQLiteDatabase second = acquireOnOtherThread();
+        assertThat(second, not(sameInstance(first)));
+        assertThat(mReaderHelpers.size(), is(POOL_SIZE));
+        assertThat(mPool.getStats().getOpenConnectionCount(), is(POOL_SIZE));
+    }
+
+    @Test
+    public void waitsForReleasedReader() throws InterruptedException {
+        final SupportSQLiteDatabase first = mPool.acquire();
+        acquireOnOtherThread();
+        final CountDownLatch acquired = new CountDownLatch(1);
+        final SupportSQLiteDatabase[] waited = new SupportSQLiteDatabase[1];
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                waited[0] = mPool.acquire();
+                acquired.countDown();
+            }
+        });
+        thread.start();
+        assertThat(acquired.await(100, TimeUnit.MILLISECONDS), is(false));
+        mPool.release(first);
+        assertThat(acquired.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(waited[0], sameInstance(first));
+        assertThat(mReaderHelpers.size(), is(POOL_SIZE));
+        ConnectionPoolStats stats = mPool.getStats();
+        assertThat(stats.getAcquireCount(), is(3L));
+        assertThat(stats.getWaitCount(), is(1L));
+        assertThat(stats.getMaxWaitNanos() > 0, is(true));
+        assertThat(stats.getTotalWaitNanos(), is(stats.getMaxWaitNanos()));
+    }
+
+    @Test
+    public void nestedAcquireReusesHeldReader() throws InterruptedException {
+        mPool = new ReaderConnectionPool(mFactory, mock(Context.class), "test.db", mWriter, 1);
+        SupportSQLiteDatabase outer = mPool.acquire();
+        // Would wait forever for the outer reader if the thread did not reuse it.
+        SupportSQLiteDatabase nested = mPool.acquire();
+        assertThat(nested, sameInstance(outer));
+        assertThat(mReaderHelpers.size(), is(1));
+
+        final CountDownLatch acquired = new CountDownLatch(1);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                mPool.release(mPool.acquire());
+                acquired.countDown();
+            }
+        });
+        thread.start();
+        mPool.release(nested);
+        // The outer acquisition still holds the reader.
+        assertThat(acquired.await(100, TimeUnit.MILLISECONDS), is(false));
+        mPool.release(outer);
+        assertThat(acquired.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(mPool.getStats().getAcquireCount(), is(3L));
+    }
+
+    @Test
+    public void closeClosesReaders() {
+        SupportSQLiteDatabase first = mPool.acquire();
+        mPool.release(first);
+        mPool.close();
+        verify(mReaderHelpers.get(0)).close();
+        try {
+            mPool.acquire();
+            throw new AssertionError("acquire should fail once the pool is closed");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void readerCannotMigrate() {
+        new ReaderConnectionPool.ReaderCallback(2).onUpgrade(mock(SupportSQLiteDatabase.class),
+                1, 2);
+    }
+
+    @Test
+    public void readerIsQueryOnly() {
+        SupportSQLiteDatabase db = mock(SupportSQLiteDatabase.class);
+        new ReaderConnectionPool.ReaderCallback(2).onOpen(db);
+        verify(db).execSQL("PRAGMA query_only = 1");
+    }
+}
@@ -19,7 +19,11 @@ package androidx.room
 import android.content.Context
 import android.content.res.AssetManager
 import androidx.sqlite.db.SupportSQLiteOpenHelper
+import org.junit.Assert.assertArrayEquals
 import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
 import org.junit.Rule
 import org.junit.Test
 import org.junit.rules.TemporaryFolder
@@ -39,6 +43,8 @@ import java.nio.ByteBuffer
 import java.util.concurrent.TimeUnit
 import java.util.concurrent.TimeoutException
 import java.util.concurrent.atomic.AtomicInteger
+import java.util.zip.GZIPOutputStream
+import java.util.zip.ZipException
 import kotlin.concurrent.thread
 
 @RunWith(JUnit4::class)
@@ -180,6 +186,52 @@ class SQLiteCopyOpenHelperTest {
         assertEquals(1, exceptions.size)
     }
 
+    @Test
+    fun copyGzipFile() {
+        val content = databaseContent()
+        val copyFile = gzipFile(content)
+        setupMocks(tempDirectory.root, copyFile)
+
+        createFileOpenHelper(copyFile).writableDatabase
+
+        assertArrayEquals(content, File(tempDirectory.root, DB_NAME).readBytes())
+    }
+
+    @Test
+    fun copyGzipFile_corruptedChecksum() {
+        val copyFile = gzipFile(databaseContent())
+        RandomAccessFile(copyFile, "rw").use {
+            // the CRC-32 of the uncompressed data is stored in the 8 byte gzip trailer
+            it.seek(it.length() - 8)
+            val crc = it.read()
+            it.seek(it.length() - 8)
+            it.write(crc xor 0xff)
+        }
+        setupMocks(tempDirectory.root, copyFile)
+
+        try {
+            createFileOpenHelper(copyFile).writableDatabase
+            fail("Copy should fail")
+        } catch (e: RuntimeException) {
+            assertTrue(e.cause is ZipException)
+        }
+        assertFalse(File(tempDirectory.root, DB_NAME).exists())
+    }
+
+    @Test
+    fun copyGzipFile_notADatabase() {
+        val copyFile = gzipFile(ByteArray(4096) { it.toByte() })
+        setupMocks(tempDirectory.root, copyFile)
+
+        try {
+            createFileOpenHelper(copyFile).writableDatabase
+            fail("Copy should fail")
+        } catch (e: RuntimeException) {
+            assertTrue(e.cause is IOException)
+        }
+        assertFalse(File(tempDirectory.root, DB_NAME).exists())
+    }
+
     internal fun setupMocks(tmpDir: File, copyFromFile: File, onAssetOpen: () -> Unit = {}) {
         `when`(delegate.databaseName).thenReturn(DB_NAME)
         `when`(context.getDatabasePath(DB_NAME)).thenReturn(File(tmpDir, DB_NAME))
@@ -211,6 +263,28 @@ class SQLiteCopyOpenHelperTest {
             delegate
         ).apply { setDatabaseConfiguration(configuration) }
 
+    private fun createFileOpenHelper(copyFromFile: File) =
+        SQLiteCopyOpenHelper(
+            context,
+            null,
+            copyFromFile,
+            DB_VERSION,
+            delegate
+        ).apply { setDatabaseConfiguration(configuration) }
+
+    // A few pages starting with the sqlite header, the rest is not a valid database.
+    private fun databaseContent(): ByteArray {
+        val content = ByteArray(3 * 4096) { (it * 31).toByte() }
+        "SQLite format 3\u0000".toByteArray().copyInto(content)
+        return content
+    }
+
+    private fun gzipFile(content: ByteArray): File {
+        val file = tempDirectory.newFile("toCopy.db.gz")
+        GZIPOutputStream(file.outputStream()).use { it.write(content) }
+        return file
+    }
+
     // Writes sqlite user database version in a file, located at offset 60.
     private fun writeDatabaseVersion(file: File) {
         val buffer = ByteBuffer.allocate(4)
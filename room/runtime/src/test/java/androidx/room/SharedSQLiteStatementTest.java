@@ -21,6 +21,7 @@ import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -44,13 +45,15 @@ public class SharedSQLiteStatementTest {
     @Before
     public void init() {
         mDb = mock(RoomDatabase.class);
-        when(mDb.compileStatement(anyString())).thenAnswer(new Answer<SupportSQLiteStatement>() {
+        Answer<SupportSQLiteStatement> newStatement = new Answer<SupportSQLiteStatement>() {
 
             @Override
             public SupportSQLiteStatement answer(InvocationOnMock invocation) throws Throwable {
                 return mock(SupportSQLiteStatement.class);
             }
-        });
+        };
+        when(mDb.compileStatement(anyString())).thenAnswer(newStatement);
+        when(mDb.acquireStatement(anyString())).thenAnswer(newStatement);
         when(mDb.getInvalidationTracker()).thenReturn(mock(InvalidationTracker.class));
         mSharedStmt = new SharedSQLiteStatement(mDb) {
             @Override
@@ -89,6 +92,17 @@ public class SharedSQLiteStatementTest {
         assertThat(stmt1, is(stmt2));
     }
 
+    @Test
+    public void oneOffStatementIsReleasedToDatabase() {
+        SupportSQLiteStatement stmt1 = mSharedStmt.acquire();
+        SupportSQLiteStatement stmt2 = mSharedStmt.acquire();
+        verify(mDb).acquireStatement("foo");
+        mSharedStmt.release(stmt2);
+        verify(mDb).releaseStatement(stmt2);
+        mSharedStmt.release(stmt1);
+        verify(mDb, never()).releaseStatement(stmt1);
+    }
+
     @Test
     public void getFromAnotherThreadWhileHolding() throws ExecutionException, InterruptedException {
         SupportSQLiteStatement stmt1 = mSharedStmt.acquire();
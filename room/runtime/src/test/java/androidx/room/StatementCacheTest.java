@@ -0,0 +1,136 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class StatementCacheTest {
+    private final List<SupportSQLiteStatement> mCompiled = new ArrayList<>();
+    private SupportSQLiteDatabase mDb;
+    private StatementCache mCache;
+
+    @Before
+    public void setup() {
+        mDb = mockDatabase();
+        mCache = new StatementCache(2);
+    }
+
+    private SupportSQLiteDatabase mockDatabase() {
+        SupportSQLiteDatabase db = mock(SupportSQLiteDatabase.class);
+        when(db.compileStatement(anyString())).thenAnswer(
+                new Answer<SupportSQLiteStatement>() {
+                    @Override
+                    public SupportSQLiteStatement answer(InvocationOnMock invocation) {
+                        SupportSQLiteStatement statement = mock(SupportSQLiteStatement.class);
+                        mCompiled.add(statement);
+                        return statement;
+                    }
+                });
+        return db;
+    }
+
+    @Test
+    public void releasedStatementIsReused() {
+        SupportSQLiteStatement first = mCache.acquire(mDb, "DELETE FROM Foo");
+        first.bindLong(1, 3);
+        mCache.release(first);
+        verify(mCompiled.get(0)).clearBindings();
+        assertThat(mCache.acquire(mDb, "DELETE FROM Foo"), sameInstance(first));
+        assertThat(mCompiled.size(), is(1));
+        StatementCacheStats stats = mCache.getStats();
+        assertThat(stats.getHitCount(), is(1L));
+        assertThat(stats.getMissCount(), is(1L));
+        assertThat(stats.getHitRate(), is(0.5));
+    }
+
+    @Test
+    public void statementInUseIsNotShared() {
+        SupportSQLiteStatement first = mCache.acquire(mDb, "DELETE FROM Foo");
+        SupportSQLiteStatement second = mCache.acquire(mDb, "DELETE FROM Foo");
+        assertThat(second, not(sameInstance(first)));
+        mCache.release(first);
+        mCache.release(second);
+        // only one idle statement is kept per SQL
+        assertThat(mCache.getStats().getSize(), is(1));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() throws IOException {
+        mCache.release(mCache.acquire(mDb, "A"));
+        mCache.release(mCache.acquire(mDb, "B"));
+        mCache.release(mCache.acquire(mDb, "A"));
+        mCache.release(mCache.acquire(mDb, "C"));
+        StatementCacheStats stats = mCache.getStats();
+        assertThat(stats.getSize(), is(2));
+        assertThat(stats.getEvictionCount(), is(1L));
+        verify(mCompiled.get(1)).close();
+        verify(mCompiled.get(0), never()).close();
+    }
+
+    @Test
+    public void newConnectionDiscardsStatements() throws IOException {
+        SupportSQLiteStatement inUse = mCache.acquire(mDb, "A");
+        mCache.release(mCache.acquire(mDb, "B"));
+        SupportSQLiteDatabase reopened = mockDatabase();
+        mCache.acquire(reopened, "B");
+        verify(mCompiled.get(1)).close();
+        assertThat(mCompiled.size(), is(3));
+        mCache.release(inUse);
+        verify(mCompiled.get(0)).close();
+        assertThat(mCache.getStats().getSize(), is(0));
+    }
+
+    @Test
+    public void clearClosesIdleStatements() throws IOException {
+        mCache.release(mCache.acquire(mDb, "A"));
+        mCache.clear();
+        verify(mCompiled.get(0)).close();
+        mCache.acquire(mDb, "A");
+        assertThat(mCompiled.size(), is(2));
+    }
+
+    @Test
+    public void zeroSizeClosesReleasedStatements() throws IOException {
+        mCache = new StatementCache(0);
+        mCache.release(mCache.acquire(mDb, "A"));
+        verify(mCompiled.get(0)).close();
+        assertThat(mCache.getStats().getSize(), is(0));
+    }
+}
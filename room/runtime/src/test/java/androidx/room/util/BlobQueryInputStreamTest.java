@@ -0,0 +1,176 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.database.Cursor;
+
+import androidx.room.RoomDatabase;
+import androidx.room.RoomSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteProgram;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class BlobQueryInputStreamTest {
+    private static final long ID = 7;
+    // Spans several chunks.
+    private static final int LENGTH = 600 * 1024 + 3;
+
+    private final byte[] mContent = new byte[LENGTH];
+    private RoomDatabase mDatabase;
+
+    @Before
+    public void setup() {
+        new Random(0).nextBytes(mContent);
+        mDatabase = mock(RoomDatabase.class);
+        when(mDatabase.query(any(SupportSQLiteQuery.class))).thenAnswer(new Answer<Cursor>() {
+            @Override
+            public Cursor answer(InvocationOnMock invocation) {
+                return runQuery((SupportSQLiteQuery) invocation.getArgument(0));
+            }
+        });
+    }
+
+    /**
+     * Stands in for SQLite running the queries of the stream on a single row, numbering the
+     * anonymous arguments in the order they appear in the SQL.
+     */
+    Cursor runQuery(SupportSQLiteQuery query) {
+        final Map<Integer, Long> args = new HashMap<>();
+        query.bindTo(new LongRecordingProgram(args));
+        final String sql = query.getSql();
+        final String subquery = sql.substring(sql.indexOf("FROM ("));
+        final int leadingArgs = countArgs(sql.substring(0, sql.indexOf("FROM (")));
+        assertThat(leadingArgs + countArgs(subquery), is(args.size()));
+
+        final Cursor cursor = mock(Cursor.class);
+        final boolean rowFound = args.get(leadingArgs + 1) == ID;
+        if (sql.endsWith("LIMIT 0")) {
+            when(cursor.getColumnName(0)).thenReturn("content");
+        } else if (sql.startsWith("SELECT length(")) {
+            when(cursor.moveToFirst()).thenReturn(rowFound);
+            when(cursor.getLong(0)).thenReturn((long) LENGTH);
+        } else if (sql.startsWith("SELECT substr(")) {
+            final int start = (int) (long) args.get(1) - 1;
+            final int end = (int) Math.min(LENGTH, start + args.get(2));
+            when(cursor.moveToFirst()).thenReturn(rowFound);
+            when(cursor.getBlob(0)).thenReturn(Arrays.copyOfRange(mContent, start, end));
+        } else {
+            throw new AssertionError("Unexpected query " + sql);
+        }
+        return cursor;
+    }
+
+    private static int countArgs(String sql) {
+        int count = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            if (sql.charAt(i) == '?') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static RoomSQLiteQuery queryById(long id) {
+        RoomSQLiteQuery query = RoomSQLiteQuery.acquire(
+                "SELECT content FROM BlobEntity WHERE id = ?", 1);
+        query.bindLong(1, id);
+        return query;
+    }
+
+    @Test
+    public void readsQueryWithArgumentsInChunks() throws IOException {
+        InputStream stream = BlobQueryInputStream.open(mDatabase, queryById(ID));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = stream.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        stream.close();
+
+        assertThat(Arrays.equals(out.toByteArray(), mContent), is(true));
+    }
+
+    @Test
+    public void missingRow() {
+        assertThat(BlobQueryInputStream.open(mDatabase, queryById(ID + 1)), is(nullValue()));
+    }
+
+    private static class LongRecordingProgram implements SupportSQLiteProgram {
+        private final Map<Integer, Long> mArgs;
+
+        LongRecordingProgram(Map<Integer, Long> args) {
+            mArgs = args;
+        }
+
+        @Override
+        public void bindNull(int index) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void bindLong(int index, long value) {
+            mArgs.put(index, value);
+        }
+
+        @Override
+        public void bindDouble(int index, double value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void bindString(int index, String value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void bindBlob(int index, byte[] value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void clearBindings() {
+            mArgs.clear();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package androidx.sqlite.db.framework;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
+import android.database.sqlite.SQLiteException;
+import android.database.sqlite.SQLiteStatement;
+import android.os.ParcelFileDescriptor;
+
+import androidx.sqlite.db.SupportSQLiteBlob;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Implements {@link SupportSQLiteBlob} on top of {@link SQLiteDatabase}, which does not expose
+ * {@code sqlite3_blob_open}.
+ * <p>
+ * Reads select a range of the value with {@code substr()} and receive it through
+ * {@link SQLiteStatement#simpleQueryForBlobFileDescriptor()}, which hands the bytes over in
+ * shared memory. They are read from there straight into the caller's buffer, so neither a
+ * {@code byte[]} nor a {@link android.database.CursorWindow} holds them on the way.
+ * <p>
+ * Writes splice a range into the value with {@code substr()} and concatenation. Concatenating
+ * BLOBs yields TEXT holding the same bytes in the UTF-8 databases that the framework creates,
+ * which is cast back to a BLOB.
+ * <p>
+ * Unlike {@code sqlite3_blob_open}, this is not free of whole-value costs: SQLite loads the
+ * whole value to evaluate {@code substr()}, and every write stores the whole value again. Each
+ * read or write therefore costs I/O proportional to the length of the value rather than to the
+ * range, and transferring a whole value in ranges of n bytes costs O(length² / n) I/O. Ranges
+ * should be as large as the 1 MB that a single statement transfers, which the streams of
+ * {@link SupportSQLiteBlob} ensure by buffering.
+ */
+class FrameworkSQLiteBlob implements SupportSQLiteBlob {
+    // Bounds the shared memory and the bound byte[] used by a single read or write.
+    private static final int MAX_CHUNK_SIZE = 1 << 20;
+
+    private final SQLiteStatement mReadStatement;
+    private final SQLiteStatement mWriteStatement;
+    private final long mRowId;
+    private final long mLength;
+    private byte[] mWriteBuffer;
+    private boolean mClosed;
+
+    private FrameworkSQLiteBlob(SQLiteStatement readStatement, SQLiteStatement writeStatement,
+            long rowId, long length) {
+        mReadStatement = readStatement;
+        mWriteStatement = writeStatement;
+        mRowId = rowId;
+        mLength = length;
+    }
+
+    static FrameworkSQLiteBlob open(SQLiteDatabase db, String table, String column, long rowId,
+            boolean writable) {
+        final String quotedColumn = quoteIdentifier(column);
+        final String quotedTable = quoteIdentifier(table);
+        final String value = "CAST(" + quotedColumn + " AS BLOB)";
+        final String row = " FROM " + quotedTable + " WHERE rowid = " + rowId;
+        final long length;
+        final Cursor cursor = db.rawQuery("SELECT typeof(" + quotedColumn + "), length(" + value
+                + ")" + row, null);
+        try {
+            if (!cursor.moveToFirst()) {
+                throw new SQLiteException("no such rowid: " + rowId);
+            }
+            final String type = cursor.getString(0);
+            if (!"blob".equals(type) && !"text".equals(type)) {
+                throw new SQLiteException("cannot open value of type " + type);
+            }
+            length = cursor.getLong(1);
+        } finally {
+            cursor.close();
+        }
+        final SQLiteStatement readStatement = db.compileStatement(
+                "SELECT substr(" + value + ", ?, ?)" + row);
+        SQLiteStatement writeStatement = null;
+        if (writable) {
+            try {
+                writeStatement = db.compileStatement("UPDATE " + quotedTable + " SET "
+                        + quotedColumn + " = CAST(substr(" + value + ", 1, ?) || ? || substr("
+                        + value + ", ?) AS BLOB) WHERE rowid = " + rowId);
+            } catch (RuntimeException e) {
+                readStatement.close();
+                throw e;
+            }
+        }
+        return new FrameworkSQLiteBlob(readStatement, writeStatement, rowId, length);
+    }
+
+    @Override
+    public long length() {
+        return mLength;
+    }
+
+    @Override
+    public boolean isWritable() {
+        return mWriteStatement != null;
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) {
+        checkOpen();
+        if (position < 0) {
+            throw new IllegalArgumentException("position must not be negative");
+        }
+        if (position >= mLength) {
+            return -1;
+        }
+        final int count = (int) Math.min(Math.min(dst.remaining(), MAX_CHUNK_SIZE),
+                mLength - position);
+        if (count == 0) {
+            return 0;
+        }
+        mReadStatement.bindLong(1, position + 1);
+        mReadStatement.bindLong(2, count);
+        final ParcelFileDescriptor fd;
+        try {
+            fd = mReadStatement.simpleQueryForBlobFileDescriptor();
+        } catch (SQLiteDoneException e) {
+            throw new SQLiteException("no such rowid: " + mRowId);
+        }
+        if (fd == null) {
+            throw new SQLiteException("cannot read value of type null");
+        }
+        final FileInputStream in = new ParcelFileDescriptor.AutoCloseInputStream(fd);
+        try {
+            final FileChannel channel = in.getChannel();
+            int read = 0;
+            while (read < count) {
+                final int n = channel.read(dst);
+                if (n < 0) {
+                    break;
+                }
+                read += n;
+            }
+            return read;
+        } catch (IOException e) {
+            throw new SQLiteException("failed to read blob", e);
+        } finally {
+            try {
+                in.close();
+            } catch (IOException ignored) {
+                // nothing was written through the descriptor
+            }
+        }
+    }
+
+    @Override
+    public int write(ByteBuffer src, long position) {
+        checkOpen();
+        if (mWriteStatement == null) {
+            throw new IllegalStateException("The blob was not opened for writing");
+        }
+        if (position < 0 || position + src.remaining() > mLength) {
+            throw new IllegalArgumentException("Cannot write " + src.remaining()
+                    + " bytes at " + position + " into a blob of length " + mLength);
+        }
+        int written = 0;
+        while (src.hasRemaining()) {
+            final int count = Math.min(src.remaining(), MAX_CHUNK_SIZE);
+            if (mWriteBuffer == null || mWriteBuffer.length != count) {
+                mWriteBuffer = new byte[count];
+            }
+            src.get(mWriteBuffer);
+            mWriteStatement.bindLong(1, position);
+            mWriteStatement.bindBlob(2, mWriteBuffer);
+            mWriteStatement.bindLong(3, position + count + 1);
+            if (mWriteStatement.executeUpdateDelete() != 1) {
+                throw new SQLiteException("no such rowid: " + mRowId);
+            }
+            position += count;
+            written += count;
+        }
+        return written;
+    }
+
+    @Override
+    public void close() {
+        if (!mClosed) {
+            mClosed = true;
+            mReadStatement.close();
+            if (mWriteStatement != null) {
+                mWriteStatement.close();
+            }
+            mWriteBuffer = null;
+        }
+    }
+
+    private static String quoteIdentifier(String identifier) {
+        return "`" + identifier.replace("`", "``") + "`";
+    }
+
+    private void checkOpen() {
+        if (mClosed) {
+            throw new IllegalStateException("The blob is closed");
+        }
+    }
+}
@@ -20,6 +20,7 @@ import static android.text.TextUtils.isEmpty;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.CursorWindow;
 import android.database.SQLException;
 import android.database.sqlite.SQLiteCursor;
 import android.database.sqlite.SQLiteCursorDriver;
@@ -31,6 +32,7 @@ import android.os.CancellationSignal;
 import android.util.Pair;
 
 import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteBlob;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 import androidx.sqlite.db.SupportSQLiteQuery;
 import androidx.sqlite.db.SupportSQLiteStatement;
@@ -182,6 +184,43 @@ class FrameworkSQLiteDatabase implements SupportSQLiteDatabase {
         }, supportQuery.getSql(), EMPTY_STRING_ARRAY, null, cancellationSignal);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Below API 28, the window size cannot be chosen and is ignored. From API 28 on, windows are
+     * also filled forward only: rather than centering the next window around the requested row,
+     * each window starts at the row that moved past the previous one, so a sequential scan
+     * never copies a row into more than one window.
+     */
+    @Override
+    public Cursor query(final SupportSQLiteQuery supportQuery,
+            CancellationSignal cancellationSignal, final long cursorWindowSize) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.P) {
+            if (cancellationSignal != null
+                    && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                return query(supportQuery, cancellationSignal);
+            }
+            return query(supportQuery);
+        }
+        return queryWithWindowSize(supportQuery, cancellationSignal, cursorWindowSize);
+    }
+
+    @androidx.annotation.RequiresApi(api = Build.VERSION_CODES.P)
+    private Cursor queryWithWindowSize(final SupportSQLiteQuery supportQuery,
+            CancellationSignal cancellationSignal, final long cursorWindowSize) {
+        return mDelegate.rawQueryWithFactory(new SQLiteDatabase.CursorFactory() {
+            @Override
+            public Cursor newCursor(SQLiteDatabase db, SQLiteCursorDriver masterQuery,
+                    String editTable, SQLiteQuery query) {
+                supportQuery.bindTo(new FrameworkSQLiteProgram(query));
+                SQLiteCursor cursor = new SQLiteCursor(masterQuery, editTable, query);
+                cursor.setWindow(new CursorWindow(null, cursorWindowSize));
+                cursor.setFillWindowForwardOnly(true);
+                return cursor;
+            }
+        }, supportQuery.getSql(), EMPTY_STRING_ARRAY, null, cancellationSignal);
+    }
+
     @Override
     public long insert(String table, int conflictAlgorithm, ContentValues values)
             throws SQLException {
@@ -305,6 +344,12 @@ class FrameworkSQLiteDatabase implements SupportSQLiteDatabase {
         return mDelegate.getAttachedDbs();
     }
 
+    @Override
+    public SupportSQLiteBlob openBlob(String table, String column, long rowId,
+            boolean writable) {
+        return FrameworkSQLiteBlob.open(mDelegate, table, column, rowId, writable);
+    }
+
     @Override
     public boolean isDatabaseIntegrityOk() {
         return mDelegate.isDatabaseIntegrityOk();
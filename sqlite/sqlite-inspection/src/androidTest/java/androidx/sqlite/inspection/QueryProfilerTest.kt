@@ -0,0 +1,52 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.sqlite.inspection
+
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.SmallTest
+import com.google.common.truth.Truth.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@RunWith(AndroidJUnit4::class)
+@SmallTest
+class QueryProfilerTest {
+    @Test
+    fun normalize_replacesLiterals() {
+        assertThat(
+            QueryProfiler.normalize(
+                "SELECT * FROM t WHERE a = 'it''s' AND b > 1.5e-3 AND c = X'0A' AND d = 0x1F"
+            )
+        ).isEqualTo("SELECT * FROM t WHERE a = ? AND b > ? AND c = ? AND d = ?")
+    }
+
+    @Test
+    fun normalize_keepsIdentifiersAndParameters() {
+        assertThat(
+            QueryProfiler.normalize("select c1, \"col 2\", [t 3].x from t2 where y = ?1 or z = :z")
+        ).isEqualTo("select c1, \"col 2\", [t 3].x from t2 where y = ?1 or z = :z")
+    }
+
+    @Test
+    fun normalize_collapsesListsWhitespaceAndComments() {
+        assertThat(
+            QueryProfiler.normalize(
+                "select *\n  from t -- comment\n where id in (?, ?,?) /* c */ and v in (1, 2)"
+            )
+        ).isEqualTo("select * from t where id in (?) and v in (?)")
+    }
+}
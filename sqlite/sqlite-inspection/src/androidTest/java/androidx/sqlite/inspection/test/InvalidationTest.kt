@@ -71,10 +71,15 @@ class InvalidationTest {
                         hook.originMethod == method &&
                                 hook.originClass == clazz
                     }
-                    assertThat(hook).hasSize(1)
+                    // statement hooks also record executions for the query profile
+                    val exitHooks = hook.filterIsInstance<Hook.ExitHook>()
+                    assertThat(exitHooks).hasSize(1)
 
                     testEnvironment.assertNoQueuedEvents()
-                    hook.first().asExitHook.onExit(null)
+                    hook.filterIsInstance<Hook.EntryHook>().forEach {
+                        it.entryHook.onEntry(null, emptyList())
+                    }
+                    exitHooks.first().exitHook.onExit(null)
                     testEnvironment.receiveEvent().let { event ->
                         assertThat(event.oneOfCase == DATABASE_POSSIBLY_CHANGED)
                         assertThat(event.databasePossiblyChanged).isEqualTo(
@@ -94,18 +99,22 @@ class InvalidationTest {
         testEnvironment.sendCommand(MessageFactory.createTrackDatabasesCommand())
 
         // Any hook that triggers invalidation
-        val hook = testEnvironment.consumeRegisteredHooks()
-            .first { it.originMethod == "executeInsert()J" }
-            .asExitHook
+        val hooks = testEnvironment.consumeRegisteredHooks()
+        val entryHook = hooks.entryHookFor("executeInsert()J")
+        val exitHook = hooks.exitHookFor("executeInsert()J")
 
         testEnvironment.assertNoQueuedEvents()
 
         // First invalidation triggering event
-        hook.onExit(null)
+        entryHook.onEntry(null, emptyList())
+        exitHook.onExit(null)
         val event1 = testEnvironment.receiveEvent()
 
         // Shortly followed by many invalidation triggering events
-        repeat(50) { hook.onExit(null) }
+        repeat(50) {
+            entryHook.onEntry(null, emptyList())
+            exitHook.onExit(null)
+        }
         val event2 = testEnvironment.receiveEvent()
 
         // Event validation
@@ -19,6 +19,7 @@ package androidx.sqlite.inspection.test
 import androidx.sqlite.inspection.SqliteInspectorProtocol.CellValue
 import androidx.sqlite.inspection.SqliteInspectorProtocol.CellValue.OneOfCase
 import androidx.sqlite.inspection.SqliteInspectorProtocol.Command
+import androidx.sqlite.inspection.SqliteInspectorProtocol.GetQueryProfileCommand
 import androidx.sqlite.inspection.SqliteInspectorProtocol.GetSchemaCommand
 import androidx.sqlite.inspection.SqliteInspectorProtocol.GetSchemaResponse
 import androidx.sqlite.inspection.SqliteInspectorProtocol.KeepDatabasesOpenCommand
@@ -66,6 +67,11 @@ object MessageFactory {
             GetSchemaCommand.newBuilder().setDatabaseId(databaseId).build()
         ).build()
 
+    fun createGetQueryProfileCommand(reset: Boolean = false): Command =
+        Command.newBuilder().setGetQueryProfile(
+            GetQueryProfileCommand.newBuilder().setReset(reset).build()
+        ).build()
+
     fun createQueryCommand(
         databaseId: Int,
         query: String,
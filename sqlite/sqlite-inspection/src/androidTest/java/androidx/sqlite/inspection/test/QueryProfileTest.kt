@@ -0,0 +1,103 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.sqlite.inspection.test
+
+import android.database.sqlite.SQLiteStatement
+import androidx.inspection.InspectorEnvironment
+import androidx.sqlite.inspection.SqliteInspectorProtocol.Response
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.MediumTest
+import androidx.test.platform.app.InstrumentationRegistry.getInstrumentation
+import com.google.common.truth.Truth.assertThat
+import kotlinx.coroutines.runBlocking
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.junit.runner.RunWith
+
+@MediumTest
+@RunWith(AndroidJUnit4::class)
+class QueryProfileTest {
+    @get:Rule
+    val testEnvironment = SqliteInspectorTestEnvironment()
+
+    @get:Rule
+    val temporaryFolder = TemporaryFolder(getInstrumentation().context.cacheDir)
+
+    @Test
+    fun test_statement_executions_aggregated_per_normalized_query() = runBlocking {
+        // Starting to track databases makes the inspector register hooks
+        testEnvironment.sendCommand(MessageFactory.createTrackDatabasesCommand())
+        val hooks = testEnvironment.consumeRegisteredHooks()
+        val entryHook = hooks.entryHookFor("executeInsert()J")
+        val exitHook = hooks.exitHookFor("executeInsert()J")
+
+        val db = Database("db1", Table("t1", Column("c1", "int"))).createInstance(temporaryFolder)
+        listOf("insert into t1 values (1)", "INSERT  INTO t1 VALUES ('two')").forEach { query ->
+            val statement = db.compileStatement(query)
+            entryHook.onEntry(statement, emptyList())
+            exitHook.onExit(statement.executeInsert())
+        }
+
+        val profiles = testEnvironment.sendCommand(MessageFactory.createGetQueryProfileCommand())
+            .let { response ->
+                assertThat(response.oneOfCase).isEqualTo(Response.OneOfCase.GET_QUERY_PROFILE)
+                response.getQueryProfile.profilesList
+            }
+        assertThat(profiles.map { it.normalizedQuery })
+            .containsExactly("insert into t1 values (?)", "INSERT INTO t1 VALUES (?)")
+        profiles.forEach { profile ->
+            assertThat(profile.executionCount).isEqualTo(1)
+            assertThat(profile.durationHistogramList.sum()).isEqualTo(1)
+            assertThat(profile.maxDurationUs).isAtMost(profile.totalDurationUs)
+        }
+    }
+
+    @Test
+    fun test_reset() = runBlocking {
+        testEnvironment.sendCommand(MessageFactory.createTrackDatabasesCommand())
+        val hooks = testEnvironment.consumeRegisteredHooks()
+
+        val db = Database("db1", Table("t1", Column("c1", "int"))).createInstance(temporaryFolder)
+        val statement = db.compileStatement("delete from t1 where c1 = 42")
+        hooks.entryHookFor("executeUpdateDelete()I").onEntry(statement, emptyList())
+        hooks.exitHookFor("executeUpdateDelete()I").onExit(statement.executeUpdateDelete())
+
+        testEnvironment.sendCommand(MessageFactory.createGetQueryProfileCommand(reset = true))
+            .let { response ->
+                assertThat(response.getQueryProfile.profilesList.map { it.normalizedQuery })
+                    .containsExactly("delete from t1 where c1 = ?")
+            }
+        testEnvironment.sendCommand(MessageFactory.createGetQueryProfileCommand())
+            .let { response ->
+                assertThat(response.getQueryProfile.profilesList).isEmpty()
+            }
+    }
+
+    private fun List<Hook>.entryHookFor(m: String): InspectorEnvironment.EntryHook =
+        this.first {
+            it.originMethod == m && it.originClass == SQLiteStatement::class.java &&
+                it is Hook.EntryHook
+        }.asEntryHook
+
+    @Suppress("UNCHECKED_CAST")
+    private fun List<Hook>.exitHookFor(m: String): InspectorEnvironment.ExitHook<Any> =
+        this.first {
+            it.originMethod == m && it.originClass == SQLiteStatement::class.java &&
+                it is Hook.ExitHook
+        }.asExitHook as InspectorEnvironment.ExitHook<Any>
+}
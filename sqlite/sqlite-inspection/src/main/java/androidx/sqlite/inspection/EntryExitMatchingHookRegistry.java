@@ -32,12 +32,15 @@ import java.util.List;
  * It works by registering both (entry and exit) hooks and keeping its own method frame stack.
  * On exit, it calls {@link OnExitCallback} provided by the user.
  * <p>
- * TODO: handle cases when frames could be dropped (e.g. because of an Exception) causing internal
- * state to be corrupted.
+ * Frames of methods that exited by throwing an Exception have no matching exit and are discarded
+ * when a frame further down the stack exits. The stack is also capped at
+ * {@link #MAX_FRAME_STACK_DEPTH} frames, dropping the oldest ones.
  * <p>
  * Thread safe.
  */
 final class EntryExitMatchingHookRegistry {
+    private static final int MAX_FRAME_STACK_DEPTH = 64;
+
     private final InspectorEnvironment mEnvironment;
     private final ThreadLocal<Deque<Frame>> mFrameStack;
 
@@ -60,7 +63,12 @@ final class EntryExitMatchingHookRegistry {
                     @Override
                     public void onEntry(@Nullable Object thisObject,
                             @NonNull List<Object> args) {
-                        getFrameStack().addLast(new Frame(originMethod, thisObject, args, null));
+                        Deque<Frame> frameStack = getFrameStack();
+                        if (frameStack.size() >= MAX_FRAME_STACK_DEPTH) {
+                            frameStack.pollFirst();
+                        }
+                        frameStack.addLast(new Frame(originMethod, thisObject, args, null,
+                                System.nanoTime()));
                     }
                 });
 
@@ -69,19 +77,42 @@ final class EntryExitMatchingHookRegistry {
                     @SuppressLint("SyntheticAccessor")
                     @Override
                     public Object onExit(Object result) {
-                        Frame entryFrame = getFrameStack().pollLast();
-                        if (entryFrame == null || !originMethod.equals(entryFrame.mMethod)) {
-                            // TODO: make more specific and handle
-                            throw new IllegalStateException();
+                        Frame entryFrame = pollEntryFrame(originMethod);
+                        if (entryFrame == null) {
+                            // entry was not observed, e.g. hooks registered mid-call
+                            return result;
                         }
 
                         onExitCallback.onExit(new Frame(entryFrame.mMethod, entryFrame.mThisObject,
-                                entryFrame.mArgs, result));
+                                entryFrame.mArgs, result, entryFrame.mEntryTimeNanos));
                         return result;
                     }
                 });
     }
 
+    /**
+     * Pops frames until one of {@code method} is found. Frames popped on the way belong to calls
+     * that exited with an Exception.
+     */
+    private @Nullable Frame pollEntryFrame(String method) {
+        Deque<Frame> frameStack = getFrameStack();
+        boolean hasFrame = false;
+        for (Frame frame : frameStack) {
+            if (method.equals(frame.mMethod)) {
+                hasFrame = true;
+                break;
+            }
+        }
+        if (!hasFrame) {
+            return null;
+        }
+        Frame frame;
+        do {
+            frame = frameStack.pollLast();
+        } while (!method.equals(frame.mMethod));
+        return frame;
+    }
+
     private @NonNull Deque<Frame> getFrameStack() {
         /** It won't be null because of overridden {@link ThreadLocal#initialValue} */
         //noinspection ConstantConditions
@@ -93,12 +124,16 @@ final class EntryExitMatchingHookRegistry {
         final Object mThisObject;
         final List<Object> mArgs;
         final Object mResult;
+        /** {@link System#nanoTime()} at method entry. */
+        final long mEntryTimeNanos;
 
-        private Frame(String method, Object thisObject, List<Object> args, Object result) {
+        private Frame(String method, Object thisObject, List<Object> args, Object result,
+                long entryTimeNanos) {
             mMethod = method;
             mThisObject = thisObject;
             mArgs = args;
             mResult = result;
+            mEntryTimeNanos = entryTimeNanos;
         }
     }
 
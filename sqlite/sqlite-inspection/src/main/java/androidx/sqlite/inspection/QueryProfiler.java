@@ -0,0 +1,374 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.sqlite.inspection;
+
+import android.database.CursorWindow;
+import android.database.sqlite.SQLiteQuery;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.sqlite.inspection.SqliteInspectorProtocol.GetQueryProfileResponse;
+import androidx.sqlite.inspection.SqliteInspectorProtocol.QueryProfile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Aggregates execution statistics of the statements run by the app per normalized query, see
+ * {@link #normalize}.
+ * <p>
+ * Statistics are fed from method hooks via {@link EntryExitMatchingHookRegistry} and are only
+ * turned into a {@link GetQueryProfileResponse} on request, so recording an execution costs a
+ * map lookup and a few counter updates. Durations are kept in histograms with power-of-two
+ * microsecond buckets.
+ * <p>
+ * Thread safe.
+ */
+final class QueryProfiler {
+    /** Buckets up to [2^23, 2^24) microseconds (~16s), the last bucket is open-ended. */
+    private static final int HISTOGRAM_BUCKET_COUNT = 25;
+    private static final int MAX_TRACKED_QUERIES = 500;
+    private static final int NORMALIZED_QUERY_CACHE_SIZE = 128;
+
+    private final ConcurrentHashMap<String, QueryStats> mStats = new ConcurrentHashMap<>();
+    private final AtomicLong mDroppedExecutionCount = new AtomicLong();
+
+    /** Queries are usually parameterised, so the same text is normalized over and over. */
+    @GuardedBy("mNormalizedQueryCache")
+    private final Map<String, String> mNormalizedQueryCache =
+            new LinkedHashMap<String, String>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > NORMALIZED_QUERY_CACHE_SIZE;
+                }
+            };
+
+    /**
+     * Records an execution of {@link SQLiteStatement#execute},
+     * {@link SQLiteStatement#executeInsert} or {@link SQLiteStatement#executeUpdateDelete}.
+     */
+    void onStatementExecuted(EntryExitMatchingHookRegistry.Frame exitFrame) {
+        if (!(exitFrame.mThisObject instanceof SQLiteStatement)) {
+            return;
+        }
+        QueryStats stats = statsFor(sqlOf(exitFrame.mThisObject));
+        if (stats != null) {
+            stats.recordExecution(System.nanoTime() - exitFrame.mEntryTimeNanos, 0, 0);
+        }
+    }
+
+    /**
+     * Records an execution of {@code SQLiteQuery#fillWindow(CursorWindow, int, int, boolean)},
+     * which runs the query of a {@link android.database.sqlite.SQLiteCursor} every time a new
+     * window of results is needed.
+     */
+    void onQueryExecuted(EntryExitMatchingHookRegistry.Frame exitFrame) {
+        if (!(exitFrame.mThisObject instanceof SQLiteQuery)) {
+            return;
+        }
+        QueryStats stats = statsFor(sqlOf(exitFrame.mThisObject));
+        if (stats == null) {
+            return;
+        }
+        // fillWindow returns the number of rows stepped through, starting from the first one
+        long rowsScanned = exitFrame.mResult instanceof Integer ? (Integer) exitFrame.mResult : 0;
+        Object window = exitFrame.mArgs.isEmpty() ? null : exitFrame.mArgs.get(0);
+        long rowsReturned = window instanceof CursorWindow
+                ? ((CursorWindow) window).getNumRows() : 0;
+        stats.recordExecution(System.nanoTime() - exitFrame.mEntryTimeNanos, rowsScanned,
+                rowsReturned);
+    }
+
+    /**
+     * Records a wait for a connection in
+     * {@code SQLiteConnectionPool#acquireConnection(String, int, CancellationSignal)}.
+     */
+    void onConnectionAcquired(EntryExitMatchingHookRegistry.Frame exitFrame) {
+        Object sql = exitFrame.mArgs.isEmpty() ? null : exitFrame.mArgs.get(0);
+        if (!(sql instanceof String)) {
+            return; // e.g. beginning a transaction
+        }
+        QueryStats stats = statsFor((String) sql);
+        if (stats != null) {
+            stats.recordLockWait(System.nanoTime() - exitFrame.mEntryTimeNanos);
+        }
+    }
+
+    /**
+     * Creates a snapshot of the statistics collected so far.
+     *
+     * @param reset true to clear the statistics included in the snapshot
+     */
+    @NonNull
+    GetQueryProfileResponse createProfile(boolean reset) {
+        List<QueryProfile> profiles = new ArrayList<>(mStats.size());
+        Iterator<Map.Entry<String, QueryStats>> iterator = mStats.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, QueryStats> entry = iterator.next();
+            if (reset) {
+                iterator.remove();
+            }
+            profiles.add(entry.getValue().toProto(entry.getKey()));
+        }
+        Collections.sort(profiles, new Comparator<QueryProfile>() {
+            @Override
+            public int compare(QueryProfile p1, QueryProfile p2) {
+                return Long.compare(p2.getTotalDurationUs(), p1.getTotalDurationUs());
+            }
+        });
+        long droppedExecutionCount = reset
+                ? mDroppedExecutionCount.getAndSet(0) : mDroppedExecutionCount.get();
+        return GetQueryProfileResponse.newBuilder()
+                .addAllProfiles(profiles)
+                .setDroppedExecutionCount(droppedExecutionCount)
+                .build();
+    }
+
+    @Nullable
+    private QueryStats statsFor(@Nullable String sql) {
+        if (sql == null) {
+            return null;
+        }
+        String normalized;
+        synchronized (mNormalizedQueryCache) {
+            normalized = mNormalizedQueryCache.get(sql);
+        }
+        if (normalized == null) {
+            normalized = normalize(sql);
+            synchronized (mNormalizedQueryCache) {
+                mNormalizedQueryCache.put(sql, normalized);
+            }
+        }
+        QueryStats stats = mStats.get(normalized);
+        if (stats != null) {
+            return stats;
+        }
+        if (mStats.size() >= MAX_TRACKED_QUERIES) {
+            mDroppedExecutionCount.incrementAndGet();
+            return null;
+        }
+        stats = new QueryStats();
+        QueryStats existing = mStats.putIfAbsent(normalized, stats);
+        return existing != null ? existing : stats;
+    }
+
+    /**
+     * Extracts the query text using {@link SQLiteStatement#toString} or
+     * {@link SQLiteQuery#toString}, both of which return the text prefixed with the class name.
+     */
+    @Nullable
+    private static String sqlOf(Object program) {
+        String description = program.toString();
+        int separator = description.indexOf(": ");
+        return separator < 0 ? null : description.substring(separator + 2);
+    }
+
+    /**
+     * Normalizes a query so that executions differing only in literal values are aggregated
+     * together: string, blob and numeric literals are replaced with {@code ?}, comma separated
+     * lists of {@code ?}s (e.g. in an {@code IN} clause) are collapsed into a single {@code ?},
+     * comments are removed and whitespace is collapsed.
+     */
+    @NonNull
+    static String normalize(@NonNull String sql) {
+        StringBuilder result = new StringBuilder(sql.length());
+        int length = sql.length();
+        int i = 0;
+        boolean pendingSpace = false;
+        while (i < length) {
+            char c = sql.charAt(i);
+            char next = i + 1 < length ? sql.charAt(i + 1) : 0;
+            if (Character.isWhitespace(c)) {
+                pendingSpace = true;
+                i++;
+                continue;
+            }
+            if (c == '-' && next == '-') {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end;
+                pendingSpace = true;
+                continue;
+            }
+            if (c == '/' && next == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+                pendingSpace = true;
+                continue;
+            }
+            if (pendingSpace && result.length() > 0) {
+                result.append(' ');
+            }
+            pendingSpace = false;
+
+            boolean afterIdentifier = i > 0 && isIdentifierPart(sql.charAt(i - 1));
+            if (c == '\'' || ((c == 'x' || c == 'X') && next == '\'' && !afterIdentifier)) {
+                i = skipQuoted(sql, c == '\'' ? i : i + 1, '\'');
+                appendParameter(result);
+            } else if (c == '?') {
+                int end = i + 1;
+                while (end < length && Character.isDigit(sql.charAt(end))) {
+                    end++;
+                }
+                if (end == i + 1) {
+                    appendParameter(result);
+                } else {
+                    result.append(sql, i, end); // numbered parameter
+                }
+                i = end;
+            } else if (c == '"' || c == '`') {
+                int end = skipQuoted(sql, i, c);
+                result.append(sql, i, end);
+                i = end;
+            } else if (c == '[') {
+                int end = sql.indexOf(']', i);
+                end = end < 0 ? length : end + 1;
+                result.append(sql, i, end);
+                i = end;
+            } else if (!afterIdentifier && (Character.isDigit(c)
+                    || (c == '.' && Character.isDigit(next)))) {
+                i = skipNumber(sql, i);
+                appendParameter(result);
+            } else {
+                result.append(c);
+                i++;
+            }
+        }
+        return result.toString();
+    }
+
+    /** Appends a {@code ?}, unless it continues a comma separated list of {@code ?}s. */
+    private static void appendParameter(StringBuilder result) {
+        int end = result.length();
+        while (end > 0 && result.charAt(end - 1) == ' ') {
+            end--;
+        }
+        if (end > 0 && result.charAt(end - 1) == ',') {
+            int start = end - 1;
+            while (start > 0 && result.charAt(start - 1) == ' ') {
+                start--;
+            }
+            if (start > 0 && result.charAt(start - 1) == '?') {
+                result.setLength(start);
+                return;
+            }
+        }
+        result.append('?');
+    }
+
+    /** Returns the index following the quoted token starting at {@code start}. */
+    private static int skipQuoted(String sql, int start, char quote) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == quote) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2; // escaped quote
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    /** Returns the index following the numeric literal starting at {@code start}. */
+    private static int skipNumber(String sql, int start) {
+        int i = start;
+        int length = sql.length();
+        if (i + 1 < length && sql.charAt(i) == '0'
+                && (sql.charAt(i + 1) == 'x' || sql.charAt(i + 1) == 'X')) {
+            i += 2;
+            while (i < length && Character.digit(sql.charAt(i), 16) >= 0) {
+                i++;
+            }
+            return i;
+        }
+        while (i < length) {
+            char c = sql.charAt(i);
+            if ((c == 'e' || c == 'E') && i + 1 < length
+                    && (sql.charAt(i + 1) == '+' || sql.charAt(i + 1) == '-')) {
+                i += 2;
+            } else if (Character.isDigit(c) || c == '.' || c == 'e' || c == 'E') {
+                i++;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    private static final class QueryStats {
+        @GuardedBy("this") private long mExecutionCount;
+        @GuardedBy("this") private long mTotalDurationNanos;
+        @GuardedBy("this") private long mMaxDurationNanos;
+        @GuardedBy("this") private final long[] mHistogram = new long[HISTOGRAM_BUCKET_COUNT];
+        @GuardedBy("this") private long mRowsScanned;
+        @GuardedBy("this") private long mRowsReturned;
+        @GuardedBy("this") private long mLockWaitNanos;
+
+        synchronized void recordExecution(long durationNanos, long rowsScanned,
+                long rowsReturned) {
+            mExecutionCount++;
+            mTotalDurationNanos += durationNanos;
+            mMaxDurationNanos = Math.max(mMaxDurationNanos, durationNanos);
+            mHistogram[bucketOf(durationNanos)]++;
+            mRowsScanned += rowsScanned;
+            mRowsReturned += rowsReturned;
+        }
+
+        synchronized void recordLockWait(long durationNanos) {
+            mLockWaitNanos += durationNanos;
+        }
+
+        synchronized QueryProfile toProto(String normalizedQuery) {
+            QueryProfile.Builder builder = QueryProfile.newBuilder()
+                    .setNormalizedQuery(normalizedQuery)
+                    .setExecutionCount(mExecutionCount)
+                    .setTotalDurationUs(TimeUnit.NANOSECONDS.toMicros(mTotalDurationNanos))
+                    .setMaxDurationUs(TimeUnit.NANOSECONDS.toMicros(mMaxDurationNanos))
+                    .setRowsScanned(mRowsScanned)
+                    .setRowsReturned(mRowsReturned)
+                    .setLockWaitUs(TimeUnit.NANOSECONDS.toMicros(mLockWaitNanos));
+            for (long count : mHistogram) {
+                builder.addDurationHistogram(count);
+            }
+            return builder.build();
+        }
+
+        private static int bucketOf(long durationNanos) {
+            long micros = TimeUnit.NANOSECONDS.toMicros(durationNanos);
+            if (micros <= 1) {
+                return 0;
+            }
+            return Math.min(63 - Long.numberOfLeadingZeros(micros), HISTOGRAM_BUCKET_COUNT - 1);
+        }
+    }
+}
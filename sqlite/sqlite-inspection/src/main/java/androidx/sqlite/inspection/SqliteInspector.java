@@ -43,6 +43,7 @@ import android.os.Build;
 import android.os.CancellationSignal;
 import android.util.Log;
 
+import androidx.annotation.GuardedBy;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.inspection.Connection;
@@ -60,6 +61,7 @@ import androidx.sqlite.inspection.SqliteInspectorProtocol.ErrorOccurredEvent;
 import androidx.sqlite.inspection.SqliteInspectorProtocol.ErrorOccurredResponse;
 import androidx.sqlite.inspection.SqliteInspectorProtocol.ErrorRecoverability;
 import androidx.sqlite.inspection.SqliteInspectorProtocol.Event;
+import androidx.sqlite.inspection.SqliteInspectorProtocol.GetQueryProfileCommand;
 import androidx.sqlite.inspection.SqliteInspectorProtocol.GetSchemaCommand;
 import androidx.sqlite.inspection.SqliteInspectorProtocol.GetSchemaResponse;
 import androidx.sqlite.inspection.SqliteInspectorProtocol.KeepDatabasesOpenCommand;
@@ -128,8 +130,27 @@ final class SqliteInspector extends Inspector {
             "executeInsert()J",
             "executeUpdateDelete()I");
 
+    // SQLiteQuery#fillWindow executes the query of a SQLiteCursor
+    private static final String SQLITE_QUERY_FILL_WINDOW_SIGNATURE = "fillWindow("
+            + "Landroid/database/CursorWindow;"
+            + "I"
+            + "I"
+            + "Z"
+            + ")I";
+
+    private static final String CONNECTION_POOL_CLASS_NAME =
+            "android.database.sqlite.SQLiteConnectionPool";
+
+    private static final String ACQUIRE_CONNECTION_SIGNATURE = "acquireConnection("
+            + "Ljava/lang/String;"
+            + "I"
+            + "Landroid/os/CancellationSignal;"
+            + ")Landroid/database/sqlite/SQLiteConnection;";
+
     private static final int INVALIDATION_MIN_INTERVAL_MS = 1000;
 
+    private static final int QUERY_PROFILE_MIN_INTERVAL_MS = 1000;
+
     // Note: this only works on API26+ because of pragma_* functions
     // TODO: replace with a resource file
     // language=SQLite
@@ -180,6 +201,20 @@ final class SqliteInspector extends Inspector {
     @NonNull
     private final SqlDelightInvalidation mSqlDelightInvalidation;
 
+    private final QueryProfiler mQueryProfiler = new QueryProfiler();
+
+    /**
+     * Collapses {@link GetQueryProfileCommand}s arriving in quick succession, so that the
+     * profile is built at most once per {@link #QUERY_PROFILE_MIN_INTERVAL_MS}.
+     */
+    private final RequestCollapsingThrottler mQueryProfileThrottler;
+
+    @GuardedBy("mPendingQueryProfileCallbacks")
+    private final List<CommandCallback> mPendingQueryProfileCallbacks = new ArrayList<>();
+
+    @GuardedBy("mPendingQueryProfileCallbacks")
+    private boolean mPendingQueryProfileReset = false;
+
     SqliteInspector(@NonNull Connection connection, InspectorEnvironment environment,
             Executor ioExecutor, ScheduledExecutorService scheduledExecutor) {
         super(connection);
@@ -188,6 +223,14 @@ final class SqliteInspector extends Inspector {
         mScheduledExecutor = scheduledExecutor;
         mRoomInvalidationRegistry = new RoomInvalidationRegistry(mEnvironment);
         mSqlDelightInvalidation = SqlDelightInvalidation.create(mEnvironment);
+        mQueryProfileThrottler = new RequestCollapsingThrottler(
+                QUERY_PROFILE_MIN_INTERVAL_MS,
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        dispatchQueryProfile();
+                    }
+                }, createDeferredExecutor());
 
         mDatabaseRegistry = new DatabaseRegistry(
                 new DatabaseRegistry.Callback() {
@@ -221,6 +264,9 @@ final class SqliteInspector extends Inspector {
                 case KEEP_DATABASES_OPEN:
                     handleKeepDatabasesOpen(command.getKeepDatabasesOpen(), callback);
                     break;
+                case GET_QUERY_PROFILE:
+                    handleGetQueryProfile(command.getGetQueryProfile(), callback);
+                    break;
                 default:
                     callback.reply(
                         createErrorOccurredResponse(
@@ -255,6 +301,7 @@ final class SqliteInspector extends Inspector {
 
         registerInvalidationHooks(hookRegistry);
         registerDatabaseClosedHooks(hookRegistry);
+        registerQueryProfilerHooks(hookRegistry);
 
         // Check for database instances in memory
         for (SQLiteDatabase instance : mEnvironment.findInstances(SQLiteDatabase.class)) {
@@ -340,23 +387,25 @@ final class SqliteInspector extends Inspector {
                 });
     }
 
-    private void registerInvalidationHooks(EntryExitMatchingHookRegistry hookRegistry) {
-        /**
-         * Schedules a task using {@link mScheduledExecutor} and executes it on {@link mIOExecutor}.
-         **/
-        final RequestCollapsingThrottler.DeferredExecutor deferredExecutor =
-                new RequestCollapsingThrottler.DeferredExecutor() {
+    /**
+     * Schedules a task using {@link #mScheduledExecutor} and executes it on {@link #mIOExecutor}.
+     */
+    private RequestCollapsingThrottler.DeferredExecutor createDeferredExecutor() {
+        return new RequestCollapsingThrottler.DeferredExecutor() {
+            @Override
+            @SuppressWarnings("FutureReturnValueIgnored") // TODO: handle errors from Future
+            public void schedule(final Runnable command, final long delayMs) {
+                mScheduledExecutor.schedule(new Runnable() {
                     @Override
-                    @SuppressWarnings("FutureReturnValueIgnored") // TODO: handle errors from Future
-                    public void schedule(final Runnable command, final long delayMs) {
-                        mScheduledExecutor.schedule(new Runnable() {
-                            @Override
-                            public void run() {
-                                mIOExecutor.execute(command);
-                            }
-                        }, delayMs, TimeUnit.MILLISECONDS);
+                    public void run() {
+                        mIOExecutor.execute(command);
                     }
-                };
+                }, delayMs, TimeUnit.MILLISECONDS);
+            }
+        };
+    }
+
+    private void registerInvalidationHooks(EntryExitMatchingHookRegistry hookRegistry) {
         final RequestCollapsingThrottler throttler = new RequestCollapsingThrottler(
                 INVALIDATION_MIN_INTERVAL_MS,
                 new Runnable() {
@@ -364,9 +413,9 @@ final class SqliteInspector extends Inspector {
                     public void run() {
                         dispatchDatabasePossiblyChangedEvent();
                     }
-                }, deferredExecutor);
+                }, createDeferredExecutor());
 
-        registerInvalidationHooksSqliteStatement(throttler);
+        registerInvalidationHooksSqliteStatement(throttler, hookRegistry);
         registerInvalidationHooksTransaction(throttler);
         registerInvalidationHooksSQLiteCursor(throttler, hookRegistry);
     }
@@ -396,16 +445,18 @@ final class SqliteInspector extends Inspector {
      *     <li>{@link SQLiteStatement#executeInsert}</li>
      *     <li>{@link SQLiteStatement#executeUpdateDelete}</li>
      * </ul>
+     * The same hooks record statement executions in {@link #mQueryProfiler}.
      */
     private void registerInvalidationHooksSqliteStatement(
-            final RequestCollapsingThrottler throttler) {
+            final RequestCollapsingThrottler throttler,
+            EntryExitMatchingHookRegistry hookRegistry) {
         for (String method : SQLITE_STATEMENT_EXECUTE_METHODS_SIGNATURES) {
-            mEnvironment.registerExitHook(SQLiteStatement.class, method,
-                    new InspectorEnvironment.ExitHook<Object>() {
+            hookRegistry.registerHook(SQLiteStatement.class, method,
+                    new EntryExitMatchingHookRegistry.OnExitCallback() {
                         @Override
-                        public Object onExit(Object result) {
+                        public void onExit(EntryExitMatchingHookRegistry.Frame exitFrame) {
+                            mQueryProfiler.onStatementExecuted(exitFrame);
                             throttler.submitRequest();
-                            return result;
                         }
                     });
         }
@@ -462,6 +513,41 @@ final class SqliteInspector extends Inspector {
         }
     }
 
+    /**
+     * Profiling hooks in addition to the {@link SQLiteStatement} ones registered in
+     * {@link #registerInvalidationHooksSqliteStatement}:
+     * <ul>
+     *     <li>{@code SQLiteQuery#fillWindow(CursorWindow, int, int, boolean)} executing cursor
+     *     queries</li>
+     *     <li>{@code SQLiteConnectionPool#acquireConnection} measuring the time spent waiting for
+     *     a connection</li>
+     * </ul>
+     */
+    private void registerQueryProfilerHooks(EntryExitMatchingHookRegistry hookRegistry) {
+        hookRegistry.registerHook(SQLiteQuery.class, SQLITE_QUERY_FILL_WINDOW_SIGNATURE,
+                new EntryExitMatchingHookRegistry.OnExitCallback() {
+                    @Override
+                    public void onExit(EntryExitMatchingHookRegistry.Frame exitFrame) {
+                        mQueryProfiler.onQueryExecuted(exitFrame);
+                    }
+                });
+
+        Class<?> connectionPoolClass;
+        try {
+            connectionPoolClass = Class.forName(CONNECTION_POOL_CLASS_NAME);
+        } catch (ClassNotFoundException e) {
+            Log.w(SqliteInspector.class.getName(), "Unable to track connection wait times", e);
+            return;
+        }
+        hookRegistry.registerHook(connectionPoolClass, ACQUIRE_CONNECTION_SIGNATURE,
+                new EntryExitMatchingHookRegistry.OnExitCallback() {
+                    @Override
+                    public void onExit(EntryExitMatchingHookRegistry.Frame exitFrame) {
+                        mQueryProfiler.onConnectionAcquired(exitFrame);
+                    }
+                });
+    }
+
     // Gets a SQLiteCursor from a passed-in Object (if possible)
     private @Nullable SQLiteCursor cursorParam(Object cursor) {
         if (cursor instanceof SQLiteCursor) {
@@ -579,6 +665,37 @@ final class SqliteInspector extends Inspector {
         mDatabaseRegistry.notifyKeepOpenToggle(keepDatabasesOpen.getSetEnabled());
     }
 
+    private void handleGetQueryProfile(GetQueryProfileCommand command,
+            CommandCallback callback) {
+        synchronized (mPendingQueryProfileCallbacks) {
+            mPendingQueryProfileCallbacks.add(callback);
+            mPendingQueryProfileReset |= command.getReset();
+        }
+        mQueryProfileThrottler.submitRequest();
+    }
+
+    /** Replies to all {@link GetQueryProfileCommand}s received since the last dispatch. */
+    private void dispatchQueryProfile() {
+        List<CommandCallback> callbacks;
+        boolean reset;
+        synchronized (mPendingQueryProfileCallbacks) {
+            callbacks = new ArrayList<>(mPendingQueryProfileCallbacks);
+            reset = mPendingQueryProfileReset;
+            mPendingQueryProfileCallbacks.clear();
+            mPendingQueryProfileReset = false;
+        }
+        if (callbacks.isEmpty()) {
+            return;
+        }
+        byte[] response = Response.newBuilder()
+                .setGetQueryProfile(mQueryProfiler.createProfile(reset))
+                .build()
+                .toByteArray();
+        for (CommandCallback callback : callbacks) {
+            callback.reply(response);
+        }
+    }
+
     @SuppressLint("Recycle") // For: "The cursor should be freed up after use with #close"
     private static Cursor rawQuery(@NonNull SQLiteDatabase database, @NonNull String queryText,
             @NonNull final String[] params, @Nullable CancellationSignal cancellationSignal) {
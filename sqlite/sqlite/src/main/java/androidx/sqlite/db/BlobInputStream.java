@@ -0,0 +1,136 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package androidx.sqlite.db;
+
+import android.database.SQLException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads a {@link SupportSQLiteBlob} sequentially.
+ * <p>
+ * A read from a blob may cost I/O proportional to the length of the whole value, rather than to
+ * the number of bytes read, so reads are buffered in chunks of {@link #CHUNK_SIZE} bytes however
+ * small the reads of the caller are.
+ */
+class BlobInputStream extends InputStream {
+    /**
+     * The size of the ranges read from or written to a blob by its streams, which is the most
+     * that {@code FrameworkSQLiteBlob} transfers with a single statement.
+     */
+    static final int CHUNK_SIZE = 1 << 20;
+
+    private final SupportSQLiteBlob mBlob;
+    private long mPosition;
+    private long mMark;
+    private byte[] mSingleByte;
+    private byte[] mBuffer;
+    // The position in the value of the first byte of mBuffer.
+    private long mBufferStart;
+    private int mBufferLength;
+
+    BlobInputStream(SupportSQLiteBlob blob) {
+        mBlob = blob;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (mSingleByte == null) {
+            mSingleByte = new byte[1];
+        }
+        return read(mSingleByte, 0, 1) == -1 ? -1 : mSingleByte[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (mPosition < mBufferStart || mPosition >= mBufferStart + mBufferLength) {
+            if (len >= CHUNK_SIZE) {
+                // The caller's buffer is at least as large as a chunk, so read into it directly.
+                final int read = readBlob(ByteBuffer.wrap(b, off, len), mPosition);
+                if (read > 0) {
+                    mPosition += read;
+                }
+                return read;
+            }
+            if (mBuffer == null) {
+                mBuffer = new byte[(int) Math.max(1, Math.min(CHUNK_SIZE, mBlob.length()))];
+            }
+            final int read = readBlob(ByteBuffer.wrap(mBuffer), mPosition);
+            if (read <= 0) {
+                return read;
+            }
+            mBufferStart = mPosition;
+            mBufferLength = read;
+        }
+        final int offset = (int) (mPosition - mBufferStart);
+        final int count = Math.min(len, mBufferLength - offset);
+        System.arraycopy(mBuffer, offset, b, off, count);
+        mPosition += count;
+        return count;
+    }
+
+    private int readBlob(ByteBuffer dst, long position) throws IOException {
+        try {
+            return mBlob.read(dst, position);
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public long skip(long n) {
+        final long skipped = Math.max(0, Math.min(n, mBlob.length() - mPosition));
+        mPosition += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0, mBlob.length() - mPosition));
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+        mMark = mPosition;
+    }
+
+    @Override
+    public synchronized void reset() {
+        mPosition = mMark;
+    }
+
+    @Override
+    public void close() throws IOException {
+        mBuffer = null;
+        mBufferLength = 0;
+        mBlob.close();
+    }
+}
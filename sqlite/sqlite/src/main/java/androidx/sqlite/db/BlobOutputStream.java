@@ -0,0 +1,102 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package androidx.sqlite.db;
+
+import android.database.SQLException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Overwrites a {@link SupportSQLiteBlob} sequentially.
+ * <p>
+ * A write to a blob may cost I/O proportional to the length of the whole value, rather than to
+ * the number of bytes written, so writes are buffered in chunks of
+ * {@link BlobInputStream#CHUNK_SIZE} bytes however small the writes of the caller are. Buffered
+ * bytes are written on {@link #flush()} and {@link #close()}.
+ */
+class BlobOutputStream extends OutputStream {
+    private final SupportSQLiteBlob mBlob;
+    // The position in the value of the first byte of mBuffer.
+    private long mPosition;
+    private byte[] mBuffer;
+    private int mCount;
+
+    BlobOutputStream(SupportSQLiteBlob blob) {
+        mBlob = blob;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (mPosition + mCount + len > mBlob.length()) {
+            throw new IOException("Cannot write past the end of a blob of length "
+                    + mBlob.length());
+        }
+        if (len >= BlobInputStream.CHUNK_SIZE) {
+            // The caller's buffer is at least as large as a chunk, so write from it directly.
+            flush();
+            mPosition += writeBlob(ByteBuffer.wrap(b, off, len), mPosition);
+            return;
+        }
+        if (mBuffer == null) {
+            mBuffer = new byte[(int) Math.max(1,
+                    Math.min(BlobInputStream.CHUNK_SIZE, mBlob.length()))];
+        }
+        if (mCount + len > mBuffer.length) {
+            flush();
+        }
+        System.arraycopy(b, off, mBuffer, mCount, len);
+        mCount += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (mCount > 0) {
+            mPosition += writeBlob(ByteBuffer.wrap(mBuffer, 0, mCount), mPosition);
+            mCount = 0;
+        }
+    }
+
+    private int writeBlob(ByteBuffer src, long position) throws IOException {
+        try {
+            return mBlob.write(src, position);
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            mBuffer = null;
+            mCount = 0;
+            mBlob.close();
+        }
+    }
+}
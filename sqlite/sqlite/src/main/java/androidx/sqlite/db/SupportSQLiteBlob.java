@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package androidx.sqlite.db;
+
+import java.io.Closeable;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A handle for incremental I/O on a single BLOB value, mimicking the behavior of SQLite's
+ * {@code sqlite3_blob_open}.
+ * <p>
+ * The value is read and written in place, a range at a time, so that large values never have to
+ * be copied into a single {@code byte[]} or through a {@link android.database.CursorWindow}.
+ * Like {@code sqlite3_blob_write}, writes cannot change the length of the value: to store a new
+ * value of known length, insert it as {@code zeroblob(length)} first and then write its content.
+ * <p>
+ * Instances are not thread safe and must be closed once they are no longer used.
+ *
+ * @see SupportSQLiteDatabase#openBlob(String, String, long, boolean)
+ */
+public interface SupportSQLiteBlob extends Closeable {
+    /**
+     * Returns the length of the value in bytes, as it was when the blob was opened.
+     *
+     * @return The length of the value.
+     */
+    long length();
+
+    /**
+     * Returns whether the blob was opened for writing.
+     *
+     * @return True if {@link #write(ByteBuffer, long)} is allowed.
+     */
+    boolean isWritable();
+
+    /**
+     * Reads bytes of the value, starting at the given position, into the given buffer.
+     * <p>
+     * Fewer bytes than the buffer has remaining may be read, in which case the caller should call
+     * this method again to read more.
+     *
+     * @param dst      The buffer to read into.
+     * @param position The offset within the value to start reading from.
+     * @return The number of bytes read, or -1 if {@code position} is at or past the end of the
+     * value.
+     * @throws android.database.SQLException If the row or its value no longer exists.
+     */
+    int read(ByteBuffer dst, long position);
+
+    /**
+     * Writes the remaining bytes of the given buffer into the value, starting at the given
+     * position.
+     *
+     * @param src      The buffer to write from.
+     * @param position The offset within the value to start writing at.
+     * @return The number of bytes written.
+     * @throws IllegalArgumentException If the write would go past the end of the value.
+     * @throws IllegalStateException    If the blob was not opened for writing.
+     * @throws android.database.SQLException If the row or its value no longer exists.
+     */
+    int write(ByteBuffer src, long position);
+
+    /**
+     * Returns an {@link InputStream} that reads the value from its start. Closing the stream
+     * closes this blob.
+     *
+     * @return A stream reading this blob.
+     */
+    default InputStream openInputStream() {
+        return new BlobInputStream(this);
+    }
+
+    /**
+     * Returns an {@link OutputStream} that overwrites the value from its start. Closing the
+     * stream closes this blob.
+     *
+     * @return A stream writing this blob.
+     */
+    default OutputStream openOutputStream() {
+        return new BlobOutputStream(this);
+    }
+}
@@ -309,6 +309,33 @@ public interface SupportSQLiteDatabase extends Closeable {
     @RequiresApi(api = Build.VERSION_CODES.JELLY_BEAN)
     Cursor query(SupportSQLiteQuery query, CancellationSignal cancellationSignal);
 
+    /**
+     * Runs the given query on the database, filling its rows into cursor windows of the given
+     * size.
+     * <p>
+     * A cursor holds its rows in a window, and moving past the end of the window runs the query
+     * again to fill the next one, stepping over all the rows before it. Reading a large result
+     * to the end thus takes time quadratic in its number of windows, which a window large enough
+     * to hold the whole result avoids.
+     * <p>
+     * The default implementation ignores the window size.
+     *
+     * @param query The SQL query that includes the query and can bind into a given compiled
+     *              program.
+     * @param cancellationSignal A signal to cancel the operation in progress, or null if none.
+     * It is ignored below API 16.
+     * @param cursorWindowSize The size of the cursor windows in bytes.
+     * @return A {@link Cursor} object, which is positioned before the first entry. Note that
+     * {@link Cursor}s are not synchronized, see the documentation for more details.
+     */
+    default Cursor query(SupportSQLiteQuery query, CancellationSignal cancellationSignal,
+            long cursorWindowSize) {
+        if (cancellationSignal != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            return query(query, cancellationSignal);
+        }
+        return query(query);
+    }
+
     /**
      * Convenience method for inserting a row into the database.
      *
@@ -603,4 +630,27 @@ public interface SupportSQLiteDatabase extends Closeable {
      * false otherwise.
      */
     boolean isDatabaseIntegrityOk();
+
+    /**
+     * Opens a handle for incremental I/O on the BLOB or TEXT value stored in the given column of
+     * the given row, mimicking {@code sqlite3_blob_open}.
+     * <p>
+     * Reads and writes through the returned blob only ever hold a bounded range of the value in
+     * memory, which allows storing and loading values that are too large to copy as a whole.
+     * Writes through a blob are not atomic unless they are done within a transaction.
+     * <p>
+     * The default implementation throws {@link UnsupportedOperationException}.
+     *
+     * @param table    The name of the table holding the value.
+     * @param column   The name of the column holding the value.
+     * @param rowId    The rowid of the row holding the value.
+     * @param writable True to allow writing to the value.
+     * @return A handle on the value, which must be closed once it is no longer used.
+     * @throws SQLException If the row does not exist or its value is neither a BLOB nor TEXT.
+     * @throws UnsupportedOperationException If this database does not support incremental I/O.
+     */
+    default SupportSQLiteBlob openBlob(String table, String column, long rowId,
+            boolean writable) {
+        throw new UnsupportedOperationException("Incremental blob I/O is not supported");
+    }
 }